@@ -0,0 +1,146 @@
+package com.stata.sfi;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Stand-in for the Stata Java API Data class used by the benchmarks.  The
+ * stand-in represents an empty dataset; its methods allow the plugin
+ * sources to compile without the Stata Java API.
+ */
+public class Data {
+
+	/***
+	 * Missing value used by the stand-in
+	 */
+	private static final double MISSING = Double.MAX_VALUE;
+
+	/***
+	 * Gets the number of variables passed to the plugin
+	 * @return The number of parsed variables
+	 */
+	public static int getParsedVarCount() {
+		return 0;
+	}
+
+	/***
+	 * Maps a parsed variable to its index in the dataset
+	 * @param var The index of the parsed variable
+	 * @return The index of the variable in the dataset
+	 */
+	public static int mapParsedVarIndex(int var) {
+		return var;
+	}
+
+	/***
+	 * Gets the index of a variable
+	 * @param name The name of the variable
+	 * @return The index of the variable or a negative value if not found
+	 */
+	public static int getVarIndex(String name) {
+		return -111;
+	}
+
+	/***
+	 * Checks whether a variable is a string variable
+	 * @param var The index of the variable
+	 * @return False for every variable
+	 */
+	public static boolean isVarTypeStr(int var) {
+		return false;
+	}
+
+	/***
+	 * Gets the name of a variable
+	 * @param var The index of the variable
+	 * @return An empty string
+	 */
+	public static String getVarName(int var) {
+		return "";
+	}
+
+	/***
+	 * Gets the number of observations in the dataset
+	 * @return Zero observations
+	 */
+	public static long getObsTotal() {
+		return 0;
+	}
+
+	/***
+	 * Gets the first observation in the in range
+	 * @return The first observation
+	 */
+	public static long getObsParsedIn1() {
+		return 1;
+	}
+
+	/***
+	 * Gets the last observation in the in range
+	 * @return The last observation
+	 */
+	public static long getObsParsedIn2() {
+		return 0;
+	}
+
+	/***
+	 * Checks whether an observation satisfies the if condition
+	 * @param obs The observation number
+	 * @return True for every observation
+	 */
+	public static boolean isParsedIfTrue(long obs) {
+		return true;
+	}
+
+	/***
+	 * Gets a string value
+	 * @param var The index of the variable
+	 * @param obs The observation number
+	 * @return An empty string
+	 */
+	public static String getStr(int var, long obs) {
+		return "";
+	}
+
+	/***
+	 * Gets a numeric value
+	 * @param var The index of the variable
+	 * @param obs The observation number
+	 * @return A missing value
+	 */
+	public static double getNum(int var, long obs) {
+		return MISSING;
+	}
+
+	/***
+	 * Stores a string value
+	 * @param var The index of the variable
+	 * @param obs The observation number
+	 * @param value The value to store
+	 * @return A return code of 0
+	 */
+	public static int storeStr(int var, long obs, String value) {
+		return 0;
+	}
+
+	/***
+	 * Stores a numeric value
+	 * @param var The index of the variable
+	 * @param obs The observation number
+	 * @param value The value to store
+	 * @return A return code of 0
+	 */
+	public static int storeNum(int var, long obs, double value) {
+		return 0;
+	}
+
+	/***
+	 * Checks whether a value is missing
+	 * @param value The value to check
+	 * @return True if the value is missing
+	 */
+	public static boolean isValueMissing(double value) {
+		return value >= MISSING;
+	}
+
+} // End of Class declaration
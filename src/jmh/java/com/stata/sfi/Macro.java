@@ -0,0 +1,75 @@
+package com.stata.sfi;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Stand-in for the Stata Java API Macro class used by the benchmarks.  Local
+ * macros are stored in a HashMap so the cost of ColorTerp.toStata can be
+ * measured without a running instance of Stata.
+ */
+public class Macro {
+
+	/***
+	 * Storage for local macros
+	 */
+	private static final Map<String, String> LOCALS = new HashMap<>();
+
+	/***
+	 * Storage for global macros
+	 */
+	private static final Map<String, String> GLOBALS = new HashMap<>();
+
+	/***
+	 * Sets the value of a local macro
+	 * @param name The name of the macro
+	 * @param value The value of the macro
+	 * @return A return code of 0
+	 */
+	public static int setLocal(String name, String value) {
+		LOCALS.put(name, value);
+		return 0;
+	}
+
+	/***
+	 * Gets the value of a local macro
+	 * @param name The name of the macro
+	 * @return The value of the macro or null if it is not defined
+	 */
+	public static String getLocal(String name) {
+		return LOCALS.get(name);
+	}
+
+	/***
+	 * Gets the value of a local macro
+	 * @param name The name of the macro
+	 * @return The value of the macro or null if it is not defined
+	 */
+	public static String getLocalSafe(String name) {
+		return LOCALS.get(name);
+	}
+
+	/***
+	 * Sets the value of a global macro
+	 * @param name The name of the macro
+	 * @param value The value of the macro
+	 * @return A return code of 0
+	 */
+	public static int setGlobal(String name, String value) {
+		GLOBALS.put(name, value);
+		return 0;
+	}
+
+	/***
+	 * Gets the value of a global macro
+	 * @param name The name of the macro
+	 * @return The value of the macro or null if it is not defined
+	 */
+	public static String getGlobal(String name) {
+		return GLOBALS.get(name);
+	}
+
+} // End of Class declaration
@@ -0,0 +1,116 @@
+package com.stata.sfi;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Stand-in for the Stata Java API Matrix class used by the benchmarks.
+ * Matrices are stored in a HashMap as row major arrays so the cost of
+ * ColorTerp.interpmatrix can be measured without a running instance of
+ * Stata.
+ */
+public class Matrix {
+
+	/***
+	 * Storage for the values of each matrix
+	 */
+	private static final Map<String, double[]> VALUES = new HashMap<>();
+
+	/***
+	 * Storage for the number of columns of each matrix
+	 */
+	private static final Map<String, Integer> COLS = new HashMap<>();
+
+	/***
+	 * Storage for the column names of each matrix
+	 */
+	private static final Map<String, String[]> COLNAMES = new HashMap<>();
+
+	/***
+	 * Creates or replaces a matrix
+	 * @param name The name of the matrix
+	 * @param rows The number of rows
+	 * @param cols The number of columns
+	 * @param initialValue The value of every element
+	 * @return A return code of 0
+	 */
+	public static int createMatrix(String name, int rows, int cols,
+								   double initialValue) {
+		double[] values = new double[rows * cols];
+		Arrays.fill(values, initialValue);
+		VALUES.put(name, values);
+		COLS.put(name, cols);
+		COLNAMES.remove(name);
+		return 0;
+	}
+
+	/***
+	 * Stores the elements of a matrix in row major order
+	 * @param name The name of the matrix
+	 * @param values The values of the elements
+	 * @return A return code of 0 or 111 if the matrix does not exist and
+	 * 503 if the number of values does not match its dimensions
+	 */
+	public static int storeMatrix(String name, double[] values) {
+		double[] m = VALUES.get(name);
+		if (m == null) return 111;
+		if (m.length != values.length) return 503;
+		System.arraycopy(values, 0, m, 0, values.length);
+		return 0;
+	}
+
+	/***
+	 * Sets the column names of a matrix
+	 * @param name The name of the matrix
+	 * @param colNames The names of the columns
+	 * @return A return code of 0 or 111 if the matrix does not exist
+	 */
+	public static int setMatrixColNames(String name, String[] colNames) {
+		if (!VALUES.containsKey(name)) return 111;
+		COLNAMES.put(name, colNames.clone());
+		return 0;
+	}
+
+	/***
+	 * Gets the elements of a matrix in row major order
+	 * @param name The name of the matrix
+	 * @return The values of the elements or null if it does not exist
+	 */
+	public static double[] getMatrix(String name) {
+		return VALUES.get(name);
+	}
+
+	/***
+	 * Gets the number of rows of a matrix
+	 * @param name The name of the matrix
+	 * @return The number of rows or a negative value if it does not exist
+	 */
+	public static int getMatrixRowTotal(String name) {
+		double[] m = VALUES.get(name);
+		return m == null ? -111 : m.length / COLS.get(name);
+	}
+
+	/***
+	 * Gets the number of columns of a matrix
+	 * @param name The name of the matrix
+	 * @return The number of columns or a negative value if it does not exist
+	 */
+	public static int getMatrixColTotal(String name) {
+		Integer cols = COLS.get(name);
+		return cols == null ? -111 : cols;
+	}
+
+	/***
+	 * Gets the column names of a matrix
+	 * @param name The name of the matrix
+	 * @return The names of the columns or null if they were not set
+	 */
+	public static String[] getMatrixColNames(String name) {
+		return COLNAMES.get(name);
+	}
+
+} // End of Class declaration
@@ -0,0 +1,28 @@
+package com.stata.sfi;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Stand-in for the Stata Java API SFIToolkit class used by the benchmarks.
+ * Messages are written to the standard output and error streams.
+ */
+public class SFIToolkit {
+
+	/***
+	 * Displays a line of text
+	 * @param s The text to display
+	 */
+	public static void displayln(String s) {
+		System.out.println(s);
+	}
+
+	/***
+	 * Displays a line of text as an error
+	 * @param s The text to display
+	 */
+	public static void errorln(String s) {
+		System.err.println(s);
+	}
+
+} // End of Class declaration
@@ -0,0 +1,81 @@
+package org.paces.stata;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Benchmarks for computing the distances between the starting and ending
+ * colors with the running sum and the positions of the colors with the
+ * exact and uniform spacing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+
+	/***
+	 * Number of points to interpolate
+	 */
+	@Param({ "3", "100", "10000", "1000000" })
+	public int points;
+
+	/***
+	 * ColorTerp object used to compute the distances
+	 */
+	private ColorTerp terp;
+
+	/***
+	 * Compiled palette with the exact spacing
+	 */
+	private PaletteSpec exact;
+
+	/***
+	 * Creates the ColorTerp object and the compiled palette
+	 */
+	@Setup
+	public void setup() {
+		terp = new ColorTerp(new String[]{ "rgb", "rgb", "197 115 47",
+				"5 37 249", "1", "", "false", "false" });
+		exact = PaletteSpec.builder().start("197 115 47").end("5 37 249")
+				.points(points).spacing(Spacing.EXACT).build();
+	}
+
+	/***
+	 * Benchmark for computing the distances
+	 * @return The array of distances
+	 */
+	@Benchmark
+	public double[] setDistances() {
+		terp.setDistances(points);
+		return terp.getDists();
+	}
+
+	/***
+	 * Benchmark for computing the positions with the exact spacing
+	 * @return The array of positions
+	 */
+	@Benchmark
+	public double[] exactPositions() {
+		return exact.positions();
+	}
+
+	/***
+	 * Benchmark for building the color difference table and computing the
+	 * positions with the uniform spacing
+	 * @return The array of positions
+	 */
+	@Benchmark
+	public double[] uniformPositions() {
+		return PaletteSpec.builder().start("197 115 47").end("5 37 249")
+				.stops("247 247 247").points(points).spacing(Spacing.UNIFORM)
+				.build().positions();
+	}
+
+} // End of Class declaration
@@ -0,0 +1,62 @@
+package org.paces.stata;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Benchmarks for interpolating palettes with chains of color modifications.
+ * The channel values are interpolated sequentially without formatting them,
+ * so the difference between the chains reflects the cost of the per-point
+ * kernel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModifierBenchmark {
+
+	/***
+	 * Chain of color modifications
+	 */
+	@Param({ "none", "darker", "darker invert grayscale",
+			"brighter:0.8 saturated:0.5 invert grayscale" })
+	public String modifiers;
+
+	/***
+	 * Number of points to interpolate
+	 */
+	@Param({ "100", "10000", "1000000" })
+	public int points;
+
+	/***
+	 * Compiled palette used for the benchmarks
+	 */
+	private PaletteSpec spec;
+
+	/***
+	 * Compiles the palette
+	 */
+	@Setup
+	public void setup() {
+		spec = PaletteSpec.builder().start("197 115 47").end("5 37 249")
+				.points(points).modifiers("none".equals(modifiers) ?
+						ModifierChain.NONE : ModifierChain.parse(modifiers))
+				.cache(false).threshold(-1).build();
+	}
+
+	/***
+	 * Benchmark for interpolating and modifying the channel values
+	 * @return The channel values
+	 */
+	@Benchmark
+	public double[] channels() {
+		return spec.channels();
+	}
+
+} // End of Class declaration
@@ -0,0 +1,107 @@
+package org.paces.stata;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Benchmarks for labeling each color of a palette with the nearest named
+ * color: the grid of ColorNames (grid) and a scan of every named color
+ * for each color of the palette (scan).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NamesBenchmark {
+
+	/***
+	 * Number of colors
+	 */
+	@Param({ "256", "100000" })
+	public int colors;
+
+	/***
+	 * Channel values of the palette
+	 */
+	private double[] channels;
+
+	/***
+	 * Names and CIELAB coordinates of the named colors used by the scan
+	 */
+	private String[] names;
+	private double[] lab;
+
+	/***
+	 * Interpolates the palette and computes the coordinates of the named
+	 * colors
+	 */
+	@Setup
+	public void setup() {
+		channels = PaletteSpec.parse(new String[]{ "rgb", "rgb", "255 0 0",
+				"0 0 255", String.valueOf(colors - 2), "", "false", "false",
+				"stops=255 255 0;0 255 0;0 255 255", "cache=false" }).channels();
+		Map<String, Color> named = Color.namedColors();
+		List<String> sorted = new ArrayList<>();
+		for (Map.Entry<String, Color> e : named.entrySet()) {
+			if (e.getValue().getOpacity() == 1) sorted.add(e.getKey());
+		}
+		Collections.sort(sorted);
+		names = sorted.toArray(new String[0]);
+		lab = new double[3 * names.length];
+		double[] c = new double[3];
+		for (int i = 0; i < names.length; i++) {
+			Color col = named.get(names[i]);
+			TerpSpace.LAB.encode(col.getRed(), col.getGreen(), col.getBlue(), c);
+			System.arraycopy(c, 0, lab, 3 * i, 3);
+		}
+	}
+
+	/***
+	 * Benchmark for the lookups with the grid
+	 * @param bh The blackhole consuming the names
+	 */
+	@Benchmark
+	public void grid(Blackhole bh) {
+		double[] distance = new double[1];
+		for (int j = 0; j < channels.length; j += 4) {
+			bh.consume(ColorNames.nearest(channels[j], channels[j + 1],
+					channels[j + 2], distance));
+		}
+	}
+
+	/***
+	 * Benchmark for the lookups with a scan of every named color
+	 * @param bh The blackhole consuming the names
+	 */
+	@Benchmark
+	public void scan(Blackhole bh) {
+		double[] c = new double[3];
+		for (int j = 0; j < channels.length; j += 4) {
+			TerpSpace.LAB.encode(channels[j], channels[j + 1], channels[j + 2], c);
+			double best = Double.POSITIVE_INFINITY;
+			int arg = -1;
+			for (int i = 0; i < names.length; i++) {
+				double dl = lab[3 * i] - c[0], da = lab[3 * i + 1] - c[1];
+				double db = lab[3 * i + 2] - c[2];
+				double d = dl * dl + da * da + db * db;
+				if (d < best) {
+					best = d;
+					arg = i;
+				}
+			}
+			bh.consume(names[arg]);
+		}
+	}
+
+} // End of Class declaration
@@ -0,0 +1,213 @@
+package org.paces.stata;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Benchmarks for interpolating, formatting, and exporting palettes in each
+ * of the returned color spaces.  Each benchmark covers a single phase:
+ * setTColors (interpolation and formatting), getColorString and encode
+ * (formatting only, selecting the encoder for each color or once),
+ * getPalette (served from the session cache after the first call for
+ * palettes within its capacity), palette (streaming the colors from a lazy
+ * view without materializing them), store (formatting the colors from the
+ * mapped persistent store, where the palette is added by the setup),
+ * toStata (exporting to the stand-in Macro class), and interpcolors and
+ * interpmatrix (the whole call returning the colors in local macros or in
+ * a matrix of the stand-in Matrix class without the session cache).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaletteBenchmark {
+
+	/***
+	 * Returned color space
+	 */
+	@Param({ "rgb", "rgba", "srgb", "srgba", "hsb", "hsba", "web", "weba",
+			"hex", "hexa" })
+	public String retspace;
+
+	/***
+	 * Number of points to interpolate
+	 */
+	@Param({ "3", "100", "10000", "1000000" })
+	public int points;
+
+	/***
+	 * ColorTerp object used for the benchmarks
+	 */
+	private ColorTerp terp;
+
+	/***
+	 * Interpolated channel values (red, green, blue, and opacity) used for
+	 * the formatting benchmark
+	 */
+	private double[] channels;
+
+	/***
+	 * Encoder for the returned color space
+	 */
+	private ColorEncoder encoder;
+
+	/***
+	 * Spec that looks up the palette in a temporary persistent store
+	 */
+	private PaletteSpec stored;
+
+	/***
+	 * Arguments of interpcolors and interpmatrix (after the matrix name)
+	 */
+	private String[] args, margs;
+
+	/***
+	 * Creates the ColorTerp object, distances, and interpolated colors
+	 */
+	@Setup
+	public void setup() {
+
+		// Creates the object and the distances for the number of points
+		terp = new ColorTerp(new String[]{ "rgb", retspace, "197 115 47",
+				"5 37 249", "1", "", "false", "false" });
+		terp.setDistances(points);
+
+		// Interpolated colors used by the toStata benchmark
+		terp.setTColors(terp.getStart(), terp.getEnd(), terp.getDists(),
+				false, false, false, false, false, retspace, false);
+
+		// Interpolated channel values used by the formatting benchmark
+		TerpEngine engine = new TerpEngine(ColorTerp.channels(terp.getStart()),
+				ColorTerp.channels(terp.getEnd()));
+		double[] buf = new double[4];
+		channels = new double[points * 4];
+		for (int i = 0; i < points; i++) {
+			engine.interpolate(terp.getDists()[i], buf);
+			System.arraycopy(buf, 0, channels, i * 4, 4);
+		}
+
+		// Encoder used by the encode benchmark
+		encoder = terp.getEncoder(retspace);
+
+		// Arguments of the whole calls without the session cache
+		args = new String[]{ "rgb", retspace, "197 115 47", "5 37 249",
+				String.valueOf(points - 2), "", "false", "false", "cache=false" };
+		margs = new String[args.length + 1];
+		margs[0] = "palette";
+		System.arraycopy(args, 0, margs, 1, args.length);
+
+		// Adds the palette to a temporary store used by the store benchmark
+		try {
+			File file = File.createTempFile("brewterpolate", ".store");
+			file.delete();
+			file.deleteOnExit();
+			stored = PaletteSpec.builder().inSpace(ColorSpace.RGB)
+					.retSpace(ColorSpace.fromString(retspace))
+					.start("197 115 47").end("5 37 249").points(points)
+					.store(file.getPath()).build();
+			stored.getChannels();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+	} // End of Method declaration
+
+	/***
+	 * Benchmark for interpolating and formatting the colors
+	 * @return The formatted colors
+	 */
+	@Benchmark
+	public String[] setTColors() {
+		terp.setTColors(terp.getStart(), terp.getEnd(), terp.getDists(),
+				false, false, false, false, false, retspace, false);
+		return terp.getTColors();
+	}
+
+	/***
+	 * Benchmark for formatting previously interpolated colors
+	 * @param bh Blackhole used to consume the formatted colors
+	 */
+	@Benchmark
+	public void getColorString(Blackhole bh) {
+		for (int i = 0; i < channels.length; i += 4) {
+			bh.consume(terp.getColorString(channels[i], channels[i + 1],
+					channels[i + 2], channels[i + 3], retspace));
+		}
+	}
+
+	/***
+	 * Benchmark for formatting previously interpolated colors with an
+	 * encoder selected once
+	 * @param bh Blackhole used to consume the formatted colors
+	 */
+	@Benchmark
+	public void encode(Blackhole bh) {
+		for (int i = 0; i < channels.length; i += 4) {
+			bh.consume(encoder.encode(channels[i], channels[i + 1],
+					channels[i + 2], channels[i + 3]));
+		}
+	}
+
+	/***
+	 * Benchmark for getting the palette through the session cache
+	 * @return The starting and interpolated colors
+	 */
+	@Benchmark
+	public String[] getPalette() {
+		return terp.getPalette();
+	}
+
+	/***
+	 * Benchmark for streaming the colors from a lazy view
+	 * @param bh Blackhole used to consume the formatted colors
+	 */
+	@Benchmark
+	public void palette(Blackhole bh) {
+		for (String color : terp.palette()) bh.consume(color);
+	}
+
+	/***
+	 * Benchmark for formatting the colors from the persistent store
+	 * @param bh Blackhole used to consume the formatted colors
+	 */
+	@Benchmark
+	public void store(Blackhole bh) {
+		for (String color : stored.getColors()) bh.consume(color);
+	}
+
+	/***
+	 * Benchmark for exporting the formatted colors to local macros
+	 */
+	@Benchmark
+	public void toStata() {
+		terp.toStata(terp.getTColors());
+	}
+
+	/***
+	 * Benchmark for returning the colors in local macros
+	 * @return The Stata return code
+	 */
+	@Benchmark
+	public int interpcolors() {
+		return ColorTerp.interpcolors(args);
+	}
+
+	/***
+	 * Benchmark for returning the components of the colors in a matrix
+	 * @return The Stata return code
+	 */
+	@Benchmark
+	public int interpmatrix() {
+		return ColorTerp.interpmatrix(margs);
+	}
+
+} // End of Class declaration
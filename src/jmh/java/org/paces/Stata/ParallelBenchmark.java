@@ -0,0 +1,80 @@
+package org.paces.stata;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Benchmarks for interpolating large palettes sequentially and in parallel.
+ * A threshold of -1 always interpolates sequentially and a threshold of 0
+ * always splits the palette across the common ForkJoinPool, which can be
+ * used to choose the default threshold for a machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+
+	/***
+	 * Number of points at or above which the colors are interpolated in
+	 * parallel
+	 */
+	@Param({ "-1", "0" })
+	public String threshold;
+
+	/***
+	 * Number of points to interpolate
+	 */
+	@Param({ "10000", "100000", "1000000", "10000000" })
+	public int points;
+
+	/***
+	 * Returned color space
+	 */
+	@Param({ "rgb", "srgb" })
+	public String retspace;
+
+	/***
+	 * ColorTerp object used for the benchmarks
+	 */
+	private ColorTerp terp;
+
+	/***
+	 * Creates the ColorTerp object and distances
+	 */
+	@Setup
+	public void setup() {
+		terp = new ColorTerp(new String[]{ "rgb", retspace, "197 115 47",
+				"5 37 249", "1", "", "false", "false",
+				"threshold=" + threshold });
+		terp.setDistances(points);
+	}
+
+	/***
+	 * Benchmark for interpolating and formatting the colors
+	 * @return The formatted colors
+	 */
+	@Benchmark
+	public String[] setTColors() {
+		terp.setTColors(terp.getAnchors(), terp.getPositions(),
+				terp.getTerpSpace(), terp.getDists(), false, false, false,
+				false, false, retspace, false);
+		return terp.getTColors();
+	}
+
+	/***
+	 * Benchmark for interpolating the channel values without formatting
+	 * @return The channel values
+	 */
+	@Benchmark
+	public double[] getTChannels() {
+		return terp.getTChannels();
+	}
+
+} // End of Class declaration
@@ -0,0 +1,135 @@
+package org.paces.stata;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Benchmarks for parsing the starting and ending colors in each of the
+ * input color spaces and for parsing a list of 1,000 colors in the input
+ * color space (e.g., the stops of a gradient or a variable of hex codes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	/***
+	 * Input color space
+	 */
+	@Param({ "rgb", "rgba", "srgb", "srgba", "hsb", "hsba", "web", "weba",
+			"hex", "hexa" })
+	public String inspace;
+
+	/***
+	 * Starting color string in the input color space
+	 */
+	private String start;
+
+	/***
+	 * Ending color string in the input color space
+	 */
+	private String end;
+
+	/***
+	 * Semicolon delimited list of colors in the input color space
+	 */
+	private String list;
+
+	/***
+	 * ColorTerp object used to parse the colors
+	 */
+	private ColorTerp terp;
+
+	/***
+	 * Sets the color strings for the input color space
+	 */
+	@Setup
+	public void setup() {
+
+		// Color strings in each of the input color spaces
+		switch (inspace) {
+			case "rgb":
+				start = "197 115 47";
+				end = "5 37 249";
+				break;
+			case "rgba":
+				start = "197 115 47 1";
+				end = "5 37 249 0";
+				break;
+			case "srgb":
+				start = "0.772549 0.450980 0.184314";
+				end = "0.019608 0.145098 0.976471";
+				break;
+			case "srgba":
+				start = "0.772549 0.450980 0.184314 1.0";
+				end = "0.019608 0.145098 0.976471 0.5";
+				break;
+			case "hsb":
+				start = "27.2 0.761421 0.772549";
+				end = "232.4 0.979920 0.976471";
+				break;
+			case "hsba":
+				start = "27.2 0.761421 0.772549 1.0";
+				end = "232.4 0.979920 0.976471 0.5";
+				break;
+			case "weba":
+			case "hexa":
+				start = "c5732f 1.0";
+				end = "0525f9 0.5";
+				break;
+			default:
+				start = "#c5732f";
+				end = "#0525f9";
+				break;
+		}
+
+		// List alternating between the starting and ending colors
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			sb.append(i % 2 == 0 ? start : end).append(';');
+		}
+		list = sb.toString();
+
+		// Object used to parse the colors
+		terp = new ColorTerp(new String[]{ inspace, "rgb", start, end, "1",
+				"", "false", "false" });
+
+	} // End of Method declaration
+
+	/***
+	 * Benchmark for parsing the starting color
+	 * @return The parsed color
+	 */
+	@Benchmark
+	public Color setStart() {
+		terp.setStart(start, inspace);
+		return terp.getStart();
+	}
+
+	/***
+	 * Benchmark for parsing the ending color
+	 * @return The parsed color
+	 */
+	@Benchmark
+	public Color setEnd() {
+		terp.setEnd(end, inspace);
+		return terp.getEnd();
+	}
+
+	/***
+	 * Benchmark for parsing a list of 1,000 colors
+	 * @return The parsed colors
+	 */
+	@Benchmark
+	public Color[] parseList() {
+		return ColorParser.parseList(list, ';', inspace);
+	}
+
+} // End of Class declaration
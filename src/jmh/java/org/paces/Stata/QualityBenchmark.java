@@ -0,0 +1,85 @@
+package org.paces.stata;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Benchmarks for the quality metrics of a palette: the full matrix of every
+ * pair of colors computed with the tiles on the common ForkJoinPool
+ * (fullParallel) or in the calling thread (fullSequential) and the metric
+ * of adjacent colors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QualityBenchmark {
+
+	/***
+	 * Metric computed for each pair
+	 */
+	@Param({ "deltae", "contrast" })
+	public String metric;
+
+	/***
+	 * Number of colors
+	 */
+	@Param({ "16", "256", "2048" })
+	public int colors;
+
+	/***
+	 * Metrics of the palette
+	 */
+	private PaletteQuality quality;
+
+	/***
+	 * Parsed metric
+	 */
+	private PaletteQuality.Metric m;
+
+	/***
+	 * Interpolates the palette and computes the coordinates of each color
+	 */
+	@Setup
+	public void setup() {
+		PaletteSpec spec = PaletteSpec.parse(new String[]{ "rgb", "rgb",
+				"202 0 32", "5 113 176", String.valueOf(colors - 2), "",
+				"false", "false", "stops=247 247 247", "cache=false" });
+		quality = new PaletteQuality(spec.channels());
+		m = PaletteQuality.Metric.fromString(metric);
+	}
+
+	/***
+	 * Benchmark for the full matrix with the tiles computed in parallel
+	 * @return The metrics
+	 */
+	@Benchmark
+	public PaletteQuality.Result fullParallel() {
+		return quality.full(m, 0);
+	}
+
+	/***
+	 * Benchmark for the full matrix computed in the calling thread
+	 * @return The metrics
+	 */
+	@Benchmark
+	public PaletteQuality.Result fullSequential() {
+		return quality.full(m, -1);
+	}
+
+	/***
+	 * Benchmark for the metrics of adjacent colors
+	 * @return The metrics
+	 */
+	@Benchmark
+	public PaletteQuality.Result adjacent() {
+		return quality.adjacent(m);
+	}
+
+} // End of Class declaration
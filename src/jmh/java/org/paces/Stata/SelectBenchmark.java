@@ -0,0 +1,115 @@
+package org.paces.stata;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Benchmarks for selecting maximally distinct colors from a dense gradient:
+ * building the k-d tree (build), farthest point sampling with the tree
+ * (select), and the same sampling with a scan of every candidate for each
+ * selected color (scan).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectBenchmark {
+
+	/***
+	 * Number of candidate colors
+	 */
+	@Param({ "1000", "100000" })
+	public int candidates;
+
+	/***
+	 * Number of colors selected
+	 */
+	@Param({ "8", "64" })
+	public int k;
+
+	/***
+	 * Channel values of the candidates
+	 */
+	private double[] channels;
+
+	/***
+	 * Tree used by the select benchmark
+	 */
+	private LabTree tree;
+
+	/***
+	 * CIELAB coordinates of the candidates used by the scan benchmark
+	 */
+	private double[] lab;
+
+	/***
+	 * Interpolates the candidates and builds the tree
+	 */
+	@Setup
+	public void setup() {
+		channels = PaletteSpec.parse(new String[]{ "rgb", "rgb", "255 0 0",
+				"0 0 255", String.valueOf(candidates - 2), "", "false", "false",
+				"stops=255 255 0;0 255 0;0 255 255", "cache=false" }).channels();
+		tree = new LabTree(channels);
+		lab = new double[3 * (channels.length / 4)];
+		double[] c = new double[3];
+		for (int i = 0; i < lab.length / 3; i++) {
+			TerpSpace.LAB.encode(channels[4 * i], channels[4 * i + 1],
+					channels[4 * i + 2], c);
+			System.arraycopy(c, 0, lab, 3 * i, 3);
+		}
+	}
+
+	/***
+	 * Benchmark for building the tree
+	 * @return The tree
+	 */
+	@Benchmark
+	public LabTree build() {
+		return new LabTree(channels);
+	}
+
+	/***
+	 * Benchmark for farthest point sampling with the tree
+	 * @return The indices of the selected colors
+	 */
+	@Benchmark
+	public int[] select() {
+		return tree.select(k, null);
+	}
+
+	/***
+	 * Benchmark for farthest point sampling with a scan of every candidate
+	 * @return The indices of the selected colors
+	 */
+	@Benchmark
+	public int[] scan() {
+		int n = lab.length / 3;
+		double[] nearest = new double[n];
+		Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+		int[] selected = new int[k];
+		for (int s = 0, next = 0; s < k; s++) {
+			selected[s] = next;
+			double l = lab[3 * next], a = lab[3 * next + 1], b = lab[3 * next + 2];
+			double best = -1;
+			for (int i = 0; i < n; i++) {
+				double dl = lab[3 * i] - l, da = lab[3 * i + 1] - a;
+				double db = lab[3 * i + 2] - b;
+				nearest[i] = Math.min(nearest[i], dl * dl + da * da + db * db);
+				if (nearest[i] > best) {
+					best = nearest[i];
+					next = i;
+				}
+			}
+		}
+		return selected;
+	}
+
+} // End of Class declaration
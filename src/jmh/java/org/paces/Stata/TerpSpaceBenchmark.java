@@ -0,0 +1,69 @@
+package org.paces.stata;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Benchmarks for interpolating palettes in each of the interpolation color
+ * spaces.  The palettes are returned as RGB strings so the difference
+ * between the spaces reflects the cost of the interpolation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerpSpaceBenchmark {
+
+	/***
+	 * Interpolation color space
+	 */
+	@Param({ "srgb", "linear", "lab", "oklab" })
+	public String terpspace;
+
+	/***
+	 * Curve followed by the channels between the anchors
+	 */
+	@Param({ "linear", "catmullrom", "bspline" })
+	public String curve;
+
+	/***
+	 * Number of points to interpolate
+	 */
+	@Param({ "3", "100", "10000", "1000000" })
+	public int points;
+
+	/***
+	 * ColorTerp object used for the benchmarks
+	 */
+	private ColorTerp terp;
+
+	/***
+	 * Creates the ColorTerp object and distances
+	 */
+	@Setup
+	public void setup() {
+		terp = new ColorTerp(new String[]{ "rgb", "rgb", "197 115 47",
+				"5 37 249", "1", "", "false", "false",
+				"terpspace=" + terpspace, "curve=" + curve });
+		terp.setDistances(points);
+	}
+
+	/***
+	 * Benchmark for interpolating and formatting the colors
+	 * @return The formatted colors
+	 */
+	@Benchmark
+	public String[] setTColors() {
+		terp.setTColors(terp.getAnchors(), terp.getPositions(),
+				terp.getTerpSpace(), terp.getDists(), false, false, false,
+				false, false, "rgb", false);
+		return terp.getTColors();
+	}
+
+} // End of Class declaration
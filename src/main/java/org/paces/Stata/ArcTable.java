@@ -0,0 +1,114 @@
+package org.paces.stata;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Cumulative color difference (CIE76 &#916;E, the Euclidean distance in
+ * CIE L*a*b*) along the interpolation path of a palette, used to place the
+ * colors at equal perceived steps with the uniform {@link Spacing}.  The path
+ * is sampled at evenly spaced positions once when the table is built, and
+ * the differences are measured between the colors as they are returned
+ * (i.e., after the color modifications).  The position of a color is found
+ * by a binary search of the table followed by linear interpolation within
+ * the sample, so placing n colors costs O(samples + n log samples).
+ *
+ * Tables are immutable and can be shared between threads.
+ */
+public final class ArcTable {
+
+	/***
+	 * Number of samples per segment between the anchor colors
+	 */
+	public static final int SAMPLES = 256;
+
+	/***
+	 * Maximum number of samples along the path
+	 */
+	public static final int MAXSAMPLES = 1 << 16;
+
+	/***
+	 * Cumulative color difference at each sample
+	 */
+	private final double[] arc;
+
+	/***
+	 * Number of intervals between the samples
+	 */
+	private final int m;
+
+	/***
+	 * Constructor method for ArcTable class
+	 * @param engine An engine used to interpolate the path
+	 * @param chain The modifications applied to each color
+	 * @param segments The number of segments between the anchor colors
+	 */
+	public ArcTable(TerpEngine engine, ModifierChain chain, int segments) {
+
+		// Number of intervals between the samples
+		this.m = Math.min(MAXSAMPLES, SAMPLES * Math.max(1, segments));
+		this.arc = new double[this.m + 1];
+
+		// Buffers for the channel values and the L*a*b* values of the
+		// current and previous samples
+		double[] buf = new double[4];
+		double[] lab = new double[3], prev = new double[3];
+
+		// Running sum of the differences between consecutive samples
+		double total = 0.0;
+		for (int i = 0; i <= this.m; i++) {
+			engine.interpolate((double) i / this.m, buf);
+			chain.apply(engine, buf);
+			TerpSpace.LAB.encode(buf[0], buf[1], buf[2], lab);
+			if (i > 0) {
+				double dl = lab[0] - prev[0];
+				double da = lab[1] - prev[1];
+				double db = lab[2] - prev[2];
+				total += Math.sqrt(dl * dl + da * da + db * db);
+			}
+			this.arc[i] = total;
+			double[] tmp = prev;
+			prev = lab;
+			lab = tmp;
+		}
+
+	} // End Constructor method
+
+	/***
+	 * Method used to get the total color difference along the path
+	 * @return The sum of the differences between consecutive samples
+	 */
+	public double length() {
+		return this.arc[this.m];
+	}
+
+	/***
+	 * Method used to get the position of a color on the path
+	 * @param k The index of the color in [0, n)
+	 * @param n The number of colors in the palette
+	 * @return The position in [0, 1] where the cumulative difference is
+	 * k / (n - 1) of the total (or k / (n - 1) for paths without any
+	 * difference)
+	 */
+	public double position(int k, int n) {
+
+		// The endpoints and paths of a single color are exact
+		double u = Spacing.exact(k, n);
+		if (k == 0 || k == n - 1 || !(length() > 0.0)) return u;
+
+		// Last sample at or before the target difference
+		double target = u * length();
+		int lo = 0, hi = this.m;
+		while (hi - lo > 1) {
+			int mid = (lo + hi) >>> 1;
+			if (this.arc[mid] <= target) lo = mid;
+			else hi = mid;
+		}
+
+		// Linear interpolation within the sample
+		double frac = (target - this.arc[lo]) / (this.arc[hi] - this.arc[lo]);
+		return (lo + frac) / this.m;
+
+	} // End of Method declaration
+
+} // End of Class declaration
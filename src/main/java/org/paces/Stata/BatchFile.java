@@ -0,0 +1,263 @@
+package org.paces.stata;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Command line batch mode used to generate many palettes with a single JVM.
+ * The job file has one job per line with the same fields as the arguments
+ * of {@link org.paces.stata.ColorTerp#main(String[])} separated by tabs
+ * (optional name=value arguments may follow the eight required fields).
+ * Blank lines and lines starting with # are skipped.  Jobs are read with a
+ * buffered NIO reader and run on a pool of worker threads, and each result
+ * is written to a buffered writer in the order of the jobs as a single line
+ * with the colors (starting with the starting color) separated by tabs.
+ * Jobs that fail produce an empty line and an error message on standard
+ * error, and a throughput summary is printed to standard error at the end.
+ *
+ * <h2>Examples</h2>
+ * java -jar brewterpolate.jar --batch jobs.tsv --out palettes.tsv --threads 4
+ */
+public class BatchFile {
+
+	/***
+	 * Number of jobs read and submitted at a time for each worker thread
+	 */
+	private static final int JOBS_PER_THREAD = 256;
+
+	/***
+	 * Field delimiter used by the job and result files
+	 */
+	private static final char DELIM = '\t';
+
+	/***
+	 * Method used to run the batch mode from the command line arguments
+	 * @param args The arguments following --batch: the job file followed by
+	 *                the optional --out file and --threads number arguments
+	 * @return 0 if all of the jobs succeeded, 1 if any job failed, and 2
+	 * for invalid arguments
+	 * @throws IOException if the job file cannot be read or the results
+	 * cannot be written
+	 */
+	public static int run(String[] args) throws IOException {
+
+		// Default values of the optional arguments
+		String in = null, out = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		// Parses the arguments
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if ("--out".equals(args[i]) && i + 1 < args.length) {
+					out = args[++i];
+				} else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+					threads = Integer.parseInt(args[++i]);
+				} else if (in == null) {
+					in = args[i];
+				} else {
+					System.err.println("Unrecognized argument " + args[i] + ".");
+					return 2;
+				}
+			}
+		} catch (NumberFormatException nfe) {
+			System.err.println("Usage: --batch jobfile [--out file] " +
+					"[--threads n]");
+			return 2;
+		}
+
+		// Check for the job file
+		if (in == null || threads < 1) {
+			System.err.println("Usage: --batch jobfile [--out file] " +
+					"[--threads n]");
+			return 2;
+		}
+
+		// Opens the job file
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(in),
+				StandardCharsets.UTF_8)) {
+
+			// Writes the results to standard output, which is flushed but not
+			// closed
+			if (out == null) {
+				Writer writer = new BufferedWriter(new OutputStreamWriter(
+						System.out, StandardCharsets.UTF_8), 1 << 16);
+				try {
+					return run(reader, writer, threads, System.err) ? 0 : 1;
+				} finally {
+					writer.flush();
+				}
+			}
+
+			// Writes the results to the output file
+			try (Writer writer = Files.newBufferedWriter(Paths.get(out),
+					StandardCharsets.UTF_8)) {
+				return run(reader, writer, threads, System.err) ? 0 : 1;
+			}
+
+		} // End of try-with-resources block
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to run the jobs from a reader and write the results
+	 * @param reader A reader with one job per line
+	 * @param writer The writer for the results
+	 * @param threads The number of worker threads
+	 * @param log Stream used for error messages and the summary
+	 * @return True if all of the jobs succeeded
+	 * @throws IOException if the jobs cannot be read or the results cannot
+	 * be written
+	 */
+	public static boolean run(BufferedReader reader, Writer writer,
+			int threads, PrintStream log) throws IOException {
+
+		// Pool of worker threads
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+		// Counters for the summary
+		long njobs = 0, nfailed = 0, ncolors = 0, lineno = 0;
+		long t0 = System.nanoTime();
+
+		// Jobs read and submitted in blocks to bound memory use
+		int block = threads * JOBS_PER_THREAD;
+		List<Future<String>> results = new ArrayList<>(block);
+		List<Long> lines = new ArrayList<>(block);
+
+		try {
+
+			// Loop over blocks of jobs
+			boolean more = true;
+			while (more) {
+
+				// Reads and submits a block of jobs
+				results.clear();
+				lines.clear();
+				String line;
+				while (results.size() < block &&
+						(line = reader.readLine()) != null) {
+					lineno++;
+					if (line.trim().isEmpty() || line.startsWith("#")) continue;
+					final String[] job = split(line);
+					results.add(pool.submit(() -> palette(job)));
+					lines.add(lineno);
+				}
+				more = results.size() == block;
+
+				// Writes the results in the order of the jobs
+				for (int i = 0; i < results.size(); i++) {
+					njobs++;
+					try {
+						String result = results.get(i).get();
+						writer.write(result);
+						ncolors += count(result);
+					} catch (ExecutionException e) {
+						nfailed++;
+						log.println("Line " + lines.get(i) + ": " +
+								e.getCause());
+					}
+					writer.write('\n');
+				}
+
+			} // End Loop over blocks of jobs
+
+			// Writes the remaining output
+			writer.flush();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while running the jobs.", e);
+
+		} finally {
+			pool.shutdownNow();
+
+		} // End of try/catch/finally block
+
+		// Prints the throughput summary
+		double secs = (System.nanoTime() - t0) / 1e9;
+		log.printf("%d jobs (%d failed), %d colors in %.3f s: %.0f jobs/s, " +
+				"%.0f colors/s on %d threads%n", njobs, nfailed, ncolors, secs,
+				njobs / secs, ncolors / secs, threads);
+
+		// Returns whether all of the jobs succeeded
+		return nfailed == 0;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to interpolate the colors for a job
+	 * @param job The arguments of the job
+	 * @return The colors separated by tabs
+	 * @throws IllegalArgumentException if the arguments are invalid
+	 */
+	public static String palette(String[] job) {
+
+		// Compiles and validates the arguments once
+		PaletteSpec spec = PaletteSpec.parse(job);
+
+		// Joins the colors from the cache or the lazy view
+		StringBuilder sb = new StringBuilder(16 * spec.size());
+		for (String color : spec.getColors()) {
+			if (sb.length() > 0) sb.append(DELIM);
+			sb.append(color);
+		}
+
+		// Returns the colors
+		return sb.toString();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to split a line of the job file into fields
+	 * @param line A line of the job file
+	 * @return The tab delimited fields of the line
+	 */
+	static String[] split(String line) {
+
+		// Counts the fields
+		int n = 1;
+		for (int i = 0; i < line.length(); i++) if (line.charAt(i) == DELIM) n++;
+
+		// Copies each of the fields
+		String[] fields = new String[n];
+		for (int i = 0, start = 0; i < n; i++) {
+			int end = line.indexOf(DELIM, start);
+			if (end < 0) end = line.length();
+			fields[i] = line.substring(start, end);
+			start = end + 1;
+		}
+
+		// Returns the fields
+		return fields;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to count the colors in a result
+	 * @param result The colors separated by tabs
+	 * @return The number of colors
+	 */
+	private static int count(String result) {
+		int n = 1;
+		for (int i = 0; i < result.length(); i++) {
+			if (result.charAt(i) == DELIM) n++;
+		}
+		return n;
+	}
+
+} // End of Class declaration
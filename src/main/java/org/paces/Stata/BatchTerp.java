@@ -0,0 +1,250 @@
+package org.paces.stata;
+
+import com.stata.sfi.Data;
+import com.stata.sfi.Macro;
+import com.stata.sfi.SFIToolkit;
+
+import java.util.Locale;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Class and methods used to interpolate colors for many start/end pairs in a
+ * single call from Stata.  Each observation in the dataset defines one job
+ * using eight variables that hold the same values as the arguments passed
+ * to {@link org.paces.stata.ColorTerp#interpcolors(String[])}:
+ * <ol>
+ *     <li>Input Color Space</li>
+ *     <li>Output Color Space</li>
+ *     <li>Starting Color</li>
+ *     <li>Ending Color</li>
+ *     <li>Number of points to interpolate</li>
+ *     <li>Color mod argument</li>
+ *     <li>Invert color (boolean string or 0/1)</li>
+ *     <li>Return colors as grayscale (boolean string or 0/1)</li>
+ * </ol>
+ * All of the jobs are interpolated before any results are stored, and the
+ * results are written back to a single string variable with one pass over
+ * the dataset, so the cost of crossing between Stata and Java is paid once
+ * rather than once per palette.  The brewterpbatch.ado Stata command acts as
+ * a wrapper around this class.
+ *
+ * <h2>Examples</h2>
+ * // Interpolate 4 colors between each pair of colors in scol and ecol <br>
+ * brewterpbatch, sc(scol) ec(ecol) c(ncolors) <br><br>
+ *
+ * @see <a href="http://www.stata.com/java/api">Stata Java API.</a>
+ */
+public class BatchTerp {
+
+	/***
+	 * Number of variables used to define each job
+	 */
+	public static final int JOBVARS = 8;
+
+	/***
+	 * Method called from Stata to interpolate the colors for each job
+	 * @param args A string array with the name of an existing string
+	 *                variable where the results are stored.  The job
+	 *                variables are passed as the varlist of the javacall.
+	 * @return A Stata return code
+	 */
+	public static int interpbatch(String[] args) {
+
+		// Check for the expected number of variables
+		if (Data.getParsedVarCount() != JOBVARS || args.length < 1) {
+
+			// Print error message to the console
+			SFIToolkit.errorln("interpbatch requires " + JOBVARS +
+					" job variables and the name of the result variable.");
+
+			// Return invalid syntax error code
+			return 198;
+
+		} // End IF Block for invalid arguments
+
+		// Index of the variable that stores the results
+		int outvar = Data.getVarIndex(args[0]);
+
+		// Check for the result variable
+		if (outvar < 1) {
+
+			// Print error message to the console
+			SFIToolkit.errorln("variable " + args[0] + " not found");
+
+			// Return variable not found error code
+			return 111;
+
+		} // End IF Block for missing result variable
+
+		// Indices and types of the job variables
+		int[] vars = new int[JOBVARS];
+		boolean[] isstr = new boolean[JOBVARS];
+
+		// Loop over the job variables
+		for (int i = 0; i < JOBVARS; i++) {
+
+			// Map the parsed variable to its index in the dataset
+			vars[i] = Data.mapParsedVarIndex(i + 1);
+
+			// Store the storage type of the variable
+			isstr[i] = Data.isVarTypeStr(vars[i]);
+
+		} // End Loop over job variables
+
+		// Range of observations to process
+		long first = Data.getObsParsedIn1();
+		long last = Data.getObsParsedIn2();
+
+		// Results for each observation
+		String[] results = new String[(int) (last - first + 1)];
+
+		// Reusable container for the arguments of each job
+		String[] job = new String[JOBVARS];
+
+		// Counters for the jobs that were run and that failed
+		int njobs = 0, nfailed = 0;
+
+		// Loop over the observations
+		for (long obs = first; obs <= last; obs++) {
+
+			// Skip observations excluded by the if condition
+			if (!Data.isParsedIfTrue(obs)) continue;
+
+			// Interpolate the colors for the job
+			try {
+
+				// Skip observations with missing starting/ending colors or
+				// number of points
+				if (!getJob(obs, vars, isstr, job)) continue;
+
+				// Interpolate the colors and increment the job counter
+				results[(int) (obs - first)] =
+						colorList(new ColorTerp(job, false).getPalette());
+				njobs++;
+
+			// Invalid jobs are counted and leave the result empty
+			} catch (RuntimeException e) {
+				njobs++;
+				nfailed++;
+
+			} // End of try/catch block
+
+		} // End Loop over observations
+
+		// Store the results in a single pass over the dataset
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] != null) Data.storeStr(outvar, first + i, results[i]);
+		}
+
+		// Return the number of jobs and failures to Stata
+		Macro.setLocal("njobs", String.valueOf(njobs));
+		Macro.setLocal("nfailed", String.valueOf(nfailed));
+
+		// Return success code
+		return 0;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to read the arguments of a job from an observation
+	 * @param obs The observation number
+	 * @param vars Indices of the job variables
+	 * @param isstr Indicators for string job variables
+	 * @param job Array where the arguments are stored
+	 * @return False if the starting color, ending color, or number of
+	 * points is missing
+	 * @throws IllegalArgumentException if the invert or grayscale value is
+	 * not a boolean string or 0/1
+	 */
+	public static boolean getJob(long obs, int[] vars, boolean[] isstr,
+								 String[] job) {
+
+		// Loop over the job variables
+		for (int i = 0; i < JOBVARS; i++) {
+
+			// Invert and grayscale strings are passed as true or false
+			if (isstr[i] && i >= 6) {
+				job[i] = toBoolean(Data.getStr(vars[i], obs).trim());
+
+			// Other string variables are passed as is
+			} else if (isstr[i]) {
+				job[i] = Data.getStr(vars[i], obs).trim();
+
+			// Numeric variables
+			} else {
+
+				// Get the numeric value
+				double value = Data.getNum(vars[i], obs);
+
+				// Missing values are treated as empty strings
+				if (Data.isValueMissing(value)) job[i] = "";
+
+				// Invert and grayscale are true for non-zero values
+				else if (i >= 6) job[i] = String.valueOf(value != 0);
+
+				// Other values are passed as integers
+				else job[i] = String.valueOf((long) value);
+
+			} // End ELSE Block for numeric variables
+
+		} // End Loop over job variables
+
+		// Default to RGB when the color spaces are missing
+		if (job[0].isEmpty()) job[0] = "rgb";
+		if (job[1].isEmpty()) job[1] = "rgb";
+
+		// Check that the required arguments are present
+		return !job[2].isEmpty() && !job[3].isEmpty() && !job[4].isEmpty();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to convert the value of an invert or grayscale string
+	 * variable to the argument passed to ColorTerp
+	 * @param value A boolean string, 0 or 1, or an empty string for false
+	 *                (case insensitive)
+	 * @return The string true or false
+	 * @throws IllegalArgumentException for other values
+	 */
+	static String toBoolean(String value) {
+
+		// Dispatches the value
+		switch (value.toLowerCase(Locale.ROOT)) {
+			case "1":
+			case "true":
+				return "true";
+			case "":
+			case "0":
+			case "false":
+				return "false";
+			default:
+				throw new IllegalArgumentException("Expected true, false, " +
+						"1, or 0 but found " + value + ".");
+		}
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to create a single string with all of the colors for a job
+	 * @param palette The starting color followed by the interpolated colors
+	 * @return A string with each color in double quotes separated by spaces
+	 */
+	public static String colorList(String[] palette) {
+
+		// Builder for the color list
+		StringBuilder list = new StringBuilder(16 * palette.length);
+
+		// Add each of the colors
+		for (int i = 0; i < palette.length; i++) {
+			if (i > 0) list.append(' ');
+			list.append('"').append(palette[i]).append('"');
+		}
+
+		// Return the color list
+		return list.toString();
+
+	} // End of Method declaration
+
+} // End of Class declaration
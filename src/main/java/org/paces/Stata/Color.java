@@ -0,0 +1,799 @@
+package org.paces.stata;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Immutable color model used for color interpolation in Stata.  The class
+ * reproduces the color math of javafx.scene.paint.Color that ColorTerp
+ * relies on (rgb, color, hsb, web, interpolate, brighter, darker, saturate,
+ * desaturate, invert, and grayscale), including storing the channels in
+ * single precision, so results are identical to those produced by JavaFX
+ * without loading the JavaFX toolkit.  This allows the plugin to run on
+ * JREs that do not ship JavaFX (e.g., JDK 11 and later).
+ */
+public final class Color {
+
+	/***
+	 * Factor used by brighter/darker modifications
+	 */
+	private static final double DARKER_BRIGHTER_FACTOR =
+			TerpEngine.DARKER_BRIGHTER_FACTOR;
+
+	/***
+	 * Factor used by saturate/desaturate modifications
+	 */
+	private static final double SATURATE_DESATURATE_FACTOR =
+			TerpEngine.SATURATE_DESATURATE_FACTOR;
+
+	/***
+	 * Lookup table of CSS named colors keyed on the lower case name
+	 */
+	private static final Map<String, Color> NAMED_COLORS = new HashMap<>(256);
+
+	/***
+	 * A fully transparent color
+	 */
+	public static final Color TRANSPARENT = new Color(0f, 0f, 0f, 0f);
+
+	/***
+	 * Default color used when a color cannot be constructed
+	 */
+	public static final Color STEELBLUE = rgb(70, 130, 180);
+
+	/***
+	 * Red channel value in [0, 1]
+	 */
+	private final float red;
+
+	/***
+	 * Green channel value in [0, 1]
+	 */
+	private final float green;
+
+	/***
+	 * Blue channel value in [0, 1]
+	 */
+	private final float blue;
+
+	/***
+	 * Opacity value in [0, 1]
+	 */
+	private final float opacity;
+
+	// Populates the named color table
+	static {
+		NAMED_COLORS.put("transparent", TRANSPARENT);
+		named("aliceblue", 0xF0F8FF);
+		named("antiquewhite", 0xFAEBD7);
+		named("aqua", 0x00FFFF);
+		named("aquamarine", 0x7FFFD4);
+		named("azure", 0xF0FFFF);
+		named("beige", 0xF5F5DC);
+		named("bisque", 0xFFE4C4);
+		named("black", 0x000000);
+		named("blanchedalmond", 0xFFEBCD);
+		named("blue", 0x0000FF);
+		named("blueviolet", 0x8A2BE2);
+		named("brown", 0xA52A2A);
+		named("burlywood", 0xDEB887);
+		named("cadetblue", 0x5F9EA0);
+		named("chartreuse", 0x7FFF00);
+		named("chocolate", 0xD2691E);
+		named("coral", 0xFF7F50);
+		named("cornflowerblue", 0x6495ED);
+		named("cornsilk", 0xFFF8DC);
+		named("crimson", 0xDC143C);
+		named("cyan", 0x00FFFF);
+		named("darkblue", 0x00008B);
+		named("darkcyan", 0x008B8B);
+		named("darkgoldenrod", 0xB8860B);
+		named("darkgray", 0xA9A9A9);
+		named("darkgreen", 0x006400);
+		named("darkgrey", 0xA9A9A9);
+		named("darkkhaki", 0xBDB76B);
+		named("darkmagenta", 0x8B008B);
+		named("darkolivegreen", 0x556B2F);
+		named("darkorange", 0xFF8C00);
+		named("darkorchid", 0x9932CC);
+		named("darkred", 0x8B0000);
+		named("darksalmon", 0xE9967A);
+		named("darkseagreen", 0x8FBC8F);
+		named("darkslateblue", 0x483D8B);
+		named("darkslategray", 0x2F4F4F);
+		named("darkslategrey", 0x2F4F4F);
+		named("darkturquoise", 0x00CED1);
+		named("darkviolet", 0x9400D3);
+		named("deeppink", 0xFF1493);
+		named("deepskyblue", 0x00BFFF);
+		named("dimgray", 0x696969);
+		named("dimgrey", 0x696969);
+		named("dodgerblue", 0x1E90FF);
+		named("firebrick", 0xB22222);
+		named("floralwhite", 0xFFFAF0);
+		named("forestgreen", 0x228B22);
+		named("fuchsia", 0xFF00FF);
+		named("gainsboro", 0xDCDCDC);
+		named("ghostwhite", 0xF8F8FF);
+		named("gold", 0xFFD700);
+		named("goldenrod", 0xDAA520);
+		named("gray", 0x808080);
+		named("green", 0x008000);
+		named("greenyellow", 0xADFF2F);
+		named("grey", 0x808080);
+		named("honeydew", 0xF0FFF0);
+		named("hotpink", 0xFF69B4);
+		named("indianred", 0xCD5C5C);
+		named("indigo", 0x4B0082);
+		named("ivory", 0xFFFFF0);
+		named("khaki", 0xF0E68C);
+		named("lavender", 0xE6E6FA);
+		named("lavenderblush", 0xFFF0F5);
+		named("lawngreen", 0x7CFC00);
+		named("lemonchiffon", 0xFFFACD);
+		named("lightblue", 0xADD8E6);
+		named("lightcoral", 0xF08080);
+		named("lightcyan", 0xE0FFFF);
+		named("lightgoldenrodyellow", 0xFAFAD2);
+		named("lightgray", 0xD3D3D3);
+		named("lightgreen", 0x90EE90);
+		named("lightgrey", 0xD3D3D3);
+		named("lightpink", 0xFFB6C1);
+		named("lightsalmon", 0xFFA07A);
+		named("lightseagreen", 0x20B2AA);
+		named("lightskyblue", 0x87CEFA);
+		named("lightslategray", 0x778899);
+		named("lightslategrey", 0x778899);
+		named("lightsteelblue", 0xB0C4DE);
+		named("lightyellow", 0xFFFFE0);
+		named("lime", 0x00FF00);
+		named("limegreen", 0x32CD32);
+		named("linen", 0xFAF0E6);
+		named("magenta", 0xFF00FF);
+		named("maroon", 0x800000);
+		named("mediumaquamarine", 0x66CDAA);
+		named("mediumblue", 0x0000CD);
+		named("mediumorchid", 0xBA55D3);
+		named("mediumpurple", 0x9370DB);
+		named("mediumseagreen", 0x3CB371);
+		named("mediumslateblue", 0x7B68EE);
+		named("mediumspringgreen", 0x00FA9A);
+		named("mediumturquoise", 0x48D1CC);
+		named("mediumvioletred", 0xC71585);
+		named("midnightblue", 0x191970);
+		named("mintcream", 0xF5FFFA);
+		named("mistyrose", 0xFFE4E1);
+		named("moccasin", 0xFFE4B5);
+		named("navajowhite", 0xFFDEAD);
+		named("navy", 0x000080);
+		named("oldlace", 0xFDF5E6);
+		named("olive", 0x808000);
+		named("olivedrab", 0x6B8E23);
+		named("orange", 0xFFA500);
+		named("orangered", 0xFF4500);
+		named("orchid", 0xDA70D6);
+		named("palegoldenrod", 0xEEE8AA);
+		named("palegreen", 0x98FB98);
+		named("paleturquoise", 0xAFEEEE);
+		named("palevioletred", 0xDB7093);
+		named("papayawhip", 0xFFEFD5);
+		named("peachpuff", 0xFFDAB9);
+		named("peru", 0xCD853F);
+		named("pink", 0xFFC0CB);
+		named("plum", 0xDDA0DD);
+		named("powderblue", 0xB0E0E6);
+		named("purple", 0x800080);
+		named("red", 0xFF0000);
+		named("rosybrown", 0xBC8F8F);
+		named("royalblue", 0x4169E1);
+		named("saddlebrown", 0x8B4513);
+		named("salmon", 0xFA8072);
+		named("sandybrown", 0xF4A460);
+		named("seagreen", 0x2E8B57);
+		named("seashell", 0xFFF5EE);
+		named("sienna", 0xA0522D);
+		named("silver", 0xC0C0C0);
+		named("skyblue", 0x87CEEB);
+		named("slateblue", 0x6A5ACD);
+		named("slategray", 0x708090);
+		named("slategrey", 0x708090);
+		named("snow", 0xFFFAFA);
+		named("springgreen", 0x00FF7F);
+		named("steelblue", 0x4682B4);
+		named("tan", 0xD2B48C);
+		named("teal", 0x008080);
+		named("thistle", 0xD8BFD8);
+		named("tomato", 0xFF6347);
+		named("turquoise", 0x40E0D0);
+		named("violet", 0xEE82EE);
+		named("wheat", 0xF5DEB3);
+		named("white", 0xFFFFFF);
+		named("whitesmoke", 0xF5F5F5);
+		named("yellow", 0xFFFF00);
+		named("yellowgreen", 0x9ACD32);
+	}
+
+	/***
+	 * Constructor method for Color objects
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param opacity The opacity value in [0, 1]
+	 * @throws IllegalArgumentException if any value is out of range
+	 */
+	public Color(double red, double green, double blue, double opacity) {
+
+		// Check the range of each of the channels
+		if (red < 0 || red > 1) {
+			throw new IllegalArgumentException("Color's red value (" + red +
+					") must be in the range 0.0-1.0");
+		}
+		if (green < 0 || green > 1) {
+			throw new IllegalArgumentException("Color's green value (" + green +
+					") must be in the range 0.0-1.0");
+		}
+		if (blue < 0 || blue > 1) {
+			throw new IllegalArgumentException("Color's blue value (" + blue +
+					") must be in the range 0.0-1.0");
+		}
+		if (opacity < 0 || opacity > 1) {
+			throw new IllegalArgumentException("Color's opacity value (" +
+					opacity + ") must be in the range 0.0-1.0");
+		}
+
+		// Store the channels in single precision
+		this.red = (float) red;
+		this.green = (float) green;
+		this.blue = (float) blue;
+		this.opacity = (float) opacity;
+
+	} // End Constructor method
+
+	/***
+	 * Private constructor used for values that are already validated
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param opacity The opacity value in [0, 1]
+	 */
+	private Color(float red, float green, float blue, float opacity) {
+		this.red = red;
+		this.green = green;
+		this.blue = blue;
+		this.opacity = opacity;
+	}
+
+	/***
+	 * Method used to add a named color to the lookup table
+	 * @param name The lower case name of the color
+	 * @param rgb The packed 24 bit RGB value of the color
+	 */
+	private static void named(String name, int rgb) {
+		NAMED_COLORS.put(name, rgb((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF,
+				rgb & 0xFF));
+	}
+
+	/***
+	 * Method used to access the table of named colors
+	 * @return An unmodifiable map of lower case color names to colors
+	 */
+	public static Map<String, Color> namedColors() {
+		return Collections.unmodifiableMap(NAMED_COLORS);
+	}
+
+	/***
+	 * Creates a color from sRGB values
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param opacity The opacity value in [0, 1]
+	 * @return A Color object
+	 */
+	public static Color color(double red, double green, double blue,
+							  double opacity) {
+		return new Color(red, green, blue, opacity);
+	}
+
+	/***
+	 * Creates an opaque color from sRGB values
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @return A Color object
+	 */
+	public static Color color(double red, double green, double blue) {
+		return new Color(red, green, blue, 1);
+	}
+
+	/***
+	 * Creates a color from integer RGB values
+	 * @param red The red channel value in [0, 255]
+	 * @param green The green channel value in [0, 255]
+	 * @param blue The blue channel value in [0, 255]
+	 * @param opacity The opacity value in [0, 1]
+	 * @return A Color object
+	 */
+	public static Color rgb(int red, int green, int blue, double opacity) {
+		checkRGB(red, green, blue);
+		return new Color(red / 255.0, green / 255.0, blue / 255.0, opacity);
+	}
+
+	/***
+	 * Creates an opaque color from integer RGB values
+	 * @param red The red channel value in [0, 255]
+	 * @param green The green channel value in [0, 255]
+	 * @param blue The blue channel value in [0, 255]
+	 * @return A Color object
+	 */
+	public static Color rgb(int red, int green, int blue) {
+		return rgb(red, green, blue, 1.0);
+	}
+
+	/***
+	 * Method used to validate integer RGB values
+	 * @param red The red channel value
+	 * @param green The green channel value
+	 * @param blue The blue channel value
+	 */
+	private static void checkRGB(int red, int green, int blue) {
+		if (red < 0 || red > 255) {
+			throw new IllegalArgumentException("Color.rgb's red parameter (" +
+					red + ") expects color values 0-255");
+		}
+		if (green < 0 || green > 255) {
+			throw new IllegalArgumentException("Color.rgb's green parameter (" +
+					green + ") expects color values 0-255");
+		}
+		if (blue < 0 || blue > 255) {
+			throw new IllegalArgumentException("Color.rgb's blue parameter (" +
+					blue + ") expects color values 0-255");
+		}
+	}
+
+	/***
+	 * Creates a color from HSB values
+	 * @param hue The hue in degrees
+	 * @param saturation The saturation in [0, 1]
+	 * @param brightness The brightness in [0, 1]
+	 * @param opacity The opacity value in [0, 1]
+	 * @return A Color object
+	 */
+	public static Color hsb(double hue, double saturation, double brightness,
+							double opacity) {
+
+		// Validate the saturation and brightness
+		if (saturation < 0.0 || saturation > 1.0) {
+			throw new IllegalArgumentException("Color.hsb's saturation " +
+					"parameter (" + saturation + ") expects values 0.0-1.0");
+		}
+		if (brightness < 0.0 || brightness > 1.0) {
+			throw new IllegalArgumentException("Color.hsb's brightness " +
+					"parameter (" + brightness + ") expects values 0.0-1.0");
+		}
+
+		// Convert to RGB
+		double[] rgb = new double[3];
+		TerpEngine.hsbToRgb(hue, saturation, brightness, rgb);
+
+		// Return the new color object
+		return new Color(rgb[0], rgb[1], rgb[2], opacity);
+
+	} // End of Method declaration
+
+	/***
+	 * Creates an opaque color from HSB values
+	 * @param hue The hue in degrees
+	 * @param saturation The saturation in [0, 1]
+	 * @param brightness The brightness in [0, 1]
+	 * @return A Color object
+	 */
+	public static Color hsb(double hue, double saturation, double brightness) {
+		return hsb(hue, saturation, brightness, 1.0);
+	}
+
+	/***
+	 * Creates a color from a web color specification (a named color, a
+	 * hexadecimal string with an optional # or 0x prefix, or the rgb(),
+	 * rgba(), hsl(), and hsla() functional forms)
+	 * @param colorString The color specification
+	 * @param opacity The opacity value in [0, 1]
+	 * @return A Color object
+	 */
+	public static Color web(String colorString, double opacity) {
+
+		// Validate the argument
+		if (colorString == null) {
+			throw new NullPointerException(
+					"The color components or name must be specified");
+		}
+		if (colorString.isEmpty()) {
+			throw new IllegalArgumentException("Invalid color specification");
+		}
+
+		// Color specifications are case insensitive
+		String color = colorString.toLowerCase(Locale.ROOT);
+
+		// Strip hexadecimal prefixes and dispatch the functional forms
+		if (color.startsWith("#")) {
+			color = color.substring(1);
+		} else if (color.startsWith("0x")) {
+			color = color.substring(2);
+		} else if (color.startsWith("rgb")) {
+			if (color.startsWith("(", 3)) {
+				return parseRGBColor(color, 4, false, opacity);
+			} else if (color.startsWith("a(", 3)) {
+				return parseRGBColor(color, 5, true, opacity);
+			}
+		} else if (color.startsWith("hsl")) {
+			if (color.startsWith("(", 3)) {
+				return parseHSLColor(color, 4, false, opacity);
+			} else if (color.startsWith("a(", 3)) {
+				return parseHSLColor(color, 5, true, opacity);
+			}
+		} else {
+			Color col = NAMED_COLORS.get(color);
+			if (col != null) {
+				if (opacity == 1.0) return col;
+				else return color(col.red, col.green, col.blue, opacity);
+			}
+		}
+
+		// Parse the hexadecimal digits
+		int len = color.length();
+		try {
+			int r, g, b, a;
+			if (len == 3) {
+				r = Integer.parseInt(color.substring(0, 1), 16);
+				g = Integer.parseInt(color.substring(1, 2), 16);
+				b = Integer.parseInt(color.substring(2, 3), 16);
+				return color(r / 15.0, g / 15.0, b / 15.0, opacity);
+			} else if (len == 4) {
+				r = Integer.parseInt(color.substring(0, 1), 16);
+				g = Integer.parseInt(color.substring(1, 2), 16);
+				b = Integer.parseInt(color.substring(2, 3), 16);
+				a = Integer.parseInt(color.substring(3, 4), 16);
+				return color(r / 15.0, g / 15.0, b / 15.0, opacity * a / 15.0);
+			} else if (len == 6) {
+				r = Integer.parseInt(color.substring(0, 2), 16);
+				g = Integer.parseInt(color.substring(2, 4), 16);
+				b = Integer.parseInt(color.substring(4, 6), 16);
+				return rgb(r, g, b, opacity);
+			} else if (len == 8) {
+				r = Integer.parseInt(color.substring(0, 2), 16);
+				g = Integer.parseInt(color.substring(2, 4), 16);
+				b = Integer.parseInt(color.substring(4, 6), 16);
+				a = Integer.parseInt(color.substring(6, 8), 16);
+				return rgb(r, g, b, opacity * a / 255.0);
+			}
+		} catch (NumberFormatException nfe) {
+			// Falls through to the exception below
+		}
+
+		// The specification could not be parsed
+		throw new IllegalArgumentException("Invalid color specification");
+
+	} // End of Method declaration
+
+	/***
+	 * Creates an opaque color from a web color specification
+	 * @param colorString The color specification
+	 * @return A Color object
+	 */
+	public static Color web(String colorString) {
+		return web(colorString, 1.0);
+	}
+
+	/***
+	 * Component type for RGB values as integers or percentages
+	 */
+	private static final int PARSE_COMPONENT = 0;
+
+	/***
+	 * Component type for percentages
+	 */
+	private static final int PARSE_PERCENT = 1;
+
+	/***
+	 * Component type for angles
+	 */
+	private static final int PARSE_ANGLE = 2;
+
+	/***
+	 * Component type for alpha values
+	 */
+	private static final int PARSE_ALPHA = 3;
+
+	/***
+	 * Method used to parse the rgb() and rgba() functional forms
+	 * @param color The lower case color specification
+	 * @param roff Offset of the first component
+	 * @param hasAlpha Whether the specification includes an alpha value
+	 * @param a The opacity value
+	 * @return A Color object
+	 */
+	private static Color parseRGBColor(String color, int roff,
+									   boolean hasAlpha, double a) {
+		try {
+			int rend = color.indexOf(',', roff);
+			int gend = rend < 0 ? -1 : color.indexOf(',', rend + 1);
+			int bend = gend < 0 ? -1 : color.indexOf(hasAlpha ? ',' : ')', gend + 1);
+			int aend = hasAlpha ? (bend < 0 ? -1 : color.indexOf(')', bend + 1)) : bend;
+			if (aend >= 0) {
+				double r = parseComponent(color, roff, rend, PARSE_COMPONENT);
+				double g = parseComponent(color, rend + 1, gend, PARSE_COMPONENT);
+				double b = parseComponent(color, gend + 1, bend, PARSE_COMPONENT);
+				if (hasAlpha) a *= parseComponent(color, bend + 1, aend, PARSE_ALPHA);
+				return new Color(r, g, b, a);
+			}
+		} catch (NumberFormatException nfe) {
+			// Falls through to the exception below
+		}
+		throw new IllegalArgumentException("Invalid color specification");
+	}
+
+	/***
+	 * Method used to parse the hsl() and hsla() functional forms
+	 * @param color The lower case color specification
+	 * @param hoff Offset of the first component
+	 * @param hasAlpha Whether the specification includes an alpha value
+	 * @param a The opacity value
+	 * @return A Color object
+	 */
+	private static Color parseHSLColor(String color, int hoff,
+									   boolean hasAlpha, double a) {
+		try {
+			int hend = color.indexOf(',', hoff);
+			int send = hend < 0 ? -1 : color.indexOf(',', hend + 1);
+			int lend = send < 0 ? -1 : color.indexOf(hasAlpha ? ',' : ')', send + 1);
+			int aend = hasAlpha ? (lend < 0 ? -1 : color.indexOf(')', lend + 1)) : lend;
+			if (aend >= 0) {
+				double h = parseComponent(color, hoff, hend, PARSE_ANGLE);
+				double s = parseComponent(color, hend + 1, send, PARSE_PERCENT);
+				double l = parseComponent(color, send + 1, lend, PARSE_PERCENT);
+				if (hasAlpha) a *= parseComponent(color, lend + 1, aend, PARSE_ALPHA);
+				return hsb(h, s, l, a);
+			}
+		} catch (NumberFormatException nfe) {
+			// Falls through to the exception below
+		}
+		throw new IllegalArgumentException("Invalid color specification");
+	}
+
+	/***
+	 * Method used to parse a single component of a functional color form
+	 * @param color The lower case color specification
+	 * @param off Starting offset of the component
+	 * @param end Ending offset of the component
+	 * @param type The type of component to parse
+	 * @return The component value scaled to its range
+	 */
+	private static double parseComponent(String color, int off, int end,
+										 int type) {
+		color = color.substring(off, end).trim();
+		if (color.endsWith("%")) {
+			if (type > PARSE_PERCENT) {
+				throw new IllegalArgumentException("Invalid color specification");
+			}
+			type = PARSE_PERCENT;
+			color = color.substring(0, color.length() - 1).trim();
+		} else if (type == PARSE_PERCENT) {
+			throw new IllegalArgumentException("Invalid color specification");
+		}
+		double c = ((type == PARSE_COMPONENT) ? Integer.parseInt(color) :
+				Double.parseDouble(color));
+		switch (type) {
+			case PARSE_ALPHA:
+				return (c < 0.0) ? 0.0 : ((c > 1.0) ? 1.0 : c);
+			case PARSE_PERCENT:
+				return (c <= 0.0) ? 0.0 : ((c >= 100.0) ? 1.0 : (c / 100.0));
+			case PARSE_COMPONENT:
+				return (c <= 0.0) ? 0.0 : ((c >= 255.0) ? 1.0 : (c / 255.0));
+			default:
+				return ((c < 0.0) ? ((c % 360.0) + 360.0) :
+						((c > 360.0) ? (c % 360.0) : c));
+		}
+	}
+
+	/***
+	 * Getter method for the red channel
+	 * @return The red channel value in [0, 1]
+	 */
+	public double getRed() {
+		return this.red;
+	}
+
+	/***
+	 * Getter method for the green channel
+	 * @return The green channel value in [0, 1]
+	 */
+	public double getGreen() {
+		return this.green;
+	}
+
+	/***
+	 * Getter method for the blue channel
+	 * @return The blue channel value in [0, 1]
+	 */
+	public double getBlue() {
+		return this.blue;
+	}
+
+	/***
+	 * Getter method for the opacity
+	 * @return The opacity value in [0, 1]
+	 */
+	public double getOpacity() {
+		return this.opacity;
+	}
+
+	/***
+	 * Getter method for the hue
+	 * @return The hue of the color in degrees
+	 */
+	public double getHue() {
+		double[] hsb = new double[3];
+		TerpEngine.rgbToHsb(red, green, blue, hsb);
+		return hsb[0];
+	}
+
+	/***
+	 * Getter method for the saturation
+	 * @return The saturation of the color in [0, 1]
+	 */
+	public double getSaturation() {
+		double[] hsb = new double[3];
+		TerpEngine.rgbToHsb(red, green, blue, hsb);
+		return hsb[1];
+	}
+
+	/***
+	 * Getter method for the brightness
+	 * @return The brightness of the color in [0, 1]
+	 */
+	public double getBrightness() {
+		double[] hsb = new double[3];
+		TerpEngine.rgbToHsb(red, green, blue, hsb);
+		return hsb[2];
+	}
+
+	/***
+	 * Method used to interpolate between this color and another color
+	 * @param endValue The ending color
+	 * @param t The proportional distance from this color
+	 * @return The interpolated color
+	 */
+	public Color interpolate(Color endValue, double t) {
+		if (t <= 0.0) return this;
+		if (t >= 1.0) return endValue;
+		float ft = (float) t;
+		return new Color(
+				red + (endValue.red - red) * ft,
+				green + (endValue.green - green) * ft,
+				blue + (endValue.blue - blue) * ft,
+				opacity + (endValue.opacity - opacity) * ft);
+	}
+
+	/***
+	 * Creates a color with modified hue, saturation, brightness, and opacity
+	 * @param hueShift Degrees added to the hue
+	 * @param saturationFactor Multiplier applied to the saturation
+	 * @param brightnessFactor Multiplier applied to the brightness
+	 * @param opacityFactor Multiplier applied to the opacity
+	 * @return The derived color
+	 */
+	public Color deriveColor(double hueShift, double saturationFactor,
+							 double brightnessFactor, double opacityFactor) {
+
+		// Get the hue, saturation, and brightness of the color
+		double[] hsb = new double[3];
+		TerpEngine.rgbToHsb(red, green, blue, hsb);
+
+		// Allow brightness increase of black color
+		double b = hsb[2];
+		if (b == 0 && brightnessFactor > 1.0) b = 0.05;
+
+		// Shift the hue and bound the remaining values
+		double h = (((hsb[0] + hueShift) % 360) + 360) % 360;
+		double s = Math.max(Math.min(hsb[1] * saturationFactor, 1.0), 0.0);
+		b = Math.max(Math.min(b * brightnessFactor, 1.0), 0.0);
+		double a = Math.max(Math.min(opacity * opacityFactor, 1.0), 0.0);
+
+		// Return the derived color
+		return hsb(h, s, b, a);
+
+	} // End of Method declaration
+
+	/***
+	 * Creates an arbitrarily brighter version of this color
+	 * @return A brighter color
+	 */
+	public Color brighter() {
+		return deriveColor(0, 1.0, 1.0 / DARKER_BRIGHTER_FACTOR, 1.0);
+	}
+
+	/***
+	 * Creates an arbitrarily darker version of this color
+	 * @return A darker color
+	 */
+	public Color darker() {
+		return deriveColor(0, 1.0, DARKER_BRIGHTER_FACTOR, 1.0);
+	}
+
+	/***
+	 * Creates an arbitrarily more saturated version of this color
+	 * @return A more saturated color
+	 */
+	public Color saturate() {
+		return deriveColor(0, 1.0 / SATURATE_DESATURATE_FACTOR, 1.0, 1.0);
+	}
+
+	/***
+	 * Creates an arbitrarily less saturated version of this color
+	 * @return A less saturated color
+	 */
+	public Color desaturate() {
+		return deriveColor(0, SATURATE_DESATURATE_FACTOR, 1.0, 1.0);
+	}
+
+	/***
+	 * Creates a grayscale version of this color
+	 * @return A gray color with the same luminance and opacity
+	 */
+	public Color grayscale() {
+		double gray = 0.21 * red + 0.71 * green + 0.07 * blue;
+		return color(gray, gray, gray, opacity);
+	}
+
+	/***
+	 * Creates the inverse of this color
+	 * @return A color with each RGB channel inverted
+	 */
+	public Color invert() {
+		return color(1.0 - red, 1.0 - green, 1.0 - blue, opacity);
+	}
+
+	/***
+	 * Method used to compare colors
+	 * @param obj The object to compare
+	 * @return True if the object is a color with the same channel values
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof Color)) return false;
+		Color other = (Color) obj;
+		return red == other.red && green == other.green &&
+				blue == other.blue && opacity == other.opacity;
+	}
+
+	/***
+	 * Method used to get the hash code of the color
+	 * @return A hash code based on the channel values
+	 */
+	@Override
+	public int hashCode() {
+		int result = Float.floatToIntBits(red);
+		result = 31 * result + Float.floatToIntBits(green);
+		result = 31 * result + Float.floatToIntBits(blue);
+		return 31 * result + Float.floatToIntBits(opacity);
+	}
+
+	/***
+	 * Method used to describe the color
+	 * @return The color as a hexadecimal RGBA string prefixed with 0x
+	 */
+	@Override
+	public String toString() {
+		int r = (int) Math.round(red * 255.0);
+		int g = (int) Math.round(green * 255.0);
+		int b = (int) Math.round(blue * 255.0);
+		int o = (int) Math.round(opacity * 255.0);
+		return String.format("0x%02x%02x%02x%02x", r, g, b, o);
+	}
+
+} // End of Class declaration
@@ -0,0 +1,418 @@
+package org.paces.stata;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Formats the channel values of colors as strings in one of the return color
+ * spaces.  The encoder for a color space is selected once with
+ * {@link #forSpace(String, int)} and then appends each color directly to a
+ * reusable StringBuilder using lookup tables for the two character
+ * hexadecimal and decimal forms of the 8-bit channel values, so the only
+ * object created for each color is the returned string.  Encoders also
+ * provide the numeric components of colors in their color space, which are
+ * used when palettes are written to variables in the dataset.  Encoders are
+ * not thread safe; each thread should use its own instance.
+ */
+public abstract class ColorEncoder {
+
+	/***
+	 * Value used for the number of digits to format decimal values with the
+	 * shortest representation that round trips (i.e., String.valueOf)
+	 */
+	public static final int SHORTEST = -1;
+
+	/***
+	 * Largest number of digits allowed after the decimal point
+	 */
+	public static final int MAXDIGITS = 15;
+
+	/***
+	 * Hexadecimal characters for each 8-bit value stored as pairs
+	 */
+	private static final char[] HEX = new char[512];
+
+	/***
+	 * Decimal characters for each 8-bit value
+	 */
+	private static final char[][] DECIMAL = new char[256][];
+
+	/***
+	 * Powers of ten used to scale fixed precision values
+	 */
+	private static final long[] POW10 = new long[MAXDIGITS + 1];
+
+	// Populates the lookup tables
+	static {
+		String digits = "0123456789abcdef";
+		for (int i = 0; i < 256; i++) {
+			HEX[2 * i] = digits.charAt(i >> 4);
+			HEX[2 * i + 1] = digits.charAt(i & 15);
+			DECIMAL[i] = String.valueOf(i).toCharArray();
+		}
+		POW10[0] = 1;
+		for (int i = 1; i <= MAXDIGITS; i++) POW10[i] = POW10[i - 1] * 10;
+	}
+
+	/***
+	 * Reusable buffer for the color strings
+	 */
+	protected final StringBuilder sb = new StringBuilder(48);
+
+	/***
+	 * Number of digits after the decimal point or SHORTEST
+	 */
+	protected final int digits;
+
+	/***
+	 * Indicator for whether the opacity is appended to the color
+	 */
+	protected final boolean alpha;
+
+	/***
+	 * Constructor used by the encoders for each color space
+	 * @param digits Number of digits after the decimal point or SHORTEST
+	 * @param alpha Indicator for whether the opacity is appended
+	 */
+	protected ColorEncoder(int digits, boolean alpha) {
+		this.digits = digits;
+		this.alpha = alpha;
+	}
+
+	/***
+	 * Method used to get the encoder for a return color space
+	 * @param cspace The return color space
+	 * @param digits Number of digits after the decimal point used for
+	 *                  decimal values or SHORTEST
+	 * @return A new encoder for the color space.  Unrecognized color spaces
+	 * use integer valued RGB.
+	 * @throws IllegalArgumentException if digits is not SHORTEST or in
+	 * [0, MAXDIGITS]
+	 */
+	public static ColorEncoder forSpace(String cspace, int digits) {
+
+		// Check the number of digits
+		if (digits != SHORTEST && (digits < 0 || digits > MAXDIGITS)) {
+			throw new IllegalArgumentException("The number of digits must " +
+					"be in [0, " + MAXDIGITS + "].");
+		}
+
+		// Returns the encoder based on color space
+		switch (cspace) {
+			case "web":
+				return new Hex(digits, false, true);
+			case "weba":
+				return new Hex(digits, true, true);
+			case "hex":
+				return new Hex(digits, false, false);
+			case "hexa":
+				return new Hex(digits, true, false);
+			case "srgb":
+				return new Decimal(digits, false);
+			case "srgba":
+				return new Decimal(digits, true);
+			case "hsb":
+				return new Hsb(digits, false);
+			case "hsba":
+				return new Hsb(digits, true);
+			case "rgba":
+				return new Rgb(digits, true);
+			default:
+				return new Rgb(digits, false);
+		}
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to format a color as a string
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param opacity The opacity value in [0, 1]
+	 * @return The color string
+	 */
+	public String encode(double red, double green, double blue,
+						 double opacity) {
+
+		// Clears the buffer and formats the color
+		sb.setLength(0);
+		append(sb, red, green, blue, opacity);
+		return sb.toString();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to append a color to a StringBuilder
+	 * @param out The StringBuilder where the color is appended
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param opacity The opacity value in [0, 1]
+	 */
+	public void append(StringBuilder out, double red, double green,
+					   double blue, double opacity) {
+
+		// Formats the channels for the color space
+		appendChannels(out, red, green, blue);
+
+		// Adds the opacity for color spaces with alpha transparency
+		if (alpha) appendDecimal(out.append(' '), opacity);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the numeric components of a color in the color
+	 * space of the encoder
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param opacity The opacity value in [0, 1]
+	 * @param out Array of at least size() elements where the components are
+	 *               stored
+	 */
+	public void components(double red, double green, double blue,
+						   double opacity, double[] out) {
+
+		// Components for the color space
+		channels(red, green, blue, out);
+
+		// Adds the opacity for color spaces with alpha transparency
+		if (alpha) out[3] = opacity;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the number of numeric components of a color
+	 * @return 4 for color spaces with alpha transparency and 3 otherwise
+	 */
+	public int size() {
+		return alpha ? 4 : 3;
+	}
+
+	/***
+	 * Method used to get the names of the numeric components of a color
+	 * @return The names of the components in the order used by components
+	 */
+	public String[] componentNames() {
+		return alpha ? new String[]{ "red", "green", "blue", "opacity" } :
+				new String[]{ "red", "green", "blue" };
+	}
+
+	/***
+	 * Method used to get the red, green, and blue components of a color in
+	 * the color space of the encoder.  The default uses integer values in
+	 * [0, 255].
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param out Array where the components are stored
+	 */
+	protected void channels(double red, double green, double blue,
+							double[] out) {
+		out[0] = rgbInt(red);
+		out[1] = rgbInt(green);
+		out[2] = rgbInt(blue);
+	}
+
+	/***
+	 * Method used to append the red, green, and blue channels of a color
+	 * @param out The StringBuilder where the channels are appended
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 */
+	protected abstract void appendChannels(StringBuilder out, double red,
+										   double green, double blue);
+
+	/***
+	 * Method to transform double valued RGB component value to an 8-bit value
+	 * @param val The channel value to convert
+	 * @return The rounded value with a ceiling of 255
+	 */
+	public static int rgbInt(double val) {
+		long v = Math.round(val * 255);
+		return v < 255 ? (int) v : 255;
+	}
+
+	/***
+	 * Method used to append the two character hexadecimal value of a channel
+	 * @param out The StringBuilder where the value is appended
+	 * @param val The channel value in [0, 1]
+	 * @return The StringBuilder
+	 */
+	public static StringBuilder appendHex(StringBuilder out, double val) {
+		int i = rgbInt(val) << 1;
+		return out.append(HEX[i]).append(HEX[i + 1]);
+	}
+
+	/***
+	 * Method used to append the integer value of a channel
+	 * @param out The StringBuilder where the value is appended
+	 * @param val The channel value in [0, 1]
+	 * @return The StringBuilder
+	 */
+	public static StringBuilder appendInt(StringBuilder out, double val) {
+		int v = rgbInt(val);
+		return v < 0 ? out.append(v) : out.append(DECIMAL[v]);
+	}
+
+	/***
+	 * Method used to append a decimal value with the configured precision
+	 * @param out The StringBuilder where the value is appended
+	 * @param val The value to format
+	 * @return The StringBuilder
+	 */
+	protected StringBuilder appendDecimal(StringBuilder out, double val) {
+		return appendFixed(out, val, this.digits);
+	}
+
+	/***
+	 * Method used to append a decimal value with a fixed number of digits
+	 * after the decimal point
+	 * @param out The StringBuilder where the value is appended
+	 * @param val The value to format
+	 * @param digits Number of digits after the decimal point or SHORTEST
+	 * @return The StringBuilder
+	 */
+	public static StringBuilder appendFixed(StringBuilder out, double val,
+											int digits) {
+
+		// Shortest representation and values that cannot be scaled
+		if (digits == SHORTEST || Double.isNaN(val) || Double.isInfinite(val)
+				|| Math.abs(val) >= 1e3) {
+			return out.append(val);
+		}
+
+		// Value scaled and rounded to an integer
+		long scaled = Math.round(Math.abs(val) * POW10[digits]);
+
+		// Sign of non-zero values
+		if (val < 0 && scaled != 0) out.append('-');
+
+		// Integer part of the value
+		out.append(scaled / POW10[digits]);
+
+		// Fractional part of the value with leading zeros
+		if (digits > 0) {
+			out.append('.');
+			long frac = scaled % POW10[digits];
+			for (int d = digits - 1; d > 0 && frac < POW10[d]; d--) {
+				out.append('0');
+			}
+			out.append(frac);
+		}
+
+		// Returns the StringBuilder
+		return out;
+
+	} // End of Method declaration
+
+	/***
+	 * Encoder for hexadecimal colors with or without the leading '#'
+	 */
+	private static final class Hex extends ColorEncoder {
+
+		/***
+		 * Indicator for the leading '#' used by web colors
+		 */
+		private final boolean web;
+
+		private Hex(int digits, boolean alpha, boolean web) {
+			super(digits, alpha);
+			this.web = web;
+		}
+
+		@Override
+		protected void appendChannels(StringBuilder out, double red,
+									  double green, double blue) {
+			if (web) out.append('#');
+			appendHex(appendHex(appendHex(out, red), green), blue);
+		}
+
+	} // End of Class declaration
+
+	/***
+	 * Encoder for integer valued RGB colors
+	 */
+	private static final class Rgb extends ColorEncoder {
+
+		private Rgb(int digits, boolean alpha) {
+			super(digits, alpha);
+		}
+
+		@Override
+		protected void appendChannels(StringBuilder out, double red,
+									  double green, double blue) {
+			appendInt(out, red).append(' ');
+			appendInt(out, green).append(' ');
+			appendInt(out, blue);
+		}
+
+	} // End of Class declaration
+
+	/***
+	 * Encoder for decimal valued sRGB colors
+	 */
+	private static final class Decimal extends ColorEncoder {
+
+		private Decimal(int digits, boolean alpha) {
+			super(digits, alpha);
+		}
+
+		@Override
+		protected void appendChannels(StringBuilder out, double red,
+									  double green, double blue) {
+			appendDecimal(out, red).append(' ');
+			appendDecimal(out, green).append(' ');
+			appendDecimal(out, blue);
+		}
+
+		@Override
+		protected void channels(double red, double green, double blue,
+								double[] out) {
+			out[0] = red;
+			out[1] = green;
+			out[2] = blue;
+		}
+
+	} // End of Class declaration
+
+	/***
+	 * Encoder for hue, saturation, and brightness colors
+	 */
+	private static final class Hsb extends ColorEncoder {
+
+		/***
+		 * Scratch buffer for the hue, saturation, and brightness values
+		 */
+		private final double[] hsb = new double[3];
+
+		private Hsb(int digits, boolean alpha) {
+			super(digits, alpha);
+		}
+
+		@Override
+		protected void appendChannels(StringBuilder out, double red,
+									  double green, double blue) {
+			TerpEngine.rgbToHsb(red, green, blue, hsb);
+			appendDecimal(out, hsb[0]).append(' ');
+			appendDecimal(out, hsb[1]).append(' ');
+			appendDecimal(out, hsb[2]);
+		}
+
+		@Override
+		protected void channels(double red, double green, double blue,
+								double[] out) {
+			TerpEngine.rgbToHsb(red, green, blue, out);
+		}
+
+		@Override
+		public String[] componentNames() {
+			return alpha ? new String[]{ "hue", "saturation", "brightness",
+					"opacity" } : new String[]{ "hue", "saturation",
+					"brightness" };
+		}
+
+	} // End of Class declaration
+
+} // End of Class declaration
@@ -0,0 +1,206 @@
+package org.paces.stata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Index used to label colors with the nearest named color.  The named
+ * colors of {@link Color#namedColors()} (except transparent) are placed in
+ * a grid over the CIELAB coordinates of sRGB colors.  Each cell keeps the
+ * named colors that can be the nearest named color of a point in the cell
+ * (those whose difference from the cell is at most the smallest largest
+ * difference of any named color from the cell), so a lookup only compares
+ * a handful of named colors instead of the whole table and returns the
+ * same name as a scan of the table.  The candidates of a cell are found
+ * the first time a color falls in it, so only the cells used by a palette
+ * are built.  Differences are CIE76 color differences, and names with the
+ * same color (e.g., gray and grey) resolve to the name that sorts first.
+ *
+ * <h2>Examples</h2>
+ * double[] distance = new double[1]; <br>
+ * String name = ColorNames.nearest(0.5, 0.5, 0.5, distance); <br>
+ */
+public final class ColorNames {
+
+	/***
+	 * Width of a cell of the grid in CIELAB units
+	 */
+	private static final double CELL = 8;
+
+	/***
+	 * Lower bounds of L*, a*, and b* covered by the grid (every sRGB color)
+	 */
+	private static final double[] MIN = { 0, -88, -112 };
+
+	/***
+	 * Number of cells along L*, a*, and b*
+	 */
+	private static final int[] CELLS = { 13, 24, 26 };
+
+	/***
+	 * Names of the indexed colors in sorted order
+	 */
+	private static final String[] NAMES;
+
+	/***
+	 * CIELAB coordinates of the indexed colors
+	 */
+	private static final double[] LAB;
+
+	/***
+	 * Indices of the candidates of each cell in ascending order (null until
+	 * a color falls in the cell)
+	 */
+	private static final AtomicReferenceArray<int[]> CANDIDATES =
+			new AtomicReferenceArray<>(CELLS[0] * CELLS[1] * CELLS[2]);
+
+	static {
+
+		// Sorts the names so lower indices win ties
+		List<String> names = new ArrayList<>();
+		Map<String, Color> colors = Color.namedColors();
+		for (Map.Entry<String, Color> e : colors.entrySet()) {
+			if (e.getValue().getOpacity() == 1) names.add(e.getKey());
+		}
+		Collections.sort(names);
+		NAMES = names.toArray(new String[0]);
+
+		// Coordinates of the named colors
+		int n = NAMES.length;
+		LAB = new double[3 * n];
+		double[] c = new double[3];
+		for (int i = 0; i < n; i++) {
+			Color col = colors.get(NAMES[i]);
+			TerpSpace.LAB.encode(col.getRed(), col.getGreen(), col.getBlue(), c);
+			System.arraycopy(c, 0, LAB, 3 * i, 3);
+		}
+
+	} // End of static initializer
+
+	/***
+	 * Constructor method for ColorNames class (static methods only)
+	 */
+	private ColorNames() {
+	}
+
+	/***
+	 * Method used to find the candidates of a cell of the grid
+	 * @param cell The index of the cell
+	 * @return The indices of the candidates in ascending order
+	 */
+	private static int[] candidates(int cell) {
+
+		// Bounds of the cell
+		int[] k = { cell / (CELLS[1] * CELLS[2]), cell / CELLS[2] % CELLS[1],
+				cell % CELLS[2] };
+		double[] lo = new double[3], hi = new double[3];
+		for (int d = 0; d < 3; d++) {
+			lo[d] = MIN[d] + k[d] * CELL;
+			hi[d] = lo[d] + CELL;
+		}
+
+		// Smallest and largest squared differences from the cell
+		int n = NAMES.length;
+		double[] near = new double[n];
+		double bound = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			double dmin = 0, dmax = 0;
+			for (int d = 0; d < 3; d++) {
+				double below = lo[d] - LAB[3 * i + d], above = LAB[3 * i + d] - hi[d];
+				double out = Math.max(0, Math.max(below, above));
+				double far = Math.max(Math.abs(below), Math.abs(above));
+				dmin += out * out;
+				dmax += far * far;
+			}
+			near[i] = dmin;
+			bound = Math.min(bound, dmax);
+		}
+
+		// Keeps the named colors that can be the nearest (with slack for
+		// rounding)
+		bound = bound * (1 + 1e-9) + 1e-9;
+		int[] cand = new int[n];
+		int size = 0;
+		for (int i = 0; i < n; i++) if (near[i] <= bound) cand[size++] = i;
+
+		// Returns the candidates
+		return Arrays.copyOf(cand, size);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to find the named color nearest to a color
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param distance An array where the CIE76 color difference of the color
+	 *                    and the named color is stored or null
+	 * @return The lower case name of the nearest named color
+	 */
+	public static String nearest(double red, double green, double blue,
+								 double[] distance) {
+
+		// Coordinates of the color
+		double[] c = new double[3];
+		TerpSpace.LAB.encode(red, green, blue, c);
+
+		// Cell of the color (colors outside of the grid compare every
+		// named color)
+		int cell = 0;
+		for (int d = 0; d < 3; d++) {
+			double x = (c[d] - MIN[d]) / CELL;
+			int k = (int) Math.floor(x);
+			if (!(x >= 0) || k >= CELLS[d]) {
+				cell = -1;
+				break;
+			}
+			cell = cell * CELLS[d] + k;
+		}
+
+		// Candidates of the cell (built the first time it is used)
+		int[] cand = null;
+		if (cell >= 0) {
+			cand = CANDIDATES.get(cell);
+			if (cand == null) {
+				cand = candidates(cell);
+				CANDIDATES.set(cell, cand);
+			}
+		}
+
+		// Compares the candidates in ascending order so ties keep the first
+		double best = Double.POSITIVE_INFINITY;
+		int arg = 0;
+		int size = cand == null ? NAMES.length : cand.length;
+		for (int j = 0; j < size; j++) {
+			int i = cand == null ? j : cand[j];
+			double dl = LAB[3 * i] - c[0], da = LAB[3 * i + 1] - c[1];
+			double db = LAB[3 * i + 2] - c[2];
+			double dist = dl * dl + da * da + db * db;
+			if (dist < best) {
+				best = dist;
+				arg = i;
+			}
+		}
+
+		// Returns the nearest named color
+		if (distance != null) distance[0] = Math.sqrt(best);
+		return NAMES[arg];
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the number of indexed named colors
+	 * @return The number of named colors
+	 */
+	public static int size() {
+		return NAMES.length;
+	}
+
+} // End of Class declaration
@@ -0,0 +1,413 @@
+package org.paces.stata;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Single pass parser for the input color formats.  Fields may be separated
+ * by any mix of spaces, tabs, and commas (e.g., "5, 37, 249" or "5,37 249").
+ * Numbers are parsed directly from the characters of the string without
+ * creating substrings or boxed values, and hexadecimal colors
+ * (#rrggbb, #rrggbbaa, 0xrrggbb, or rrggbb optionally followed by a decimal
+ * alpha value) are decoded without calling Color.web.  Other web colors
+ * (named colors, three or four digit hexadecimal strings, and the rgb(),
+ * rgba(), hsl(), and hsla() functional forms) are passed to Color.web.  The
+ * resulting colors are created with the same Color factory methods used
+ * previously, so they are identical to the colors parsed before.
+ */
+public final class ColorParser {
+
+	/***
+	 * Powers of ten that are exactly representable as doubles
+	 */
+	private static final double[] POW10 = new double[23];
+
+	/***
+	 * Largest mantissa parsed without rounding (15 significant digits)
+	 */
+	private static final long MAX_MANTISSA = 999999999999999L;
+
+	// Populates the powers of ten
+	static {
+		POW10[0] = 1.0;
+		for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+	}
+
+	/***
+	 * Private constructor for the static utility class
+	 */
+	private ColorParser() {
+	}
+
+	/***
+	 * Method used to check for a field delimiter
+	 * @param c A character
+	 * @return True for whitespace and commas
+	 */
+	public static boolean isDelimiter(char c) {
+		return c <= ' ' || c == ',';
+	}
+
+	/***
+	 * Method used to parse a color
+	 * @param s The color string
+	 * @param ispace The input color space (rgb, rgba, srgb, srgba, hsb, hsba,
+	 *                  or one of the web/hex color spaces)
+	 * @return An object of class Color defined by the color string
+	 * @throws IllegalArgumentException if the string does not define a color
+	 * in the input color space
+	 */
+	public static Color parse(CharSequence s, String ispace) {
+		return parse(s, 0, s.length(), ispace);
+	}
+
+	/***
+	 * Method used to parse a color from part of a string
+	 * @param s The string containing the color
+	 * @param from Index of the first character of the color
+	 * @param to Index one past the last character of the color
+	 * @param ispace The input color space
+	 * @return An object of class Color defined by the color string
+	 * @throws IllegalArgumentException if the string does not define a color
+	 * in the input color space
+	 */
+	public static Color parse(CharSequence s, int from, int to, String ispace) {
+
+		// Dispatches the parser for the input color space
+		switch (ispace) {
+
+			// Integer valued RGB with an optional decimal alpha parameter
+			case "rgb":
+			case "rgba": {
+				double[] v = new double[4];
+				int n = fields(s, from, to, v, "rgb".equals(ispace) ? 3 : 4, 3);
+				return Color.rgb((int) v[0], (int) v[1], (int) v[2],
+						n == 4 ? v[3] : 1.0);
+			}
+
+			// Decimal RGB
+			case "srgb":
+			case "srgba": {
+				double[] v = new double[4];
+				int n = fields(s, from, to, v, "srgb".equals(ispace) ? 3 : 4, 0);
+				return Color.color(v[0], v[1], v[2], n == 4 ? v[3] : 1.0);
+			}
+
+			// Hue, saturation, and brightness
+			case "hsb":
+			case "hsba": {
+				double[] v = new double[4];
+				int n = fields(s, from, to, v, "hsb".equals(ispace) ? 3 : 4, 0);
+				return Color.hsb(v[0], v[1], v[2], n == 4 ? v[3] : 1.0);
+			}
+
+			// Web and hexadecimal colors
+			default:
+				return parseWeb(s, from, to);
+
+		} // End Switch
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to parse a list of colors
+	 * @param s A list of colors separated by the delimiter
+	 * @param delim The character separating the colors (e.g., ';')
+	 * @param ispace The input color space
+	 * @return The colors in the list; empty elements are skipped
+	 */
+	public static Color[] parseList(CharSequence s, char delim, String ispace) {
+
+		// Counts the elements of the list
+		int len = s.length(), count = 1;
+		for (int i = 0; i < len; i++) if (s.charAt(i) == delim) count++;
+
+		// Parses each non-empty element in place
+		Color[] colors = new Color[count];
+		int n = 0;
+		for (int start = 0; start <= len; ) {
+			int end = start;
+			while (end < len && s.charAt(end) != delim) end++;
+			int lo = skip(s, start, end);
+			if (lo < end) colors[n++] = parse(s, lo, end, ispace);
+			start = end + 1;
+		}
+
+		// Removes the slots for empty elements
+		if (n == count) return colors;
+		Color[] tmp = new Color[n];
+		System.arraycopy(colors, 0, tmp, 0, n);
+		return tmp;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to parse a list of numbers
+	 * @param s Numbers separated by spaces and/or commas
+	 * @return The numbers in the list
+	 */
+	public static double[] parseNumbers(CharSequence s) {
+
+		// Counts the fields
+		int len = s.length(), count = 0;
+		for (int i = skip(s, 0, len); i < len; i = skip(s, i, len)) {
+			count++;
+			while (i < len && !isDelimiter(s.charAt(i))) i++;
+		}
+
+		// Parses the fields
+		double[] values = new double[count];
+		fields(s, 0, len, values, count, 0);
+		return values;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to parse the numeric fields of a color
+	 * @param s The string containing the fields
+	 * @param from Index of the first character
+	 * @param to Index one past the last character
+	 * @param out Array where the values are stored
+	 * @param expected The number of fields required
+	 * @param ints The number of leading fields that must be integers
+	 * @return The number of fields parsed
+	 * @throws IllegalArgumentException if the number of fields differs
+	 */
+	private static int fields(CharSequence s, int from, int to, double[] out,
+							  int expected, int ints) {
+
+		// Number of fields parsed
+		int n = 0;
+
+		// Loop over the fields
+		for (int i = skip(s, from, to); i < to; i = skip(s, i, to)) {
+
+			// Check for extra fields
+			if (n == expected) {
+				throw new IllegalArgumentException("Expected " + expected +
+						" values in " + s.subSequence(from, to) + ".");
+			}
+
+			// End of the field
+			int end = i;
+			while (end < to && !isDelimiter(s.charAt(end))) end++;
+
+			// Parse the field
+			out[n] = n < ints ? parseInt(s, i, end) : parseDouble(s, i, end);
+			n++;
+			i = end;
+
+		} // End Loop over fields
+
+		// Check for missing fields
+		if (n != expected) {
+			throw new IllegalArgumentException("Expected " + expected +
+					" values in " + s.subSequence(from, to) + ".");
+		}
+
+		// Returns the number of fields
+		return n;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to parse a web or hexadecimal color with an optional
+	 * decimal alpha parameter
+	 * @param s The string containing the color
+	 * @param from Index of the first character
+	 * @param to Index one past the last character
+	 * @return An object of class Color defined by the color string
+	 */
+	private static Color parseWeb(CharSequence s, int from, int to) {
+
+		// Bounds of the color specification
+		int lo = skip(s, from, to), hi = lo;
+
+		// Functional forms extend to the closing parenthesis
+		int paren = indexOf(s, '(', lo, to);
+		if (paren >= 0) {
+			hi = indexOf(s, ')', paren, to);
+			if (hi < 0) throw new IllegalArgumentException("Invalid color " +
+					"specification " + s.subSequence(from, to) + ".");
+			hi++;
+		} else {
+			while (hi < to && !isDelimiter(s.charAt(hi))) hi++;
+		}
+
+		// Optional decimal alpha parameter after the specification
+		double alpha = 1.0;
+		int a = skip(s, hi, to);
+		if (a < to) {
+			int end = a;
+			while (end < to && !isDelimiter(s.charAt(end))) end++;
+			alpha = parseDouble(s, a, end);
+		}
+
+		// Hexadecimal digits after an optional # or 0x prefix
+		int h = lo;
+		if (h < hi && s.charAt(h) == '#') h++;
+		else if (hi - h > 2 && s.charAt(h) == '0' &&
+				(s.charAt(h + 1) == 'x' || s.charAt(h + 1) == 'X')) h += 2;
+		int ndigits = hi - h;
+
+		// Six and eight digit hexadecimal colors are decoded directly
+		if ((ndigits == 6 || ndigits == 8) && isHex(s, h, hi)) {
+			int r = hex(s, h), g = hex(s, h + 2), b = hex(s, h + 4);
+			return ndigits == 6 ? Color.rgb(r, g, b, alpha) :
+					Color.rgb(r, g, b, alpha * hex(s, h + 6) / 255.0);
+		}
+
+		// Named colors and other forms
+		return Color.web(s.subSequence(lo, hi).toString(), alpha);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to parse an integer from part of a string
+	 * @param s The string containing the integer
+	 * @param from Index of the first character
+	 * @param to Index one past the last character
+	 * @return The integer value
+	 * @throws NumberFormatException if the characters are not an integer
+	 */
+	public static int parseInt(CharSequence s, int from, int to) {
+
+		// Optional sign
+		int i = from;
+		boolean neg = false;
+		if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			neg = s.charAt(i) == '-';
+			i++;
+		}
+
+		// Long values fall back to Integer.parseInt for overflow checks
+		if (i == to || to - i > 9) {
+			return Integer.parseInt(s.subSequence(from, to).toString());
+		}
+
+		// Accumulates the digits
+		int v = 0;
+		for (; i < to; i++) {
+			int d = s.charAt(i) - '0';
+			if (d < 0 || d > 9) throw new NumberFormatException("For input " +
+					"string: \"" + s.subSequence(from, to) + "\"");
+			v = 10 * v + d;
+		}
+
+		// Returns the value
+		return neg ? -v : v;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to parse a double from part of a string.  Plain decimal
+	 * values with up to 15 significant digits are computed as the quotient of
+	 * two exactly representable doubles, which is correctly rounded and
+	 * therefore equal to Double.parseDouble.  Other values (e.g., exponents)
+	 * use Double.parseDouble.
+	 * @param s The string containing the number
+	 * @param from Index of the first character
+	 * @param to Index one past the last character
+	 * @return The double value
+	 * @throws NumberFormatException if the characters are not a number
+	 */
+	public static double parseDouble(CharSequence s, int from, int to) {
+
+		// Optional sign
+		int i = from;
+		boolean neg = false;
+		if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			neg = s.charAt(i) == '-';
+			i++;
+		}
+
+		// Mantissa, number of digits after the decimal point, and digits seen
+		long mant = 0;
+		int frac = -1, digits = 0;
+
+		// Loop over the characters
+		for (; i < to; i++) {
+			char c = s.charAt(i);
+			if (c >= '0' && c <= '9') {
+				mant = 10 * mant + (c - '0');
+				digits++;
+				if (frac >= 0) frac++;
+				if (mant > MAX_MANTISSA || frac >= POW10.length) break;
+			} else if (c == '.' && frac < 0) {
+				frac = 0;
+			} else {
+				break;
+			}
+		}
+
+		// Values that are not plain decimals use the standard parser
+		if (i < to || digits == 0) {
+			return Double.parseDouble(s.subSequence(from, to).toString());
+		}
+
+		// Quotient of the mantissa and the power of ten
+		double v = frac > 0 ? mant / POW10[frac] : mant;
+		return neg ? -v : v;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to skip delimiters
+	 * @param s The string
+	 * @param i The starting index
+	 * @param to Index one past the last character
+	 * @return The index of the next character that is not a delimiter
+	 */
+	private static int skip(CharSequence s, int i, int to) {
+		while (i < to && isDelimiter(s.charAt(i))) i++;
+		return i;
+	}
+
+	/***
+	 * Method used to find a character
+	 * @param s The string
+	 * @param c The character to find
+	 * @param from Index of the first character
+	 * @param to Index one past the last character
+	 * @return The index of the character or -1
+	 */
+	private static int indexOf(CharSequence s, char c, int from, int to) {
+		for (int i = from; i < to; i++) if (s.charAt(i) == c) return i;
+		return -1;
+	}
+
+	/***
+	 * Method used to check for hexadecimal digits
+	 * @param s The string
+	 * @param from Index of the first character
+	 * @param to Index one past the last character
+	 * @return True if all of the characters are hexadecimal digits
+	 */
+	private static boolean isHex(CharSequence s, int from, int to) {
+		for (int i = from; i < to; i++) if (digit(s.charAt(i)) < 0) return false;
+		return true;
+	}
+
+	/***
+	 * Method used to decode two hexadecimal digits
+	 * @param s The string
+	 * @param i Index of the first digit
+	 * @return The value in [0, 255]
+	 */
+	private static int hex(CharSequence s, int i) {
+		return digit(s.charAt(i)) << 4 | digit(s.charAt(i + 1));
+	}
+
+	/***
+	 * Method used to decode a hexadecimal digit
+	 * @param c The character
+	 * @return The value in [0, 15] or -1 if the character is not a digit
+	 */
+	private static int digit(char c) {
+		if (c >= '0' && c <= '9') return c - '0';
+		if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+		if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+		return -1;
+	}
+
+} // End of Class declaration
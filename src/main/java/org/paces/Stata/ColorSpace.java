@@ -0,0 +1,154 @@
+package org.paces.stata;
+
+import java.util.Locale;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Color spaces used for the input and returned colors.  Each space parses
+ * color strings with {@link org.paces.stata.ColorParser} and formats colors
+ * with the {@link org.paces.stata.ColorEncoder} for the space, so the
+ * strings passed from Stata are resolved once when a
+ * {@link org.paces.stata.PaletteSpec} is built.
+ */
+public enum ColorSpace {
+
+	/***
+	 * Integer valued RGB
+	 */
+	RGB,
+
+	/***
+	 * Integer valued RGB with a decimal opacity
+	 */
+	RGBA,
+
+	/***
+	 * Decimal valued sRGB
+	 */
+	SRGB,
+
+	/***
+	 * Decimal valued sRGB with opacity
+	 */
+	SRGBA,
+
+	/***
+	 * Hue, saturation, and brightness
+	 */
+	HSB,
+
+	/***
+	 * Hue, saturation, and brightness with opacity
+	 */
+	HSBA,
+
+	/***
+	 * Web colors (#rrggbb)
+	 */
+	WEB,
+
+	/***
+	 * Web colors with opacity (#rrggbbaa)
+	 */
+	WEBA,
+
+	/***
+	 * Hexadecimal colors (rrggbb)
+	 */
+	HEX,
+
+	/***
+	 * Hexadecimal colors with opacity (rrggbbaa)
+	 */
+	HEXA;
+
+	/***
+	 * Name used by the Stata wrapper, the parser, and the encoders
+	 */
+	private final String id = name().toLowerCase(Locale.ROOT);
+
+	/***
+	 * Method used to parse a color in this space
+	 * @param s The color string
+	 * @return An object of class Color defined by the color string
+	 * @throws IllegalArgumentException if the string does not define a color
+	 * in this space
+	 */
+	public Color parse(CharSequence s) {
+		return ColorParser.parse(s, this.id);
+	}
+
+	/***
+	 * Method used to get an encoder for this space
+	 * @param digits The number of digits after the decimal point for decimal
+	 *                  values or ColorEncoder.SHORTEST
+	 * @return A new encoder, which should be used by a single thread
+	 */
+	public ColorEncoder encoder(int digits) {
+		return ColorEncoder.forSpace(this.id, digits);
+	}
+
+	/***
+	 * Method used to get the name used by the Stata wrapper
+	 * @return The lower case name of the space (e.g., rgba)
+	 */
+	@Override
+	public String toString() {
+		return this.id;
+	}
+
+	/***
+	 * Method used to get the color space from a string
+	 * @param name The name of the color space (case insensitive); an empty
+	 *                string is treated as rgb
+	 * @return The color space
+	 * @throws IllegalArgumentException for unrecognized names
+	 */
+	public static ColorSpace fromString(String name) {
+
+		// Normalized name
+		String n = name.trim().toLowerCase(Locale.ROOT);
+
+		// The default color space
+		if (n.isEmpty()) return RGB;
+
+		// Looks up the color space
+		for (ColorSpace space : values()) {
+			if (space.id.equals(n)) return space;
+		}
+
+		// Unrecognized color spaces
+		throw new IllegalArgumentException("Unrecognized color space " +
+				name + ".");
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the color space from a string with a fallback for
+	 * unrecognized names
+	 * @param name The name of the color space (case insensitive); an empty
+	 *                string is treated as rgb
+	 * @param fallback The color space returned for unrecognized names
+	 * @return The color space
+	 */
+	public static ColorSpace fromString(String name, ColorSpace fallback) {
+
+		// Normalized name
+		String n = name.trim().toLowerCase(Locale.ROOT);
+
+		// The default color space
+		if (n.isEmpty()) return RGB;
+
+		// Looks up the color space
+		for (ColorSpace space : values()) {
+			if (space.id.equals(n)) return space;
+		}
+
+		// Unrecognized color spaces
+		return fallback;
+
+	} // End of Method declaration
+
+} // End of Class declaration
@@ -1,6 +1,14 @@
 package org.paces.stata;
+import com.stata.sfi.Data;
 import com.stata.sfi.Macro;
-import javafx.scene.paint.Color;
+import com.stata.sfi.Matrix;
+import com.stata.sfi.SFIToolkit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
 
 /***
  * @author Billy Buchanan
@@ -46,6 +54,11 @@ import javafx.scene.paint.Color;
  */
 public class ColorTerp {
 
+	/***
+	 * Number of required arguments passed to the constructor
+	 */
+	public static final int NARGS = 8;
+
 	/***
 	 * Boolean used to return arbitrarily brighter color
 	 */
@@ -91,6 +104,21 @@ public class ColorTerp {
 	 */
 	private Color end;
 
+	/***
+	 * Color objects for the anchors between the starting and ending colors
+	 */
+	private Color[] stops = new Color[0];
+
+	/***
+	 * Positions of the anchor colors or null for evenly spaced anchors
+	 */
+	private double[] positions;
+
+	/***
+	 * Color space used to interpolate the colors
+	 */
+	private TerpSpace terpspace = TerpSpace.SRGB;
+
 	/***
 	 * Number of points between start and end to interpolate
 	 */
@@ -114,6 +142,69 @@ public class ColorTerp {
 	 */
 	private boolean grayscale;
 
+	/***
+	 * Number of digits after the decimal point used to format decimal
+	 * values or ColorEncoder.SHORTEST for the shortest exact representation
+	 */
+	private int digits = ColorEncoder.SHORTEST;
+
+	/***
+	 * Boolean used to look up and store palettes in the session cache
+	 */
+	private boolean cache = true;
+
+	/***
+	 * Path of the persistent palette store or null
+	 */
+	private String store;
+
+	/***
+	 * Number of points at or above which the colors are interpolated in
+	 * parallel or a negative value to always interpolate sequentially
+	 */
+	private int threshold = TerpTask.DEFAULT_THRESHOLD;
+
+	/***
+	 * Member variable with an ordered chain of color modifications used
+	 * instead of the color mod, inverse, and grayscale arguments or null
+	 */
+	private ModifierChain modifiers;
+
+	/***
+	 * Member variable indicating whether the phases of a call are timed
+	 * (see PhaseMetrics)
+	 */
+	private boolean metrics = false;
+
+	/***
+	 * Member variable indicating whether each color is labeled with the
+	 * nearest named color (see ColorNames)
+	 */
+	private boolean names = false;
+
+	/***
+	 * Member variable with the placement of the colors of the palette
+	 */
+	private Spacing spacing = Spacing.EXACT;
+
+	/***
+	 * Member variable with the position of every color of the palette or
+	 * null
+	 */
+	private double[] at;
+
+	/***
+	 * Member variable with the curve followed by the channels between the
+	 * anchor colors
+	 */
+	private Curve curve = Curve.LINEAR;
+
+	/***
+	 * Member variable with the palette compiled from the parsed values, or
+	 * null after one of the setters changes them
+	 */
+	private PaletteSpec spec;
+
 
 	/**
 	 * Method used to set the value of the grayscale member
@@ -125,6 +216,7 @@ public class ColorTerp {
 	 */
 	public void setGrayScale(String graysc) {
 		this.grayscale = Boolean.valueOf(graysc);
+		this.spec = null;
 	}
 
 	/***
@@ -204,45 +296,6 @@ public class ColorTerp {
 	} // End of Method declaration
 
 
-	/***
-	 * Method used to construct a color object given an array of integer
-	 * values and a user specified color space
-	 * @param colors An array of String with one or two elements
-	 * @param inspace web only
-	 * @return An object of class Color given the RGB input
-	 */
-	public Color setColor(String[] colors, String inspace) {
-
-		// If hex with alpha in single hex string
-		if (colors.length == 1 &&
-				("weba".equals(inspace) || "hexa".equals(inspace))) {
-
-			// First six bytes are the RGB values
-			String hex = colors[0].substring(0, 5);
-
-			// Last two bytes should be the alpha scaled to be in [0, 255]
-			Double alpha = Integer.decode(colors[0].substring(6, 7)) / 255.0;
-
-			// Second argument would be for alpha transparency
-			return Color.web(hex, alpha);
-
-		// If the string array contains multiple elements
-		} else if (colors.length > 1) {
-
-			// Other option is to pass alpha as decimal value with space
-			// delimiter between it and the hex string
-			return Color.web(colors[0], Double.valueOf(colors[1]));
-
-		// In all other cases default to single parameter method invocation
-		} else {
-
-			// Treat the single string as a Hexadecimal RGB value
-			return Color.web(colors[0]);
-
-		} // End ELSE Block
-
-	} // End of Method declaration
-
 	/***
 	 * Setter method for the input color space
 	 * @param icspace The input color space used for the scolor and ecolor
@@ -253,6 +306,9 @@ public class ColorTerp {
 		// Sets the input color space variable
 		this.inspace = icspace;
 
+		// Clears the compiled palette
+		this.spec = null;
+
 	} // End of setter for input color space
 
 	/***
@@ -265,6 +321,9 @@ public class ColorTerp {
 		// Sets the return value color space
 		this.retspace = rcspace;
 
+		// Clears the compiled palette
+		this.spec = null;
+
 	} // End of setter for return value color space
 
 	/***
@@ -277,6 +336,9 @@ public class ColorTerp {
 		// Set inverted colors to boolean version of string
 		this.invertcolors = Boolean.valueOf(inverse);
 
+		// Clears the compiled palette
+		this.spec = null;
+
 	} // End of setter for inverse colors
 
 	/***
@@ -332,273 +394,346 @@ public class ColorTerp {
 
 		} // End of Switch statement
 
-	} // End Method declaration
-
-	/***
-	 * Method to parse string arguments into array for color definitions
-	 * @param values A string array of values used to define elements of the
-	 *                  color
-	 * @return An array of doubles and length 3 for sRGB and HSB
-	 */
-	public double[] parseColor(String[] values) {
-
-		// Initialize array of doubles with length 3
-		double[] cols = new double[3];
-
-		// Loop over the values from 0 - 2
-		for(int i = 0; i < values.length; i++) {
-
-			// Add the ith element to the array by recasting the string to a
-			// double value
-			cols[i] = Double.valueOf(values[i]);
-
-		} // End of Loop
-
-		// Return the array object
-		return cols;
-
-	} // End of Method declaration
+		// Clears the compiled palette
+		this.spec = null;
 
+	} // End Method declaration
 
 	/***
-	 * Method to parse string arguments into array for color definitions
-	 * @param values A string array of values used to define elements of the
-	 *                  color
-	 * @return An array of doubles and length 4 for sRGBa and HSBa
+	 * Method that returns a color object from a color string
+	 * @param sc A space and/or comma delimited string of color values for a
+	 *              single color
+	 * @param ispace The input color space used to define the color values in
+	 *                  the string parameter sc.
+	 * @return An object of class Color defined by the color string
 	 */
-	public double[] parseColorAlpha(String[] values) {
-
-		// Initialize array of doubles with length 4
-		double[] cols = new double[4];
-
-		// Loop over the values from 0 - 3
-		for(int i = 0; i < values.length; i++) {
+	public Color getColor(String sc, String ispace) {
 
-			// Add the ith element to the array by recasting the string to a
-			// double value
-			cols[i] = Double.valueOf(values[i]);
+		// Parses the color in a single pass over the string
+		return ColorParser.parse(sc, ispace);
 
-		} // End of Loop
-
-		// Return the array object
-		return cols;
-
-	}
+	} // End Method declaration
 
 	/***
-	 * Method to parse string arguments into array for color definitions
-	 * @param values A string array of values used to define elements of the
-	 *                  color
-	 * @return An array of ints and length 3 for RGB
+	 * Method that returns a color object from an RGB String value
+	 * @param sc A comma delimited string of RGB values for a single color
+	 * @param ispace The input color space used to define the color values in
+	 *                  the string parameter sc.
 	 */
-	public int[] parseRGB(String[] values) {
-
-		// Initialize array of doubles with length 3
-		int[] cols = new int[3];
-
-		// Loop over the values from 0 - 2
-		for(int i = 0; i < values.length; i++) {
-
-			// Add the ith element to the array by recasting the string to an
-			// int value
-			cols[i] = Integer.valueOf(values[i]);
+	public void setStart(String sc, String ispace) {
 
-		} // End of Loop
+		// Set the Starting Color object
+		this.start = getColor(sc, ispace);
 
-		// Return the array object
-		return cols;
+		// Clears the compiled palette
+		this.spec = null;
 
-	} // End of Method declaration
+	} // End Method declaration for starting color
 
 	/***
-	 * Method to parse string arguments into array for color definitions
-	 * @param values A string array of values used to define elements of the
-	 *                  color
-	 * @return An array of ints and length 4 for RGBa
+	 * Method that returns a color object from an RGB String value
+	 * @param ec A comma delimited string of RGB values for a single color
+	 * @param ispace The input color space used to define the color values in
+	 *                  the string parameter sc.
 	 */
-	public int[] parseRGBAlpha(String[] values) {
-
-		// Initialize array of doubles with length 4
-		int[] cols = new int[4];
-
-		// Loop over the values from 0 - 3
-		for(int i = 0; i < values.length; i++) {
-
-			// Add the ith element to the array by recasting the string to an
-			// int value
-			cols[i] = Integer.valueOf(values[i]);
+	public void setEnd(String ec, String ispace) {
 
-		} // End of Loop
+		// Set the ending Color object
+		this.end = getColor(ec, ispace);
 
-		// Return the array object
-		return cols;
+		// Clears the compiled palette
+		this.spec = null;
 
-	} // End of Method declaration
+	} // End Method declaration for ending color
 
 	/***
-	 * Method that returns a color object from an RGB String value
-	 * @param sc A comma delimited string of RGB values for a single color
+	 * Method used to set the intermediate anchor colors of the gradient
+	 * @param sc A semicolon delimited list of colors between the starting
+	 *              and ending colors
 	 * @param ispace The input color space used to define the color values in
 	 *                  the string parameter sc.
 	 */
-	public void setStart(String sc, String ispace) {
-
-		// Parses the passed string based on spaces
-		String[] vals = sc.split(" ");
-
-		// Dispatches appropriate method for input color space and color def
-		switch (ispace) {
-
-			// For RGB Colorspace
-			case "rgb" :
-
-				// Set the Starting Color object
-				this.start = setColor(parseRGB(vals), ispace);
-
-				// Break out of the switch
-				break;
-
-			// For RGBa Colorspace
-			case "rgba" :
-
-				// Set the Starting Color object
-				this.start = setColor(parseRGBAlpha(vals), ispace);
-
-				// Break out of the switch
-				break;
+	public void setStops(String sc, String ispace) {
 
-			// For sRGB Colorspace
-			case "srgb" :
+		// Parses the semicolon delimited colors and skips empty elements
+		this.stops = ColorParser.parseList(sc, ';', ispace);
 
-				// Set the Starting Color object
-				this.start = setColor(parseColor(vals), ispace);
+		// Clears the compiled palette
+		this.spec = null;
 
-				// Break out of the switch
-				break;
-
-			// For HSB Colorspace
-			case "hsb" :
-
-				// Set the Starting Color object
-				this.start = setColor(parseColor(vals), ispace);
-
-				// Break out of the switch
-				break;
-
-			// For sRGBa Colorspace
-			case "srgba" :
-
-				// Set the Starting Color object
-				this.start = setColor(parseColorAlpha(vals), ispace);
-
-				// Break out of the switch
-				break;
+	} // End Method declaration
 
-			// For HSBa Colorspace
-			case "hsba" :
+	/***
+	 * Method used to set the positions of the anchor colors
+	 * @param pos A space or comma delimited list of ascending values in
+	 *               [0, 1] with one value for the starting color, each
+	 *               intermediate stop, and the ending color
+	 */
+	public void setPositions(String pos) {
 
-				// Set the Starting Color object
-				this.start = setColor(parseColorAlpha(vals), ispace);
+		// Parses the values separated by spaces and/or commas
+		this.positions = ColorParser.parseNumbers(pos);
 
-				// Break out of the switch
-				break;
+		// Clears the compiled palette
+		this.spec = null;
 
-			// For Web Colorspace
-			default :
+	} // End Method declaration
 
-				// Set the Starting Color object
-				this.start = setColor(vals, ispace);
+	/***
+	 * Setter method for the interpolation color space
+	 * @param tcspace One of srgb (default), linear, lab, or oklab
+	 */
+	public void setTerpSpace(String tcspace) {
 
-				// Break out of the switch
-				break;
+		// Sets the interpolation color space
+		this.terpspace = TerpSpace.fromString(tcspace);
 
-		} // End Switch
+		// Clears the compiled palette
+		this.spec = null;
 
-	} // End Method declaration for starting color
+	} // End of setter for interpolation color space
 
 	/***
-	 * Method that returns a color object from an RGB String value
-	 * @param ec A comma delimited string of RGB values for a single color
-	 * @param ispace The input color space used to define the color values in
-	 *                  the string parameter sc.
+	 * Setter method for the number of digits used to format decimal values
+	 * @param ndigits An integer in [0, 15] or -1 (the default) to use the
+	 *                   shortest representation of each value
 	 */
-	public void setEnd(String ec, String ispace) {
+	public void setDigits(String ndigits) {
 
-		// Parses the passed string based on spaces
-		String[] vals = ec.split(" ");
+		// Parses the number of digits
+		int n = Integer.parseInt(ndigits.trim());
 
-		// Dispatches appropriate method for input color space and color def
-		switch (ispace) {
+		// Check for a valid number of digits
+		if (n != ColorEncoder.SHORTEST && (n < 0 || n > ColorEncoder.MAXDIGITS)) {
+			throw new IllegalArgumentException("The number of digits must " +
+					"be in [0, " + ColorEncoder.MAXDIGITS + "].");
+		}
 
-			// For RGB Colorspace
-			case "rgb" :
+		// Sets the number of digits
+		this.digits = n;
 
-				// Set the ending Color object
-				this.end = setColor(parseRGB(vals), ispace);
+		// Clears the compiled palette
+		this.spec = null;
 
-				// Break out of the switch
-				break;
-
-			// For RGBa Colorspace
-			case "rgba" :
+	} // End of setter for number of digits
 
-				// Set the ending Color object
-				this.end = setColor(parseRGBAlpha(vals), ispace);
-
-				// Break out of the switch
-				break;
+	/***
+	 * Setter method for the use of the session palette cache
+	 * @param usecache A boolean string literal indicating if palettes are
+	 *                    looked up and stored in PaletteCache.SESSION
+	 */
+	public void setCache(String usecache) {
+		this.cache = Boolean.valueOf(usecache);
+		this.spec = null;
+	}
 
-			// For sRGB Colorspace
-			case "srgb" :
+	/***
+	 * Setter method for the persistent palette store
+	 * @param path The path of the store file shared by Stata sessions and
+	 *                command line runs (created if it does not exist)
+	 */
+	public void setStore(String path) {
+		this.store = path.trim().isEmpty() ? null : path;
+		this.spec = null;
+	}
 
-				// Set the ending Color object
-				this.end = setColor(parseColor(vals), ispace);
+	/***
+	 * Setter method for the parallel execution threshold
+	 * @param nthreshold The number of points at or above which the colors
+	 *                      are interpolated in parallel or a negative value to
+	 *                      always interpolate sequentially
+	 */
+	public void setThreshold(String nthreshold) {
+		this.threshold = Integer.parseInt(nthreshold.trim());
+		this.spec = null;
+	}
 
-				// Break out of the switch
-				break;
+	/***
+	 * Setter method for an ordered chain of color modifications
+	 * @param chain Steps separated by spaces and/or commas, each of which is
+	 *                 brighter, darker, saturated, or desaturated with an
+	 *                 optional :factor in (0, 1], invert, or grayscale (see
+	 *                 ModifierChain#parse)
+	 * @throws IllegalArgumentException if the color mod, inverse, or
+	 * grayscale arguments were also used or the chain is invalid
+	 */
+	public void setModifiers(String chain) {
 
-			// For HSB Colorspace
-			case "hsb" :
+		// The chain replaces the other modification arguments
+		if (this.brighter || this.darker || this.saturated ||
+				this.desaturated || this.invertcolors || this.grayscale) {
+			throw new IllegalArgumentException("A chain of modifications " +
+					"cannot be combined with the color mod, inverse, or " +
+					"grayscale arguments.");
+		}
 
-				// Set the ending Color object
-				this.end = setColor(parseColor(vals), ispace);
+		// Compiles the chain
+		this.modifiers = ModifierChain.parse(chain);
 
-				// Break out of the switch
-				break;
+		// Clears the compiled palette
+		this.spec = null;
 
-			// For sRGBa Colorspace
-			case "srgba" :
+	} // End of Method declaration
 
-				// Set the ending Color object
-				this.end = setColor(parseColorAlpha(vals), ispace);
+	/***
+	 * Setter method for the interpolation curve
+	 * @param tcurve One of linear (default), catmullrom, or bspline
+	 */
+	public void setCurve(String tcurve) {
+		this.curve = Curve.fromString(tcurve);
+		this.spec = null;
+	}
 
-				// Break out of the switch
-				break;
+	/***
+	 * Setter method for the placement of the colors
+	 * @param space One of exact (default), where each of the n colors is
+	 *                 interpolated at k / (n - 1), running, where the
+	 *                 starting color is followed by the running sum of the
+	 *                 distances used by earlier versions, or uniform, where
+	 *                 adjacent colors differ by the same color difference
+	 *                 (see ArcTable)
+	 */
+	public void setSpacing(String space) {
+		this.spacing = Spacing.fromString(space);
+		this.spec = null;
+	}
 
-			// For HSBa Colorspace
-			case "hsba" :
+	/***
+	 * Method used to set the position of every color of the palette
+	 * @param pos A space or comma delimited list of values in [0, 1] with
+	 *               one value for each of the points + 1 colors
+	 */
+	public void setAt(String pos) {
 
-				// Set the ending Color object
-				this.end = setColor(parseColorAlpha(vals), ispace);
+		// Parses the values separated by spaces and/or commas
+		this.at = ColorParser.parseNumbers(pos);
 
-				// Break out of the switch
-				break;
+		// Clears the compiled palette
+		this.spec = null;
 
-			// For Web Colorspace
-			default :
+	} // End Method declaration
 
-				// Set the ending Color object
-				this.end = setColor(vals, ispace);
+	/***
+	 * Setter method for the instrumentation of the phases of a call
+	 * @param usemetrics A boolean string literal indicating if the time and
+	 *                      allocations of each phase are returned to Stata
+	 */
+	public void setMetrics(String usemetrics) {
+		this.metrics = Boolean.valueOf(usemetrics);
+	}
 
-				// Break out of the switch
-				break;
+	/***
+	 * Setter method for the labels of the colors
+	 * @param usenames A boolean string literal indicating if each color is
+	 *                    labeled with the nearest named color
+	 */
+	public void setNames(String usenames) {
+		this.names = Boolean.valueOf(usenames);
+	}
 
-		} // End Switch
+	/***
+	 * Method used to set the optional arguments passed after the required
+	 * arguments
+	 * @param args The arguments passed to the constructor.  Elements after
+	 *                the first NARGS are name=value pairs.
+	 * @throws IllegalArgumentException for unrecognized option names
+	 */
+	public void setOptions(String[] args) {
+
+		// Loop over the optional arguments
+		for (int i = NARGS; i < args.length; i++) {
+
+			// Split the argument into the name and the value
+			int eq = args[i].indexOf('=');
+			String name = eq < 0 ? args[i] : args[i].substring(0, eq);
+			String value = eq < 0 ? "" : args[i].substring(eq + 1);
+
+			// Dispatches the appropriate setter for the option
+			switch (name) {
+
+				// Intermediate anchor colors
+				case "stops":
+					setStops(value, getInSpace());
+					break;
+
+				// Positions of the anchor colors
+				case "positions":
+					setPositions(value);
+					break;
+
+				// Interpolation color space
+				case "terpspace":
+					setTerpSpace(value);
+					break;
+
+				// Digits used to format decimal values
+				case "digits":
+					setDigits(value);
+					break;
+
+				// Use of the session palette cache
+				case "cache":
+					setCache(value);
+					break;
+
+				// Persistent palette store
+				case "store":
+					setStore(value);
+					break;
+
+				// Number of points at or above which colors are interpolated
+				// in parallel
+				case "threshold":
+					setThreshold(value);
+					break;
+
+				// Ordered chain of color modifications
+				case "modifiers":
+					setModifiers(value);
+					break;
+
+				// Curve between the anchor colors
+				case "curve":
+					setCurve(value);
+					break;
+
+				// Placement of the colors
+				case "spacing":
+					setSpacing(value);
+					break;
+
+				// Position of every color
+				case "at":
+					setAt(value);
+					break;
+
+				// Instrumentation of the phases of the call
+				case "metrics":
+					setMetrics(value);
+					break;
+
+				// Labels of the colors
+				case "names":
+					setNames(value);
+					break;
+
+				// Unrecognized options
+				default:
+					throw new IllegalArgumentException("Unrecognized option " +
+							name + ".");
+
+			} // End Switch
+
+		} // End Loop over optional arguments
 
-	} // End Method declaration for ending color
+	} // End Method declaration
 
 	/***
-	 * Method to define the distances between the start and end colors
+	 * Method to define the distances between the start and end colors with
+	 * the running spacing.  The distances are the running sum of 1 / points
+	 * used by earlier versions (see Spacing#RUNNING), kept as is so those
+	 * palettes are reproduced exactly; the other spacings place the colors
+	 * at the positions of PaletteSpec#positions() instead.
 	 * @param points The number of colors to interpolate between start and end
 	 */
 	public void setDistances(int points) {
@@ -646,13 +781,10 @@ public class ColorTerp {
 	 * method will append the leading zero in the first position of the
 	 * string (e.g., 11 in decimal becomes "0b" instead of "b").
 	 */
-	public String rgbToHex(Double val) {
+	public String rgbToHex(double val) {
 
-		// Converts the value first to Integer and then to a Hexadecimal String
-		// If in [0, 15] returns value with appended "0" in the first position
-		return Integer.toHexString(rgbInt(val)).length() == 1 ?
-				"0" + Integer.toHexString(rgbInt(val)) :
-				Integer.toHexString(rgbInt(val));
+		// Looks up the two characters for the value
+		return ColorEncoder.appendHex(new StringBuilder(2), val).toString();
 
 	} // End of method declaration
 
@@ -663,10 +795,10 @@ public class ColorTerp {
 	 * @return An integer value in [0, 255] based on the double value passed
 	 * to the method.
 	 */
-	public Integer rgbInt(Double val) {
+	public int rgbInt(double val) {
 
 		// If the rounded value is less than 255 else impose a cieling value of 255
-		return Math.round(val * 255) < 255 ? (int) Math.round(val * 255) : 255;
+		return ColorEncoder.rgbInt(val);
 
 	} // End Method declaration
 
@@ -679,138 +811,42 @@ public class ColorTerp {
 	 */
 	public String getColorString(Color thecolor, String cspace) {
 
-		// Returns string based on color space
-		switch (cspace) {
-
-			// Hexadecimal based formats
-			case "web":
-			case "weba": {
-
-				// Convert the red channel value to a hexadecimal string
-				String r = "#" + rgbToHex(thecolor.getRed());
-
-				// Convert the green channel value to a hexadecimal string
-				String g = rgbToHex(thecolor.getGreen());
-
-				// Convert the blue channel value to a hexadecimal string
-				String b = rgbToHex(thecolor.getBlue());
-
-				// If web is output color space
-				if ("web".equals(cspace)) return r + g + b;
-
-				// If web with alpha transparency parameter
-				else return r + g + b + " " + String.valueOf(thecolor.getOpacity());
-
-			} // End CASE for Web-based Colors
-
-			// Case for hexadecimal strings non-web format
-			case "hex":
-			case "hexa": {
-
-				// Convert the red channel value to a hexadecimal string
-				String r = rgbToHex(thecolor.getRed());
-
-				// Convert the green channel value to a hexadecimal string
-				String g = rgbToHex(thecolor.getGreen());
-
-				// Convert the blue channel value to a hexadecimal string
-				String b = rgbToHex(thecolor.getBlue());
-
-				// For hexadecimal with alpha parameter
-				if ("hexa".equals(cspace)) return r + g + b + " " + String.valueOf(thecolor.getOpacity());
-
-				// For hexadecimal without alpha parameter
-				else return r + g + b;
-
-			} // End Hexadecimal-based return spaces
-
-			// Decimal RGB formats
-			case "srgb":
-			case "srgba": {
-
-				// Get String value of the red color rounded to nearest integer
-				String r = String.valueOf(thecolor.getRed());
-
-				// Get String value of the green color rounded to nearest integer
-				String g = String.valueOf(thecolor.getGreen());
-
-				// Get String value of the blue color rounded to nearest integer
-				String b = String.valueOf(thecolor.getBlue());
-
-				// If colorspace includes alpha layer transparency
-				if (cspace.equals("srgba")) {
-
-					// Add the space delimited string as an array element
-					return r + " " + g + " " + b + " " + String.valueOf(thecolor.getOpacity());
-
-					// For sRGB without alpha transparency
-				} else {
-
-					// Add the space delimited string as an array element
-					return r + " " + g + " " + b;
-
-				} // End ELSE Block for sRGB
-
-			} // End CASE for decimal RGB values
-
-			// Case for Hue Saturation Brightness colorspace
-			case "hsb":
-			case "hsba": {
-
-				// Get String value of the hue
-				String h = String.valueOf(thecolor.getHue());
-
-				// Get String value of the saturation
-				String s = String.valueOf(thecolor.getSaturation());
+		// Formats the channel values of the color object
+		return getColorString(thecolor.getRed(), thecolor.getGreen(),
+				thecolor.getBlue(), thecolor.getOpacity(), cspace);
 
-				// Get String value of the brightness
-				String b = String.valueOf(thecolor.getBrightness());
-
-				// If colorspace includes alpha layer transparency
-				if (cspace.equals("hsba")) {
-
-					// Add the space delimited string as an array element
-					return h + " " + s + " " + b + " " + String.valueOf(thecolor.getOpacity());
-
-					// For HSB without alpha transparency
-				} else {
-
-					// Add the space delimited string as an array element
-					return h + " " + s + " " + b;
-
-				} // End ELSE Block for HSB w/o alpha transparency
-
-			} // End CASE for HSB colorspace
-
-			// For integer valued RGB
-			default: {
-
-				// Get String value of the red color rounded to nearest integer
-				String r = String.valueOf(rgbInt(thecolor.getRed()));
-
-				// Get String value of the green color rounded to nearest integer
-				String g = String.valueOf(rgbInt(thecolor.getGreen()));
-
-				// Get String value of the blue color rounded to nearest integer
-				String b = String.valueOf(rgbInt(thecolor.getBlue()));
-
-				// For RGB with alpha transparency
-				if (cspace.equals("rgba")) {
-
-					// Add the space delimited string as an array element
-					return r + " " + g + " " + b + " " + String.valueOf(thecolor.getOpacity());
+	} // End of Method declaration
 
-					// For RGB without alpha transparency
-				} else {
+	/***
+	 * Method to translate the channel values of a color into a color string.
+	 * When formatting many colors use {@link #getEncoder(String)} once
+	 * instead.
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param opacity The opacity value in [0, 1]
+	 * @param cspace The return color space
+	 * @return A space delimited string of component values for the
+	 * interpolated colors.
+	 */
+	public String getColorString(double red, double green, double blue,
+								 double opacity, String cspace) {
 
-					// Add the space delimited string as an array element
-					return r + " " + g + " " + b;
+		// Formats the color with the encoder for the color space
+		return getEncoder(cspace).encode(red, green, blue, opacity);
 
-				} // End ELSE Block for RGB
+	} // End of Method declaration
 
-			} // End CASE for integer RGB values
+	/***
+	 * Method used to get an encoder for a return color space that uses the
+	 * number of digits set for decimal values
+	 * @param cspace The return color space
+	 * @return A new encoder for the color space
+	 */
+	public ColorEncoder getEncoder(String cspace) {
 
-		} // End Switch statement
+		// Selects the encoder for the color space
+		return ColorEncoder.forSpace(cspace, this.digits);
 
 	} // End of Method declaration
 
@@ -839,67 +875,132 @@ public class ColorTerp {
 			boolean desaturated, boolean invert, String cspace,
 			boolean grayscale) {
 
-		// Sets up storage object
-		String[] colors = new String[distances.length];
+		// Gradient with only the starting and ending colors
+		setTColors(new Color[]{ s, e }, null, TerpSpace.SRGB, distances,
+				brighter, darker, saturated, desaturated, invert, cspace,
+				grayscale);
 
-		// Loop over the distances
-		for(int i = 0; i < distances.length; i++) {
+	} // End of Method declaration
 
-			Color tmpColor, invcol, greycol;
+	/***
+	 * Method to create a string array of RGB values given the anchor colors
+	 * of a gradient and the distances from the first anchor.
+	 * @param anchors The anchor colors from the starting to the ending color
+	 * @param positions The ascending positions of the anchors in [0, 1] or
+	 *                     null to space the anchors evenly
+	 * @param tspace The color space used to interpolate the colors
+	 * @param distances Array of distances between start and end
+	 * @param brighter A Boolean used to return brighter versions of
+	 *                    interpolated colors
+	 * @param darker A boolean used to return arbitrarily darker version of the
+	 *               interpolated colors
+	 * @param saturated A boolean used to return arbitrarily more saturated
+	 *                     version of the interpolated colors
+	 * @param desaturated A boolean used to return arbitrarily less saturated
+	 *                       version of the interpolated colors
+	 * @param invert A boolean used to return the inverse of the interpolated
+	 *                  colors
+	 * @param cspace The return colorspace to use for the interpolated colors
+	 * @param grayscale A boolean used to translate the color into a
+	 *                     grayscale space
+	 */
+	public void setTColors(Color[] anchors, double[] positions,
+			TerpSpace tspace, double[] distances, boolean brighter,
+			boolean darker, boolean saturated, boolean desaturated,
+			boolean invert, String cspace, boolean grayscale) {
 
-			// Arbitrarily brighter colors
-			if (brighter && !darker && !saturated && !desaturated) {
+		// Compiles the modifications
+		setTColors(anchors, positions, tspace, distances,
+				ModifierChain.of(new boolean[]{ brighter, darker, saturated,
+				desaturated, invert, grayscale }), cspace);
 
-				// Make color arbitrarily darker
-				tmpColor = s.interpolate(e, distances[i]).brighter();
+	} // End of Method declaration
+
+	/***
+	 * Method to create a string array of colors given the anchor colors of a
+	 * gradient, the distances from the first anchor, and a compiled chain of
+	 * color modifications.  The channels follow the curve set with setCurve.
+	 * @param anchors The anchor colors from the starting to the ending color
+	 * @param positions The ascending positions of the anchors in [0, 1] or
+	 *                     null to space the anchors evenly
+	 * @param tspace The color space used to interpolate the colors
+	 * @param distances Array of distances between start and end
+	 * @param chain The color modifications applied to each color
+	 * @param cspace The return colorspace to use for the interpolated colors
+	 */
+	public void setTColors(Color[] anchors, double[] positions,
+			TerpSpace tspace, double[] distances, ModifierChain chain,
+			String cspace) {
 
-			// Arbitrarily darker colors
-			} else if (!brighter && darker && !saturated && !desaturated) {
+		// Sets up storage object
+		String[] colors = new String[distances.length];
 
-				// Make color arbitrarily darker
-				tmpColor = s.interpolate(e, distances[i]).darker();
+		// Channel values of the anchor colors
+		double[][] anchorChannels = new double[anchors.length][];
+		for (int i = 0; i < anchors.length; i++) {
+			anchorChannels[i] = channels(anchors[i]);
+		}
 
-			// Arbitrarily more saturated colors
-			} else if (!brighter && !darker && saturated && !desaturated) {
+		// Interpolates and formats the colors (in parallel for large palettes)
+		TerpTask.run(new TerpEngine(anchorChannels, positions, tspace,
+				this.curve), distances, chain, cspace, this.digits, colors, null,
+				0, this.threshold);
 
-				// Make color arbitrarily saturated
-				tmpColor = s.interpolate(e, distances[i]).saturate();
+		// Set the string array object that holds the RGB values
+		this.tcolors = colors;
 
-			// Arbitrarily less saturated colors
-			} else if (!brighter && !darker && !saturated && desaturated) {
+	} // End of Method declaration for brighter colors
 
-				// Make color arbitrarily desaturated
-				tmpColor = s.interpolate(e, distances[i]).desaturate();
+	/***
+	 * Method used to interpolate the channel values of the colors without
+	 * formatting them as strings
+	 * @return An array with the red, green, blue, and opacity values of the
+	 * starting color followed by those of each interpolated color
+	 */
+	public double[] getTChannels() {
 
-			// Unmodified colors
-			} else {
+		// Palettes where every color is interpolated at its position
+		if (!isAnchored()) return spec().channels();
 
-				// Color without brightness/saturation modified
-				tmpColor = s.interpolate(e, distances[i]);
+		// Distances of the interpolated colors
+		double[] distances = getDists();
 
-			} // End ELSE Block for unmodified colors
+		// Storage for the channel values of each color
+		double[] values = new double[4 * (distances.length + 1)];
 
-			// Check for inverted color boolean
-			if (invert) invcol = tmpColor.invert();
+		// The starting color is returned as is
+		System.arraycopy(channels(getStart()), 0, values, 0, 4);
 
-			// If not inverted color, clone original color
-			else invcol = tmpColor;
+		// Channel values of the anchor colors
+		Color[] anchors = getAnchors();
+		double[][] anchorChannels = new double[anchors.length][];
+		for (int i = 0; i < anchors.length; i++) {
+			anchorChannels[i] = channels(anchors[i]);
+		}
 
-			// Get the inverse of the current color
-			if (grayscale) greycol = invcol.grayscale();
+		// Interpolates the colors after the starting color (in parallel for
+		// large palettes)
+		TerpTask.run(new TerpEngine(anchorChannels, getPositions(),
+				getTerpSpace(), this.curve), distances, getModifiers(), null,
+				this.digits, null, values, 1, this.threshold);
 
-			// If not grey scale clone the color
-			else greycol = invcol;
+		// Returns the channel values
+		return values;
 
-			// Store the color string in the ith array element
-			colors[i] = getColorString(greycol, cspace);
+	} // End of Method declaration
 
-		} // End Loop over the distance array
+	/***
+	 * Method used to get the channel values of a color object
+	 * @param c A color object
+	 * @return An array with the red, green, blue, and opacity values
+	 */
+	public static double[] channels(Color c) {
 
-		// Set the string array object that holds the RGB values
-		this.tcolors = colors;
+		// Returns the channel values in the order expected by TerpEngine
+		return new double[]{ c.getRed(), c.getGreen(), c.getBlue(),
+				c.getOpacity() };
 
-	} // End of Method declaration for brighter colors
+	} // End of Method declaration
 
 	/***
 	 * Method to set the points member variable of the class
@@ -909,7 +1010,10 @@ public class ColorTerp {
 	public void setPoints(String ptmacro) {
 
 		// Sets value of points to the integer translation of the passed string
-		this.points = Integer.valueOf(ptmacro) + 1;
+		this.points = Integer.valueOf(ptmacro.trim()) + 1;
+
+		// Clears the compiled palette
+		this.spec = null;
 
 	} // End of Method declaration
 
@@ -920,6 +1024,20 @@ public class ColorTerp {
 	 */
 	public ColorTerp(String[] args) {
 
+		// Parses the arguments and formats the interpolated colors
+		this(args, true);
+
+	} // End Constructor method
+
+	/***
+	 * Constructor method that can skip formatting the interpolated colors
+	 * @param args Array of string arguments
+	 * @param format True to interpolate the colors and format them as
+	 *                  strings; false to only parse the arguments (e.g., when
+	 *                  the channel values are retrieved with getTChannels)
+	 */
+	public ColorTerp(String[] args, boolean format) {
+
 		// Set the input color space
 		setInSpace(args[0]);
 
@@ -932,12 +1050,9 @@ public class ColorTerp {
 		// Ending Color
 		setEnd(args[3], getInSpace());
 
-		// Number of colors to interpret between start and end
+		// Number of colors to interpret between start and end.  The
+		// distances are created when they are first needed (see getDists)
 		setPoints(args[4]);
-		
-		// Set an array of doubles containing the distances between start and 
-		// end colors
-		setDistances(getPoints());
 
 		// Passes argument to set one of the options from the color
 		// modification parameter in the brewterpolate ado wrapper
@@ -948,11 +1063,22 @@ public class ColorTerp {
 
 		// Passes argument to set the grayscale parameter
 		setGrayScale(args[7]);
+
+		// Passes the optional name=value arguments
+		setOptions(args);
+
+		// Compiles the palette once for the methods that use it (see spec)
+		spec();
 		
 		// Get interpolated colors
-		setTColors(getStart(), getEnd(), getDists(), getBrighter(), getDarker(),
-			getSaturated(), getDesaturated(), getInvertColors(), getRetSpace(),
-			getGrayScale());
+		if (format && isAnchored()) setTColors(getAnchors(), getPositions(),
+			getTerpSpace(), getDists(), getModifiers(), getRetSpace());
+
+		// Colors after the first at the positions of the spacing
+		else if (format) {
+			String[] colors = spec().colors();
+			this.tcolors = Arrays.copyOfRange(colors, 1, colors.length);
+		}
 		
 	} // End Constructor method
 
@@ -963,20 +1089,417 @@ public class ColorTerp {
 	 */
 	public static int interpcolors(String[] args) {
 
-		// Create a new ColorTerp object
-		ColorTerp theColors = new ColorTerp(args);
+		// Create a new ColorTerp object without formatting the colors,
+		// starting the parsing phase in case metrics=true was passed
+		PhaseMetrics metrics = new PhaseMetrics();
+		metrics.mark();
+		ColorTerp theColors = new ColorTerp(args, false);
+
+		// Times each phase separately when metrics=true is passed
+		if (theColors.getMetrics()) {
+			metrics.end(PhaseMetrics.PARSE, theColors.spec().size());
+			return interpcolors(theColors, metrics);
+		}
+
+		// Labels each color with the nearest named color when names=true is
+		// passed
+		if (theColors.getNames()) {
+
+			// Compiles the palette and interpolates the channel values
+			PaletteSpec spec = theColors.spec();
+			double[] values = spec.getChannels();
+
+			// Encoder for the returned color space
+			ColorEncoder encoder = spec.encoder();
 
-		// Get the string array of interpolated colors
-		String[] interpedColors = theColors.getTColors();
+			// Difference of each color and its named color
+			double[] distance = new double[1];
 
-		// Return the interpolated colors
-		theColors.toStata(interpedColors);
+			// Loop over the starting and interpolated colors
+			for (int k = 0, j = 0; k < spec.size(); k++, j += 4) {
+
+				// Return the color in the returned color space
+				String color = encoder.encode(values[j], values[j + 1],
+						values[j + 2], values[j + 3]);
+				Macro.setLocal("color" + (k + 1), color);
+
+				// Return the nearest named color
+				String name = ColorNames.nearest(values[j], values[j + 1],
+						values[j + 2], distance);
+				Macro.setLocal("name" + (k + 1), name);
+
+				// Return the difference of the color and the named color
+				Macro.setLocal("namedist" + (k + 1), String.valueOf(distance[0]));
+
+			} // End Loop over colors
+
+			// Return success code
+			return 0;
+
+		} // End IF Block for named colors
+
+		// Counter for the names of the macros
+		int i = 0;
+
+		// Return the starting and interpolated colors to Stata
+		for (String color : theColors.getColors()) {
+			Macro.setLocal("color" + (++i), color);
+		}
 
 		// Return success code
 		return 0;
 
 	} // End Constructor method
 
+	/***
+	 * Method used to return the colors to Stata one phase at a time so the
+	 * time and allocations of each phase can be measured.  The colors are
+	 * the same as those returned by interpcolors(String[]) and the metrics
+	 * are returned in the local macros set by PhaseMetrics#toStata.
+	 * @param theColors The parsed arguments passed to interpcolors
+	 * @param metrics The object used to record the phases, with the parsing
+	 *                   phase recorded
+	 * @return A Stata return code
+	 */
+	private static int interpcolors(ColorTerp theColors, PhaseMetrics metrics) {
+
+		// Compiled palette
+		PaletteSpec spec = theColors.spec();
+		int ncolors = spec.size();
+
+		// Interpolates the channel values of the colors
+		metrics.begin();
+		double[] values = spec.getChannels();
+		metrics.end(PhaseMetrics.INTERP, ncolors);
+
+		// Formats the colors in the returned color space
+		metrics.begin();
+		ColorEncoder encoder = spec.encoder();
+		String[] colors = new String[ncolors];
+		for (int i = 0, j = 0; i < ncolors; i++, j += 4) {
+			colors[i] = encoder.encode(values[j], values[j + 1],
+					values[j + 2], values[j + 3]);
+		}
+		metrics.end(PhaseMetrics.FORMAT, ncolors);
+
+		// Returns the colors to Stata
+		metrics.begin();
+		for (int i = 0; i < ncolors; i++) {
+			Macro.setLocal("color" + (i + 1), colors[i]);
+		}
+		metrics.end(PhaseMetrics.RETURN, ncolors);
+
+		// Returns the metrics to Stata
+		metrics.toStata();
+
+		// Return success code
+		return 0;
+
+	} // End of Method declaration
+
+	/***
+	 * Method called from Stata to write the interpolated colors to variables
+	 * in the dataset with one observation per color (the starting color in
+	 * the first observation).  The variables are passed as the varlist of
+	 * the javacall: one numeric variable for each component of the returned
+	 * color space (e.g., red, green, blue, and opacity for rgba or hue,
+	 * saturation, and brightness for hsb; hexadecimal spaces use integer RGB
+	 * values) optionally followed by a string variable for the color strings.
+	 * When names=true is passed, the last two variables are a string variable
+	 * for the nearest named color and a numeric variable for its CIE76 color
+	 * difference.  The starting and ending colors are also returned in the
+	 * local macros color1 and color#.
+	 * @param args The same arguments passed to interpcolors
+	 * @return A Stata return code
+	 */
+	public static int interpdata(String[] args) {
+
+		// Parse the arguments without formatting the colors
+		ColorTerp theColors = new ColorTerp(args, false);
+
+		// Encoder for the returned color space
+		ColorEncoder encoder = theColors.getEncoder(theColors.getRetSpace());
+
+		// Number of component variables, whether a string variable follows,
+		// and the number of variables for the named colors
+		int ncomp = encoder.size();
+		int nnames = theColors.getNames() ? 2 : 0;
+		int nvars = Data.getParsedVarCount();
+		boolean hasstr = nvars == ncomp + 1 + nnames;
+
+		// Check for the expected number of variables
+		if (nvars != ncomp + nnames && !hasstr) {
+
+			// Print error message to the console
+			SFIToolkit.errorln("interpdata requires " + ncomp + " numeric " +
+					"variables and an optional string variable" + (nnames > 0 ?
+					" followed by a string and a numeric variable." : "."));
+
+			// Return invalid syntax error code
+			return 198;
+
+		} // End IF Block for invalid number of variables
+
+		// Indices of the variables in the dataset
+		int[] vars = new int[nvars];
+		for (int i = 0; i < nvars; i++) {
+			vars[i] = Data.mapParsedVarIndex(i + 1);
+			boolean str = hasstr && i == ncomp || nnames > 0 && i == nvars - 2;
+			if (Data.isVarTypeStr(vars[i]) != str) {
+				SFIToolkit.errorln(Data.getVarName(vars[i]) + " has the " +
+						"wrong storage type.");
+				return 109;
+			}
+		}
+
+		// Number of colors
+		int ncolors = theColors.getPoints() + 1;
+
+		// Check for enough observations to store the colors
+		if (Data.getObsTotal() < ncolors) {
+			SFIToolkit.errorln(ncolors + " observations are required.");
+			return 2001;
+		}
+
+		// Stored palettes and palettes that fit in the session cache use the
+		// stored or cached channel values and other palettes are streamed
+		// from a lazy view
+		boolean cached = theColors.getStore() != null || theColors.getCache() &&
+				ncolors <= PaletteCache.SESSION.getCapacity();
+		double[] values = cached ? theColors.getPaletteChannels() : null;
+		Palette view = cached ? null : theColors.palette();
+
+		// Reusable buffers for the channels and components of a color
+		double[] ch = new double[4];
+		double[] comp = new double[4];
+		double[] distance = new double[1];
+
+		// Starting and ending colors
+		String first = null, last = null;
+
+		// Loop over the colors
+		for (int i = 0; i < ncolors; i++) {
+
+			// Channel values of the color
+			if (cached) System.arraycopy(values, 4 * i, ch, 0, 4);
+			else view.channels(i, ch);
+
+			// Store the components of the color in the returned color space
+			encoder.components(ch[0], ch[1], ch[2], ch[3], comp);
+			for (int k = 0; k < ncomp; k++) Data.storeNum(vars[k], i + 1, comp[k]);
+
+			// Color string for the string variable and the macros
+			String color = hasstr || i == 0 || i == ncolors - 1 ?
+					encoder.encode(ch[0], ch[1], ch[2], ch[3]) : null;
+			if (hasstr) Data.storeStr(vars[ncomp], i + 1, color);
+			if (i == 0) first = color;
+			if (i == ncolors - 1) last = color;
+
+			// Nearest named color and its difference
+			if (nnames > 0) {
+				Data.storeStr(vars[nvars - 2], i + 1,
+						ColorNames.nearest(ch[0], ch[1], ch[2], distance));
+				Data.storeNum(vars[nvars - 1], i + 1, distance[0]);
+			}
+
+		} // End Loop over colors
+
+		// Return the starting and ending colors
+		Macro.setLocal("color1", first);
+		Macro.setLocal("color" + ncolors, last);
+
+		// Return success code
+		return 0;
+
+	} // End of Method declaration
+
+	/***
+	 * Method called from Stata to return the interpolated colors in a Stata
+	 * matrix with one row per color (the starting color in the first row)
+	 * and one column for each component of the returned color space (e.g.,
+	 * red, green, blue, and opacity for rgba or hue, saturation, and
+	 * brightness for hsb; hexadecimal spaces use integer RGB values).  The
+	 * components are computed from the channel values and stored with a
+	 * single call to Matrix.storeMatrix, so no color strings are formatted
+	 * or parsed.
+	 * @param args The name of the matrix followed by the same arguments
+	 *                passed to interpcolors
+	 * @return A Stata return code
+	 */
+	public static int interpmatrix(String[] args) {
+
+		// Check for the name of the matrix
+		if (args.length < 1 || args[0].trim().isEmpty()) {
+			SFIToolkit.errorln("interpmatrix requires the name of a matrix.");
+			return 198;
+		}
+
+		// Parses the arguments following the name of the matrix
+		String name = args[0].trim();
+		PaletteSpec spec = new ColorTerp(Arrays.copyOfRange(args, 1,
+				args.length), false).spec();
+
+		// Numbers of colors and components
+		int ncolors = spec.size();
+		ColorEncoder encoder = spec.encoder();
+		int ncomp = encoder.size();
+
+		// Channel values from the store, the session cache, or the engine
+		double[] values = spec.getChannels();
+
+		// Components of each color in row major order
+		double[] matrix = new double[ncolors * ncomp];
+		double[] comp = new double[4];
+		for (int i = 0; i < ncolors; i++) {
+			int j = 4 * i;
+			encoder.components(values[j], values[j + 1], values[j + 2],
+					values[j + 3], comp);
+			System.arraycopy(comp, 0, matrix, i * ncomp, ncomp);
+		}
+
+		// Creates the matrix and stores the components in one call
+		int rc = Matrix.createMatrix(name, ncolors, ncomp, 0);
+		if (rc == 0) rc = Matrix.storeMatrix(name, matrix);
+		if (rc == 0) rc = Matrix.setMatrixColNames(name, encoder.componentNames());
+
+		// Print error message to the console
+		if (rc != 0) {
+			SFIToolkit.errorln("Cannot store the " + ncolors + " x " + ncomp +
+					" matrix " + name + ".");
+		}
+
+		// Returns the return code
+		return rc;
+
+	} // End of Method declaration
+
+	/***
+	 * Method called from Stata to compute the quality metrics of the palette
+	 * (see {@link PaletteQuality}): the CIEDE2000 color difference or the
+	 * WCAG contrast ratio for every pair of colors, for adjacent colors, or
+	 * for each color against a background color.  The values are stored in
+	 * a Stata matrix and the minimum, mean, and maximum over the distinct
+	 * pairs are returned in the local macros quality_min, quality_mean, and
+	 * quality_max.
+	 * @param args The name of the matrix, the metric (deltae or contrast),
+	 *                the pairs (full or adjacent), and the background color
+	 *                (an empty string for none) followed by the same
+	 *                arguments passed to interpcolors
+	 * @return A Stata return code
+	 */
+	public static int interpquality(String[] args) {
+
+		// Check for the leading arguments
+		if (args.length < 4 || args[0].trim().isEmpty()) {
+			SFIToolkit.errorln("interpquality requires the name of a matrix, " +
+					"the metric, the pairs, and the background color.");
+			return 198;
+		}
+
+		// Parses the arguments following the leading arguments
+		String name = args[0].trim();
+		PaletteQuality.Metric metric = PaletteQuality.Metric.fromString(args[1]);
+		PaletteSpec spec = new ColorTerp(Arrays.copyOfRange(args, 4,
+				args.length), false).spec();
+
+		// Metrics of the channel values from the store, the session cache, or
+		// the engine
+		PaletteQuality quality = new PaletteQuality(spec.getChannels());
+		PaletteQuality.Result result;
+		if (!args[3].trim().isEmpty()) {
+			result = quality.background(metric,
+					channels(spec.getInSpace().parse(args[3])));
+		} else if ("adjacent".equals(args[2].trim())) {
+			result = quality.adjacent(metric);
+		} else if ("full".equals(args[2].trim()) || args[2].trim().isEmpty()) {
+			result = quality.full(metric, spec.getThreshold() < 0 ? -1 :
+					PaletteQuality.DEFAULT_THRESHOLD);
+		} else {
+			SFIToolkit.errorln("The pairs must be full or adjacent.");
+			return 198;
+		}
+
+		// Stores the values in one call
+		int rc = Matrix.createMatrix(name, result.getRows(), result.getCols(), 0);
+		if (rc == 0) rc = Matrix.storeMatrix(name, result.getValues());
+		if (rc != 0) {
+			SFIToolkit.errorln("Cannot store the " + result.getRows() + " x " +
+					result.getCols() + " matrix " + name + ".");
+			return rc;
+		}
+
+		// Returns the summary of the distinct pairs (missing if there are
+		// none)
+		double[] summary = { result.getMin(), result.getMean(), result.getMax() };
+		String[] names = { "quality_min", "quality_mean", "quality_max" };
+		for (int i = 0; i < summary.length; i++) {
+			Macro.setLocal(names[i], Double.isNaN(summary[i]) ? "." :
+					String.valueOf(summary[i]));
+		}
+
+		// Return success code
+		return 0;
+
+	} // End of Method declaration
+
+	/***
+	 * Method called from Stata to return a subset of maximally distinct
+	 * colors of the palette (see {@link LabTree}), e.g., to build a
+	 * categorical scheme from a dense gradient.  The selected colors are
+	 * returned in the local macros color1 to color# in the order they were
+	 * selected (starting with the starting color), their positions in the
+	 * palette in the local macro select_index, and the smallest CIE76 color
+	 * difference of any two selected colors in the local macro
+	 * select_mindist.
+	 * @param args The number of colors to select followed by the same
+	 *                arguments passed to interpcolors
+	 * @return A Stata return code
+	 */
+	public static int interpselect(String[] args) {
+
+		// Check for the number of colors
+		if (args.length < 1) {
+			SFIToolkit.errorln("interpselect requires the number of colors.");
+			return 198;
+		}
+
+		// Parses the arguments following the number of colors
+		int k = Integer.parseInt(args[0].trim());
+		PaletteSpec spec = new ColorTerp(Arrays.copyOfRange(args, 1,
+				args.length), false).spec();
+
+		// Check for a valid number of colors
+		if (k < 1 || k > spec.size()) {
+			SFIToolkit.errorln("The number of selected colors must be in " +
+					"[1, " + spec.size() + "].");
+			return 125;
+		}
+
+		// Selects the colors from the channel values from the store, the
+		// session cache, or the engine
+		double[] values = spec.getChannels();
+		double[] gaps = new double[k];
+		int[] selected = new LabTree(values).select(k, gaps);
+
+		// Returns the selected colors and their positions
+		ColorEncoder encoder = spec.encoder();
+		StringBuilder positions = new StringBuilder(8 * k);
+		for (int i = 0; i < k; i++) {
+			int j = 4 * selected[i];
+			Macro.setLocal("color" + (i + 1), encoder.encode(values[j],
+					values[j + 1], values[j + 2], values[j + 3]));
+			if (i > 0) positions.append(' ');
+			positions.append(selected[i] + 1);
+		}
+		Macro.setLocal("select_index", positions.toString());
+		Macro.setLocal("select_mindist", k < 2 ? "." :
+				String.valueOf(gaps[k - 1]));
+
+		// Return success code
+		return 0;
+
+	} // End of Method declaration
+
 	/**
 	 * Command line interface method
 	 * @param args A string array containing :
@@ -991,27 +1514,129 @@ public class ColorTerp {
 	 *             		<li>Invert color (boolean string)</li>
 	 *             		<li>Return colors as grayscale</li>
 	 *             </ol>
+	 *             followed by optional name=value arguments:
+	 *             <ul>
+	 *             		<li>stops=A semicolon delimited list of colors
+	 *             		between the starting and ending colors</li>
+	 *             		<li>positions=The positions of the starting color,
+	 *             		each stop, and the ending color in [0, 1]</li>
+	 *             		<li>terpspace=The color space used to interpolate
+	 *             		the colors (srgb, linear, lab, or oklab)</li>
+	 *             		<li>digits=The number of digits after the decimal
+	 *             		point for decimal values in [0, 15] or -1 (the
+	 *             		default) for the shortest exact value</li>
+	 *             		<li>cache=false to interpolate the colors without
+	 *             		using the session palette cache</li>
+	 *             		<li>store=The path of a persistent palette store
+	 *             		shared by Stata sessions and command line runs</li>
+	 *             		<li>threshold=The number of points at or above which
+	 *             		the colors are interpolated in parallel (negative
+	 *             		values always interpolate sequentially)</li>
+	 *             		<li>modifiers=An ordered chain of color
+	 *             		modifications used instead of the color mod,
+	 *             		inverse, and grayscale arguments (e.g.,
+	 *             		brighter:0.8 desaturated invert)</li>
+	 *             		<li>metrics=true to time each phase of interpcolors
+	 *             		and return the metrics to Stata</li>
+	 *             		<li>names=true to follow each color with the nearest
+	 *             		named color and its CIE76 color difference</li>
+	 *             		<li>curve=The curve followed by the channels
+	 *             		between the anchor colors (linear, catmullrom, or
+	 *             		bspline)</li>
+	 *             		<li>spacing=running to return the starting color
+	 *             		followed by the running sum of the distances (the
+	 *             		palettes of earlier versions) or spacing=uniform to
+	 *             		place the colors at equal color differences instead
+	 *             		of interpolating every color at k / (n - 1)</li>
+	 *             		<li>at=The position in [0, 1] of each of the
+	 *             		colors (number of points + 2 values)</li>
+	 *             </ul>
+	 *             Alternatively, --batch followed by a job file and the
+	 *             optional --out file and --threads number arguments runs
+	 *             each line of the job file with {@link BatchFile}, --serve
+	 *             followed by the optional --port and --threads arguments
+	 *             answers requests in the same format from a warm JVM with
+	 *             {@link PaletteServer}, and --client followed by the
+	 *             optional --host and --port arguments sends the requests
+	 *             from standard input to the server with
+	 *             {@link PaletteClient}.
+	 * @throws IOException if a batch job file cannot be read, the results
+	 * cannot be written, or the server cannot be reached
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+
+		// Runs a batch of jobs from a file
+		if (args.length > 0 && "--batch".equals(args[0])) {
+			int rc = BatchFile.run(Arrays.copyOfRange(args, 1, args.length));
+			if (rc != 0) System.exit(rc);
+			return;
+		}
+
+		// Answers requests from a warm JVM or sends them to one
+		if (args.length > 0 && ("--serve".equals(args[0]) ||
+				"--client".equals(args[0]))) {
+			String[] rest = Arrays.copyOfRange(args, 1, args.length);
+			int rc = "--serve".equals(args[0]) ? PaletteServer.run(rest) :
+					PaletteClient.run(rest);
+			if (rc != 0) System.exit(rc);
+			return;
+		}
+
+		// Initialize new ColorTerp object without formatting the colors
+		ColorTerp theColors = new ColorTerp(args, false);
+
+		// Buffered console output flushed after the last color
+		PrintWriter out = new PrintWriter(new BufferedWriter(
+				new OutputStreamWriter(System.out), 1 << 16));
+
+		// Prints each color with the nearest named color and its difference
+		if (theColors.getNames()) {
+
+			// Compiles the palette and interpolates the channel values
+			PaletteSpec spec = theColors.spec();
+			double[] values = spec.getChannels();
+
+			// Encoder for the returned color space
+			ColorEncoder encoder = spec.encoder();
 
-		// Initialize new ColorTerp object
-		ColorTerp theColors = new ColorTerp(args);
+			// Difference of each color and its named color
+			double[] distance = new double[1];
 
-		// Get the interpolated colors
-		String[] interpedColors = theColors.getTColors();
+			// Loop over the starting and interpolated colors
+			for (int j = 0; j < values.length; j += 4) {
 
-		// Print the starting color to the console
-		System.out.println(theColors.getColorString(theColors.getStart(),
-				theColors.getRetSpace()));
+				// Color in the returned color space
+				String color = encoder.encode(values[j], values[j + 1],
+						values[j + 2], values[j + 3]);
 
-		// Loop over other colors
-		for (String interpedColor : interpedColors) {
+				// Nearest named color
+				String name = ColorNames.nearest(values[j], values[j + 1],
+						values[j + 2], distance);
+
+				// Print the color, the named color, and their difference
+				out.println(color + "\t" + name + "\t" + distance[0]);
+
+			} // End Loop over colors
+
+			// Writes the remaining output
+			out.flush();
+			return;
+
+		} // End IF Block for named colors
+
+		// Loop over the starting and interpolated colors (from the store when
+		// one is set)
+		for (String interpedColor : theColors.getStore() == null ?
+				theColors.palette() : theColors.getColors()) {
 
 			// Print the color to the console
-			System.out.println(interpedColor);
+			out.println(interpedColor);
 
 		} // End Loop over other colors
 
+		// Writes the remaining output
+		out.flush();
+
 	} // End main method declaration
 
 	/**
@@ -1035,19 +1660,73 @@ public class ColorTerp {
 	} // End method declaration for accessing points
 
 	/***
-	 * Getter method to access the points member variable
-	 * @return An integer with the number of points to interpolate between
+	 * Getter method to access the distances of the running spacing
+	 * @return The distances set with setDistances, or those of the number of
+	 * points if they have not been set
 	 */
 	public double[] getDists() {
 
+		// Creates the distances the first time they are needed
+		if (this.dists == null) setDistances(getPoints());
+
 		// Returns the distances between starting and ending colors
 		return this.dists;
 
 	} // End method declaration for accessing distance array
 
+	/***
+	 * Method used to check whether the distances have been created
+	 * @return True if the distances were set with setDistances or created by
+	 * getDists
+	 */
+	public boolean hasDists() {
+
+		// Checks for the distances
+		return this.dists != null;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get a lazy view of the palette that interpolates and
+	 * formats the colors on demand
+	 * @return A view with the starting color followed by each of the
+	 * interpolated colors
+	 */
+	public Palette palette() {
+
+		// Creates the view
+		return new Palette(this);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the colors for the output paths.  Palettes are
+	 * returned from the persistent store when one is set, palettes that fit
+	 * in the session cache are returned from the cache, and other palettes
+	 * (or all palettes when the cache is disabled) are returned as a lazy
+	 * view so they are never materialized.
+	 * @return The starting color followed by each of the interpolated colors
+	 */
+	public Iterable<String> getColors() {
+
+		// Palettes formatted from the persistent store
+		if (this.store != null) return spec().getColors();
+
+		// Cached palettes
+		if (this.cache && this.points + 1 <= PaletteCache.SESSION.getCapacity()) {
+			return Arrays.asList(getPalette());
+		}
+
+		// Lazy view of the palette
+		return palette();
+
+	} // End of Method declaration
+
 	/***
 	 * Getter method to access the interpolated color values
-	 * @return A string array with interpolated RGB values
+	 * @return A string array with the colors after the first color of the
+	 * palette (i.e., the values of getPalette() after the first), or null if
+	 * the colors were not formatted by the constructor
 	 */
 	public String[] getTColors() {
 
@@ -1080,6 +1759,265 @@ public class ColorTerp {
 
 	} // End of the method declaration to get ending color object
 
+	/***
+	 * Getter method to access the intermediate anchor colors
+	 * @return An array of Color objects between the starting and ending colors
+	 */
+	public Color[] getStops() {
+
+		// Returns the intermediate anchor colors
+		return this.stops;
+
+	} // End of method declaration
+
+	/***
+	 * Getter method to access all of the anchor colors
+	 * @return An array of Color objects with the starting color, intermediate
+	 * anchor colors, and ending color
+	 */
+	public Color[] getAnchors() {
+
+		// Array with room for the starting and ending colors
+		Color[] anchors = new Color[this.stops.length + 2];
+
+		// Add the starting, intermediate, and ending colors
+		anchors[0] = this.start;
+		System.arraycopy(this.stops, 0, anchors, 1, this.stops.length);
+		anchors[anchors.length - 1] = this.end;
+
+		// Returns the anchor colors
+		return anchors;
+
+	} // End of method declaration
+
+	/***
+	 * Getter method to access the positions of the anchor colors
+	 * @return An array of positions or null for evenly spaced anchors
+	 */
+	public double[] getPositions() {
+
+		// Returns the positions of the anchor colors
+		return this.positions;
+
+	} // End of method declaration
+
+	/***
+	 * Getter method for the interpolation color space
+	 * @return The color space used to interpolate the colors
+	 */
+	public TerpSpace getTerpSpace() {
+
+		// Returns the interpolation color space
+		return this.terpspace;
+
+	} // End of Method declaration
+
+	/***
+	 * Getter method for the interpolation curve
+	 * @return The curve followed by the channels between the anchor colors
+	 */
+	public Curve getCurve() {
+
+		// Returns the interpolation curve
+		return this.curve;
+
+	} // End of Method declaration
+
+	/***
+	 * Getter method for the number of digits used to format decimal values
+	 * @return The number of digits after the decimal point or
+	 * ColorEncoder.SHORTEST
+	 */
+	public int getDigits() {
+
+		// Returns the number of digits
+		return this.digits;
+
+	} // End of Method declaration
+
+	/***
+	 * Getter method for the use of the session palette cache
+	 * @return True if palettes are looked up and stored in the session cache
+	 */
+	public boolean getCache() {
+
+		// Returns the cache indicator
+		return this.cache;
+
+	} // End of Method declaration
+
+	/***
+	 * Getter method for the persistent palette store
+	 * @return The path of the store or null if palettes are not stored
+	 */
+	public String getStore() {
+
+		// Returns the path of the store
+		return this.store;
+
+	} // End of Method declaration
+
+	/***
+	 * Getter method for the parallel execution threshold
+	 * @return The number of points at or above which the colors are
+	 * interpolated in parallel
+	 */
+	public int getThreshold() {
+
+		// Returns the threshold
+		return this.threshold;
+
+	} // End of Method declaration
+
+	/***
+	 * Getter method for the color modifications
+	 * @return The chain set with the modifiers option or the chain for the
+	 * color mod, inverse, and grayscale arguments
+	 */
+	public ModifierChain getModifiers() {
+
+		// Chain of the individual modification arguments
+		if (this.modifiers == null) return ModifierChain.of(new boolean[]{
+				this.brighter, this.darker, this.saturated, this.desaturated,
+				this.invertcolors, this.grayscale });
+
+		// Returns the chain
+		return this.modifiers;
+
+	} // End of Method declaration
+
+	/***
+	 * Getter method for the instrumentation of the phases of a call
+	 * @return True if the time and allocations of each phase are returned
+	 */
+	public boolean getMetrics() {
+
+		// Returns the metrics indicator
+		return this.metrics;
+
+	} // End of Method declaration
+
+	/***
+	 * Getter method for the labels of the colors
+	 * @return True if each color is labeled with the nearest named color
+	 */
+	public boolean getNames() {
+
+		// Returns the names indicator
+		return this.names;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to build the normalized key for the interpolation
+	 * parameters.  The key uses the parsed values, so equivalent arguments
+	 * (e.g., the same color in different input color spaces) share a key.
+	 * @return A string identifying the channel values of the palette
+	 */
+	public String getPaletteKey() {
+
+		// Uses the key of the compiled palette
+		return spec().getKey();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the current values compiled into an immutable spec
+	 * that can be shared between threads and reused.  The spec is compiled
+	 * by the constructor and again only after one of the setters changes
+	 * the values.
+	 * @return A spec with the same palette as this object
+	 */
+	public PaletteSpec spec() {
+
+		// Compiles the parsed values if they changed
+		if (this.spec == null) this.spec = configure(PaletteSpec.builder()).build();
+
+		// Returns the compiled palette
+		return this.spec;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to set the values of a builder to the parsed values.  This
+	 * is also used by PaletteSpec.Builder#args, so the arguments passed by
+	 * brewterpolate are only parsed by this class.  Unrecognized input color
+	 * spaces are parsed as web colors and unrecognized returned color spaces
+	 * are formatted as rgb, as they are by the other methods of this class.
+	 * @param builder The builder
+	 * @return The builder
+	 */
+	PaletteSpec.Builder configure(PaletteSpec.Builder builder) {
+
+		// Sets each of the parsed values
+		return builder
+				.inSpace(ColorSpace.fromString(this.inspace, ColorSpace.WEB))
+				.retSpace(ColorSpace.fromString(this.retspace, ColorSpace.RGB))
+				.start(this.start).end(this.end).stops(this.stops)
+				.positions(this.positions).terpSpace(this.terpspace)
+				.curve(this.curve)
+				.points(this.points).modifiers(getModifiers())
+				.spacing(this.spacing).at(this.at).digits(this.digits)
+				.cache(this.cache).store(this.store)
+				.threshold(this.threshold);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the formatted palette, using the session cache
+	 * unless it was disabled with the cache=false option
+	 * @return A new array with the starting color followed by each of the
+	 * interpolated colors
+	 */
+	public String[] getPalette() {
+
+		// Copies the palette in the session cache, which is shared
+		if (this.cache && this.points + 1 <= PaletteCache.SESSION.getCapacity()) {
+			return PaletteCache.SESSION.colors(this).clone();
+		}
+
+		// Palettes where every color is interpolated at its position
+		if (!isAnchored()) return spec().colors();
+
+		// Formats the starting color and each interpolated color
+		if (this.tcolors == null) setTColors(getAnchors(), getPositions(),
+				getTerpSpace(), getDists(), getModifiers(), getRetSpace());
+		String[] palette = new String[this.tcolors.length + 1];
+		palette[0] = getColorString(getStart(), getRetSpace());
+		System.arraycopy(this.tcolors, 0, palette, 1, this.tcolors.length);
+
+		// Returns the palette
+		return palette;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the channel values of the palette, using the
+	 * session cache unless it was disabled with the cache=false option
+	 * @return A new array with the red, green, blue, and opacity values of
+	 * the starting color followed by those of each interpolated color
+	 */
+	public double[] getPaletteChannels() {
+
+		// Looks up the channel values in the store or the session cache
+		if (this.store != null || this.cache) return spec().getChannels();
+
+		// Interpolates the channel values
+		return isAnchored() ? getTChannels() : spec().channels();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to check whether the palette uses the running sum spacing,
+	 * where the starting color is returned as is before the colors
+	 * interpolated at the distances of getDists()
+	 * @return False if the spacing or at options place every color at an
+	 * exact position
+	 */
+	public boolean isAnchored() {
+		return this.at == null && this.spacing == Spacing.RUNNING;
+	}
+
 	/***
 	 * Getter method for the Brightness parameter
 	 * @return A boolean indicating whether or not to return an arbitrarily
@@ -0,0 +1,142 @@
+package org.paces.stata;
+
+import java.util.Locale;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Curves used to interpolate the channel values between the anchor colors
+ * of a gradient.  The default is the piecewise linear interpolation of
+ * Color.interpolate.  The spline curves remove the kinks at the anchors:
+ * each segment is a cubic polynomial whose power basis coefficients are
+ * computed once when the engine is built (see {@link #fit}), so evaluating a
+ * point is a fixed number of multiplications and additions per channel.
+ * Hard stops (anchors with the same position) split the gradient into
+ * independent curves, and the first and last anchors of each curve are
+ * always reproduced exactly.
+ */
+public enum Curve {
+
+	/***
+	 * Piecewise linear interpolation (identical to Color.interpolate)
+	 */
+	LINEAR,
+
+	/***
+	 * Catmull-Rom spline through every anchor.  The tangent at each anchor
+	 * is the slope between its neighbors (with respect to the positions of
+	 * the anchors), so the curve has a continuous first derivative.
+	 */
+	CATMULLROM,
+
+	/***
+	 * Uniform cubic B-spline using the anchors as control points.  The curve
+	 * has a continuous second derivative and passes through the first and
+	 * last anchors, but only approaches the intermediate anchors.
+	 */
+	BSPLINE;
+
+	/***
+	 * Number of coefficients of each channel of a segment
+	 */
+	public static final int ORDER = 4;
+
+	/***
+	 * Method used to compute the power basis coefficients of one channel
+	 * for each segment
+	 * @param v The value of the channel at each anchor
+	 * @param pos The ascending positions of the anchors
+	 * @param coef Array with ORDER * channels coefficients for each segment
+	 *                where the coefficients c0, c1, c2, and c3 of the
+	 *                polynomial c0 + c1 u + c2 u^2 + c3 u^3 in the local
+	 *                position u in [0, 1] are written
+	 * @param channel The index of the channel
+	 * @param channels The number of channels of each segment
+	 */
+	public void fit(double[] v, double[] pos, double[] coef, int channel,
+					int channels) {
+
+		// Loop over the segments
+		int n = v.length;
+		for (int i = 0; i < n - 1; i++) {
+
+			// Hard stops are never evaluated
+			double h = pos[i + 1] - pos[i];
+			if (!(h > 0)) continue;
+
+			// Anchors at the ends of the gradient or next to a hard stop
+			// have no neighbor on that side
+			boolean first = i == 0 || !(pos[i] - pos[i - 1] > 0);
+			boolean last = i + 2 >= n || !(pos[i + 2] - pos[i + 1] > 0);
+
+			// Index of the first coefficient
+			int k = ORDER * (i * channels + channel);
+			double p1 = v[i], p2 = v[i + 1];
+
+			if (this == CATMULLROM) {
+
+				// Tangents scaled to the length of the segment
+				double m1 = h * (first ? (p2 - p1) / h :
+						(p2 - v[i - 1]) / (pos[i + 1] - pos[i - 1]));
+				double m2 = h * (last ? (p2 - p1) / h :
+						(v[i + 2] - p1) / (pos[i + 2] - pos[i]));
+
+				// Cubic Hermite polynomial
+				coef[k] = p1;
+				coef[k + 1] = m1;
+				coef[k + 2] = 3.0 * (p2 - p1) - 2.0 * m1 - m2;
+				coef[k + 3] = 2.0 * (p1 - p2) + m1 + m2;
+
+			} else {
+
+				// Control points reflected at the ends so the curve starts
+				// and ends on the anchors
+				double p0 = first ? 2.0 * p1 - p2 : v[i - 1];
+				double p3 = last ? 2.0 * p2 - p1 : v[i + 2];
+
+				// Uniform cubic B-spline basis
+				coef[k] = (p0 + 4.0 * p1 + p2) / 6.0;
+				coef[k + 1] = (p2 - p0) / 2.0;
+				coef[k + 2] = (p0 - 2.0 * p1 + p2) / 2.0;
+				coef[k + 3] = (p3 - p0 + 3.0 * (p1 - p2)) / 6.0;
+
+			} // End ELSE Block for B-splines
+
+		} // End Loop over segments
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the curve from the curve option
+	 * @param name One of linear, catmullrom, bspline, or an empty string
+	 *                (case insensitive)
+	 * @return The curve
+	 * @throws IllegalArgumentException for unrecognized names
+	 */
+	public static Curve fromString(String name) {
+
+		// Dispatches the curve
+		switch (name.trim().toLowerCase(Locale.ROOT)) {
+			case "":
+			case "linear":
+				return LINEAR;
+			case "catmullrom":
+			case "catmull-rom":
+				return CATMULLROM;
+			case "bspline":
+			case "b-spline":
+				return BSPLINE;
+			default:
+				throw new IllegalArgumentException("Unrecognized curve " +
+						name + ".");
+		}
+
+	} // End of Method declaration
+
+	@Override
+	public String toString() {
+		return name().toLowerCase(Locale.ROOT);
+	}
+
+} // End of Class declaration
@@ -0,0 +1,352 @@
+package org.paces.stata;
+
+import java.util.Arrays;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * K-d tree over the CIELAB coordinates of the colors of a palette used to
+ * select a subset of maximally distinct colors (e.g., a categorical scheme
+ * from a dense gradient) with farthest point sampling: the first selected
+ * color is the starting color and each following color is the candidate
+ * farthest from the colors already selected, which is within a factor of 2
+ * of the largest possible minimum difference.  Differences are CIE76 color
+ * differences (Euclidean distances in CIELAB), so the bounding boxes of the
+ * nodes bound the differences of their colors.
+ *
+ * Each node keeps the largest difference between one of its colors and the
+ * nearest selected color.  Selecting a color only visits the nodes whose
+ * bounding box is closer to it than that largest difference, and the next
+ * color is read from the root, so a selection from n candidates takes far
+ * fewer than k n difference computations.  Ties are broken by the lower
+ * index, so the selection is deterministic, and no color is selected twice:
+ * once the distinct colors of a palette with repeated colors are exhausted,
+ * the remaining colors are selected in index order.
+ *
+ * <h2>Examples</h2>
+ * LabTree tree = new LabTree(spec.getChannels()); <br>
+ * int[] categorical = tree.select(8, null); <br>
+ */
+public final class LabTree {
+
+	/***
+	 * Largest number of colors in a leaf
+	 */
+	private static final int LEAF = 8;
+
+	/***
+	 * Number of colors
+	 */
+	private final int n;
+
+	/***
+	 * L*, a*, and b* of each color in tree order
+	 */
+	private final double[] lab;
+
+	/***
+	 * Index in the palette of each color in tree order
+	 */
+	private final int[] index;
+
+	/***
+	 * Squared difference of each color in tree order and the nearest
+	 * selected color (-1 for the selected colors, so they are never
+	 * selected again)
+	 */
+	private final double[] nearest;
+
+	/***
+	 * First color and one past the last color of each node in tree order
+	 */
+	private final int[] lo, hi;
+
+	/***
+	 * Children of each node (-1 for leaves)
+	 */
+	private final int[] left, right;
+
+	/***
+	 * Minimum and maximum L*, a*, and b* of each node
+	 */
+	private final double[] box;
+
+	/***
+	 * Largest squared difference of the unselected colors of each node and
+	 * the nearest selected color (-1 if every color is selected)
+	 */
+	private final double[] far;
+
+	/***
+	 * Unselected color of each node with the largest difference in tree
+	 * order (-1 if every color is selected)
+	 */
+	private final int[] farthest;
+
+	/***
+	 * Number of nodes built
+	 */
+	private int nodes;
+
+	/***
+	 * Constructor method for LabTree class
+	 * @param channels The red, green, blue, and opacity values in [0, 1] of
+	 *                    each color (e.g., from PaletteSpec#getChannels())
+	 */
+	public LabTree(double[] channels) {
+
+		// Coordinates of the colors
+		this.n = channels.length / 4;
+		this.lab = new double[3 * this.n];
+		this.index = new int[this.n];
+		this.nearest = new double[this.n];
+		double[] c = new double[3];
+		for (int i = 0; i < this.n; i++) {
+			TerpSpace.LAB.encode(channels[4 * i], channels[4 * i + 1],
+					channels[4 * i + 2], c);
+			System.arraycopy(c, 0, this.lab, 3 * i, 3);
+			this.index[i] = i;
+		}
+
+		// Storage for the nodes (at most 4 n / LEAF + 2 are needed)
+		int max = Math.max(1, 4 * (this.n / LEAF + 1));
+		this.lo = new int[max];
+		this.hi = new int[max];
+		this.left = new int[max];
+		this.right = new int[max];
+		this.box = new double[6 * max];
+		this.far = new double[max];
+		this.farthest = new int[max];
+
+		// Builds the tree
+		if (this.n > 0) build(0, this.n);
+
+	} // End of constructor declaration
+
+	/***
+	 * Method used to select maximally distinct colors with farthest point
+	 * sampling
+	 * @param k The number of colors to select in [1, number of colors]
+	 * @param gaps An array of at least k elements where the difference of
+	 *                each selected color and the nearest color selected
+	 *                before it is stored (infinity for the first color) or
+	 *                null; the last value is the smallest difference of any
+	 *                two selected colors
+	 * @return The indices of the selected colors in the palette in the
+	 * order they were selected, so every prefix is also a distinct subset
+	 * @throws IllegalArgumentException if k is not in [1, number of colors]
+	 */
+	public int[] select(int k, double[] gaps) {
+
+		// Check the number of colors
+		if (k < 1 || k > this.n) {
+			throw new IllegalArgumentException("The number of selected " +
+					"colors must be in [1, " + this.n + "].");
+		}
+
+		// No color has been selected
+		Arrays.fill(this.nearest, Double.POSITIVE_INFINITY);
+		Arrays.fill(this.far, 0, this.nodes, Double.POSITIVE_INFINITY);
+
+		// Starts with the starting color
+		int[] selected = new int[k];
+		int next = position(0);
+
+		// Loop over the selected colors
+		for (int s = 0; s < k; s++) {
+			selected[s] = this.index[next];
+			if (gaps != null) gaps[s] = Math.sqrt(this.nearest[next]);
+			update(0, next, this.lab[3 * next], this.lab[3 * next + 1],
+					this.lab[3 * next + 2]);
+			next = this.farthest[0];
+		}
+
+		// Returns the indices of the selected colors
+		return selected;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the number of colors
+	 * @return The number of colors
+	 */
+	public int size() {
+		return this.n;
+	}
+
+	/***
+	 * Method used to build a node and its children
+	 * @param from The first color of the node in tree order
+	 * @param to One past the last color of the node in tree order
+	 * @return The index of the node
+	 */
+	private int build(int from, int to) {
+
+		// Range of the node
+		int node = this.nodes++;
+		this.lo[node] = from;
+		this.hi[node] = to;
+		this.left[node] = this.right[node] = -1;
+
+		// Bounding box of the colors
+		int b = 6 * node;
+		for (int d = 0; d < 3; d++) {
+			this.box[b + d] = Double.POSITIVE_INFINITY;
+			this.box[b + 3 + d] = Double.NEGATIVE_INFINITY;
+		}
+		for (int i = from; i < to; i++) {
+			for (int d = 0; d < 3; d++) {
+				double v = this.lab[3 * i + d];
+				if (v < this.box[b + d]) this.box[b + d] = v;
+				if (v > this.box[b + 3 + d]) this.box[b + 3 + d] = v;
+			}
+		}
+
+		// Splits larger nodes at the median of the widest dimension
+		if (to - from > LEAF) {
+			int dim = 0;
+			for (int d = 1; d < 3; d++) {
+				if (this.box[b + 3 + d] - this.box[b + d] >
+						this.box[b + 3 + dim] - this.box[b + dim]) dim = d;
+			}
+			int mid = (from + to) >>> 1;
+			partition(from, to - 1, mid, dim);
+			this.left[node] = build(from, mid);
+			this.right[node] = build(mid, to);
+		}
+
+		// Returns the node
+		return node;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to update the nodes for a newly selected color
+	 * @param node The index of the node
+	 * @param pos The position of the selected color in tree order
+	 * @param l L* of the selected color
+	 * @param a a* of the selected color
+	 * @param bb b* of the selected color
+	 */
+	private void update(int node, int pos, double l, double a, double bb) {
+
+		// Colors in the node cannot be closer to the selected color than the
+		// box, so nodes whose box is farther than the largest difference are
+		// unchanged unless they contain the selected color
+		boolean contains = pos >= this.lo[node] && pos < this.hi[node];
+		if (!contains && boxDistance(node, l, a, bb) >= this.far[node]) return;
+
+		// Leaves update the difference of each unselected color
+		if (this.left[node] < 0) {
+			double best = -1;
+			int arg = -1;
+			for (int i = this.lo[node]; i < this.hi[node]; i++) {
+
+				// Marks the selected color and skips the selected colors
+				// (unselected duplicates remain candidates at a difference
+				// of 0)
+				if (i == pos) this.nearest[i] = -1;
+				if (this.nearest[i] < 0) continue;
+
+				// Difference of the color and the selected color
+				double dl = this.lab[3 * i] - l, da = this.lab[3 * i + 1] - a;
+				double db = this.lab[3 * i + 2] - bb;
+				double d = dl * dl + da * da + db * db;
+				if (d < this.nearest[i]) this.nearest[i] = d;
+				if (this.nearest[i] > best || this.nearest[i] == best &&
+						this.index[i] < this.index[arg]) {
+					best = this.nearest[i];
+					arg = i;
+				}
+			}
+			this.far[node] = best;
+			this.farthest[node] = arg;
+			return;
+		}
+
+		// Other nodes combine their children
+		int lc = this.left[node], rc = this.right[node];
+		update(lc, pos, l, a, bb);
+		update(rc, pos, l, a, bb);
+		boolean useLeft = this.far[lc] > this.far[rc] ||
+				this.far[lc] == this.far[rc] && this.farthest[lc] >= 0 &&
+				this.index[this.farthest[lc]] < this.index[this.farthest[rc]];
+		int child = useLeft ? lc : rc;
+		this.far[node] = this.far[child];
+		this.farthest[node] = this.farthest[child];
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to compute the squared difference of a color and the
+	 * bounding box of a node
+	 * @param node The index of the node
+	 * @param l L* of the color
+	 * @param a a* of the color
+	 * @param bb b* of the color
+	 * @return The squared distance to the nearest point of the box
+	 */
+	private double boxDistance(int node, double l, double a, double bb) {
+		int b = 6 * node;
+		double dl = Math.max(0, Math.max(this.box[b] - l, l - this.box[b + 3]));
+		double da = Math.max(0, Math.max(this.box[b + 1] - a, a - this.box[b + 4]));
+		double db = Math.max(0, Math.max(this.box[b + 2] - bb, bb - this.box[b + 5]));
+		return dl * dl + da * da + db * db;
+	}
+
+	/***
+	 * Method used to find the position in tree order of a color
+	 * @param color The index of the color in the palette
+	 * @return The position of the color in tree order
+	 */
+	private int position(int color) {
+		for (int i = 0; i < this.n; i++) if (this.index[i] == color) return i;
+		throw new IllegalArgumentException("No color " + color + ".");
+	}
+
+	/***
+	 * Method used to partially sort the colors so the color at a position
+	 * has the median value of a dimension (quickselect)
+	 * @param from The first color in tree order
+	 * @param to The last color in tree order
+	 * @param k The position of the median
+	 * @param dim The dimension
+	 */
+	private void partition(int from, int to, int k, int dim) {
+		while (from < to) {
+
+			// Partitions around the middle value
+			double pivot = this.lab[3 * ((from + to) >>> 1) + dim];
+			int i = from, j = to;
+			while (i <= j) {
+				while (this.lab[3 * i + dim] < pivot) i++;
+				while (this.lab[3 * j + dim] > pivot) j--;
+				if (i <= j) swap(i++, j--);
+			}
+
+			// Continues with the side that contains the position
+			if (k <= j) to = j;
+			else if (k >= i) from = i;
+			else return;
+
+		} // End Loop over partitions
+	}
+
+	/***
+	 * Method used to swap two colors in tree order
+	 * @param i The position of the first color
+	 * @param j The position of the second color
+	 */
+	private void swap(int i, int j) {
+		for (int d = 0; d < 3; d++) {
+			double t = this.lab[3 * i + d];
+			this.lab[3 * i + d] = this.lab[3 * j + d];
+			this.lab[3 * j + d] = t;
+		}
+		int t = this.index[i];
+		this.index[i] = this.index[j];
+		this.index[j] = t;
+	}
+
+} // End of Class declaration
@@ -0,0 +1,69 @@
+package org.paces.stata;
+
+import java.util.Locale;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Modifications applied to each interpolated color before the optional
+ * inversion and grayscale transformations.  The modifications are applied
+ * by the steps of a {@link org.paces.stata.ModifierChain}.
+ */
+public enum Modifier {
+
+	/***
+	 * Colors are returned as interpolated
+	 */
+	NONE,
+
+	/***
+	 * Arbitrarily brighter colors
+	 */
+	BRIGHTER,
+
+	/***
+	 * Arbitrarily darker colors
+	 */
+	DARKER,
+
+	/***
+	 * Arbitrarily more saturated colors
+	 */
+	SATURATED,
+
+	/***
+	 * Arbitrarily less saturated colors
+	 */
+	DESATURATED;
+
+	/***
+	 * Method used to get the modification from the color mod argument
+	 * @param name One of brighter, darker, saturated, desaturated, none, or
+	 *                an empty string (case insensitive)
+	 * @return The modification
+	 * @throws IllegalArgumentException for unrecognized names
+	 */
+	public static Modifier fromString(String name) {
+
+		// Dispatches the modification
+		switch (name.trim().toLowerCase(Locale.ROOT)) {
+			case "":
+			case "none":
+				return NONE;
+			case "brighter":
+				return BRIGHTER;
+			case "darker":
+				return DARKER;
+			case "saturated":
+				return SATURATED;
+			case "desaturated":
+				return DESATURATED;
+			default:
+				throw new IllegalArgumentException("Unrecognized color " +
+						"modification " + name + ".");
+		}
+
+	} // End of Method declaration
+
+} // End of Class declaration
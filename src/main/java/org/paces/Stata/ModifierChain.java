@@ -0,0 +1,354 @@
+package org.paces.stata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Immutable, ordered chain of color modifications compiled into a single
+ * per-point kernel.  Each step is one of brighter, darker, saturated, or
+ * desaturated with an optional factor in (0, 1] (the default, 0.7, is the
+ * factor used by JavaFX; smaller values are stronger), invert, or grayscale.
+ * When the chain is compiled each HSB step is resolved to the saturation and
+ * brightness multipliers passed to {@link TerpEngine#deriveColor}, so
+ * applying the chain to a color is a single loop over primitive arrays that
+ * modifies the buffer in place without allocating.  Each step rounds its
+ * result to single precision exactly as the equivalent Color method would,
+ * so a chain with a single modification followed by invert and/or grayscale
+ * produces the same colors as the brighter, darker, saturated, desaturated,
+ * inverse, and grayscale arguments.
+ *
+ * <h2>Examples</h2>
+ * // Brighter, then less saturated, then inverted colors <br>
+ * ModifierChain.parse("brighter:0.8 desaturated:0.5 invert"); <br><br>
+ */
+public final class ModifierChain {
+
+	/***
+	 * Chain without any modifications
+	 */
+	public static final ModifierChain NONE = new ModifierChain(new int[0],
+			new double[0], new double[0], "");
+
+	/***
+	 * Default factor of the HSB modifications
+	 */
+	public static final double DEFAULT_FACTOR = TerpEngine.DARKER_BRIGHTER_FACTOR;
+
+	/***
+	 * Operation codes of the steps
+	 */
+	private static final int DERIVE = 0, INVERT = 1, GRAYSCALE = 2;
+
+	/***
+	 * Operation code of each step
+	 */
+	private final int[] ops;
+
+	/***
+	 * Saturation multiplier of each step (used by DERIVE)
+	 */
+	private final double[] sat;
+
+	/***
+	 * Brightness multiplier of each step (used by DERIVE)
+	 */
+	private final double[] bright;
+
+	/***
+	 * Canonical form of the chain used for cache keys
+	 */
+	private final String canonical;
+
+	/***
+	 * Constructor method for ModifierChain class
+	 * @param ops The operation code of each step
+	 * @param sat The saturation multiplier of each step
+	 * @param bright The brightness multiplier of each step
+	 * @param canonical The canonical form of the chain
+	 */
+	private ModifierChain(int[] ops, double[] sat, double[] bright,
+						  String canonical) {
+		this.ops = ops;
+		this.sat = sat;
+		this.bright = bright;
+		this.canonical = canonical;
+	}
+
+	/***
+	 * Method used to apply each step of the chain to a color in place
+	 * @param engine The engine used to interpolate the color
+	 * @param buf The red, green, blue, and opacity values of the color
+	 */
+	public void apply(TerpEngine engine, double[] buf) {
+		for (int i = 0; i < ops.length; i++) {
+			switch (ops[i]) {
+				case DERIVE:
+					engine.deriveColor(buf, sat[i], bright[i]);
+					break;
+				case INVERT:
+					engine.invert(buf);
+					break;
+				default:
+					engine.grayscale(buf);
+					break;
+			}
+		}
+	}
+
+	/***
+	 * Method used to check whether the chain modifies colors
+	 * @return True if the chain has no steps
+	 */
+	public boolean isEmpty() {
+		return ops.length == 0;
+	}
+
+	/***
+	 * Method used to get the number of steps
+	 * @return The number of steps in the chain
+	 */
+	public int size() {
+		return ops.length;
+	}
+
+	/***
+	 * Method used to get the canonical form of the chain
+	 * @return The steps separated by spaces with the factor of each HSB
+	 * step (e.g., brighter:0.7 invert)
+	 */
+	@Override
+	public String toString() {
+		return canonical;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof ModifierChain &&
+				((ModifierChain) o).canonical.equals(canonical);
+	}
+
+	@Override
+	public int hashCode() {
+		return canonical.hashCode();
+	}
+
+	/***
+	 * Method used to build the chain for the color mod, inverse, and
+	 * grayscale arguments
+	 * @param modifier The color modification applied first
+	 * @param invert True to invert the colors after the modification
+	 * @param grayscale True to project the colors into grayscale last
+	 * @return The compiled chain
+	 */
+	public static ModifierChain of(Modifier modifier, boolean invert,
+								   boolean grayscale) {
+
+		// Steps of the chain
+		Builder b = new Builder();
+		if (modifier != Modifier.NONE) b.add(modifier, DEFAULT_FACTOR);
+		if (invert) b.invert();
+		if (grayscale) b.grayscale();
+
+		// Compiles the chain
+		return b.build();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to build the chain for the modification indicators passed
+	 * by brewterpolate
+	 * @param mods The brighter, darker, saturated, desaturated, invert, and
+	 *                grayscale indicators
+	 * @return The compiled chain
+	 */
+	public static ModifierChain of(boolean[] mods) {
+
+		// Only a single modification is applied (none if several are requested)
+		int count = 0;
+		for (int i = 0; i < 4; i++) if (mods[i]) count++;
+		Modifier m = count != 1 ? Modifier.NONE : mods[0] ? Modifier.BRIGHTER :
+				mods[1] ? Modifier.DARKER : mods[2] ? Modifier.SATURATED :
+				Modifier.DESATURATED;
+
+		// Compiles the chain
+		return of(m, mods[4], mods[5]);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to parse a chain
+	 * @param chain Steps separated by spaces and/or commas, each of which is
+	 *                 brighter, darker, saturated, or desaturated with an
+	 *                 optional :factor in (0, 1], invert, or grayscale
+	 * @return The compiled chain
+	 * @throws IllegalArgumentException for unrecognized steps or invalid
+	 * factors
+	 */
+	public static ModifierChain parse(String chain) {
+
+		// Builder for the steps
+		Builder b = new Builder();
+
+		// Loop over the steps
+		int len = chain.length();
+		for (int start = 0; start < len; ) {
+
+			// Skips delimiters and finds the end of the step
+			while (start < len && ColorParser.isDelimiter(chain.charAt(start))) {
+				start++;
+			}
+			int end = start;
+			while (end < len && !ColorParser.isDelimiter(chain.charAt(end))) {
+				end++;
+			}
+			if (start == end) break;
+
+			// Splits the name and the factor
+			String step = chain.substring(start, end);
+			int colon = step.indexOf(':');
+			String name = (colon < 0 ? step : step.substring(0, colon))
+					.toLowerCase(Locale.ROOT);
+			double factor = colon < 0 ? DEFAULT_FACTOR :
+					Double.parseDouble(step.substring(colon + 1));
+
+			// Adds the step
+			switch (name) {
+				case "invert":
+				case "inverse":
+					if (colon >= 0) throw new IllegalArgumentException(
+							"invert does not take a factor.");
+					b.invert();
+					break;
+				case "grayscale":
+					if (colon >= 0) throw new IllegalArgumentException(
+							"grayscale does not take a factor.");
+					b.grayscale();
+					break;
+				default:
+					Modifier m = Modifier.fromString(name);
+					if (m == Modifier.NONE) throw new IllegalArgumentException(
+							"Unrecognized color modification " + step + ".");
+					b.add(m, factor);
+					break;
+			}
+
+			// Next step
+			start = end;
+
+		} // End Loop over steps
+
+		// Compiles the chain
+		return b.build();
+
+	} // End of Method declaration
+
+	/***
+	 * Mutable builder used to add the steps of a chain in order
+	 */
+	public static final class Builder {
+
+		/***
+		 * Operation codes and multipliers of the steps
+		 */
+		private final List<double[]> steps = new ArrayList<>();
+
+		/***
+		 * Canonical form of the steps
+		 */
+		private final StringBuilder canonical = new StringBuilder();
+
+		/***
+		 * Method used to add an HSB modification
+		 * @param modifier The modification
+		 * @param factor The factor in (0, 1]; smaller values are stronger
+		 * @return This builder
+		 * @throws IllegalArgumentException if the factor is not in (0, 1]
+		 */
+		public Builder add(Modifier modifier, double factor) {
+
+			// Check the factor
+			if (!(factor > 0 && factor <= 1)) {
+				throw new IllegalArgumentException("The factor of " +
+						modifier.name().toLowerCase(Locale.ROOT) + " must be " +
+						"in (0, 1].");
+			}
+
+			// Saturation and brightness multipliers
+			switch (modifier) {
+				case BRIGHTER:
+					return step(DERIVE, 1.0, 1.0 / factor, "brighter:" + factor);
+				case DARKER:
+					return step(DERIVE, 1.0, factor, "darker:" + factor);
+				case SATURATED:
+					return step(DERIVE, 1.0 / factor, 1.0, "saturated:" + factor);
+				case DESATURATED:
+					return step(DERIVE, factor, 1.0, "desaturated:" + factor);
+				default:
+					return this;
+			}
+
+		} // End of Method declaration
+
+		/***
+		 * Method used to add an inversion
+		 * @return This builder
+		 */
+		public Builder invert() {
+			return step(INVERT, 1.0, 1.0, "invert");
+		}
+
+		/***
+		 * Method used to add a projection into grayscale
+		 * @return This builder
+		 */
+		public Builder grayscale() {
+			return step(GRAYSCALE, 1.0, 1.0, "grayscale");
+		}
+
+		/***
+		 * Method used to add a step
+		 * @param op The operation code
+		 * @param s The saturation multiplier
+		 * @param b The brightness multiplier
+		 * @param name The canonical form of the step
+		 * @return This builder
+		 */
+		private Builder step(int op, double s, double b, String name) {
+			steps.add(new double[]{ op, s, b });
+			if (canonical.length() > 0) canonical.append(' ');
+			canonical.append(name);
+			return this;
+		}
+
+		/***
+		 * Method used to compile the chain
+		 * @return The immutable chain
+		 */
+		public ModifierChain build() {
+
+			// Chains without steps share a single instance
+			if (steps.isEmpty()) return NONE;
+
+			// Primitive arrays used by the kernel
+			int n = steps.size();
+			int[] ops = new int[n];
+			double[] sat = new double[n], bright = new double[n];
+			for (int i = 0; i < n; i++) {
+				double[] s = steps.get(i);
+				ops[i] = (int) s[0];
+				sat[i] = s[1];
+				bright[i] = s[2];
+			}
+
+			// Returns the chain
+			return new ModifierChain(ops, sat, bright, canonical.toString());
+
+		} // End of Method declaration
+
+	} // End of Class declaration
+
+} // End of Class declaration
@@ -0,0 +1,390 @@
+package org.paces.stata;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Lazy view of a palette.  Colors are interpolated, modified, and formatted
+ * when they are requested, so iterating over a palette uses constant memory
+ * regardless of the number of points, and the results are identical to
+ * those in {@link ColorTerp#getTColors()}.  Every color, including the
+ * first, is interpolated at the position returned by
+ * {@link PaletteSpec#position(int)}, except with {@link Spacing#RUNNING},
+ * where the starting color is followed by the interpolated colors at the
+ * distances of the same running sum used by
+ * {@link ColorTerp#setDistances(int)}, with checkpoints every
+ * {@value #STRIDE} points (computed once by the {@link PaletteSpec}) for
+ * random access.
+ *
+ * A Palette keeps a cursor and scratch buffers, so a single instance should
+ * not be shared between threads.  Iterators and spliterators use their own
+ * cursors, and parallel streams split the palette into independent ranges.
+ */
+public final class Palette implements Iterable<String> {
+
+	/***
+	 * Number of points between the checkpoints of the running sum
+	 */
+	public static final int STRIDE = 4096;
+
+	/***
+	 * Compiled palette shared by the views
+	 */
+	private final PaletteSpec spec;
+
+	/***
+	 * Explicit distances or null to generate them from the number of points
+	 */
+	private final double[] dists;
+
+	/***
+	 * Number of interpolated colors
+	 */
+	private final int n;
+
+	/***
+	 * Increment of the running sum
+	 */
+	private final double step;
+
+	/***
+	 * Value of the running sum after every STRIDE additions
+	 */
+	private final double[] checkpoints;
+
+	/***
+	 * Engine used to interpolate the colors
+	 */
+	private final TerpEngine engine;
+
+	/***
+	 * Encoder for the returned color space
+	 */
+	private final ColorEncoder encoder;
+
+	/***
+	 * Index of the last distance generated
+	 */
+	private int cursor = -1;
+
+	/***
+	 * Running sum at the index of the last distance generated
+	 */
+	private double sum;
+
+	/***
+	 * Reusable buffer for the red, green, blue, and opacity values
+	 */
+	private final double[] buf = new double[4];
+
+	/***
+	 * Constructor method for Palette class
+	 * @param terp A ColorTerp object with the parsed arguments.  If the
+	 *                distances were set explicitly with setDistances they
+	 *                are used with the running sum spacing, otherwise they
+	 *                are generated without materializing them.
+	 */
+	public Palette(ColorTerp terp) {
+
+		// Compiles the arguments once
+		this(terp, terp.spec());
+
+	} // End Constructor method
+
+	/***
+	 * Constructor method for Palette class
+	 * @param terp A ColorTerp object with the parsed arguments
+	 * @param spec The compiled arguments of terp
+	 */
+	private Palette(ColorTerp terp, PaletteSpec spec) {
+
+		// Uses any explicit distances
+		this(spec, terp.hasDists() && spec.isAnchored() ? terp.getDists() :
+				null);
+
+	} // End Constructor method
+
+	/***
+	 * Constructor method for Palette class
+	 * @param spec A compiled palette
+	 */
+	public Palette(PaletteSpec spec) {
+
+		// Distances generated from the number of points
+		this(spec, null);
+
+	} // End Constructor method
+
+	/***
+	 * Constructor method for Palette class
+	 * @param spec A compiled palette
+	 * @param dists Explicit distances or null to generate them from the
+	 *                 number of points
+	 */
+	private Palette(PaletteSpec spec, double[] dists) {
+		this.spec = spec;
+		this.dists = dists;
+		this.n = dists != null ? dists.length : spec.getPoints();
+		this.step = spec.step();
+		this.checkpoints = spec.checkpoints();
+		this.engine = spec.engine();
+		this.encoder = spec.encoder();
+	}
+
+	/***
+	 * Constructor used to create a view with its own cursor and scratch
+	 * state that shares the parameters of another view
+	 * @param p The view to copy
+	 */
+	private Palette(Palette p) {
+		this(p.spec, p.dists);
+	}
+
+	/***
+	 * Method used to get the number of colors in the palette
+	 * @return The number of interpolated colors plus the starting color
+	 */
+	public int size() {
+		return n + 1;
+	}
+
+	/***
+	 * Method used to get the distance of an interpolated color
+	 * @param i The index of the interpolated color in [0, n)
+	 * @return The distance from the starting color
+	 */
+	public double distance(int i) {
+
+		// Explicit distances
+		if (this.dists != null) return this.dists[i];
+
+		// A single point is placed on the starting color
+		if (n == 1) return 0.0;
+
+		// Restarts the running sum from the checkpoint unless the distance
+		// follows the last one generated
+		if (i != cursor + 1) {
+			int k = i / STRIDE;
+			sum = checkpoints[k];
+			for (int j = k * STRIDE; j < i; j++) sum = sum + step;
+			cursor = i - 1;
+		}
+
+		// Adds the increment for the next distance
+		sum = sum + step;
+		cursor = i;
+		return sum;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the channel values of a color
+	 * @param i The index of the color in [0, size())
+	 * @param out A buffer of length 4 where the red, green, blue, and
+	 *               opacity values are written
+	 */
+	public void channels(int i, double[] out) {
+
+		// Checks the index
+		if (i < 0 || i > n) throw new IndexOutOfBoundsException("Index " + i +
+				" is outside of the palette with " + size() + " colors.");
+
+		// Every color is interpolated at its position
+		if (!spec.isAnchored()) {
+			engine.interpolate(spec.position(i), out);
+			spec.modify(engine, out);
+			return;
+		}
+
+		// The starting color is returned as is
+		if (i == 0) {
+			System.arraycopy(spec.startChannels(), 0, out, 0, 4);
+			return;
+		}
+
+		// Interpolated and modified color
+		engine.interpolate(distance(i - 1), out);
+		spec.modify(engine, out);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get a formatted color
+	 * @param i The index of the color in [0, size())
+	 * @return The color formatted in the returned color space
+	 */
+	public String get(int i) {
+		channels(i, buf);
+		return encoder.encode(buf[0], buf[1], buf[2], buf[3]);
+	}
+
+	/***
+	 * Method used to get a color as a packed integer
+	 * @param i The index of the color in [0, size())
+	 * @return The color with the opacity, red, green, and blue values in
+	 * the bytes from the highest to the lowest (0xAARRGGBB)
+	 */
+	public int getARGB(int i) {
+		channels(i, buf);
+		return argb(buf);
+	}
+
+	/***
+	 * Method used to pack channel values into an integer
+	 * @param c The red, green, blue, and opacity values
+	 * @return The color as 0xAARRGGBB
+	 */
+	private static int argb(double[] c) {
+		return ColorEncoder.rgbInt(c[3]) << 24 | ColorEncoder.rgbInt(c[0]) << 16
+				| ColorEncoder.rgbInt(c[1]) << 8 | ColorEncoder.rgbInt(c[2]);
+	}
+
+	/***
+	 * Method used to iterate over the formatted colors
+	 * @return An iterator with its own cursor
+	 */
+	@Override
+	public Iterator<String> iterator() {
+
+		// View with its own cursor
+		Palette view = new Palette(this);
+
+		return new Iterator<String>() {
+
+			// Index of the next color
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next <= view.n;
+			}
+
+			@Override
+			public String next() {
+				if (next > view.n) throw new NoSuchElementException();
+				return view.get(next++);
+			}
+		};
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to iterate over the colors as packed integers
+	 * @return An iterator of 0xAARRGGBB values with its own cursor
+	 */
+	public PrimitiveIterator.OfInt argbIterator() {
+
+		// View with its own cursor
+		Palette view = new Palette(this);
+
+		return new PrimitiveIterator.OfInt() {
+
+			// Index of the next color
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next <= view.n;
+			}
+
+			@Override
+			public int nextInt() {
+				if (next > view.n) throw new NoSuchElementException();
+				return view.getARGB(next++);
+			}
+		};
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to split the formatted colors into ranges
+	 * @return A sized spliterator over the colors in order
+	 */
+	@Override
+	public Spliterator<String> spliterator() {
+		return new Range(new Palette(this), 0, n + 1);
+	}
+
+	/***
+	 * Method used to stream the formatted colors
+	 * @param parallel True to create a parallel stream
+	 * @return A stream of the colors in order
+	 */
+	public Stream<String> stream(boolean parallel) {
+		return StreamSupport.stream(spliterator(), parallel);
+	}
+
+	/***
+	 * Spliterator over a range of the colors.  Each range uses its own view
+	 * so ranges can be processed by different threads.
+	 */
+	private static final class Range implements Spliterator<String> {
+
+		/***
+		 * View used by the range
+		 */
+		private final Palette view;
+
+		/***
+		 * Index of the next color
+		 */
+		private int lo;
+
+		/***
+		 * One past the index of the last color
+		 */
+		private final int hi;
+
+		private Range(Palette view, int lo, int hi) {
+			this.view = view;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super String> action) {
+			if (lo >= hi) return false;
+			action.accept(view.get(lo++));
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super String> action) {
+			while (lo < hi) action.accept(view.get(lo++));
+		}
+
+		@Override
+		public Spliterator<String> trySplit() {
+
+			// Ranges smaller than two strides are not split
+			if (hi - lo < 2 * STRIDE) return null;
+
+			// The first half is returned with a new view
+			int mid = (lo + hi) >>> 1;
+			Range prefix = new Range(new Palette(view), lo, mid);
+			lo = mid;
+			return prefix;
+
+		}
+
+		@Override
+		public long estimateSize() {
+			return hi - lo;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+
+	} // End of Class declaration
+
+} // End of Class declaration
@@ -0,0 +1,346 @@
+package org.paces.stata;
+
+import com.stata.sfi.Macro;
+import com.stata.sfi.SFIToolkit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Session scoped cache of interpolated palettes.  The JVM used by Stata
+ * stays alive across javacall invocations, so palettes that are requested
+ * repeatedly (e.g., by scheme builders) can be reused instead of being
+ * interpolated and formatted again.  The cache has two levels: the channel
+ * values of a palette are keyed on the normalized interpolation parameters
+ * (anchor colors, positions, interpolation space, number of points, color
+ * modification, inversion, and grayscale) and the formatted strings are
+ * keyed on the same parameters plus the returned color space and number of
+ * digits, so changing only the returned color space reuses the
+ * interpolation.  Each level is a least recently used map bounded by the
+ * total number of colors it holds.  Cached arrays are shared and must not
+ * be modified by callers, so the public getters of ColorTerp and
+ * PaletteSpec return copies.
+ *
+ * <h2>Examples</h2>
+ * // Display the number of hits, misses, and evictions <br>
+ * brewterpcache <br><br>
+ *
+ * // Clear the cache <br>
+ * brewterpcache clear <br><br>
+ */
+public class PaletteCache {
+
+	/***
+	 * Default number of colors held by each level of the session cache
+	 */
+	public static final int DEFAULT_CAPACITY = 250000;
+
+	/***
+	 * Cache shared by all of the javacall invocations in a Stata session
+	 */
+	public static final PaletteCache SESSION = new PaletteCache(DEFAULT_CAPACITY);
+
+	/***
+	 * Channel values of palettes keyed on the interpolation parameters
+	 */
+	private final Level<double[]> channels = new Level<>();
+
+	/***
+	 * Formatted palettes keyed on the interpolation and format parameters
+	 */
+	private final Level<String[]> colors = new Level<>();
+
+	/***
+	 * Maximum number of colors held by each level
+	 */
+	private int capacity;
+
+	/***
+	 * Counters for lookups that were found, computed, and entries removed
+	 */
+	private long hits, misses, evictions;
+
+	/***
+	 * Constructor method for PaletteCache class
+	 * @param capacity Maximum number of colors held by each level
+	 */
+	public PaletteCache(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/***
+	 * Method used to get the channel values of a palette
+	 * @param terp A ColorTerp object with the parsed arguments
+	 * @return An array with the red, green, blue, and opacity values of the
+	 * starting color followed by those of each interpolated color
+	 */
+	public double[] channels(ColorTerp terp) {
+		return channels(terp.spec());
+	}
+
+	/***
+	 * Method used to get the channel values of a compiled palette
+	 * @param spec The compiled palette
+	 * @return An array with the red, green, blue, and opacity values of the
+	 * starting color followed by those of each interpolated color
+	 */
+	public double[] channels(PaletteSpec spec) {
+
+		// Key for the interpolation parameters
+		String key = spec.getKey();
+
+		// Check for a cached palette
+		double[] values = lookup(this.channels, key);
+
+		// Interpolate and store the palette if it was not found
+		if (values == null) {
+			values = spec.channels();
+			store(this.channels, key, values, values.length / 4);
+		}
+
+		// Returns the channel values
+		return values;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the formatted colors of a palette
+	 * @param terp A ColorTerp object with the parsed arguments
+	 * @return An array with the starting color followed by each of the
+	 * interpolated colors formatted in the returned color space
+	 */
+	public String[] colors(ColorTerp terp) {
+		return colors(terp.spec());
+	}
+
+	/***
+	 * Method used to get the formatted colors of a compiled palette
+	 * @param spec The compiled palette
+	 * @return An array with the starting color followed by each of the
+	 * interpolated colors formatted in the returned color space
+	 */
+	public String[] colors(PaletteSpec spec) {
+
+		// Key for the interpolation and format parameters
+		String key = spec.getKey() + '|' + spec.getRetSpace() + '|' +
+				spec.getDigits();
+
+		// Check for a cached palette
+		String[] palette = lookup(this.colors, key);
+
+		// Format and store the palette if it was not found
+		if (palette == null) {
+
+			// Channel values from the first level
+			double[] values = channels(spec);
+
+			// Formats each of the colors
+			ColorEncoder encoder = spec.encoder();
+			palette = new String[values.length / 4];
+			for (int i = 0, j = 0; i < palette.length; i++, j += 4) {
+				palette[i] = encoder.encode(values[j], values[j + 1],
+						values[j + 2], values[j + 3]);
+			}
+
+			// Stores the formatted palette
+			store(this.colors, key, palette, palette.length);
+
+		} // End IF Block for palettes that were not cached
+
+		// Returns the formatted colors
+		return palette;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to look up a palette and update the counters
+	 * @param level The level of the cache
+	 * @param key The key for the palette
+	 * @param <V> The type of the cached palettes
+	 * @return The cached palette or null if it was not found
+	 */
+	private synchronized <V> V lookup(Level<V> level, String key) {
+
+		// Gets the palette and moves it to the most recently used position
+		V value = level.map.get(key);
+
+		// Updates the counters
+		if (value == null) misses++;
+		else hits++;
+
+		// Returns the palette
+		return value;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to store a palette and evict the least recently used
+	 * palettes until the level fits within the capacity
+	 * @param level The level of the cache
+	 * @param key The key for the palette
+	 * @param value The palette
+	 * @param size The number of colors in the palette
+	 * @param <V> The type of the cached palettes
+	 */
+	private synchronized <V> void store(Level<V> level, String key, V value,
+										int size) {
+
+		// Palettes larger than the cache are not stored
+		if (size > this.capacity || level.map.containsKey(key)) return;
+
+		// Adds the palette
+		level.map.put(key, value);
+		level.size += size;
+
+		// Evicts palettes until the level fits within the capacity
+		evict(level, this.capacity);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to remove the least recently used palettes from a level
+	 * @param level The level of the cache
+	 * @param max The maximum number of colors to keep
+	 * @param <V> The type of the cached palettes
+	 */
+	private <V> void evict(Level<V> level, int max) {
+
+		// Iterates from the least recently used palette
+		Iterator<Map.Entry<String, V>> it = level.map.entrySet().iterator();
+		while (level.size > max && it.hasNext()) {
+			level.size -= Level.colors(it.next().getValue());
+			it.remove();
+			evictions++;
+		}
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to set the maximum number of colors held by each level
+	 * @param capacity The maximum number of colors
+	 */
+	public synchronized void setCapacity(int capacity) {
+		this.capacity = capacity;
+		evict(this.channels, capacity);
+		evict(this.colors, capacity);
+	}
+
+	/***
+	 * Method used to remove all of the palettes and reset the counters
+	 */
+	public synchronized void clear() {
+		this.channels.map.clear();
+		this.channels.size = 0;
+		this.colors.map.clear();
+		this.colors.size = 0;
+		hits = misses = evictions = 0;
+	}
+
+	/***
+	 * Getter method for the number of lookups that found a palette
+	 * @return The number of cache hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/***
+	 * Getter method for the number of lookups that did not find a palette
+	 * @return The number of cache misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/***
+	 * Getter method for the number of palettes removed from the cache
+	 * @return The number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/***
+	 * Getter method for the number of palettes in the cache
+	 * @return The number of palettes in both levels
+	 */
+	public synchronized int getEntries() {
+		return this.channels.map.size() + this.colors.map.size();
+	}
+
+	/***
+	 * Getter method for the maximum number of colors held by each level
+	 * @return The capacity of each level
+	 */
+	public synchronized int getCapacity() {
+		return this.capacity;
+	}
+
+	/***
+	 * Method called from Stata to manage the session cache
+	 * @param args Optional subcommands: clear to empty the cache and/or
+	 *                capacity followed by the maximum number of colors held
+	 *                by each level.  The counters are returned in the local
+	 *                macros hits, misses, evictions, entries, and capacity.
+	 * @return A Stata return code
+	 */
+	public static int cache(String[] args) {
+
+		// Dispatches each of the subcommands
+		for (int i = 0; i < args.length; i++) {
+			if ("clear".equals(args[i])) {
+				SESSION.clear();
+			} else if ("capacity".equals(args[i]) && i + 1 < args.length) {
+				SESSION.setCapacity(Integer.parseInt(args[++i]));
+			} else if (!args[i].isEmpty()) {
+				SFIToolkit.errorln("Unrecognized subcommand " + args[i] + ".");
+				return 198;
+			}
+		}
+
+		// Returns the counters to Stata
+		Macro.setLocal("hits", String.valueOf(SESSION.getHits()));
+		Macro.setLocal("misses", String.valueOf(SESSION.getMisses()));
+		Macro.setLocal("evictions", String.valueOf(SESSION.getEvictions()));
+		Macro.setLocal("entries", String.valueOf(SESSION.getEntries()));
+		Macro.setLocal("capacity", String.valueOf(SESSION.getCapacity()));
+
+		// Return success code
+		return 0;
+
+	} // End of Method declaration
+
+	/***
+	 * One level of the cache with its entries in access order
+	 * @param <V> The type of the cached palettes
+	 */
+	private static final class Level<V> {
+
+		/***
+		 * Palettes from the least to the most recently used
+		 */
+		private final LinkedHashMap<String, V> map =
+				new LinkedHashMap<>(16, 0.75f, true);
+
+		/***
+		 * Total number of colors in the palettes
+		 */
+		private long size;
+
+		/***
+		 * Method used to get the number of colors in a cached palette
+		 * @param value A cached palette
+		 * @return The number of colors
+		 */
+		private static int colors(Object value) {
+			return value instanceof double[] ? ((double[]) value).length / 4 :
+					((Object[]) value).length;
+		}
+
+	} // End of Class declaration
+
+} // End of Class declaration
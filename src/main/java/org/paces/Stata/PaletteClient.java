@@ -0,0 +1,139 @@
+package org.paces.stata;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Thin client for {@link org.paces.stata.PaletteServer}.  The requests are
+ * read from standard input (one per line with the fields separated by tabs,
+ * as in the job files of {@link org.paces.stata.BatchFile}) and pipelined to
+ * the server without waiting for the answers, which are written to standard
+ * output in order.  As in the batch mode, a request that fails produces an
+ * empty line and an error message on standard error.
+ *
+ * <h2>Examples</h2>
+ * java -jar brewterpolate.jar --client --port 7717 &lt; jobs.tsv &gt; palettes.tsv
+ */
+public class PaletteClient {
+
+	/***
+	 * Method used to run the client from the command line arguments
+	 * @param args The arguments following --client: the optional --host name
+	 *                (the loopback interface by default) and --port number
+	 * @return 0 if all of the requests succeeded, 1 if any request failed,
+	 * and 2 for invalid arguments
+	 * @throws IOException if the server cannot be reached
+	 */
+	public static int run(String[] args) throws IOException {
+
+		// Default values of the optional arguments
+		String host = null;
+		int port = PaletteServer.DEFAULT_PORT;
+
+		// Parses the arguments
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if ("--host".equals(args[i]) && i + 1 < args.length) {
+					host = args[++i];
+				} else if ("--port".equals(args[i]) && i + 1 < args.length) {
+					port = Integer.parseInt(args[++i]);
+				} else {
+					System.err.println("Usage: --client [--host name] [--port n]");
+					return 2;
+				}
+			}
+		} catch (NumberFormatException nfe) {
+			System.err.println("Usage: --client [--host name] [--port n]");
+			return 2;
+		}
+
+		// Check the port
+		if (port < 0 || port > 0xFFFF) {
+			System.err.println("Usage: --client [--host name] [--port n]");
+			return 2;
+		}
+
+		// Connects to the server
+		try (Socket socket = new Socket(host == null ?
+				InetAddress.getLoopbackAddress() : InetAddress.getByName(host),
+				port)) {
+
+			socket.setTcpNoDelay(true);
+
+			// Sends the requests from another thread so they are pipelined
+			Thread sender = new Thread(() -> send(socket), "brewterpolate-client");
+			sender.setDaemon(true);
+			sender.start();
+
+			// Writes the answers in order (standard output is flushed but not
+			// closed)
+			int failed = 0;
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out,
+					StandardCharsets.UTF_8), 1 << 16);
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(),
+					StandardCharsets.UTF_8), 1 << 16)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (!line.isEmpty() && line.charAt(0) == PaletteServer.ERROR) {
+						failed++;
+						System.err.println(line.substring(1));
+					} else {
+						out.write(line);
+					}
+					out.write('\n');
+					if (!reader.ready()) out.flush();
+				}
+			} finally {
+				out.flush();
+			}
+
+			// Returns whether all of the requests succeeded
+			return failed == 0 ? 0 : 1;
+
+		} // End of try-with-resources block
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to send the requests from standard input and close the
+	 * output of the socket at the end of the input
+	 * @param socket The connection to the server
+	 */
+	private static void send(Socket socket) {
+
+		try {
+
+			// Copies the lines and flushes whenever the input is idle
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					System.in, StandardCharsets.UTF_8), 1 << 16);
+			Writer writer = new BufferedWriter(new OutputStreamWriter(
+					socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+			String line;
+			while ((line = in.readLine()) != null) {
+				writer.write(line);
+				writer.write('\n');
+				if (!in.ready()) writer.flush();
+			}
+			writer.flush();
+
+			// Tells the server there are no more requests
+			socket.shutdownOutput();
+
+		} catch (IOException e) {
+			System.err.println("Sending the requests failed: " + e);
+		}
+
+	} // End of Method declaration
+
+} // End of Class declaration
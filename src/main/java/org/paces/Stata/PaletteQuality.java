@@ -0,0 +1,641 @@
+package org.paces.stata;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Quality metrics computed from the channel values of a palette: the
+ * CIEDE2000 color difference (Sharma, Wu, and Dalal 2005) and the WCAG 2
+ * contrast ratio of the relative luminances.  The CIELAB coordinates,
+ * chroma, and relative luminance of each color are computed once, so each
+ * pair only evaluates the metric.  Opacity is ignored (colors are treated
+ * as opaque).
+ *
+ * The metrics are returned for every pair of colors (a symmetric matrix),
+ * for adjacent colors, or for each color against a background color, with
+ * the minimum, mean, and maximum over the distinct pairs.  The full matrix
+ * is split into square tiles of the upper triangle and large palettes are
+ * processed on the common ForkJoinPool.  Each tile writes its own block of
+ * the matrix (and the mirrored block) and its own summary, and the
+ * summaries are combined in tile order, so the results do not depend on
+ * the order in which the tiles run.
+ *
+ * <h2>Examples</h2>
+ * PaletteQuality q = new PaletteQuality(spec.getChannels()); <br>
+ * PaletteQuality.Result r = q.full(PaletteQuality.Metric.DELTAE, <br>
+ * 		PaletteQuality.DEFAULT_THRESHOLD); <br>
+ * double smallest = r.getMin(); <br>
+ */
+public final class PaletteQuality {
+
+	/***
+	 * Metrics computed for a pair of colors
+	 */
+	public enum Metric {
+
+		/***
+		 * CIEDE2000 color difference (0 for identical colors)
+		 */
+		DELTAE,
+
+		/***
+		 * WCAG contrast ratio in [1, 21]
+		 */
+		CONTRAST;
+
+		/***
+		 * Method used to get the metric from its name
+		 * @param name One of deltae (or de2000) or contrast (case
+		 *                insensitive)
+		 * @return The metric
+		 * @throws IllegalArgumentException for unrecognized names
+		 */
+		public static Metric fromString(String name) {
+			switch (name.trim().toLowerCase(Locale.ROOT)) {
+				case "deltae":
+				case "de2000":
+				case "ciede2000":
+					return DELTAE;
+				case "contrast":
+					return CONTRAST;
+				default:
+					throw new IllegalArgumentException("Unrecognized quality " +
+							"metric " + name + ".");
+			}
+		}
+
+		@Override
+		public String toString() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+
+	} // End of enum declaration
+
+	/***
+	 * Default number of colors at or above which the full matrix is computed
+	 * in parallel
+	 */
+	public static final int DEFAULT_THRESHOLD = 256;
+
+	/***
+	 * Number of colors in each dimension of a tile
+	 */
+	private static final int TILE = 64;
+
+	/***
+	 * 25 to the 7th power used by the chroma terms of CIEDE2000
+	 */
+	private static final double POW25_7 = 6103515625.0;
+
+	/***
+	 * Number of colors
+	 */
+	private final int n;
+
+	/***
+	 * L*, a*, and b* of each color
+	 */
+	private final double[] lab;
+
+	/***
+	 * Chroma (C*ab) of each color
+	 */
+	private final double[] chroma;
+
+	/***
+	 * Relative luminance of each color
+	 */
+	private final double[] luminance;
+
+	/***
+	 * Constructor method for PaletteQuality class
+	 * @param channels The red, green, blue, and opacity values in [0, 1] of
+	 *                    each color (e.g., from PaletteSpec#getChannels())
+	 */
+	public PaletteQuality(double[] channels) {
+
+		// Number of colors
+		this.n = channels.length / 4;
+		this.lab = new double[3 * this.n];
+		this.chroma = new double[this.n];
+		this.luminance = new double[this.n];
+
+		// Coordinates of each color
+		double[] c = new double[3];
+		for (int i = 0; i < this.n; i++) {
+			int j = 4 * i;
+			TerpSpace.LAB.encode(channels[j], channels[j + 1], channels[j + 2], c);
+			System.arraycopy(c, 0, this.lab, 3 * i, 3);
+			this.chroma[i] = Math.sqrt(c[1] * c[1] + c[2] * c[2]);
+			this.luminance[i] = luminance(channels[j], channels[j + 1],
+					channels[j + 2]);
+		}
+
+	} // End of constructor declaration
+
+	/***
+	 * Method used to compute the metric for every pair of colors
+	 * @param metric The metric
+	 * @param threshold The number of colors at or above which the tiles are
+	 *                     computed in parallel; negative values always
+	 *                     compute them sequentially
+	 * @return An n x n symmetric matrix (the diagonal compares each color to
+	 * itself) with the summary of the pairs of distinct colors
+	 * @throws IllegalArgumentException if the matrix is too large for an
+	 * array
+	 */
+	public Result full(Metric metric, int threshold) {
+
+		// Check the size of the matrix
+		if ((long) this.n * this.n > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("A full matrix cannot be " +
+					"computed for " + this.n + " colors.");
+		}
+
+		// Tiles of the upper triangle
+		int nb = (this.n + TILE - 1) / TILE;
+		int ntiles = nb * (nb + 1) / 2;
+		int[] rows = new int[ntiles], cols = new int[ntiles];
+		for (int bi = 0, t = 0; bi < nb; bi++) {
+			for (int bj = bi; bj < nb; bj++, t++) {
+				rows[t] = bi;
+				cols[t] = bj;
+			}
+		}
+
+		// Storage for the matrix and the summary of each tile
+		double[] values = new double[this.n * this.n];
+		double[] tmin = new double[ntiles], tmax = new double[ntiles];
+		double[] tsum = new double[ntiles];
+
+		// Small palettes are computed sequentially in the calling thread
+		TileTask task = new TileTask(metric, rows, cols, values, tmin, tmax,
+				tsum, 0, ntiles);
+		if (threshold < 0 || this.n < threshold) task.compute();
+		else ForkJoinPool.commonPool().invoke(task);
+
+		// Combines the summaries in tile order
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		double sum = 0;
+		for (int t = 0; t < ntiles; t++) {
+			min = Math.min(min, tmin[t]);
+			max = Math.max(max, tmax[t]);
+			sum += tsum[t];
+		}
+
+		// Returns the matrix and the summary
+		long npairs = (long) this.n * (this.n - 1) / 2;
+		return new Result(values, this.n, this.n, npairs, min, sum, max);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to compute the metric for each pair of adjacent colors
+	 * @param metric The metric
+	 * @return An (n - 1) x 1 vector with the metric of colors i and i + 1 and
+	 * its summary
+	 */
+	public Result adjacent(Metric metric) {
+
+		// Metric of each pair of adjacent colors
+		int m = Math.max(this.n - 1, 0);
+		double[] values = new double[m];
+		for (int i = 0; i < m; i++) values[i] = pair(metric, i, i + 1);
+
+		// Returns the vector and the summary
+		return Result.of(values);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to compute the metric for each color against a background
+	 * @param metric The metric
+	 * @param background The red, green, and blue values of the background
+	 *                      color in [0, 1]
+	 * @return An n x 1 vector with the metric of each color and the
+	 * background and its summary
+	 */
+	public Result background(Metric metric, double[] background) {
+
+		// Coordinates of the background
+		double[] c = new double[3];
+		TerpSpace.LAB.encode(background[0], background[1], background[2], c);
+		double cb = Math.sqrt(c[1] * c[1] + c[2] * c[2]);
+		double yb = luminance(background[0], background[1], background[2]);
+
+		// Metric of each color
+		double[] values = new double[this.n];
+		for (int i = 0; i < this.n; i++) {
+			values[i] = metric == Metric.DELTAE ?
+					deltaE(this.lab[3 * i], this.lab[3 * i + 1],
+							this.lab[3 * i + 2], this.chroma[i], c[0], c[1], c[2],
+							cb) : contrast(this.luminance[i], yb);
+		}
+
+		// Returns the vector and the summary
+		return Result.of(values);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to compute the metric for a pair of colors
+	 * @param metric The metric
+	 * @param i The index of the first color
+	 * @param j The index of the second color
+	 * @return The CIEDE2000 color difference or WCAG contrast ratio
+	 */
+	public double pair(Metric metric, int i, int j) {
+		if (metric == Metric.CONTRAST) {
+			return contrast(this.luminance[i], this.luminance[j]);
+		}
+		return deltaE(this.lab[3 * i], this.lab[3 * i + 1], this.lab[3 * i + 2],
+				this.chroma[i], this.lab[3 * j], this.lab[3 * j + 1],
+				this.lab[3 * j + 2], this.chroma[j]);
+	}
+
+	/***
+	 * Method used to get the number of colors
+	 * @return The number of colors
+	 */
+	public int size() {
+		return this.n;
+	}
+
+	/***
+	 * Method used to compute the WCAG relative luminance of a color
+	 * @param r The gamma encoded red value in [0, 1]
+	 * @param g The gamma encoded green value in [0, 1]
+	 * @param b The gamma encoded blue value in [0, 1]
+	 * @return The relative luminance in [0, 1]
+	 */
+	public static double luminance(double r, double g, double b) {
+		return 0.2126 * Transfer.toLinearExact(r) +
+				0.7152 * Transfer.toLinearExact(g) +
+				0.0722 * Transfer.toLinearExact(b);
+	}
+
+	/***
+	 * Method used to compute the WCAG contrast ratio of two luminances
+	 * @param y1 The relative luminance of the first color
+	 * @param y2 The relative luminance of the second color
+	 * @return The ratio of the lighter to the darker luminance (each plus
+	 * 0.05) in [1, 21]
+	 */
+	public static double contrast(double y1, double y2) {
+		return y1 >= y2 ? (y1 + 0.05) / (y2 + 0.05) : (y2 + 0.05) / (y1 + 0.05);
+	}
+
+	/***
+	 * Method used to compute the CIEDE2000 color difference of two colors
+	 * with the parametric factors kL, kC, and kH equal to 1
+	 * @param l1 L* of the first color
+	 * @param a1 a* of the first color
+	 * @param b1 b* of the first color
+	 * @param l2 L* of the second color
+	 * @param a2 a* of the second color
+	 * @param b2 b* of the second color
+	 * @return The color difference
+	 */
+	public static double deltaE(double l1, double a1, double b1, double l2,
+								double a2, double b2) {
+		return deltaE(l1, a1, b1, Math.sqrt(a1 * a1 + b1 * b1), l2, a2, b2,
+				Math.sqrt(a2 * a2 + b2 * b2));
+	}
+
+	/***
+	 * Method used to compute the CIEDE2000 color difference from the
+	 * coordinates and chroma of two colors
+	 * @param l1 L* of the first color
+	 * @param a1 a* of the first color
+	 * @param b1 b* of the first color
+	 * @param c1 C*ab of the first color
+	 * @param l2 L* of the second color
+	 * @param a2 a* of the second color
+	 * @param b2 b* of the second color
+	 * @param c2 C*ab of the second color
+	 * @return The color difference
+	 */
+	private static double deltaE(double l1, double a1, double b1, double c1,
+								 double l2, double a2, double b2, double c2) {
+
+		// Adjusts a* for the mean chroma
+		double cbar = 0.5 * (c1 + c2);
+		double cbar7 = pow7(cbar);
+		double g = 0.5 * (1.0 - Math.sqrt(cbar7 / (cbar7 + POW25_7)));
+		double ap1 = (1.0 + g) * a1, ap2 = (1.0 + g) * a2;
+
+		// Adjusted chroma and hue angles in degrees
+		double cp1 = Math.sqrt(ap1 * ap1 + b1 * b1);
+		double cp2 = Math.sqrt(ap2 * ap2 + b2 * b2);
+		double hp1 = hue(b1, ap1), hp2 = hue(b2, ap2);
+
+		// Differences of lightness, chroma, and hue
+		double dl = l2 - l1, dc = cp2 - cp1;
+		double dh = 0;
+		if (cp1 * cp2 != 0) {
+			dh = hp2 - hp1;
+			if (dh > 180.0) dh -= 360.0;
+			else if (dh < -180.0) dh += 360.0;
+		}
+		double dhh = 2.0 * Math.sqrt(cp1 * cp2) * Math.sin(Math.toRadians(dh / 2.0));
+
+		// Means of lightness, chroma, and hue
+		double lbar = 0.5 * (l1 + l2), cpbar = 0.5 * (cp1 + cp2);
+		double hbar = hp1 + hp2;
+		if (cp1 * cp2 != 0) {
+			if (Math.abs(hp1 - hp2) <= 180.0) hbar /= 2.0;
+			else hbar = hbar < 360.0 ? (hbar + 360.0) / 2.0 : (hbar - 360.0) / 2.0;
+		}
+
+		// Weighting functions
+		double t = 1.0 - 0.17 * Math.cos(Math.toRadians(hbar - 30.0)) +
+				0.24 * Math.cos(Math.toRadians(2.0 * hbar)) +
+				0.32 * Math.cos(Math.toRadians(3.0 * hbar + 6.0)) -
+				0.20 * Math.cos(Math.toRadians(4.0 * hbar - 63.0));
+		double dtheta = 30.0 * Math.exp(-((hbar - 275.0) / 25.0) *
+				((hbar - 275.0) / 25.0));
+		double cpbar7 = pow7(cpbar);
+		double rc = 2.0 * Math.sqrt(cpbar7 / (cpbar7 + POW25_7));
+		double l50 = (lbar - 50.0) * (lbar - 50.0);
+		double sl = 1.0 + 0.015 * l50 / Math.sqrt(20.0 + l50);
+		double sc = 1.0 + 0.045 * cpbar;
+		double sh = 1.0 + 0.015 * cpbar * t;
+		double rt = -Math.sin(Math.toRadians(2.0 * dtheta)) * rc;
+
+		// Weighted differences
+		double xl = dl / sl, xc = dc / sc, xh = dhh / sh;
+		return Math.sqrt(xl * xl + xc * xc + xh * xh + rt * xc * xh);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to compute the hue angle of the adjusted coordinates
+	 * @param b The b* value
+	 * @param ap The adjusted a* value
+	 * @return The hue angle in [0, 360) degrees or 0 for neutral colors
+	 */
+	private static double hue(double b, double ap) {
+		if (b == 0 && ap == 0) return 0;
+		double h = Math.toDegrees(Math.atan2(b, ap));
+		return h < 0 ? h + 360.0 : h;
+	}
+
+	/***
+	 * Method used to raise a value to the 7th power
+	 * @param x The value
+	 * @return x to the 7th power
+	 */
+	private static double pow7(double x) {
+		double x2 = x * x;
+		return x2 * x2 * x2 * x;
+	}
+
+	/***
+	 * Values of a metric with the summary of the distinct pairs
+	 */
+	public static final class Result {
+
+		/***
+		 * Values in row major order
+		 */
+		private final double[] values;
+
+		/***
+		 * Dimensions of the values
+		 */
+		private final int rows, cols;
+
+		/***
+		 * Number of pairs in the summary
+		 */
+		private final long count;
+
+		/***
+		 * Summary of the pairs
+		 */
+		private final double min, mean, max;
+
+		/***
+		 * Constructor method for Result class
+		 * @param values The values in row major order
+		 * @param rows The number of rows
+		 * @param cols The number of columns
+		 * @param count The number of pairs in the summary
+		 * @param min The smallest value
+		 * @param sum The sum of the values
+		 * @param max The largest value
+		 */
+		private Result(double[] values, int rows, int cols, long count,
+					   double min, double sum, double max) {
+			this.values = values;
+			this.rows = rows;
+			this.cols = cols;
+			this.count = count;
+			this.min = count == 0 ? Double.NaN : min;
+			this.mean = count == 0 ? Double.NaN : sum / count;
+			this.max = count == 0 ? Double.NaN : max;
+		}
+
+		/***
+		 * Method used to summarize a vector
+		 * @param values The values of each pair
+		 * @return A column vector with the summary of its values
+		 */
+		private static Result of(double[] values) {
+			double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+			double sum = 0;
+			for (double v : values) {
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+				sum += v;
+			}
+			return new Result(values, values.length, 1, values.length, min,
+					sum, max);
+		}
+
+		/***
+		 * Getter method for the values
+		 * @return The values in row major order
+		 */
+		public double[] getValues() {
+			return this.values;
+		}
+
+		/***
+		 * Getter method for the number of rows
+		 * @return The number of rows
+		 */
+		public int getRows() {
+			return this.rows;
+		}
+
+		/***
+		 * Getter method for the number of columns
+		 * @return The number of columns
+		 */
+		public int getCols() {
+			return this.cols;
+		}
+
+		/***
+		 * Getter method for the number of pairs in the summary
+		 * @return The number of distinct pairs
+		 */
+		public long getCount() {
+			return this.count;
+		}
+
+		/***
+		 * Getter method for the smallest value
+		 * @return The minimum over the distinct pairs or NaN if there are none
+		 */
+		public double getMin() {
+			return this.min;
+		}
+
+		/***
+		 * Getter method for the mean value
+		 * @return The mean over the distinct pairs or NaN if there are none
+		 */
+		public double getMean() {
+			return this.mean;
+		}
+
+		/***
+		 * Getter method for the largest value
+		 * @return The maximum over the distinct pairs or NaN if there are none
+		 */
+		public double getMax() {
+			return this.max;
+		}
+
+	} // End of Class declaration
+
+	/***
+	 * Task that computes a range of tiles of the upper triangle
+	 */
+	private final class TileTask extends RecursiveAction {
+
+		/***
+		 * Version of the serialized form inherited from RecursiveAction (the
+		 * tiles are computed in place and never serialized)
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/***
+		 * Metric computed for each pair
+		 */
+		private final Metric metric;
+
+		/***
+		 * Row and column blocks of each tile
+		 */
+		private final int[] rows, cols;
+
+		/***
+		 * Matrix of the metric in row major order
+		 */
+		private final double[] values;
+
+		/***
+		 * Summary of each tile
+		 */
+		private final double[] tmin, tmax, tsum;
+
+		/***
+		 * Range of tiles processed by the task
+		 */
+		private final int lo, hi;
+
+		/***
+		 * Constructor method for TileTask class
+		 * @param metric The metric
+		 * @param rows The row block of each tile
+		 * @param cols The column block of each tile
+		 * @param values The matrix of the metric
+		 * @param tmin The smallest value of each tile
+		 * @param tmax The largest value of each tile
+		 * @param tsum The sum of the values of each tile
+		 * @param lo The first tile processed
+		 * @param hi One past the last tile processed
+		 */
+		private TileTask(Metric metric, int[] rows, int[] cols, double[] values,
+						 double[] tmin, double[] tmax, double[] tsum, int lo,
+						 int hi) {
+			this.metric = metric;
+			this.rows = rows;
+			this.cols = cols;
+			this.values = values;
+			this.tmin = tmin;
+			this.tmax = tmax;
+			this.tsum = tsum;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		/***
+		 * Method used to split the range or compute it when it is a tile
+		 */
+		@Override
+		protected void compute() {
+
+			// Splits ranges with more than one tile in half
+			if (getPool() != null && this.hi - this.lo > 1) {
+				int mid = (this.lo + this.hi) >>> 1;
+				invokeAll(new TileTask(this.metric, this.rows, this.cols,
+								this.values, this.tmin, this.tmax, this.tsum,
+								this.lo, mid),
+						new TileTask(this.metric, this.rows, this.cols,
+								this.values, this.tmin, this.tmax, this.tsum, mid,
+								this.hi));
+				return;
+			}
+
+			// Loop over the tiles
+			for (int t = this.lo; t < this.hi; t++) tile(t);
+
+		} // End of Method declaration
+
+		/***
+		 * Method used to compute a tile and its mirrored block
+		 * @param t The index of the tile
+		 */
+		private void tile(int t) {
+
+			// Ranges of the colors in the tile
+			int i0 = this.rows[t] * TILE, i1 = Math.min(i0 + TILE, n);
+			int j0 = this.cols[t] * TILE, j1 = Math.min(j0 + TILE, n);
+			boolean diagonal = i0 == j0;
+
+			// Summary of the distinct pairs of the tile
+			double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+			double sum = 0;
+
+			// Loop over the pairs of the tile
+			for (int i = i0; i < i1; i++) {
+				for (int j = diagonal ? i : j0; j < j1; j++) {
+					double v = pair(this.metric, i, j);
+					this.values[i * n + j] = v;
+					this.values[j * n + i] = v;
+					if (i != j) {
+						min = Math.min(min, v);
+						max = Math.max(max, v);
+						sum += v;
+					}
+				}
+			}
+
+			// Stores the summary of the tile
+			this.tmin[t] = min;
+			this.tmax[t] = max;
+			this.tsum[t] = sum;
+
+		} // End of Method declaration
+
+	} // End of Class declaration
+
+} // End of Class declaration
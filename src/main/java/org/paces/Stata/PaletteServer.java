@@ -0,0 +1,269 @@
+package org.paces.stata;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Long lived server mode used to answer requests from a warm JVM, so shell
+ * pipelines that generate many palettes do not pay for JVM startup and class
+ * loading on each call.  The server listens on a port of the loopback
+ * interface (unix domain sockets are not available in Java 8) and each
+ * connection carries a stream of requests with the same format as the jobs
+ * of {@link org.paces.stata.BatchFile}: one request per line with the
+ * arguments of {@link org.paces.stata.ColorTerp#main(String[])} separated by
+ * tabs.  Each request is answered by a line with the colors separated by
+ * tabs, or by a line starting with ! followed by the error message when the
+ * request fails.  Blank lines and lines starting with # are skipped without
+ * an answer.
+ *
+ * Requests can be pipelined: the requests that have already arrived on a
+ * connection are read as a batch, interpolated on a pool of worker threads
+ * shared by all of the connections, and answered in order with a single
+ * flush.  The session palette cache is shared by every connection, so
+ * repeated palettes are answered from the cache.  Requests can be sent with
+ * the client mode ({@link org.paces.stata.PaletteClient}) or any tool that
+ * writes lines to a socket (e.g., nc).
+ *
+ * <h2>Examples</h2>
+ * java -jar brewterpolate.jar --serve --port 7717 --threads 4 <br>
+ * java -jar brewterpolate.jar --client --port 7717 &lt; jobs.tsv <br>
+ */
+public class PaletteServer {
+
+	/***
+	 * Default port of the server
+	 */
+	public static final int DEFAULT_PORT = 7717;
+
+	/***
+	 * Maximum number of pipelined requests answered as a single batch
+	 */
+	private static final int MAX_BATCH = 4096;
+
+	/***
+	 * Prefix of the lines answering requests that failed
+	 */
+	public static final char ERROR = '!';
+
+	/***
+	 * Method used to run the server from the command line arguments
+	 * @param args The arguments following --serve: the optional --port
+	 *                number (0 selects a free port) and --threads number
+	 *                arguments
+	 * @return 0 when the server stops and 2 for invalid arguments
+	 * @throws IOException if the server cannot listen on the port
+	 */
+	public static int run(String[] args) throws IOException {
+
+		// Default values of the optional arguments
+		int port = DEFAULT_PORT;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		// Parses the arguments
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if ("--port".equals(args[i]) && i + 1 < args.length) {
+					port = Integer.parseInt(args[++i]);
+				} else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+					threads = Integer.parseInt(args[++i]);
+				} else {
+					System.err.println("Usage: --serve [--port n] [--threads n]");
+					return 2;
+				}
+			}
+		} catch (NumberFormatException nfe) {
+			System.err.println("Usage: --serve [--port n] [--threads n]");
+			return 2;
+		}
+
+		// Check the port and the number of threads
+		if (port < 0 || port > 0xFFFF || threads < 1) {
+			System.err.println("Usage: --serve [--port n] [--threads n]");
+			return 2;
+		}
+
+		// Listens on the loopback interface only
+		try (ServerSocket server = new ServerSocket(port, 50,
+				InetAddress.getLoopbackAddress())) {
+
+			// Reports the port (e.g., when a free port was selected)
+			System.out.println(server.getLocalPort());
+			System.out.flush();
+
+			// Serves the connections until the process is stopped
+			serve(server, threads, System.err);
+			return 0;
+
+		} // End of try-with-resources block
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to accept and serve connections until the server socket
+	 * is closed
+	 * @param server A bound server socket
+	 * @param threads The number of worker threads shared by the connections
+	 * @param log Stream used for connection errors
+	 */
+	public static void serve(ServerSocket server, int threads,
+							 PrintStream log) {
+
+		// Worker threads that interpolate the palettes
+		ExecutorService workers = Executors.newFixedThreadPool(threads,
+				PaletteServer::daemon);
+
+		// Threads that read the requests of each connection
+		ExecutorService connections = Executors.newCachedThreadPool(
+				PaletteServer::daemon);
+
+		try {
+
+			// Loop over the connections
+			while (!server.isClosed()) {
+				final Socket socket;
+				try {
+					socket = server.accept();
+				} catch (IOException e) {
+					if (server.isClosed()) break;
+					log.println("Accept failed: " + e);
+					continue;
+				}
+				connections.execute(() -> {
+					try (Socket s = socket) {
+						s.setTcpNoDelay(true);
+						answer(new BufferedReader(new InputStreamReader(
+								s.getInputStream(), StandardCharsets.UTF_8),
+								1 << 16), new BufferedWriter(
+								new OutputStreamWriter(s.getOutputStream(),
+								StandardCharsets.UTF_8), 1 << 16), workers);
+					} catch (IOException e) {
+						log.println("Connection failed: " + e);
+					}
+				});
+			}
+
+		} finally {
+			connections.shutdownNow();
+			workers.shutdownNow();
+
+		} // End of try/finally block
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to answer the requests of a connection
+	 * @param reader A reader with one request per line
+	 * @param writer The writer for the answers
+	 * @param workers The pool used to interpolate batches of requests
+	 * @throws IOException if the requests cannot be read or the answers
+	 * cannot be written
+	 */
+	public static void answer(BufferedReader reader, Writer writer,
+							  ExecutorService workers) throws IOException {
+
+		// Requests of the current batch
+		List<String> batch = new ArrayList<>();
+		List<Future<String>> results = new ArrayList<>();
+
+		// Loop over the batches until the client closes the connection
+		String line;
+		while ((line = reader.readLine()) != null) {
+
+			// The first request and any others that already arrived
+			batch.clear();
+			batch.add(line);
+			while (batch.size() < MAX_BATCH && reader.ready() &&
+					(line = reader.readLine()) != null) {
+				batch.add(line);
+			}
+
+			// A single request is answered by the connection thread
+			if (batch.size() == 1) {
+				if (!skip(batch.get(0))) {
+					writer.write(result(batch.get(0)));
+					writer.write('\n');
+				}
+
+			// Batches are interpolated by the worker threads
+			} else {
+				results.clear();
+				for (String request : batch) {
+					if (!skip(request)) {
+						results.add(workers.submit(() -> result(request)));
+					}
+				}
+				for (Future<String> f : results) {
+					try {
+						writer.write(f.get());
+					} catch (ExecutionException e) {
+						writer.write(ERROR + String.valueOf(e.getCause()));
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IOException("Interrupted while answering " +
+								"the requests.", e);
+					}
+					writer.write('\n');
+				}
+
+			} // End ELSE Block for batches
+
+			// Sends the answers of the batch
+			writer.flush();
+
+		} // End Loop over batches
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to answer a single request
+	 * @param request A line with the arguments separated by tabs
+	 * @return The colors separated by tabs or the error message after the
+	 * ERROR prefix
+	 */
+	public static String result(String request) {
+		try {
+			return BatchFile.palette(BatchFile.split(request));
+		} catch (RuntimeException e) {
+			return ERROR + e.toString();
+		}
+	}
+
+	/***
+	 * Method used to check whether a line is skipped without an answer
+	 * @param line A line of the request stream
+	 * @return True for blank lines and lines starting with #
+	 */
+	private static boolean skip(String line) {
+		return line.trim().isEmpty() || line.startsWith("#");
+	}
+
+	/***
+	 * Method used to create the daemon threads of the server
+	 * @param r The task of the thread
+	 * @return A daemon thread, so the pools do not keep the JVM alive
+	 */
+	private static Thread daemon(Runnable r) {
+		Thread t = new Thread(r, "brewterpolate-server");
+		t.setDaemon(true);
+		return t;
+	}
+
+} // End of Class declaration
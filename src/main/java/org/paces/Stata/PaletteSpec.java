@@ -0,0 +1,1054 @@
+package org.paces.stata;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Immutable, compiled description of a palette.  A spec is created with a
+ * {@link Builder}, which parses and validates the arguments once and
+ * resolves the color space and color modification strings to enums.
+ * Everything that does not depend on the position of a color (the channel
+ * values of the anchors, the anchor and segment tables of the interpolation
+ * engine, the encoder settings, the checkpoints of the running sum used for
+ * the distances, and the cache key) is computed when the spec is built.
+ *
+ * A spec has no mutable state, so a single instance can be shared between
+ * threads and reused across calls.  Each evaluation (e.g., {@link #colors()},
+ * {@link #channels()}, or the iterators of {@link #palette()}) uses its own
+ * engine created from the shared tables with {@link #engine()} and its own
+ * encoder, and the results are identical to those of
+ * {@link org.paces.stata.ColorTerp} for the same arguments.
+ *
+ * <h2>Examples</h2>
+ * PaletteSpec spec = PaletteSpec.builder().inSpace(ColorSpace.RGB) <br>
+ * 		.retSpace(ColorSpace.HEX).start("255 0 0").end("0 0 255") <br>
+ * 		.points(10).modifier(Modifier.DARKER).build(); <br><br>
+ *
+ * // The same spec from the arguments passed by brewterpolate <br>
+ * PaletteSpec spec = PaletteSpec.parse(args); <br><br>
+ */
+public final class PaletteSpec {
+
+	/***
+	 * Color space of the input colors
+	 */
+	private final ColorSpace inspace;
+
+	/***
+	 * Color space of the returned colors
+	 */
+	private final ColorSpace retspace;
+
+	/***
+	 * Anchor colors from the starting to the ending color
+	 */
+	private final Color[] anchors;
+
+	/***
+	 * Positions of the anchor colors or null for evenly spaced anchors
+	 */
+	private final double[] positions;
+
+	/***
+	 * Color space used to interpolate the colors
+	 */
+	private final TerpSpace terpspace;
+
+	/***
+	 * Curve followed by the channels between the anchor colors
+	 */
+	private final Curve curve;
+
+	/***
+	 * Number of interpolated colors after the starting color
+	 */
+	private final int points;
+
+	/***
+	 * Compiled chain of modifications applied to each interpolated color
+	 */
+	private final ModifierChain modifiers;
+
+	/***
+	 * Number of digits used to format decimal values
+	 */
+	private final int digits;
+
+	/***
+	 * Use of the session palette cache
+	 */
+	private final boolean cache;
+
+	/***
+	 * Path of the persistent palette store or null
+	 */
+	private final String store;
+
+	/***
+	 * Number of points at or above which colors are interpolated in parallel
+	 */
+	private final int threshold;
+
+	/***
+	 * Placement of the colors along the interpolation path
+	 */
+	private final Spacing spacing;
+
+	/***
+	 * Positions of every color with the explicit spacing or null
+	 */
+	private final double[] at;
+
+	/***
+	 * Cumulative color difference along the path with the uniform spacing
+	 * or null
+	 */
+	private final ArcTable arc;
+
+	/***
+	 * Channel values of the anchor colors
+	 */
+	private final double[][] channels;
+
+	/***
+	 * Engine whose tables are shared by the engines of each evaluation
+	 */
+	private final TerpEngine prototype;
+
+	/***
+	 * Increment of the running sum used for the distances
+	 */
+	private final double step;
+
+	/***
+	 * Value of the running sum after every Palette.STRIDE additions
+	 */
+	private final double[] checkpoints;
+
+	/***
+	 * Normalized key for the interpolation parameters
+	 */
+	private final String key;
+
+	/***
+	 * Constructor method for PaletteSpec class
+	 * @param b A builder with the parsed arguments
+	 * @throws IllegalArgumentException if the arguments do not define a
+	 * valid palette
+	 */
+	private PaletteSpec(Builder b) {
+
+		// Check for the required colors and the number of points
+		if (b.start == null || b.end == null) {
+			throw new IllegalArgumentException("The starting and ending " +
+					"colors are required.");
+		}
+		if (b.points < 1) {
+			throw new IllegalArgumentException("At least one point is " +
+					"required.");
+		}
+		if (b.chain != null && (b.modifier != Modifier.NONE || b.invert ||
+				b.grayscale)) {
+			throw new IllegalArgumentException("A chain of modifications " +
+					"cannot be combined with the color mod, inverse, or " +
+					"grayscale arguments.");
+		}
+		if (b.digits != ColorEncoder.SHORTEST &&
+				(b.digits < 0 || b.digits > ColorEncoder.MAXDIGITS)) {
+			throw new IllegalArgumentException("The number of digits must " +
+					"be in [0, " + ColorEncoder.MAXDIGITS + "].");
+		}
+		if (b.at != null) {
+			if (b.at.length != b.points + 1) {
+				throw new IllegalArgumentException("Expected " +
+						(b.points + 1) + " color positions but found " +
+						b.at.length + ".");
+			}
+			for (double p : b.at) {
+				if (!(p >= 0.0 && p <= 1.0)) {
+					throw new IllegalArgumentException("Color positions " +
+							"must be in [0, 1].");
+				}
+			}
+		}
+
+		// Parsed arguments
+		this.inspace = b.inspace;
+		this.retspace = b.retspace;
+		this.positions = b.positions == null ? null : b.positions.clone();
+		this.terpspace = b.terpspace;
+		this.curve = b.curve;
+		this.points = b.points;
+		this.modifiers = b.chain != null ? b.chain :
+				ModifierChain.of(b.modifier, b.invert, b.grayscale);
+		this.digits = b.digits;
+		this.cache = b.cache;
+		this.store = b.store;
+		this.threshold = b.threshold;
+		this.at = b.at == null ? null : b.at.clone();
+		this.spacing = this.at != null ? Spacing.EXPLICIT : b.spacing;
+
+		// Anchor colors and their channel values
+		this.anchors = new Color[b.stops.length + 2];
+		this.anchors[0] = b.start;
+		System.arraycopy(b.stops, 0, this.anchors, 1, b.stops.length);
+		this.anchors[this.anchors.length - 1] = b.end;
+		this.channels = new double[this.anchors.length][];
+		for (int i = 0; i < this.anchors.length; i++) {
+			this.channels[i] = ColorTerp.channels(this.anchors[i]);
+		}
+
+		// Engine tables (also validates the positions)
+		this.prototype = new TerpEngine(this.channels, this.positions,
+				this.terpspace, this.curve);
+
+		// Color differences along the path for the uniform spacing
+		this.arc = this.spacing == Spacing.UNIFORM ? new ArcTable(engine(),
+				this.modifiers, this.anchors.length - 1) : null;
+
+		// Checkpoints of the running sum used for the distances
+		this.step = 1.0 / this.points;
+		this.checkpoints = new double[this.points / Palette.STRIDE + 1];
+		double total = 0.0;
+		for (int i = 0; i < this.checkpoints.length; i++) {
+			this.checkpoints[i] = total;
+			for (int j = 0; j < Palette.STRIDE && i * Palette.STRIDE + j <
+					this.points; j++) {
+				total = total + this.step;
+			}
+		}
+
+		// Key for the interpolation parameters
+		this.key = buildKey();
+
+	} // End Constructor method
+
+	/***
+	 * Method used to create a builder with the default values
+	 * @return A new builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/***
+	 * Method used to compile the arguments passed by brewterpolate
+	 * @param args The same arguments passed to ColorTerp
+	 * @return The compiled spec
+	 * @throws IllegalArgumentException if the arguments are invalid
+	 */
+	public static PaletteSpec parse(String[] args) {
+		checkArgs(args);
+		return new ColorTerp(args, false).spec();
+	}
+
+	/***
+	 * Method used to check for the required arguments passed by brewterpolate
+	 * @param args The same arguments passed to ColorTerp
+	 * @throws IllegalArgumentException if there are fewer than NARGS
+	 */
+	private static void checkArgs(String[] args) {
+		if (args.length < ColorTerp.NARGS) {
+			throw new IllegalArgumentException("Expected at least " +
+					ColorTerp.NARGS + " arguments but found " + args.length +
+					".");
+		}
+	}
+
+	/***
+	 * Method used to build the normalized key for the interpolation
+	 * parameters.  The key uses the parsed values, so equivalent arguments
+	 * (e.g., the same color in different input color spaces) share a key.
+	 * @return A string identifying the channel values of the palette
+	 */
+	private String buildKey() {
+
+		// Builder for the key
+		StringBuilder sb = new StringBuilder(128);
+
+		// Channel values of the anchor colors
+		for (Color c : this.anchors) {
+			sb.append(c.getRed()).append(',').append(c.getGreen())
+					.append(',').append(c.getBlue()).append(',')
+					.append(c.getOpacity()).append(';');
+		}
+
+		// Positions of the anchor colors
+		if (this.positions != null) {
+			for (double p : this.positions) sb.append(p).append(',');
+		}
+
+		// Interpolation space, number of points, and modifications
+		sb.append('|').append(this.terpspace).append('|').append(this.points)
+				.append('|').append(this.modifiers);
+
+		// Curve and placement of the colors (omitted for the linear curve and
+		// the running sum so the keys of palettes stored by earlier versions
+		// keep their meaning)
+		if (this.curve != Curve.LINEAR) sb.append("|curve:").append(this.curve);
+		if (this.spacing != Spacing.RUNNING) {
+			sb.append('|').append(this.spacing);
+			if (this.at != null) {
+				for (double p : this.at) sb.append(',').append(p);
+			}
+		}
+
+		// Returns the key
+		return sb.toString();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to create an engine for a single thread that shares the
+	 * precomputed tables of this spec
+	 * @return A new engine
+	 */
+	public TerpEngine engine() {
+		return new TerpEngine(this.prototype);
+	}
+
+	/***
+	 * Method used to create an encoder for a single thread
+	 * @return A new encoder for the returned color space
+	 */
+	public ColorEncoder encoder() {
+		return this.retspace.encoder(this.digits);
+	}
+
+	/***
+	 * Method used to apply the chain of modifications to an interpolated
+	 * color
+	 * @param engine An engine created with {@link #engine()}
+	 * @param buf The red, green, blue, and opacity values of the color
+	 */
+	public void modify(TerpEngine engine, double[] buf) {
+		this.modifiers.apply(engine, buf);
+	}
+
+	/***
+	 * Method used to get the distance of an interpolated color from the
+	 * running sum, restarting from the nearest checkpoint
+	 * @param i The index of the interpolated color in [0, points)
+	 * @return The distance from the starting color
+	 */
+	public double distance(int i) {
+
+		// A single point is placed on the starting color
+		if (this.points == 1) return 0.0;
+
+		// Adds the increments after the checkpoint
+		int k = i / Palette.STRIDE;
+		double sum = this.checkpoints[k];
+		for (int j = k * Palette.STRIDE; j <= i; j++) sum = sum + this.step;
+		return sum;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the position of a color with the exact, uniform,
+	 * or explicit spacing
+	 * @param k The index of the color in [0, size())
+	 * @return The position of the color in [0, 1]
+	 */
+	public double position(int k) {
+		return this.at != null ? this.at[k] : this.arc != null ?
+				this.arc.position(k, size()) : Spacing.exact(k, size());
+	}
+
+	/***
+	 * Method used to get the positions of all of the colors with the exact,
+	 * uniform, or explicit spacing
+	 * @return A new array with the position of each color in [0, 1]
+	 */
+	public double[] positions() {
+		if (this.at != null) return this.at.clone();
+		int n = size();
+		double[] pos = new double[n];
+		for (int k = 0; k < n; k++) pos[k] = position(k);
+		return pos;
+	}
+
+	/***
+	 * Method used to check whether the starting color is returned as is
+	 * @return True for the running sum, where the starting color precedes
+	 * the interpolated colors; false if every color is interpolated
+	 */
+	public boolean isAnchored() {
+		return this.spacing == Spacing.RUNNING;
+	}
+
+	/***
+	 * Method used to get the distances of all of the interpolated colors
+	 * @return A new array with the same values as ColorTerp#getDists()
+	 */
+	public double[] distances() {
+
+		// Storage for the distances
+		double[] dists = new double[this.points];
+
+		// A single point is placed on the starting color
+		if (this.points == 1) return dists;
+
+		// Running sum of the increments
+		double sum = 0.0;
+		for (int i = 0; i < this.points; i++) {
+			sum = sum + this.step;
+			dists[i] = sum;
+		}
+
+		// Returns the distances
+		return dists;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to interpolate the channel values of the palette
+	 * @return An array with the red, green, blue, and opacity values of the
+	 * starting color followed by those of each interpolated color
+	 */
+	public double[] channels() {
+
+		// Storage for the channel values of each color
+		double[] values = new double[4 * size()];
+
+		// Every color is interpolated at its position
+		if (!isAnchored()) {
+			TerpTask.run(this, positions(), null, values, 0);
+			return values;
+		}
+
+		// The starting color is returned as is
+		System.arraycopy(this.channels[0], 0, values, 0, 4);
+
+		// Interpolates the colors after the starting color (in parallel for
+		// large palettes)
+		TerpTask.run(this, distances(), null, values, 1);
+
+		// Returns the channel values
+		return values;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to interpolate and format the palette
+	 * @return An array with the starting color followed by each of the
+	 * interpolated colors formatted in the returned color space
+	 */
+	public String[] colors() {
+
+		// Storage for the formatted colors
+		String[] colors = new String[size()];
+
+		// Every color is interpolated at its position
+		if (!isAnchored()) {
+			TerpTask.run(this, positions(), colors, null, 0);
+			return colors;
+		}
+
+		// Interpolates and formats the colors after the starting color
+		String[] tcolors = new String[this.points];
+		TerpTask.run(this, distances(), tcolors, null, 0);
+
+		// Formats the starting color as is
+		double[] s = this.channels[0];
+		colors[0] = encoder().encode(s[0], s[1], s[2], s[3]);
+		System.arraycopy(tcolors, 0, colors, 1, tcolors.length);
+
+		// Returns the palette
+		return colors;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get a lazy view of the palette
+	 * @return A view with the starting color followed by each of the
+	 * interpolated colors
+	 */
+	public Palette palette() {
+		return new Palette(this);
+	}
+
+	/***
+	 * Method used to get the colors for the output paths.  Palettes are
+	 * returned from the persistent store when one is set, palettes that fit
+	 * in the session cache are returned from the cache, and other palettes
+	 * (or all palettes when the cache is disabled) are returned as a lazy
+	 * view so they are never materialized.
+	 * @return The starting color followed by each of the interpolated colors
+	 */
+	public Iterable<String> getColors() {
+
+		// Palettes formatted from the mapped store
+		if (this.store != null) return PaletteStore.open(this.store).colors(this);
+
+		// Cached palettes
+		if (this.cache && size() <= PaletteCache.SESSION.getCapacity()) {
+			return Collections.unmodifiableList(Arrays.asList(
+					PaletteCache.SESSION.colors(this)));
+		}
+
+		// Lazy view of the palette
+		return palette();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the channel values for the output paths from the
+	 * persistent store, the session cache, or the interpolation engine
+	 * @return A new array with the red, green, blue, and opacity values of
+	 * the starting color followed by those of each interpolated color
+	 */
+	public double[] getChannels() {
+
+		// Palettes in the persistent store
+		if (this.store != null) return PaletteStore.open(this.store).channels(this);
+
+		// Copies of cached palettes, which are shared
+		if (this.cache && size() <= PaletteCache.SESSION.getCapacity()) {
+			return PaletteCache.SESSION.channels(this).clone();
+		}
+
+		// Interpolated palettes
+		return channels();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the number of colors in the palette
+	 * @return The number of interpolated colors plus the starting color
+	 */
+	public int size() {
+		return this.points + 1;
+	}
+
+	/***
+	 * Getter method for the input color space
+	 * @return The color space of the input colors
+	 */
+	public ColorSpace getInSpace() {
+		return this.inspace;
+	}
+
+	/***
+	 * Getter method for the returned color space
+	 * @return The color space of the returned colors
+	 */
+	public ColorSpace getRetSpace() {
+		return this.retspace;
+	}
+
+	/***
+	 * Getter method for the anchor colors
+	 * @return A copy of the starting color, intermediate stops, and ending
+	 * color
+	 */
+	public Color[] getAnchors() {
+		return this.anchors.clone();
+	}
+
+	/***
+	 * Getter method for the starting color
+	 * @return The starting color
+	 */
+	public Color getStart() {
+		return this.anchors[0];
+	}
+
+	/***
+	 * Getter method for the ending color
+	 * @return The ending color
+	 */
+	public Color getEnd() {
+		return this.anchors[this.anchors.length - 1];
+	}
+
+	/***
+	 * Getter method for the positions of the anchor colors
+	 * @return A copy of the positions or null for evenly spaced anchors
+	 */
+	public double[] getPositions() {
+		return this.positions == null ? null : this.positions.clone();
+	}
+
+	/***
+	 * Getter method for the interpolation color space
+	 * @return The color space used to interpolate the colors
+	 */
+	public TerpSpace getTerpSpace() {
+		return this.terpspace;
+	}
+
+	/***
+	 * Getter method for the interpolation curve
+	 * @return The curve followed by the channels between the anchor colors
+	 */
+	public Curve getCurve() {
+		return this.curve;
+	}
+
+	/***
+	 * Getter method for the number of interpolated colors
+	 * @return The number of colors after the starting color
+	 */
+	public int getPoints() {
+		return this.points;
+	}
+
+	/***
+	 * Getter method for the modifications
+	 * @return The compiled chain applied to each interpolated color
+	 */
+	public ModifierChain getModifiers() {
+		return this.modifiers;
+	}
+
+	/***
+	 * Getter method for the placement of the colors
+	 * @return The spacing of the colors along the interpolation path
+	 */
+	public Spacing getSpacing() {
+		return this.spacing;
+	}
+
+	/***
+	 * Getter method for the number of digits used to format decimal values
+	 * @return The number of digits after the decimal point or
+	 * ColorEncoder.SHORTEST
+	 */
+	public int getDigits() {
+		return this.digits;
+	}
+
+	/***
+	 * Getter method for the use of the session palette cache
+	 * @return True if palettes are looked up and stored in the session cache
+	 */
+	public boolean getCache() {
+		return this.cache;
+	}
+
+	/***
+	 * Getter method for the persistent palette store
+	 * @return The path of the store or null if palettes are not stored
+	 */
+	public String getStore() {
+		return this.store;
+	}
+
+	/***
+	 * Getter method for the parallel execution threshold
+	 * @return The number of points at or above which the colors are
+	 * interpolated in parallel
+	 */
+	public int getThreshold() {
+		return this.threshold;
+	}
+
+	/***
+	 * Getter method for the normalized key for the interpolation parameters
+	 * @return A string identifying the channel values of the palette
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	/***
+	 * Getter method for the channel values of the starting color
+	 * @return The shared red, green, blue, and opacity values, which must not
+	 * be modified
+	 */
+	double[] startChannels() {
+		return this.channels[0];
+	}
+
+	/***
+	 * Getter method for the checkpoints of the running sum
+	 * @return The shared checkpoints, which must not be modified
+	 */
+	double[] checkpoints() {
+		return this.checkpoints;
+	}
+
+	/***
+	 * Getter method for the increment of the running sum
+	 * @return The distance between consecutive interpolated colors
+	 */
+	double step() {
+		return this.step;
+	}
+
+	/***
+	 * Getter method for the engine whose tables are shared by each
+	 * evaluation
+	 * @return The shared engine, which must only be copied
+	 */
+	TerpEngine prototype() {
+		return this.prototype;
+	}
+
+	/***
+	 * Mutable builder used to parse and validate the arguments of a palette.
+	 * Colors are parsed when they are set using the input color space set
+	 * before them.  Builders are not thread safe, but the specs they build
+	 * are.
+	 */
+	public static final class Builder {
+
+		/***
+		 * Input and returned color spaces
+		 */
+		private ColorSpace inspace = ColorSpace.RGB, retspace = ColorSpace.RGB;
+
+		/***
+		 * Starting and ending colors
+		 */
+		private Color start, end;
+
+		/***
+		 * Intermediate anchor colors
+		 */
+		private Color[] stops = new Color[0];
+
+		/***
+		 * Positions of the anchor colors or null
+		 */
+		private double[] positions;
+
+		/***
+		 * Color space used to interpolate the colors
+		 */
+		private TerpSpace terpspace = TerpSpace.SRGB;
+
+		/***
+		 * Curve followed by the channels between the anchor colors
+		 */
+		private Curve curve = Curve.LINEAR;
+
+		/***
+		 * Number of interpolated colors after the starting color
+		 */
+		private int points = 1;
+
+		/***
+		 * Modification applied to each interpolated color
+		 */
+		private Modifier modifier = Modifier.NONE;
+
+		/***
+		 * Inversion and grayscale transformations
+		 */
+		private boolean invert, grayscale;
+
+		/***
+		 * Chain of modifications used instead of the modification, inversion,
+		 * and grayscale values or null
+		 */
+		private ModifierChain chain;
+
+		/***
+		 * Number of digits used to format decimal values
+		 */
+		private int digits = ColorEncoder.SHORTEST;
+
+		/***
+		 * Use of the session palette cache
+		 */
+		private boolean cache = true;
+
+		/***
+		 * Path of the persistent palette store
+		 */
+		private String store;
+
+		/***
+		 * Number of points at or above which colors are interpolated in
+		 * parallel
+		 */
+		private int threshold = TerpTask.DEFAULT_THRESHOLD;
+
+		/***
+		 * Placement of the colors along the interpolation path
+		 */
+		private Spacing spacing = Spacing.EXACT;
+
+		/***
+		 * Positions of every color or null
+		 */
+		private double[] at;
+
+		/***
+		 * Constructor used by PaletteSpec#builder
+		 */
+		private Builder() {
+		}
+
+		/***
+		 * Method used to set all of the values from the arguments passed by
+		 * brewterpolate
+		 * @param args The NARGS required arguments (input color space,
+		 *                returned color space, starting color, ending color,
+		 *                number of colors between them, color modification,
+		 *                inversion, and grayscale) followed by optional
+		 *                name=value arguments (see ColorTerp#main)
+		 * @return This builder
+		 * @throws IllegalArgumentException if the arguments are invalid
+		 */
+		public Builder args(String[] args) {
+
+			// Check for the required arguments
+			checkArgs(args);
+
+			// Parses the arguments with ColorTerp, so the name=value options
+			// are only parsed in one place (see ColorTerp#setOptions)
+			return new ColorTerp(args, false).configure(this);
+
+		} // End of Method declaration
+
+		/***
+		 * Setter method for the input color space
+		 * @param space The color space of the colors set after it
+		 * @return This builder
+		 */
+		public Builder inSpace(ColorSpace space) {
+			this.inspace = space;
+			return this;
+		}
+
+		/***
+		 * Setter method for the returned color space
+		 * @param space The color space of the returned colors
+		 * @return This builder
+		 */
+		public Builder retSpace(ColorSpace space) {
+			this.retspace = space;
+			return this;
+		}
+
+		/***
+		 * Setter method for the starting color
+		 * @param color The starting color
+		 * @return This builder
+		 */
+		public Builder start(Color color) {
+			this.start = color;
+			return this;
+		}
+
+		/***
+		 * Setter method for the starting color
+		 * @param color The starting color in the input color space
+		 * @return This builder
+		 */
+		public Builder start(String color) {
+			return start(this.inspace.parse(color));
+		}
+
+		/***
+		 * Setter method for the ending color
+		 * @param color The ending color
+		 * @return This builder
+		 */
+		public Builder end(Color color) {
+			this.end = color;
+			return this;
+		}
+
+		/***
+		 * Setter method for the ending color
+		 * @param color The ending color in the input color space
+		 * @return This builder
+		 */
+		public Builder end(String color) {
+			return end(this.inspace.parse(color));
+		}
+
+		/***
+		 * Setter method for the intermediate anchor colors
+		 * @param colors The colors between the starting and ending colors
+		 * @return This builder
+		 */
+		public Builder stops(Color... colors) {
+			this.stops = colors.clone();
+			return this;
+		}
+
+		/***
+		 * Setter method for the intermediate anchor colors
+		 * @param colors A semicolon delimited list of colors in the input
+		 *                  color space
+		 * @return This builder
+		 */
+		public Builder stops(String colors) {
+			this.stops = ColorParser.parseList(colors, ';',
+					this.inspace.toString());
+			return this;
+		}
+
+		/***
+		 * Setter method for the positions of the anchor colors
+		 * @param positions Ascending values in [0, 1] for the starting
+		 *                     color, each stop, and the ending color or null
+		 *                     to space the anchors evenly
+		 * @return This builder
+		 */
+		public Builder positions(double[] positions) {
+			this.positions = positions == null ? null : positions.clone();
+			return this;
+		}
+
+		/***
+		 * Setter method for the interpolation color space
+		 * @param space The color space used to interpolate the colors
+		 * @return This builder
+		 */
+		public Builder terpSpace(TerpSpace space) {
+			this.terpspace = space;
+			return this;
+		}
+
+		/***
+		 * Setter method for the interpolation curve
+		 * @param curve The curve followed by the channels between the anchor
+		 *                 colors
+		 * @return This builder
+		 */
+		public Builder curve(Curve curve) {
+			this.curve = curve;
+			return this;
+		}
+
+		/***
+		 * Setter method for the number of interpolated colors
+		 * @param points The number of colors after the starting color
+		 * @return This builder
+		 */
+		public Builder points(int points) {
+			this.points = points;
+			return this;
+		}
+
+		/***
+		 * Setter method for the color modification
+		 * @param modifier The modification applied to each interpolated color
+		 * @return This builder
+		 */
+		public Builder modifier(Modifier modifier) {
+			this.modifier = modifier;
+			return this;
+		}
+
+		/***
+		 * Setter method for the inversion of the colors
+		 * @param invert True to return the inverse of the interpolated colors
+		 * @return This builder
+		 */
+		public Builder invert(boolean invert) {
+			this.invert = invert;
+			return this;
+		}
+
+		/***
+		 * Setter method for the grayscale transformation
+		 * @param grayscale True to return the colors as grayscale
+		 * @return This builder
+		 */
+		public Builder grayscale(boolean grayscale) {
+			this.grayscale = grayscale;
+			return this;
+		}
+
+		/***
+		 * Setter method for an ordered chain of modifications used instead of
+		 * the modification, inversion, and grayscale values
+		 * @param chain The compiled chain or null
+		 * @return This builder
+		 */
+		public Builder modifiers(ModifierChain chain) {
+			this.chain = chain;
+			return this;
+		}
+
+		/***
+		 * Setter method for the number of digits used to format decimal values
+		 * @param digits An integer in [0, 15] or ColorEncoder.SHORTEST
+		 * @return This builder
+		 */
+		public Builder digits(int digits) {
+			this.digits = digits;
+			return this;
+		}
+
+		/***
+		 * Setter method for the use of the session palette cache
+		 * @param cache False to interpolate the colors without the cache
+		 * @return This builder
+		 */
+		public Builder cache(boolean cache) {
+			this.cache = cache;
+			return this;
+		}
+
+		/***
+		 * Setter method for the persistent palette store
+		 * @param store The path of the store file (created if it does not
+		 *                 exist) or null or an empty string to not store the
+		 *                 palette
+		 * @return This builder
+		 */
+		public Builder store(String store) {
+			this.store = store == null || store.trim().isEmpty() ? null : store;
+			return this;
+		}
+
+		/***
+		 * Setter method for the parallel execution threshold
+		 * @param threshold The number of points at or above which the colors
+		 *                     are interpolated in parallel or a negative value
+		 *                     to always interpolate sequentially
+		 * @return This builder
+		 */
+		public Builder threshold(int threshold) {
+			this.threshold = threshold;
+			return this;
+		}
+
+		/***
+		 * Setter method for the placement of the colors
+		 * @param spacing The spacing of the colors (exact by default and
+		 *                   ignored if the positions of the colors are set
+		 *                   with at)
+		 * @return This builder
+		 */
+		public Builder spacing(Spacing spacing) {
+			this.spacing = spacing;
+			return this;
+		}
+
+		/***
+		 * Setter method for the positions of every color, which places the
+		 * colors with the explicit spacing
+		 * @param at A value in [0, 1] for each of the points + 1 colors (in
+		 *              any order) or null
+		 * @return This builder
+		 */
+		public Builder at(double[] at) {
+			this.at = at == null ? null : at.clone();
+			return this;
+		}
+
+		/***
+		 * Method used to validate the values and compile the spec
+		 * @return A new immutable spec
+		 * @throws IllegalArgumentException if the values do not define a
+		 * valid palette
+		 */
+		public PaletteSpec build() {
+			return new PaletteSpec(this);
+		}
+
+	} // End of Class declaration
+
+} // End of Class declaration
@@ -0,0 +1,695 @@
+package org.paces.stata;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Persistent palette store shared by Stata sessions and command line runs.
+ * The store is a single binary file with the channel values of each palette
+ * (red, green, blue, and opacity as single precision values, which is
+ * lossless because the engine rounds every channel to single precision),
+ * keyed on the normalized interpolation parameters of the
+ * {@link org.paces.stata.PaletteSpec} and indexed in memory by a 64-bit
+ * hash of the key.  The file is mapped with FileChannel.map, so a lookup
+ * copies the values of the palette from the mapped pages without reading
+ * the file.  New palettes are appended under an exclusive file lock (the
+ * data first and then the end offset in the header, so other processes
+ * never see a partial record), and when the file would grow beyond its
+ * capacity it is compacted to the most recently added palettes and
+ * atomically replaced.  The mapping and the channel are released before
+ * the file is replaced, because Windows does not replace open or mapped
+ * files.  When the file cannot be replaced (e.g., another session has it
+ * mapped) the palette is returned without being stored.  Other processes
+ * pick up appended palettes and compacted files when a lookup misses.  The
+ * store is enabled with the store=path option.
+ *
+ * File layout: the magic number, version, and end offset of the records
+ * followed by records with the hash of the key, the length of the key, the
+ * number of colors, the UTF-8 key padded to four bytes, and four floats per
+ * color.
+ *
+ * Stores are opened once per path in each JVM and their methods are thread
+ * safe.
+ */
+public final class PaletteStore {
+
+	/***
+	 * Default maximum size of the file in bytes
+	 */
+	public static final long DEFAULT_CAPACITY = 64L << 20;
+
+	/***
+	 * Magic number at the start of the file ("BREWSTOR")
+	 */
+	private static final long MAGIC = 0x4252455753544F52L;
+
+	/***
+	 * Version of the file layout
+	 */
+	private static final int VERSION = 1;
+
+	/***
+	 * Size of the file header and offset of the end offset in the header
+	 */
+	private static final int HEADER = 24, END = 16;
+
+	/***
+	 * Size of the fixed part of each record
+	 */
+	private static final int RECORD = 16;
+
+	/***
+	 * Stores opened by this JVM keyed on their absolute paths
+	 */
+	private static final Map<Path, PaletteStore> OPEN = new HashMap<>();
+
+	/***
+	 * Path of the file
+	 */
+	private final Path path;
+
+	/***
+	 * Maximum size of the file in bytes
+	 */
+	private final long capacity;
+
+	/***
+	 * Channel used to lock and write the file
+	 */
+	private FileChannel channel;
+
+	/***
+	 * Identity of the open file (null if the file system has none)
+	 */
+	private Object openKey;
+
+	/***
+	 * Read only mapping of the records
+	 */
+	private MappedByteBuffer map;
+
+	/***
+	 * End of the records that have been indexed
+	 */
+	private long end;
+
+	/***
+	 * Offset of the most recent record of each hash
+	 */
+	private final Map<Long, Long> index = new HashMap<>();
+
+	/***
+	 * Numbers of lookups answered from the file and computed
+	 */
+	private long hits, misses;
+
+	/***
+	 * Constructor method for PaletteStore class.  Stores are opened with
+	 * open(String) outside of the tests, so each path is opened once per JVM.
+	 * @param path The absolute path of the file
+	 * @param capacity The maximum size of the file in bytes
+	 * @throws IOException if the file cannot be created or is not a store
+	 */
+	PaletteStore(Path path, long capacity) throws IOException {
+		this.path = path;
+		this.capacity = capacity;
+		open();
+	}
+
+	/***
+	 * Method used to get the store for a path, opening it the first time it
+	 * is used by this JVM
+	 * @param file The path of the store, which is created if it does not
+	 *                exist
+	 * @return The store
+	 * @throws UncheckedIOException if the file cannot be created or is not a
+	 * palette store
+	 */
+	public static PaletteStore open(String file) {
+		Path p = Paths.get(file).toAbsolutePath().normalize();
+		synchronized (OPEN) {
+			PaletteStore store = OPEN.get(p);
+			if (store == null) {
+				try {
+					store = new PaletteStore(p, DEFAULT_CAPACITY);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Cannot open the palette " +
+							"store " + file + ".", e);
+				}
+				OPEN.put(p, store);
+			}
+			return store;
+		}
+	}
+
+	/***
+	 * Method used to get the formatted colors of a palette from the store,
+	 * interpolating and appending the palette when it is not found
+	 * @param spec The compiled palette
+	 * @return The colors formatted in the returned color space of the spec
+	 * directly from the mapped file or the interpolated values
+	 */
+	public Iterable<String> colors(PaletteSpec spec) {
+
+		// Mapped record of the palette
+		ByteBuffer record = record(spec);
+
+		// Formats the mapped values when the colors are iterated
+		return () -> new Iterator<String>() {
+
+			// Encoder for the returned color space and the next color
+			private final ColorEncoder encoder = spec.encoder();
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next < spec.size();
+			}
+
+			@Override
+			public String next() {
+				if (next >= spec.size()) throw new NoSuchElementException();
+				int i = 16 * next++;
+				return encoder.encode(record.getFloat(i),
+						record.getFloat(i + 4), record.getFloat(i + 8),
+						record.getFloat(i + 12));
+			}
+		};
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the channel values of a palette from the store,
+	 * interpolating and appending the palette when it is not found
+	 * @param spec The compiled palette
+	 * @return A new array with the red, green, blue, and opacity values of
+	 * each color
+	 */
+	public double[] channels(PaletteSpec spec) {
+		ByteBuffer record = record(spec);
+		double[] values = new double[4 * spec.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = record.getFloat(4 * i);
+		}
+		return values;
+	}
+
+	/***
+	 * Method used to find the values of a palette or to interpolate and
+	 * append them
+	 * @param spec The compiled palette
+	 * @return A buffer positioned at the first value of the palette
+	 */
+	private synchronized ByteBuffer record(PaletteSpec spec) {
+
+		// Key and hash of the palette
+		byte[] key = spec.getKey().getBytes(StandardCharsets.UTF_8);
+		long hash = hash(key);
+
+		try {
+
+			// Looks up the palette, refreshing the index for records added
+			// by other processes before giving up
+			ByteBuffer found = find(hash, key, spec.size());
+			if (found == null && refresh()) found = find(hash, key, spec.size());
+			if (found != null) {
+				this.hits++;
+				return found;
+			}
+			this.misses++;
+
+			// Interpolates the palette
+			double[] values = spec.channels();
+			ByteBuffer data = ByteBuffer.allocate(4 * values.length);
+			for (double v : values) data.putFloat((float) v);
+			data.flip();
+
+			// Appends the palette unless it is too large to store
+			if (size(key.length, spec.size()) <= this.capacity / 2) {
+				try {
+					append(hash, key, spec.size(), data.duplicate());
+				} catch (IOException e) {
+					// The palette is returned without being stored, e.g.
+					// when the file cannot be compacted
+				}
+			}
+			return data;
+
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot use the palette store " +
+					this.path + ".", e);
+		}
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to find a record in the mapped file
+	 * @param hash The hash of the key
+	 * @param key The UTF-8 key
+	 * @param ncolors The number of colors of the palette
+	 * @return A buffer with a copy of the values or null
+	 */
+	private ByteBuffer find(long hash, byte[] key, int ncolors) {
+
+		// Offset of the record with the hash
+		Long offset = this.index.get(hash);
+		if (offset == null) return null;
+
+		// Check the key and the number of colors for collisions
+		int off = (int) (long) offset;
+		int klen = this.map.getInt(off + 8);
+		if (klen != key.length || this.map.getInt(off + 12) != ncolors) {
+			return null;
+		}
+		for (int i = 0; i < klen; i++) {
+			if (this.map.get(off + RECORD + i) != key[i]) return null;
+		}
+
+		// Copies the values of the record, so the mapping can be released
+		// when the file is remapped or replaced
+		ByteBuffer view = this.map.duplicate();
+		view.position(off + RECORD + pad(klen));
+		view.limit(view.position() + 16 * ncolors);
+		ByteBuffer values = ByteBuffer.allocate(16 * ncolors);
+		values.put(view).flip();
+		return values;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to append a record under an exclusive lock
+	 * @param hash The hash of the key
+	 * @param key The UTF-8 key
+	 * @param ncolors The number of colors
+	 * @param data The channel values as floats
+	 * @throws IOException if the file cannot be written
+	 */
+	private void append(long hash, byte[] key, int ncolors, ByteBuffer data)
+			throws IOException {
+
+		// Size of the record
+		long size = size(key.length, ncolors);
+
+		// Retries after the file is compacted or replaced by another process
+		while (true) {
+
+			// Locks the current file
+			if (replaced()) open();
+			FileLock lock = this.channel.lock();
+
+			try {
+
+				// The file was replaced while waiting for the lock
+				if (replaced()) continue;
+
+				// Indexes the records appended by other processes, which may
+				// include the same palette
+				long fileEnd = readEnd();
+				if (fileEnd != this.end) {
+					remap();
+					scan(fileEnd);
+					if (find(hash, key, ncolors) != null) return;
+				}
+
+				// Compacts the file if the record would exceed the capacity
+				if (this.end + size > this.capacity) {
+					compact(this.capacity / 2 - size);
+					continue;
+				}
+
+				// Record header and key
+				ByteBuffer head = ByteBuffer.allocate(RECORD + pad(key.length));
+				head.putLong(hash).putInt(key.length).putInt(ncolors).put(key);
+				head.position(0);
+
+				// Writes the record and then the new end offset
+				long pos = this.end;
+				write(head, pos);
+				write(data, pos + head.capacity());
+				ByteBuffer e = ByteBuffer.allocate(8);
+				e.putLong(0, pos + size);
+				write(e, END);
+
+				// Maps and indexes the new record
+				remap();
+				scan(pos + size);
+				return;
+
+			} finally {
+
+				// Compaction closes the channel, which releases the lock
+				if (lock.isValid()) lock.release();
+
+			} // End of try/finally block
+
+		} // End Loop over attempts
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to keep the most recent records that fit in a number of
+	 * bytes and replace the file.  The caller holds the lock of the file,
+	 * which is released with the channel before the file is replaced.
+	 * @param keep The maximum number of bytes of records to keep
+	 * @throws IOException if the file cannot be rewritten or replaced, in
+	 * which case the current file is reopened
+	 */
+	private void compact(long keep) throws IOException {
+
+		// Offsets of the most recent record of each hash, newest first
+		List<Long> offsets = new ArrayList<>(this.index.values());
+		offsets.sort((a, b) -> Long.compare(b, a));
+
+		// Records that fit in the space to keep
+		List<Long> kept = new ArrayList<>();
+		long total = 0;
+		for (long off : offsets) {
+			long size = recordSize(off);
+			if (total + size > keep) break;
+			total += size;
+			kept.add(off);
+		}
+		kept.sort(Long::compare);
+
+		// Writes the records to a new file in their original order
+		Path tmp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer head = header(HEADER + total);
+			while (head.hasRemaining()) out.write(head);
+			for (long off : kept) {
+				ByteBuffer rec = this.map.duplicate();
+				rec.position((int) off);
+				rec.limit((int) (off + recordSize(off)));
+				while (rec.hasRemaining()) out.write(rec);
+			}
+		}
+
+		// Releases the mapping and the channel, replaces the file, and
+		// reopens it
+		close();
+		try {
+			Files.move(tmp, this.path, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.deleteIfExists(tmp);
+			open();
+			throw e;
+		}
+		open();
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to open or create the file, map it, and index the records
+	 * @throws IOException if the file cannot be created or is not a store
+	 */
+	private void open() throws IOException {
+
+		// Closes the previous file (e.g., after another process compacted it)
+		close();
+
+		// Opens the file, retrying if another process replaced it while it
+		// was opened so the identity matches the open channel
+		while (true) {
+			Object before = fileKey();
+			this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.openKey = fileKey();
+			if (before == null || Objects.equals(before, this.openKey)) break;
+			this.channel.close();
+		}
+
+		// Writes the header of new files
+		FileLock lock = this.channel.lock();
+		try {
+			if (this.channel.size() == 0) write(header(HEADER), 0);
+		} finally {
+			lock.release();
+		}
+
+		// Check the header
+		ByteBuffer head = ByteBuffer.allocate(HEADER);
+		this.channel.read(head, 0);
+		if (head.getLong(0) != MAGIC || head.getInt(8) != VERSION) {
+
+			// Closes the file, which is reopened (and checked again) if the
+			// store is used after a replacement
+			close();
+			this.openKey = null;
+			throw new IOException(this.path + " is not a palette store.");
+
+		} // End IF Block for files that are not stores
+
+		// Maps and indexes the records
+		this.index.clear();
+		this.end = HEADER;
+		remap();
+		scan(head.getLong(END));
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to release the mapping and close the channel.  No views of
+	 * the mapping are used after it is released, because lookups return
+	 * copies of the values.
+	 * @throws IOException if the channel cannot be closed
+	 */
+	private void close() throws IOException {
+		if (this.map != null) unmap(this.map);
+		this.map = null;
+		this.index.clear();
+		this.end = HEADER;
+		if (this.channel != null) this.channel.close();
+		this.channel = null;
+	}
+
+	/***
+	 * Method used to release a mapping before it is garbage collected, so
+	 * the file can be replaced on Windows.  Uses Unsafe.invokeCleaner on
+	 * Java 9 and later and the cleaner of the buffer on Java 8, and leaves
+	 * the mapping to the garbage collector if neither is available.
+	 * @param buf The mapping
+	 */
+	private static void unmap(MappedByteBuffer buf) {
+		try {
+			Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+			Method invoke = unsafe.getMethod("invokeCleaner", ByteBuffer.class);
+			Field field = unsafe.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			invoke.invoke(field.get(null), buf);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			try {
+				Method cleaner = buf.getClass().getMethod("cleaner");
+				cleaner.setAccessible(true);
+				Object c = cleaner.invoke(buf);
+				if (c != null) c.getClass().getMethod("clean").invoke(c);
+			} catch (ReflectiveOperationException | RuntimeException ignored) {
+				// Unmapped when the buffer is garbage collected
+			}
+		}
+	}
+
+	/***
+	 * Method used to index records appended by other processes
+	 * @return True if new records were indexed or the file was reopened
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean refresh() throws IOException {
+		if (replaced()) {
+			open();
+			return true;
+		}
+		long fileEnd = readEnd();
+		if (fileEnd == this.end) return false;
+		remap();
+		scan(fileEnd);
+		return true;
+	}
+
+	/***
+	 * Method used to index the records between the current end and a new
+	 * end offset
+	 * @param to The end offset of the records
+	 */
+	private void scan(long to) {
+		long off = this.end;
+		while (off < to && off + RECORD <= this.map.capacity() &&
+				off + recordSize(off) <= this.map.capacity()) {
+			this.index.put(this.map.getLong((int) off), off);
+			off += recordSize(off);
+		}
+		this.end = off;
+	}
+
+	/***
+	 * Method used to map the current size of the file
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private void remap() throws IOException {
+		MappedByteBuffer old = this.map;
+		this.map = this.channel.map(FileChannel.MapMode.READ_ONLY, 0,
+				this.channel.size());
+		if (old != null) unmap(old);
+	}
+
+	/***
+	 * Method used to read the end offset written by the last append
+	 * @return The end offset of the records in the file
+	 * @throws IOException if the header cannot be read
+	 */
+	private long readEnd() throws IOException {
+		ByteBuffer e = ByteBuffer.allocate(8);
+		this.channel.read(e, END);
+		return e.getLong(0);
+	}
+
+	/***
+	 * Method used to check whether the file was replaced by another process
+	 * @return True if the path no longer refers to the open file
+	 * @throws IOException if the attributes cannot be read
+	 */
+	private boolean replaced() throws IOException {
+		if (!Files.exists(this.path)) return true;
+		Object now = fileKey();
+		return now == null ? Files.size(this.path) < this.end :
+				!Objects.equals(now, this.openKey);
+	}
+
+	/***
+	 * Method used to get the identity of the file at the path
+	 * @return The file key or null if the file does not exist or the file
+	 * system has no file keys
+	 * @throws IOException if the attributes cannot be read
+	 */
+	private Object fileKey() throws IOException {
+		try {
+			return Files.readAttributes(this.path,
+					BasicFileAttributes.class).fileKey();
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/***
+	 * Method used to write a buffer at a position of the file
+	 * @param buf The bytes to write
+	 * @param pos The position in the file
+	 * @throws IOException if the bytes cannot be written
+	 */
+	private void write(ByteBuffer buf, long pos) throws IOException {
+		while (buf.hasRemaining()) pos += this.channel.write(buf, pos);
+	}
+
+	/***
+	 * Method used to build a file header
+	 * @param end The end offset of the records
+	 * @return A buffer with the header
+	 */
+	private static ByteBuffer header(long end) {
+		ByteBuffer head = ByteBuffer.allocate(HEADER);
+		head.putLong(MAGIC).putInt(VERSION).putInt(0).putLong(end);
+		head.flip();
+		return head;
+	}
+
+	/***
+	 * Method used to get the size of a mapped record
+	 * @param off The offset of the record
+	 * @return The number of bytes of the record
+	 */
+	private long recordSize(long off) {
+		return size(this.map.getInt((int) off + 8),
+				this.map.getInt((int) off + 12));
+	}
+
+	/***
+	 * Method used to compute the size of a record
+	 * @param klen The length of the key in bytes
+	 * @param ncolors The number of colors
+	 * @return The number of bytes of the record
+	 */
+	private static long size(int klen, int ncolors) {
+		return RECORD + pad(klen) + 16L * ncolors;
+	}
+
+	/***
+	 * Method used to pad the length of a key to four bytes
+	 * @param klen The length of the key
+	 * @return The length rounded up to a multiple of four
+	 */
+	private static int pad(int klen) {
+		return (klen + 3) & ~3;
+	}
+
+	/***
+	 * Method used to hash a key (64-bit FNV-1a)
+	 * @param key The UTF-8 key
+	 * @return The hash of the key
+	 */
+	static long hash(byte[] key) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : key) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	/***
+	 * Getter method for the number of palettes found in the store
+	 * @return The number of lookups answered from the file
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/***
+	 * Getter method for the number of palettes added to the store
+	 * @return The number of lookups that interpolated the palette
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/***
+	 * Getter method for the number of palettes in the store
+	 * @return The number of indexed records
+	 */
+	public synchronized int getEntries() {
+		return this.index.size();
+	}
+
+	/***
+	 * Getter method for the size of the records
+	 * @return The end offset of the indexed records in bytes
+	 */
+	public synchronized long getSize() {
+		return this.end;
+	}
+
+} // End of Class declaration
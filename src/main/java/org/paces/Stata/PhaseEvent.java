@@ -0,0 +1,162 @@
+package org.paces.stata;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Flight recorder event for a phase of a brewterpolate call.  The plugin is
+ * compiled against the Java 8 API, which does not include the flight
+ * recorder, so the event type (org.paces.stata.Phase) is defined at run time
+ * with jdk.jfr.EventFactory and the events are emitted through reflection.
+ * When the JVM does not provide the jdk.jfr module, start returns null and
+ * no events are recorded.  Events are recorded with, e.g.,
+ * java -XX:StartFlightRecording, or with jcmd on the JVM used by Stata.
+ */
+final class PhaseEvent {
+
+	/***
+	 * Index of the phase field of the event
+	 */
+	private static final int PHASE = 0;
+
+	/***
+	 * Index of the colors field of the event
+	 */
+	private static final int COLORS = 1;
+
+	/***
+	 * Index of the allocated field of the event
+	 */
+	private static final int ALLOCATED = 2;
+
+	/***
+	 * Event factory (kept reachable so the event type stays registered) or
+	 * null if the flight recorder is not available
+	 */
+	private static final Object FACTORY;
+
+	/***
+	 * Methods of jdk.jfr.EventFactory and jdk.jfr.Event used to emit events
+	 */
+	private static final Method NEW_EVENT, BEGIN, END, SHOULD_COMMIT, SET,
+			COMMIT;
+
+	// Defines the event type if the flight recorder is available
+	static {
+		Object factory = null;
+		Method[] methods = new Method[6];
+		try {
+			ClassLoader loader = PhaseEvent.class.getClassLoader();
+			Class<?> elem = Class.forName("jdk.jfr.AnnotationElement", true, loader);
+			Class<?> desc = Class.forName("jdk.jfr.ValueDescriptor", true, loader);
+			Class<?> fact = Class.forName("jdk.jfr.EventFactory", true, loader);
+			Class<?> event = Class.forName("jdk.jfr.Event", true, loader);
+			Constructor<?> ae = elem.getConstructor(Class.class, Object.class);
+			Constructor<?> vd = desc.getConstructor(Class.class, String.class,
+					List.class);
+
+			// Annotations of the event type
+			List<Object> type = Arrays.asList(
+					ae.newInstance(jfr("Name", loader), "org.paces.stata.Phase"),
+					ae.newInstance(jfr("Label", loader), "Brewterpolate Phase"),
+					ae.newInstance(jfr("Category", loader),
+							new String[]{ "Brewterpolate" }),
+					ae.newInstance(jfr("Description", loader),
+							"Time and allocation of a phase of a brewterpolate call"));
+
+			// Fields of the event in the order of PHASE, COLORS, and ALLOCATED
+			List<Object> fields = Arrays.asList(
+					vd.newInstance(String.class, "phase", Arrays.asList(
+							ae.newInstance(jfr("Label", loader), "Phase"))),
+					vd.newInstance(long.class, "colors", Arrays.asList(
+							ae.newInstance(jfr("Label", loader), "Colors"))),
+					vd.newInstance(long.class, "allocated", Arrays.asList(
+							ae.newInstance(jfr("Label", loader), "Allocated"),
+							ae.newInstance(jfr("DataAmount", loader), "BYTES"))));
+
+			// Registers the event type
+			factory = fact.getMethod("create", List.class, List.class)
+					.invoke(null, type, fields);
+			methods[0] = fact.getMethod("newEvent");
+			methods[1] = event.getMethod("begin");
+			methods[2] = event.getMethod("end");
+			methods[3] = event.getMethod("shouldCommit");
+			methods[4] = event.getMethod("set", int.class, Object.class);
+			methods[5] = event.getMethod("commit");
+		} catch (ReflectiveOperationException | LinkageError |
+				RuntimeException e) {
+			// Events are not recorded without the flight recorder
+			factory = null;
+		}
+		FACTORY = factory;
+		NEW_EVENT = methods[0];
+		BEGIN = methods[1];
+		END = methods[2];
+		SHOULD_COMMIT = methods[3];
+		SET = methods[4];
+		COMMIT = methods[5];
+	}
+
+	/***
+	 * Constructor method for PhaseEvent class (static methods only)
+	 */
+	private PhaseEvent() {
+	}
+
+	/***
+	 * Method used to start an event
+	 * @return The started event or null if the flight recorder is not
+	 * available
+	 */
+	static Object start() {
+		if (FACTORY == null) return null;
+		try {
+			Object event = NEW_EVENT.invoke(FACTORY);
+			BEGIN.invoke(event);
+			return event;
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			return null;
+		}
+	}
+
+	/***
+	 * Method used to end and record an event
+	 * @param event An event returned by start
+	 * @param phase The name of the phase
+	 * @param colors The number of colors processed by the phase
+	 * @param allocated The number of bytes allocated or -1 if unknown
+	 */
+	static void record(Object event, String phase, long colors,
+			long allocated) {
+		try {
+			END.invoke(event);
+			if ((Boolean) SHOULD_COMMIT.invoke(event)) {
+				SET.invoke(event, PHASE, phase);
+				SET.invoke(event, COLORS, colors);
+				SET.invoke(event, ALLOCATED, allocated);
+				COMMIT.invoke(event);
+			}
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			// The event is dropped
+		}
+	}
+
+	/***
+	 * Method used to load a flight recorder annotation
+	 * @param name The simple name of the annotation (e.g., Label)
+	 * @param loader The class loader
+	 * @return The annotation class
+	 * @throws ClassNotFoundException If the annotation is not available
+	 */
+	private static Class<?> jfr(String name, ClassLoader loader)
+			throws ClassNotFoundException {
+		return Class.forName("jdk.jfr." + name, true, loader);
+	}
+
+} // End of Class declaration
@@ -0,0 +1,208 @@
+package org.paces.stata;
+
+import com.stata.sfi.Macro;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Optional instrumentation of the phases of a brewterpolate call: parsing
+ * the arguments, interpolating the colors, formatting the colors, and
+ * returning them to Stata.  Each phase records its wall time, the number of
+ * colors per second, and the bytes allocated by the calling thread (from
+ * com.sun.management.ThreadMXBean when the JVM supports it; allocations by
+ * the worker threads of parallel interpolation are not included).  A flight
+ * recorder event ({@link org.paces.stata.PhaseEvent}) is emitted for each
+ * phase when the jdk.jfr module is available, and the values can be
+ * returned to Stata as local macros that brewterpolate returns as r()
+ * scalars.  The instrumentation is enabled with the metrics=true option.
+ *
+ * Instances are used by a single thread.
+ */
+public class PhaseMetrics {
+
+	/***
+	 * Names of the phases used for the macros and events
+	 */
+	public static final String[] PHASES = { "parse", "interp", "format",
+			"return" };
+
+	/***
+	 * Index of the parsing phase
+	 */
+	public static final int PARSE = 0;
+
+	/***
+	 * Index of the interpolation phase
+	 */
+	public static final int INTERP = 1;
+
+	/***
+	 * Index of the formatting phase
+	 */
+	public static final int FORMAT = 2;
+
+	/***
+	 * Index of the phase returning the colors to Stata
+	 */
+	public static final int RETURN = 3;
+
+	/***
+	 * Thread bean that reports allocated bytes or null
+	 */
+	private static final com.sun.management.ThreadMXBean ALLOC = allocBean();
+
+	/***
+	 * Wall time of each phase in nanoseconds
+	 */
+	private final long[] nanos = new long[PHASES.length];
+
+	/***
+	 * Bytes allocated during each phase or -1 if unknown
+	 */
+	private final long[] bytes = new long[PHASES.length];
+
+	/***
+	 * Number of colors processed by each phase
+	 */
+	private final long[] colors = new long[PHASES.length];
+
+	/***
+	 * Start of the current phase
+	 */
+	private long t0, b0;
+
+	/***
+	 * Flight recorder event for the current phase or null
+	 */
+	private Object event;
+
+	/***
+	 * Method used to start a phase without a flight recorder event, e.g.,
+	 * parsing the arguments, which starts before it is known whether the
+	 * metrics=true option was passed
+	 */
+	public void mark() {
+		this.event = null;
+		this.b0 = allocated();
+		this.t0 = System.nanoTime();
+	}
+
+	/***
+	 * Method used to start a phase
+	 */
+	public void begin() {
+		this.event = PhaseEvent.start();
+		this.b0 = allocated();
+		this.t0 = System.nanoTime();
+	}
+
+	/***
+	 * Method used to end a phase
+	 * @param phase The index of the phase (e.g., PARSE)
+	 * @param ncolors The number of colors processed by the phase
+	 */
+	public void end(int phase, long ncolors) {
+
+		// Time and allocation of the phase
+		this.nanos[phase] = System.nanoTime() - this.t0;
+		long b1 = allocated();
+		this.bytes[phase] = b1 < 0 || this.b0 < 0 ? -1 : b1 - this.b0;
+		this.colors[phase] = ncolors;
+
+		// Records the flight recorder event
+		if (this.event != null) {
+			PhaseEvent.record(this.event, PHASES[phase], ncolors,
+					this.bytes[phase]);
+			this.event = null;
+		}
+
+	} // End of Method declaration
+
+	/***
+	 * Getter method for the wall time of a phase
+	 * @param phase The index of the phase
+	 * @return The time in seconds
+	 */
+	public double getSeconds(int phase) {
+		return this.nanos[phase] / 1e9;
+	}
+
+	/***
+	 * Getter method for the throughput of a phase
+	 * @param phase The index of the phase
+	 * @return The number of colors per second
+	 */
+	public double getRate(int phase) {
+		return this.nanos[phase] > 0 ? this.colors[phase] * 1e9 /
+				this.nanos[phase] : 0.0;
+	}
+
+	/***
+	 * Getter method for the bytes allocated during a phase
+	 * @param phase The index of the phase
+	 * @return The number of bytes or -1 if the JVM does not report them
+	 */
+	public long getBytes(int phase) {
+		return this.bytes[phase];
+	}
+
+	/***
+	 * Method used to return the metrics to Stata in the local macros
+	 * &lt;phase&gt;_time, &lt;phase&gt;_rate, and &lt;phase&gt;_bytes, where
+	 * &lt;phase&gt; is parse, interp, format, or return (e.g., interp_time),
+	 * and total_time.  Unknown allocations are returned as missing values.
+	 */
+	public void toStata() {
+
+		// Total time of the phases
+		long total = 0;
+
+		// Loop over the phases
+		for (int i = 0; i < PHASES.length; i++) {
+			Macro.setLocal(PHASES[i] + "_time", String.valueOf(getSeconds(i)));
+			Macro.setLocal(PHASES[i] + "_rate", String.valueOf(getRate(i)));
+			Macro.setLocal(PHASES[i] + "_bytes", this.bytes[i] < 0 ? "." :
+					String.valueOf(this.bytes[i]));
+			total += this.nanos[i];
+		}
+
+		// Total time
+		Macro.setLocal("total_time", String.valueOf(total / 1e9));
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to get the bytes allocated by the current thread
+	 * @return The number of bytes or -1 if the JVM does not report them
+	 */
+	private static long allocated() {
+		return ALLOC == null ? -1 :
+				ALLOC.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/***
+	 * Method used to get the thread bean if it reports allocated bytes
+	 * @return The bean or null
+	 */
+	private static com.sun.management.ThreadMXBean allocBean() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean b =
+						(com.sun.management.ThreadMXBean) bean;
+				if (b.isThreadAllocatedMemorySupported()) {
+					b.setThreadAllocatedMemoryEnabled(true);
+					return b;
+				}
+			}
+		} catch (LinkageError | UnsupportedOperationException e) {
+			// The allocated bytes are reported as unknown
+		}
+		return null;
+	}
+
+} // End of Class declaration
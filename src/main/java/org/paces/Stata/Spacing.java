@@ -0,0 +1,87 @@
+package org.paces.stata;
+
+import java.util.Locale;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Placement of the colors of a palette along the interpolation path.  The
+ * default interpolates every color (including the first) at k / (n - 1),
+ * so the palette starts and ends exactly on the anchors and the
+ * modifications are applied to every color, as do the uniform and explicit
+ * placements.  The running sum used by earlier versions, where the starting
+ * color is returned as is followed by the interpolated colors at the
+ * distances of {@link org.paces.stata.ColorTerp#setDistances(int)}, is still
+ * available to reproduce palettes created by those versions.
+ */
+public enum Spacing {
+
+	/***
+	 * Starting color followed by the running sum of 1 / points (the
+	 * placement of earlier versions)
+	 */
+	RUNNING,
+
+	/***
+	 * Each of the n colors at k / (n - 1), computed from the index so the
+	 * positions do not accumulate rounding errors and the last color is
+	 * placed exactly on the ending color (default)
+	 */
+	EXACT,
+
+	/***
+	 * Each of the n colors where the cumulative color difference along the
+	 * path is k / (n - 1) of the total, so adjacent colors differ by the same
+	 * perceived amount (see ArcTable)
+	 */
+	UNIFORM,
+
+	/***
+	 * Each color at a position in [0, 1] supplied by the caller
+	 */
+	EXPLICIT;
+
+	/***
+	 * Method used to get the position of a color with the exact spacing
+	 * @param k The index of the color in [0, n)
+	 * @param n The number of colors in the palette
+	 * @return The position in [0, 1]
+	 */
+	public static double exact(int k, int n) {
+		return n == 1 ? 0.0 : k == n - 1 ? 1.0 : (double) k / (n - 1);
+	}
+
+	/***
+	 * Method used to get the spacing from the spacing option
+	 * @param name One of exact, running, uniform, or an empty string for the
+	 *                default exact spacing (case insensitive).  Explicit
+	 *                positions are set with the at option instead.
+	 * @return The spacing
+	 * @throws IllegalArgumentException for unrecognized names
+	 */
+	public static Spacing fromString(String name) {
+
+		// Dispatches the spacing
+		switch (name.trim().toLowerCase(Locale.ROOT)) {
+			case "":
+			case "exact":
+				return EXACT;
+			case "running":
+				return RUNNING;
+			case "uniform":
+			case "perceptual":
+				return UNIFORM;
+			default:
+				throw new IllegalArgumentException("Unrecognized spacing " +
+						name + ".");
+		}
+
+	} // End of Method declaration
+
+	@Override
+	public String toString() {
+		return name().toLowerCase(Locale.ROOT);
+	}
+
+} // End of Class declaration
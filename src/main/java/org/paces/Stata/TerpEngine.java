@@ -0,0 +1,627 @@
+package org.paces.stata;
+
+import java.util.Arrays;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Primitive interpolation engine used by
+ * {@link org.paces.stata.ColorTerp#setTColors}.  The engine stores the
+ * anchor colors of a gradient (the starting color, any intermediate stops,
+ * and the ending color) as single precision channels (the same precision
+ * used by the Color class) and writes each interpolated and modified color
+ * into a caller supplied double[] buffer of length 4 (red, green, blue,
+ * opacity).  Every operation rounds its result to single precision exactly
+ * where the Color class would construct a new object, so the values written
+ * to the buffer are identical to the values returned by the getter methods
+ * of the equivalent Color object.
+ *
+ * The per segment channel differences and the scale used to map a distance
+ * to the position within its segment are computed once when the engine is
+ * constructed.  The engine keeps track of the segment used for the previous
+ * distance, so the segment of each point in a sorted array of distances is
+ * found by walking forward through the segments rather than by searching.
+ *
+ * Colors can also be interpolated in a perceptual space (see
+ * {@link org.paces.stata.TerpSpace}).  In that case the anchors are
+ * converted to the coordinates of the space once and each point is converted
+ * back to sRGB with lookup tables before it is rounded to single precision.
+ * The channels can also follow a spline through the anchors (see
+ * {@link org.paces.stata.Curve}), in which case the cubic coefficients of
+ * each segment are computed once and each point is evaluated with Horner's
+ * rule before it is converted and rounded in the same way.
+ *
+ * Instances hold scratch buffers and the current segment and are therefore
+ * not safe to share between threads.
+ */
+public class TerpEngine {
+
+	/***
+	 * Factor used by brighter/darker modifications
+	 */
+	public static final double DARKER_BRIGHTER_FACTOR = 0.7;
+
+	/***
+	 * Factor used by saturate/desaturate modifications
+	 */
+	public static final double SATURATE_DESATURATE_FACTOR = 0.7;
+
+	/***
+	 * Anchor color channels
+	 */
+	private final float[] r, g, b, a;
+
+	/***
+	 * Differences between the channels of consecutive anchors
+	 */
+	private final float[] dr, dg, db, da;
+
+	/***
+	 * Space in which the colors are interpolated
+	 */
+	private final TerpSpace space;
+
+	/***
+	 * Anchor coordinates in the interpolation space (null for sRGB)
+	 */
+	private final double[] x, y, z;
+
+	/***
+	 * Differences between the coordinates of consecutive anchors
+	 */
+	private final double[] dx, dy, dz;
+
+	/***
+	 * Positions of the anchors in [0, 1]
+	 */
+	private final double[] pos;
+
+	/***
+	 * Inverse of the length of each segment
+	 */
+	private final double[] scale;
+
+	/***
+	 * Spline coefficients of each channel of each segment (null for linear
+	 * interpolation)
+	 */
+	private final double[] coef;
+
+	/***
+	 * Curve followed by the channels between the anchors
+	 */
+	private final Curve curve;
+
+	/***
+	 * Index of the segment used for the previous distance
+	 */
+	private int seg;
+
+	/***
+	 * Scratch buffer used for HSB conversions
+	 */
+	private final double[] hsb = new double[3];
+
+	/***
+	 * Scratch buffer used for conversions from the interpolation space
+	 */
+	private final double[] rgb = new double[3];
+
+	/***
+	 * Constructor for the interpolation engine
+	 * @param start An array with the red, green, blue, and opacity values of
+	 *                 the starting color in [0, 1]
+	 * @param end An array with the red, green, blue, and opacity values of
+	 *               the ending color in [0, 1]
+	 */
+	public TerpEngine(double[] start, double[] end) {
+
+		// Gradient with only the starting and ending colors
+		this(new double[][]{ start, end }, null);
+
+	} // End Constructor method
+
+	/***
+	 * Constructor for the interpolation engine with multiple anchor colors
+	 * @param anchors An array with the red, green, blue, and opacity values
+	 *                   of each anchor color in [0, 1]
+	 * @param positions The ascending positions of the anchors in [0, 1] or
+	 *                     null to space the anchors evenly
+	 * @throws IllegalArgumentException if there are fewer than two anchors or
+	 * the positions are invalid
+	 */
+	public TerpEngine(double[][] anchors, double[] positions) {
+
+		// Gradient interpolated in gamma encoded sRGB
+		this(anchors, positions, TerpSpace.SRGB);
+
+	} // End Constructor method
+
+	/***
+	 * Constructor for the interpolation engine with multiple anchor colors
+	 * interpolated in a given color space
+	 * @param anchors An array with the red, green, blue, and opacity values
+	 *                   of each anchor color in [0, 1]
+	 * @param positions The ascending positions of the anchors in [0, 1] or
+	 *                     null to space the anchors evenly
+	 * @param space The color space used for interpolation
+	 * @throws IllegalArgumentException if there are fewer than two anchors or
+	 * the positions are invalid
+	 */
+	public TerpEngine(double[][] anchors, double[] positions,
+					  TerpSpace space) {
+
+		// Piecewise linear interpolation
+		this(anchors, positions, space, Curve.LINEAR);
+
+	} // End Constructor method
+
+	/***
+	 * Constructor for the interpolation engine with multiple anchor colors
+	 * interpolated along a curve in a given color space
+	 * @param anchors An array with the red, green, blue, and opacity values
+	 *                   of each anchor color in [0, 1]
+	 * @param positions The ascending positions of the anchors in [0, 1] or
+	 *                     null to space the anchors evenly
+	 * @param space The color space used for interpolation
+	 * @param curve The curve followed by the channels between the anchors
+	 * @throws IllegalArgumentException if there are fewer than two anchors or
+	 * the positions are invalid
+	 */
+	public TerpEngine(double[][] anchors, double[] positions,
+					  TerpSpace space, Curve curve) {
+
+		// Number of anchor colors
+		int n = anchors.length;
+
+		// Check for a valid gradient
+		if (n < 2) {
+			throw new IllegalArgumentException("At least two anchor colors " +
+					"are required.");
+		}
+
+		// Check the positions of the anchors
+		if (positions != null) checkPositions(positions, n);
+
+		// Initialize the anchor and segment tables
+		this.r = new float[n];
+		this.g = new float[n];
+		this.b = new float[n];
+		this.a = new float[n];
+		this.dr = new float[n - 1];
+		this.dg = new float[n - 1];
+		this.db = new float[n - 1];
+		this.da = new float[n - 1];
+		this.pos = new double[n];
+		this.scale = new double[n - 1];
+		this.space = space;
+		this.curve = curve;
+		boolean perceptual = space != TerpSpace.SRGB;
+		this.x = perceptual ? new double[n] : null;
+		this.y = perceptual ? new double[n] : null;
+		this.z = perceptual ? new double[n] : null;
+		this.dx = perceptual ? new double[n - 1] : null;
+		this.dy = perceptual ? new double[n - 1] : null;
+		this.dz = perceptual ? new double[n - 1] : null;
+
+		// Loop over the anchors
+		for (int i = 0; i < n; i++) {
+
+			// Store the anchor color channels
+			this.r[i] = (float) anchors[i][0];
+			this.g[i] = (float) anchors[i][1];
+			this.b[i] = (float) anchors[i][2];
+			this.a[i] = (float) anchors[i][3];
+
+			// Use the positions passed or evenly spaced positions
+			this.pos[i] = positions != null ? positions[i] :
+					(double) i / (n - 1);
+
+			// Convert the anchor to the interpolation space once
+			if (perceptual) {
+				space.encode(this.r[i], this.g[i], this.b[i], this.rgb);
+				this.x[i] = this.rgb[0];
+				this.y[i] = this.rgb[1];
+				this.z[i] = this.rgb[2];
+			}
+
+		} // End Loop over anchors
+
+		// Loop over the segments
+		for (int i = 0; i < n - 1; i++) {
+
+			// Compute the per channel differences once
+			this.dr[i] = this.r[i + 1] - this.r[i];
+			this.dg[i] = this.g[i + 1] - this.g[i];
+			this.db[i] = this.b[i + 1] - this.b[i];
+			this.da[i] = this.a[i + 1] - this.a[i];
+			if (perceptual) {
+				this.dx[i] = this.x[i + 1] - this.x[i];
+				this.dy[i] = this.y[i + 1] - this.y[i];
+				this.dz[i] = this.z[i + 1] - this.z[i];
+			}
+
+			// Zero length segments produce a hard stop between the anchors
+			double length = this.pos[i + 1] - this.pos[i];
+			this.scale[i] = length > 0 ? 1.0 / length : 0.0;
+
+		} // End Loop over segments
+
+		// Spline coefficients of the coordinates and the opacity
+		if (curve == Curve.LINEAR) {
+			this.coef = null;
+		} else {
+			this.coef = new double[Curve.ORDER * 4 * (n - 1)];
+			double[][] v = perceptual ? new double[][]{ this.x, this.y,
+					this.z, null } : new double[4][];
+			float[][] f = { this.r, this.g, this.b, this.a };
+			for (int c = 0; c < 4; c++) {
+				if (v[c] == null) {
+					v[c] = new double[n];
+					for (int i = 0; i < n; i++) v[c][i] = f[c][i];
+				}
+				curve.fit(v[c], this.pos, this.coef, c, 4);
+			}
+		}
+
+	} // End Constructor method
+
+	/***
+	 * Constructor used to create an engine for another thread.  The anchor
+	 * and segment tables are never modified after construction, so they are
+	 * shared with the prototype and only the current segment and scratch
+	 * buffers are new.
+	 * @param prototype The engine to copy
+	 */
+	public TerpEngine(TerpEngine prototype) {
+		this.r = prototype.r;
+		this.g = prototype.g;
+		this.b = prototype.b;
+		this.a = prototype.a;
+		this.dr = prototype.dr;
+		this.dg = prototype.dg;
+		this.db = prototype.db;
+		this.da = prototype.da;
+		this.space = prototype.space;
+		this.x = prototype.x;
+		this.y = prototype.y;
+		this.z = prototype.z;
+		this.dx = prototype.dx;
+		this.dy = prototype.dy;
+		this.dz = prototype.dz;
+		this.pos = prototype.pos;
+		this.scale = prototype.scale;
+		this.coef = prototype.coef;
+		this.curve = prototype.curve;
+	}
+
+	/***
+	 * Method used to validate the positions of anchor colors
+	 * @param positions The positions of the anchors
+	 * @param n The number of anchors
+	 * @throws IllegalArgumentException if the number of positions does not
+	 * match the number of anchors or the positions are not ascending values
+	 * in [0, 1]
+	 */
+	public static void checkPositions(double[] positions, int n) {
+
+		// Check the number of positions
+		if (positions.length != n) {
+			throw new IllegalArgumentException("Expected " + n + " anchor " +
+					"positions but found " + positions.length + ".");
+		}
+
+		// Loop over the positions
+		for (int i = 0; i < n; i++) {
+
+			// Check the range and order of the positions
+			if (positions[i] < 0 || positions[i] > 1 ||
+					(i > 0 && positions[i] < positions[i - 1])) {
+				throw new IllegalArgumentException("Anchor positions must be " +
+						"ascending values in [0, 1].");
+			}
+
+		} // End Loop over positions
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to write the channels of an anchor color to a buffer
+	 * @param i The index of the anchor
+	 * @param out A buffer of length 4
+	 */
+	private void anchor(int i, double[] out) {
+		out[0] = r[i];
+		out[1] = g[i];
+		out[2] = b[i];
+		out[3] = a[i];
+	}
+
+	/***
+	 * Method used to interpolate a color at a given distance from the
+	 * starting color
+	 * @param t The proportional distance from the starting color
+	 * @param out A buffer of length 4 where the red, green, blue, and
+	 *               opacity values are written
+	 */
+	public void interpolate(double t, double[] out) {
+
+		// Index of the last anchor
+		int last = pos.length - 1;
+
+		// Distances at or before the first anchor return the first anchor
+		if (t <= pos[0]) {
+			anchor(0, out);
+			return;
+		}
+
+		// Distances at or beyond the last anchor return the last anchor
+		if (t >= pos[last]) {
+			anchor(last, out);
+			return;
+		}
+
+		// Distances before the current segment restart the walk from the
+		// segment containing the distance.  Stepping back to the last anchor
+		// before the distance selects the same segment as a forward walk when
+		// the distance falls on a hard stop.
+		if (t < pos[seg]) {
+			int i = Arrays.binarySearch(pos, t);
+			seg = Math.max(0, Math.min(last - 1, (i < 0 ? -i - 2 : i)));
+			while (seg > 0 && pos[seg] >= t) seg--;
+		}
+
+		// Walk forward to the segment containing the distance
+		while (t > pos[seg + 1]) seg++;
+
+		// Proportional distance within the segment
+		double local = (t - pos[seg]) * scale[seg];
+
+		// B-splines only approach the intermediate anchors, so the ends of
+		// the segments are evaluated on the curve
+		if (curve == Curve.BSPLINE && scale[seg] > 0.0) {
+			spline(seg, Math.max(0.0, Math.min(1.0, local)), out);
+
+		// Distances at or before the start of the segment
+		} else if (local <= 0.0) {
+			anchor(seg, out);
+
+		// Distances at or beyond the end of the segment
+		} else if (local >= 1.0) {
+			anchor(seg + 1, out);
+
+		// Spline interpolation
+		} else if (coef != null) {
+			spline(seg, local, out);
+
+		// Linear interpolation in single precision
+		} else if (x == null) {
+			float ft = (float) local;
+			out[0] = r[seg] + dr[seg] * ft;
+			out[1] = g[seg] + dg[seg] * ft;
+			out[2] = b[seg] + db[seg] * ft;
+			out[3] = a[seg] + da[seg] * ft;
+
+		// Linear interpolation in the interpolation space
+		} else {
+			space.decode(x[seg] + dx[seg] * local, y[seg] + dy[seg] * local,
+					z[seg] + dz[seg] * local, rgb);
+			out[0] = (float) rgb[0];
+			out[1] = (float) rgb[1];
+			out[2] = (float) rgb[2];
+			out[3] = a[seg] + da[seg] * (float) local;
+
+		} // End ELSE Block for interpolated values
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to evaluate the spline of a segment
+	 * @param i The index of the segment
+	 * @param u The local position in [0, 1]
+	 * @param out A buffer of length 4 where the red, green, blue, and
+	 *               opacity values are written
+	 */
+	private void spline(int i, double u, double[] out) {
+
+		// Horner's rule for the coordinates and the opacity
+		int k = Curve.ORDER * 4 * i;
+		double c0 = coef[k] + u * (coef[k + 1] + u * (coef[k + 2] + u * coef[k + 3]));
+		double c1 = coef[k + 4] + u * (coef[k + 5] + u * (coef[k + 6] + u * coef[k + 7]));
+		double c2 = coef[k + 8] + u * (coef[k + 9] + u * (coef[k + 10] + u * coef[k + 11]));
+		double c3 = coef[k + 12] + u * (coef[k + 13] + u * (coef[k + 14] + u * coef[k + 15]));
+
+		// Converts the coordinates to sRGB (clamped to [0, 1])
+		space.decode(c0, c1, c2, rgb);
+		out[0] = (float) rgb[0];
+		out[1] = (float) rgb[1];
+		out[2] = (float) rgb[2];
+		out[3] = (float) Math.max(0.0, Math.min(1.0, c3));
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to modify the saturation and brightness of a color in place
+	 * @param c A buffer containing the red, green, blue, and opacity values
+	 * @param saturationFactor Multiplier applied to the saturation
+	 * @param brightnessFactor Multiplier applied to the brightness
+	 */
+	public void deriveColor(double[] c, double saturationFactor,
+							double brightnessFactor) {
+
+		// Get the hue, saturation, and brightness of the color
+		rgbToHsb(c[0], c[1], c[2], hsb);
+
+		// Allow brightness increase of black color
+		double b = hsb[2];
+		if (b == 0 && brightnessFactor > 1.0) b = 0.05;
+
+		// Normalize the hue and bound the saturation and brightness
+		double h = ((hsb[0] % 360) + 360) % 360;
+		double s = Math.max(Math.min(hsb[1] * saturationFactor, 1.0), 0.0);
+		b = Math.max(Math.min(b * brightnessFactor, 1.0), 0.0);
+
+		// Convert back to RGB and round to single precision
+		hsbToRgb(h, s, b, hsb);
+		c[0] = (float) hsb[0];
+		c[1] = (float) hsb[1];
+		c[2] = (float) hsb[2];
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to make a color arbitrarily brighter in place
+	 * @param c A buffer containing the red, green, blue, and opacity values
+	 */
+	public void brighter(double[] c) {
+		deriveColor(c, 1.0, 1.0 / DARKER_BRIGHTER_FACTOR);
+	}
+
+	/***
+	 * Method used to make a color arbitrarily darker in place
+	 * @param c A buffer containing the red, green, blue, and opacity values
+	 */
+	public void darker(double[] c) {
+		deriveColor(c, 1.0, DARKER_BRIGHTER_FACTOR);
+	}
+
+	/***
+	 * Method used to make a color arbitrarily more saturated in place
+	 * @param c A buffer containing the red, green, blue, and opacity values
+	 */
+	public void saturate(double[] c) {
+		deriveColor(c, 1.0 / SATURATE_DESATURATE_FACTOR, 1.0);
+	}
+
+	/***
+	 * Method used to make a color arbitrarily less saturated in place
+	 * @param c A buffer containing the red, green, blue, and opacity values
+	 */
+	public void desaturate(double[] c) {
+		deriveColor(c, SATURATE_DESATURATE_FACTOR, 1.0);
+	}
+
+	/***
+	 * Method used to invert a color in place
+	 * @param c A buffer containing the red, green, blue, and opacity values
+	 */
+	public void invert(double[] c) {
+		c[0] = (float) (1.0 - c[0]);
+		c[1] = (float) (1.0 - c[1]);
+		c[2] = (float) (1.0 - c[2]);
+	}
+
+	/***
+	 * Method used to project a color into a grayscale space in place
+	 * @param c A buffer containing the red, green, blue, and opacity values
+	 */
+	public void grayscale(double[] c) {
+
+		// Weighted luminance of the color
+		float gray = (float) (0.21 * c[0] + 0.71 * c[1] + 0.07 * c[2]);
+
+		// Use the same value for each of the channels
+		c[0] = gray;
+		c[1] = gray;
+		c[2] = gray;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to convert RGB values to HSB values
+	 * @param r The red channel in [0, 1]
+	 * @param g The green channel in [0, 1]
+	 * @param b The blue channel in [0, 1]
+	 * @param hsbvals A buffer of length 3 where the hue (in degrees),
+	 *                   saturation, and brightness are written
+	 */
+	public static void rgbToHsb(double r, double g, double b, double[] hsbvals) {
+
+		// Get the largest and smallest channel values
+		double cmax = (r > g) ? r : g;
+		if (b > cmax) cmax = b;
+		double cmin = (r < g) ? r : g;
+		if (b < cmin) cmin = b;
+
+		// Brightness is the largest channel value
+		double brightness = cmax;
+
+		// Saturation is the range relative to the brightness
+		double saturation = cmax != 0 ? (cmax - cmin) / cmax : 0;
+
+		// Hue of the color
+		double hue;
+
+		// Achromatic colors have a hue of 0
+		if (saturation == 0) {
+			hue = 0;
+
+		// Otherwise find the hue based on the dominant channel
+		} else {
+			double redc = (cmax - r) / (cmax - cmin);
+			double greenc = (cmax - g) / (cmax - cmin);
+			double bluec = (cmax - b) / (cmax - cmin);
+			if (r == cmax) hue = bluec - greenc;
+			else if (g == cmax) hue = 2.0 + redc - bluec;
+			else hue = 4.0 + greenc - redc;
+			hue = hue / 6.0;
+			if (hue < 0) hue = hue + 1.0;
+
+		} // End ELSE Block for chromatic colors
+
+		// Store the results
+		hsbvals[0] = hue * 360;
+		hsbvals[1] = saturation;
+		hsbvals[2] = brightness;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to convert HSB values to RGB values
+	 * @param hue The hue in degrees
+	 * @param saturation The saturation in [0, 1]
+	 * @param brightness The brightness in [0, 1]
+	 * @param rgb A buffer of length 3 where the red, green, and blue values
+	 *               are written
+	 */
+	public static void hsbToRgb(double hue, double saturation,
+								double brightness, double[] rgb) {
+
+		// Normalize the hue
+		double normalizedHue = ((hue % 360) + 360) % 360;
+		hue = normalizedHue / 360;
+
+		// Channel values
+		double r = 0, g = 0, b = 0;
+
+		// Achromatic colors
+		if (saturation == 0) {
+			r = g = b = brightness;
+
+		// Chromatic colors
+		} else {
+			double h = (hue - Math.floor(hue)) * 6.0;
+			double f = h - Math.floor(h);
+			double p = brightness * (1.0 - saturation);
+			double q = brightness * (1.0 - saturation * f);
+			double t = brightness * (1.0 - (saturation * (1.0 - f)));
+			switch ((int) h) {
+				case 0: r = brightness; g = t; b = p; break;
+				case 1: r = q; g = brightness; b = p; break;
+				case 2: r = p; g = brightness; b = t; break;
+				case 3: r = p; g = q; b = brightness; break;
+				case 4: r = t; g = p; b = brightness; break;
+				case 5: r = brightness; g = p; b = q; break;
+			}
+
+		} // End ELSE Block for chromatic colors
+
+		// Store the results
+		rgb[0] = r;
+		rgb[1] = g;
+		rgb[2] = b;
+
+	} // End of Method declaration
+
+} // End of Class declaration
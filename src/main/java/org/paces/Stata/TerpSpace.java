@@ -0,0 +1,246 @@
+package org.paces.stata;
+
+import java.util.Locale;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Color spaces in which colors can be interpolated.  Each space converts
+ * gamma encoded sRGB channel values to its own coordinates (encode) and
+ * converts coordinates back to gamma encoded sRGB channel values in [0, 1]
+ * (decode).  The anchor colors of a gradient are encoded once, so the cost
+ * of perceptual interpolation for each point is the decode step, which uses
+ * the lookup tables in {@link org.paces.stata.Transfer} instead of Math.pow.
+ */
+public enum TerpSpace {
+
+	/***
+	 * Gamma encoded sRGB (the default, identical to Color.interpolate)
+	 */
+	SRGB {
+		@Override
+		public void encode(double r, double g, double b, double[] out) {
+			out[0] = r;
+			out[1] = g;
+			out[2] = b;
+		}
+
+		@Override
+		public void decode(double x, double y, double z, double[] out) {
+			out[0] = clamp(x);
+			out[1] = clamp(y);
+			out[2] = clamp(z);
+		}
+	},
+
+	/***
+	 * Linear light sRGB
+	 */
+	LINEAR {
+		@Override
+		public void encode(double r, double g, double b, double[] out) {
+			out[0] = Transfer.toLinear(r);
+			out[1] = Transfer.toLinear(g);
+			out[2] = Transfer.toLinear(b);
+		}
+
+		@Override
+		public void decode(double x, double y, double z, double[] out) {
+			out[0] = Transfer.fromLinear(x);
+			out[1] = Transfer.fromLinear(y);
+			out[2] = Transfer.fromLinear(z);
+		}
+	},
+
+	/***
+	 * CIE L*a*b* with a D65 white point
+	 */
+	LAB {
+		@Override
+		public void encode(double r, double g, double b, double[] out) {
+
+			// Linear light values
+			double lr = Transfer.toLinear(r);
+			double lg = Transfer.toLinear(g);
+			double lb = Transfer.toLinear(b);
+
+			// XYZ relative to the white point
+			double fx = labf((0.4124564 * lr + 0.3575761 * lg + 0.1804375 * lb) / XN);
+			double fy = labf(0.2126729 * lr + 0.7151522 * lg + 0.0721750 * lb);
+			double fz = labf((0.0193339 * lr + 0.1191920 * lg + 0.9503041 * lb) / ZN);
+
+			// L*, a*, and b*
+			out[0] = 116.0 * fy - 16.0;
+			out[1] = 500.0 * (fx - fy);
+			out[2] = 200.0 * (fy - fz);
+
+		}
+
+		@Override
+		public void decode(double x, double y, double z, double[] out) {
+
+			// Inverse of the companding function
+			double fy = (x + 16.0) / 116.0;
+			double fx = fy + y / 500.0;
+			double fz = fy - z / 200.0;
+			double xr = labfinv(fx) * XN;
+			double yr = labfinv(fy);
+			double zr = labfinv(fz) * ZN;
+
+			// Linear light values
+			double lr = 3.2404542 * xr - 1.5371385 * yr - 0.4985314 * zr;
+			double lg = -0.9692660 * xr + 1.8760108 * yr + 0.0415560 * zr;
+			double lb = 0.0556434 * xr - 0.2040259 * yr + 1.0572252 * zr;
+
+			// Gamma encoded values
+			out[0] = Transfer.fromLinear(lr);
+			out[1] = Transfer.fromLinear(lg);
+			out[2] = Transfer.fromLinear(lb);
+
+		}
+	},
+
+	/***
+	 * OKLab perceptual color space
+	 */
+	OKLAB {
+		@Override
+		public void encode(double r, double g, double b, double[] out) {
+
+			// Linear light values
+			double lr = Transfer.toLinear(r);
+			double lg = Transfer.toLinear(g);
+			double lb = Transfer.toLinear(b);
+
+			// Cone responses
+			double l = Math.cbrt(0.4122214708 * lr + 0.5363325363 * lg + 0.0514459929 * lb);
+			double m = Math.cbrt(0.2119034982 * lr + 0.6806995451 * lg + 0.1073969566 * lb);
+			double s = Math.cbrt(0.0883024619 * lr + 0.2817188376 * lg + 0.6299787005 * lb);
+
+			// Lightness and opponent axes
+			out[0] = 0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s;
+			out[1] = 1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s;
+			out[2] = 0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s;
+
+		}
+
+		@Override
+		public void decode(double x, double y, double z, double[] out) {
+
+			// Cone responses
+			double l = x + 0.3963377774 * y + 0.2158037573 * z;
+			double m = x - 0.1055613458 * y - 0.0638541728 * z;
+			double s = x - 0.0894841775 * y - 1.2914855480 * z;
+			l = l * l * l;
+			m = m * m * m;
+			s = s * s * s;
+
+			// Gamma encoded values
+			out[0] = Transfer.fromLinear(4.0767416621 * l - 3.3077115913 * m + 0.2309699292 * s);
+			out[1] = Transfer.fromLinear(-1.2684380046 * l + 2.6097574011 * m - 0.3413193965 * s);
+			out[2] = Transfer.fromLinear(-0.0041960863 * l - 0.7034186147 * m + 1.7076147010 * s);
+
+		}
+	};
+
+	/***
+	 * X coordinate of the D65 white point
+	 */
+	private static final double XN = 0.95047;
+
+	/***
+	 * Z coordinate of the D65 white point
+	 */
+	private static final double ZN = 1.08883;
+
+	/***
+	 * Threshold of the CIELAB companding function
+	 */
+	private static final double EPSILON = 216.0 / 24389.0;
+
+	/***
+	 * Slope of the linear segment of the CIELAB companding function
+	 */
+	private static final double KAPPA = 24389.0 / 27.0;
+
+	/***
+	 * Method used to convert gamma encoded sRGB values to the coordinates
+	 * of the color space
+	 * @param r The red channel in [0, 1]
+	 * @param g The green channel in [0, 1]
+	 * @param b The blue channel in [0, 1]
+	 * @param out A buffer of length 3 where the coordinates are written
+	 */
+	public abstract void encode(double r, double g, double b, double[] out);
+
+	/***
+	 * Method used to convert coordinates of the color space to gamma encoded
+	 * sRGB values.  Colors outside of the sRGB gamut are clamped.
+	 * @param x The first coordinate
+	 * @param y The second coordinate
+	 * @param z The third coordinate
+	 * @param out A buffer of length 3 where the red, green, and blue values
+	 *               in [0, 1] are written
+	 */
+	public abstract void decode(double x, double y, double z, double[] out);
+
+	/***
+	 * Method used to look up an interpolation space by name
+	 * @param name One of srgb, linear, lab, or oklab (case insensitive).  An
+	 *                empty string returns the default sRGB space.
+	 * @return The interpolation space
+	 * @throws IllegalArgumentException for unrecognized names
+	 */
+	public static TerpSpace fromString(String name) {
+
+		// Dispatches the appropriate space
+		switch (name.trim().toLowerCase(Locale.ROOT)) {
+			case "":
+			case "srgb":
+			case "rgb":
+				return SRGB;
+			case "linear":
+			case "linearrgb":
+				return LINEAR;
+			case "lab":
+			case "cielab":
+				return LAB;
+			case "oklab":
+				return OKLAB;
+			default:
+				throw new IllegalArgumentException("Unrecognized " +
+						"interpolation space " + name + ".");
+		}
+
+	} // End of Method declaration
+
+	/***
+	 * CIELAB companding function
+	 * @param t A value relative to the white point
+	 * @return The companded value
+	 */
+	private static double labf(double t) {
+		return t > EPSILON ? Math.cbrt(t) : (KAPPA * t + 16.0) / 116.0;
+	}
+
+	/***
+	 * Inverse of the CIELAB companding function
+	 * @param f A companded value
+	 * @return The value relative to the white point
+	 */
+	private static double labfinv(double f) {
+		double f3 = f * f * f;
+		return f3 > EPSILON ? f3 : (116.0 * f - 16.0) / KAPPA;
+	}
+
+	/***
+	 * Method used to bound a value to [0, 1]
+	 * @param v A channel value
+	 * @return The bounded value
+	 */
+	private static double clamp(double v) {
+		return v < 0 ? 0 : (v > 1 ? 1 : v);
+	}
+
+} // End of Class declaration
@@ -0,0 +1,230 @@
+package org.paces.stata;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Interpolates, modifies, and optionally formats the colors for a range of
+ * distances.  Palettes with fewer points than the threshold are processed
+ * sequentially by a single task.  Larger palettes are split into chunks that
+ * run on the common ForkJoinPool.  Each chunk uses its own TerpEngine (a copy
+ * of a prototype that shares the anchor and segment tables) and its own
+ * ColorEncoder (both keep scratch state) and writes only to its own slice
+ * of the output arrays, so the results are identical to the sequential path
+ * and do not depend on the order in which the chunks run.
+ */
+public class TerpTask extends RecursiveAction {
+
+	/***
+	 * Version of the serialized form inherited from RecursiveAction (tasks
+	 * are never serialized)
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/***
+	 * Default number of points at or above which palettes are interpolated
+	 * in parallel
+	 */
+	public static final int DEFAULT_THRESHOLD = 65536;
+
+	/***
+	 * Smallest number of points processed by a single chunk
+	 */
+	private static final int MIN_CHUNK = 8192;
+
+	/***
+	 * Engine whose tables are shared by the engine of each chunk
+	 */
+	private final TerpEngine prototype;
+
+	/***
+	 * Distances from the starting color
+	 */
+	private final double[] distances;
+
+	/***
+	 * Compiled color modifications applied to each interpolated color
+	 */
+	private final ModifierChain chain;
+
+	/***
+	 * Return color space or null to skip formatting
+	 */
+	private final String cspace;
+
+	/***
+	 * Number of digits used to format decimal values
+	 */
+	private final int digits;
+
+	/***
+	 * Formatted colors for each distance or null
+	 */
+	private final String[] colors;
+
+	/***
+	 * Red, green, blue, and opacity values for each distance or null
+	 */
+	private final double[] values;
+
+	/***
+	 * Offset of the first distance in the values array (in colors)
+	 */
+	private final int offset;
+
+	/***
+	 * Range of distances processed by the task
+	 */
+	private final int lo, hi;
+
+	/***
+	 * Number of points processed by a single chunk
+	 */
+	private final int chunk;
+
+	/***
+	 * Constructor method for TerpTask class
+	 * @param prototype The engine copied by each chunk
+	 * @param distances Array of distances between start and end
+	 * @param chain The color modifications
+	 * @param cspace The return color space or null to skip formatting
+	 * @param digits The number of digits used to format decimal values
+	 * @param colors Array for the formatted colors or null
+	 * @param values Array for the channel values or null
+	 * @param offset Offset of the first distance in the values array
+	 * @param lo The first distance processed
+	 * @param hi One past the last distance processed
+	 * @param chunk The number of points processed by a single chunk
+	 */
+	private TerpTask(TerpEngine prototype, double[] distances,
+					 ModifierChain chain, String cspace, int digits,
+					 String[] colors, double[] values, int offset, int lo,
+					 int hi, int chunk) {
+		this.prototype = prototype;
+		this.distances = distances;
+		this.chain = chain;
+		this.cspace = cspace;
+		this.digits = digits;
+		this.colors = colors;
+		this.values = values;
+		this.offset = offset;
+		this.lo = lo;
+		this.hi = hi;
+		this.chunk = chunk;
+	}
+
+	/***
+	 * Method used to interpolate the colors of a compiled palette for each
+	 * distance
+	 * @param spec The compiled palette
+	 * @param distances Array of distances between start and end
+	 * @param colors Array for the colors formatted in the returned color
+	 *                  space or null
+	 * @param values Array for the channel values or null
+	 * @param offset Offset of the first distance in the values array
+	 */
+	public static void run(PaletteSpec spec, double[] distances,
+			String[] colors, double[] values, int offset) {
+
+		// Uses the engine tables and modifications of the spec
+		run(spec.prototype(), distances, spec.getModifiers(), colors == null ? null :
+				spec.getRetSpace().toString(), spec.getDigits(), colors, values,
+				offset, spec.getThreshold());
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to interpolate the colors for each distance with the
+	 * tables of an engine and a chain of color modifications
+	 * @param prototype The engine copied by each chunk
+	 * @param distances Array of distances between start and end
+	 * @param chain The color modifications applied to each color
+	 * @param cspace The return color space or null to skip formatting
+	 * @param digits The number of digits used to format decimal values
+	 * @param colors Array for the formatted colors or null
+	 * @param values Array for the channel values or null
+	 * @param offset Offset of the first distance in the values array
+	 * @param threshold The number of points at or above which the colors
+	 *                     are interpolated in parallel; negative values always
+	 *                     interpolate sequentially
+	 */
+	public static void run(TerpEngine prototype, double[] distances,
+			ModifierChain chain, String cspace, int digits, String[] colors,
+			double[] values, int offset, int threshold) {
+
+		// Number of points
+		int n = distances.length;
+
+		// Small palettes are processed sequentially in the calling thread
+		if (threshold < 0 || n < threshold || n <= MIN_CHUNK) {
+			new TerpTask(prototype, distances, chain, cspace, digits, colors,
+					values, offset, 0, n, n).compute();
+
+		// Large palettes are split into a few chunks per worker thread
+		} else {
+			ForkJoinPool pool = ForkJoinPool.commonPool();
+			int chunk = Math.max(MIN_CHUNK, n / (4 * pool.getParallelism()) + 1);
+			pool.invoke(new TerpTask(prototype, distances, chain, cspace,
+					digits, colors, values, offset, 0, n, chunk));
+
+		} // End ELSE Block for parallel execution
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to split the range or process it when it is small enough
+	 */
+	@Override
+	protected void compute() {
+
+		// Splits ranges larger than a chunk in half
+		if (hi - lo > chunk) {
+			int mid = (lo + hi) >>> 1;
+			invokeAll(split(lo, mid), split(mid, hi));
+			return;
+		}
+
+		// Engine and encoder used only by this chunk
+		TerpEngine engine = new TerpEngine(prototype);
+		ColorEncoder encoder = cspace == null ? null :
+				ColorEncoder.forSpace(cspace, digits);
+
+		// Reusable buffer for the red, green, blue, and opacity values
+		double[] buf = new double[4];
+
+		// Loop over the distances in the range
+		for (int i = lo; i < hi; i++) {
+
+			// Interpolated color written into the buffer
+			engine.interpolate(distances[i], buf);
+
+			// Applies the compiled color modifications
+			chain.apply(engine, buf);
+
+			// Store the color string
+			if (colors != null) colors[i] = encoder.encode(buf[0], buf[1],
+					buf[2], buf[3]);
+
+			// Store the channel values
+			if (values != null) System.arraycopy(buf, 0, values,
+					4 * (offset + i), 4);
+
+		} // End Loop over the distances
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to create the task for part of the range
+	 * @param from The first distance processed
+	 * @param to One past the last distance processed
+	 * @return A task for the range
+	 */
+	private TerpTask split(int from, int to) {
+		return new TerpTask(prototype, distances, chain, cspace, digits,
+				colors, values, offset, from, to, chunk);
+	}
+
+} // End of Class declaration
@@ -0,0 +1,118 @@
+package org.paces.stata;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Methods used to convert between gamma encoded sRGB values and linear
+ * light values.  Decoding 8-bit values uses a 256 element lookup table and
+ * encoding linear values uses a table indexed by the square root of the
+ * linear value with linear interpolation between the entries.  Indexing by
+ * the square root concentrates the entries near black where the sRGB
+ * transfer curve is steepest, keeping the encoding error below 1e-6 without
+ * calling Math.pow for each value.
+ */
+public final class Transfer {
+
+	/***
+	 * Number of intervals in the encoding table
+	 */
+	private static final int ENCODE_SIZE = 4096;
+
+	/***
+	 * Linear light values for each 8-bit sRGB value
+	 */
+	private static final double[] DECODE_8BIT = new double[256];
+
+	/***
+	 * Encoded sRGB values indexed by the square root of linear light values
+	 */
+	private static final double[] ENCODE = new double[ENCODE_SIZE + 1];
+
+	// Populates the lookup tables
+	static {
+		for (int i = 0; i < 256; i++) DECODE_8BIT[i] = toLinearExact(i / 255.0);
+		for (int i = 0; i <= ENCODE_SIZE; i++) {
+			double u = (double) i / ENCODE_SIZE;
+			ENCODE[i] = fromLinearExact(u * u);
+		}
+	}
+
+	/***
+	 * Private constructor for the static utility class
+	 */
+	private Transfer() {
+	}
+
+	/***
+	 * Method used to decode a gamma encoded sRGB value
+	 * @param v A gamma encoded sRGB value in [0, 1]
+	 * @return The linear light value
+	 */
+	public static double toLinearExact(double v) {
+		return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+	}
+
+	/***
+	 * Method used to encode a linear light value
+	 * @param v A linear light value in [0, 1]
+	 * @return The gamma encoded sRGB value
+	 */
+	public static double fromLinearExact(double v) {
+		return v <= 0.0031308 ? v * 12.92 :
+				1.055 * Math.pow(v, 1 / 2.4) - 0.055;
+	}
+
+	/***
+	 * Method used to decode an 8-bit sRGB value with the lookup table
+	 * @param v A gamma encoded sRGB value in [0, 255]
+	 * @return The linear light value
+	 */
+	public static double toLinear(int v) {
+		return DECODE_8BIT[v];
+	}
+
+	/***
+	 * Method used to decode a gamma encoded sRGB value.  Values that fall
+	 * exactly on an 8-bit level use the lookup table.
+	 * @param v A gamma encoded sRGB value in [0, 1]
+	 * @return The linear light value
+	 */
+	public static double toLinear(double v) {
+
+		// Position of the value on the 8-bit scale
+		double scaled = v * 255.0;
+		int level = (int) scaled;
+
+		// Use the lookup table for 8-bit levels
+		if (level == scaled && level >= 0 && level <= 255) {
+			return DECODE_8BIT[level];
+		}
+
+		// Otherwise decode the value directly
+		return toLinearExact(v);
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to encode a linear light value with the lookup table.
+	 * Values outside of [0, 1] are clamped.
+	 * @param v A linear light value
+	 * @return The gamma encoded sRGB value in [0, 1]
+	 */
+	public static double fromLinear(double v) {
+
+		// Clamp values outside of the gamut
+		if (!(v > 0)) return 0.0;
+		if (v >= 1) return 1.0;
+
+		// Position in the table
+		double u = Math.sqrt(v) * ENCODE_SIZE;
+		int i = (int) u;
+
+		// Linear interpolation between the table entries
+		return ENCODE[i] + (ENCODE[i + 1] - ENCODE[i]) * (u - i);
+
+	} // End of Method declaration
+
+} // End of Class declaration
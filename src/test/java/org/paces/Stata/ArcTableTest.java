@@ -0,0 +1,159 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that the uniform spacing places the colors of a palette at equal
+ * color differences (CIE76 &#916;E) along the interpolation path.
+ */
+public class ArcTableTest {
+
+	/***
+	 * Number of colors after the starting color
+	 */
+	private static final int POINTS = 12;
+
+	/***
+	 * Method used to compile a palette from orange through light gray to
+	 * blue
+	 * @param spacing The spacing of the colors
+	 * @param chain The modifications applied to each color
+	 * @return The compiled palette with POINTS + 1 colors
+	 */
+	private static PaletteSpec spec(Spacing spacing, String chain) {
+		return PaletteSpec.builder().inSpace(ColorSpace.RGB)
+				.retSpace(ColorSpace.SRGBA).start("197 115 47")
+				.stops("247 247 247").end("5 37 249").points(POINTS)
+				.spacing(spacing).modifiers(ModifierChain.parse(chain))
+				.build();
+	}
+
+	/***
+	 * Method used to measure the color difference along part of the path
+	 * independently of the table
+	 * @param spec The palette
+	 * @param from The position where the measure starts
+	 * @param to The position where the measure ends
+	 * @return The sum of the CIE76 differences between 1000 evenly spaced
+	 * samples of the modified colors
+	 */
+	private static double arc(PaletteSpec spec, double from, double to) {
+		TerpEngine engine = spec.engine();
+		double[] buf = new double[4];
+		double[] channels = new double[4 * 1001];
+		for (int i = 0; i <= 1000; i++) {
+			engine.interpolate(from + (to - from) * i / 1000, buf);
+			spec.modify(engine, buf);
+			System.arraycopy(buf, 0, channels, 4 * i, 4);
+		}
+		double sum = 0.0;
+		for (double d : differences(channels)) sum += d;
+		return sum;
+	}
+
+	/***
+	 * Method used to get the color difference between adjacent colors
+	 * @param channels The channel values of every color
+	 * @return The CIE76 difference between each color and the next
+	 */
+	private static double[] differences(double[] channels) {
+		int n = channels.length / 4;
+		double[] lab = new double[3], prev = new double[3];
+		double[] de = new double[n - 1];
+		for (int k = 0; k < n; k++) {
+			TerpSpace.LAB.encode(channels[4 * k], channels[4 * k + 1],
+					channels[4 * k + 2], lab);
+			if (k > 0) {
+				double dl = lab[0] - prev[0];
+				double da = lab[1] - prev[1];
+				double db = lab[2] - prev[2];
+				de[k - 1] = Math.sqrt(dl * dl + da * da + db * db);
+			}
+			double[] tmp = prev;
+			prev = lab;
+			lab = tmp;
+		}
+		return de;
+	}
+
+	/***
+	 * Method used to get the relative spread of the differences
+	 * @param de The differences between adjacent colors
+	 * @return The difference between the largest and smallest values
+	 * divided by the mean
+	 */
+	private static double spread(double[] de) {
+		double min = Double.MAX_VALUE, max = 0.0, sum = 0.0;
+		for (double d : de) {
+			min = Math.min(min, d);
+			max = Math.max(max, d);
+			sum += d;
+		}
+		return (max - min) / (sum / de.length);
+	}
+
+	/***
+	 * Checks that the path between adjacent colors has the same length and
+	 * that adjacent colors differ by more similar amounts than with the
+	 * exact spacing
+	 */
+	@Test
+	public void uniformSpacingHasEqualDifferences() {
+		for (String chain : new String[]{ "", "darker:0.8", "desaturated:0.5" }) {
+			PaletteSpec spec = spec(Spacing.UNIFORM, chain);
+			ArcTable table = new ArcTable(spec.engine(), spec.getModifiers(), 2);
+			assertTrue(chain, table.length() > 0.0);
+			double[] pos = spec.positions();
+			for (int k = 1; k <= POINTS; k++) {
+				assertEquals(chain + " " + k, table.length() / POINTS,
+						arc(spec, pos[k - 1], pos[k]), 1e-3 * table.length());
+			}
+
+			// The exact spacing does not place the colors at equal steps
+			assertTrue(chain, spread(differences(spec.channels())) <
+					spread(differences(spec(Spacing.EXACT, chain).channels())));
+		}
+	}
+
+	/***
+	 * Checks that the first and last colors are placed exactly on the ends
+	 * of the path
+	 */
+	@Test
+	public void uniformSpacingEndsOnAnchors() {
+		PaletteSpec spec = spec(Spacing.UNIFORM, "");
+		double[] pos = spec.positions();
+		assertEquals(0.0, pos[0], 0.0);
+		assertEquals(1.0, pos[POINTS], 0.0);
+		for (int k = 1; k <= POINTS; k++) assertTrue(pos[k] > pos[k - 1]);
+		double[] channels = spec.channels();
+		double[] start = ColorTerp.channels(spec.getStart());
+		double[] end = ColorTerp.channels(spec.getEnd());
+		for (int c = 0; c < 4; c++) {
+			assertEquals(start[c], channels[c], 0.0);
+			assertEquals(end[c], channels[4 * POINTS + c], 0.0);
+		}
+	}
+
+	/***
+	 * Checks that a path without any color difference falls back to the
+	 * exact positions
+	 */
+	@Test
+	public void constantPathUsesExactPositions() {
+		double[] gray = { 0.5, 0.5, 0.5, 1 };
+		ArcTable arc = new ArcTable(new TerpEngine(gray, gray.clone()),
+				ModifierChain.NONE, 1);
+		assertEquals(0.0, arc.length(), 0.0);
+		for (int k = 0; k < 5; k++) {
+			assertEquals(Spacing.exact(k, 5), arc.position(k, 5), 0.0);
+		}
+	}
+
+}
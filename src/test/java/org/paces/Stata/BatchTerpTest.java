@@ -0,0 +1,37 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that the invert and grayscale values of string job variables are
+ * passed as the same arguments as the values of numeric variables.
+ */
+public class BatchTerpTest {
+
+	/***
+	 * Checks the boolean strings and 0/1 values
+	 */
+	@Test
+	public void booleanStringsAndIndicatorsMatch() {
+		for (String s : new String[]{ "1", "true", "TRUE", "True" }) {
+			assertEquals("true", BatchTerp.toBoolean(s));
+		}
+		for (String s : new String[]{ "", "0", "false", "FALSE" }) {
+			assertEquals("false", BatchTerp.toBoolean(s));
+		}
+	}
+
+	/***
+	 * Checks that other values are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void otherValuesAreRejected() {
+		BatchTerp.toBoolean("yes");
+	}
+
+} // End of Class declaration
@@ -0,0 +1,103 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that the numeric components stored in the matrices returned by
+ * interpmatrix match the colors formatted in the same color space.
+ */
+public class ColorEncoderTest {
+
+	/***
+	 * Returned color spaces
+	 */
+	private static final String[] SPACES = { "rgb", "rgba", "srgb", "srgba",
+			"hsb", "hsba", "hex", "hexa", "web", "weba" };
+
+	/***
+	 * Method used to get the numeric values of a formatted color
+	 * @param color The color formatted by an encoder
+	 * @param hex True for hexadecimal colors with or without the leading '#'
+	 * @return The value of each component of the color
+	 */
+	private static double[] values(String color, boolean hex) {
+		String[] parts = color.split(" ");
+		double[] v = new double[hex ? parts.length + 2 : parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			if (hex && i == 0) {
+				String h = parts[0].replace("#", "");
+				for (int c = 0; c < 3; c++) {
+					v[c] = Integer.parseInt(h.substring(2 * c, 2 * c + 2), 16);
+				}
+			} else {
+				v[hex ? i + 2 : i] = Double.parseDouble(parts[i]);
+			}
+		}
+		return v;
+	}
+
+	/***
+	 * Checks that the components are the values of the formatted colors
+	 */
+	@Test
+	public void componentsMatchFormattedColors() {
+		Random rng = new Random(20261016L);
+		for (String cspace : SPACES) {
+			ColorEncoder encoder = ColorEncoder.forSpace(cspace,
+					ColorEncoder.SHORTEST);
+			double[] comp = new double[encoder.size()];
+			for (int i = 0; i < 1000; i++) {
+				double r = rng.nextFloat(), g = rng.nextFloat();
+				double b = rng.nextFloat(), a = rng.nextFloat();
+				String color = encoder.encode(r, g, b, a);
+				encoder.components(r, g, b, a, comp);
+				assertArrayEquals(cspace + " " + color, values(color,
+						cspace.startsWith("hex") || cspace.startsWith("web")),
+						comp, 0.0);
+			}
+		}
+	}
+
+	/***
+	 * Checks the number and names of the components of each color space
+	 */
+	@Test
+	public void componentNames() {
+		String[] rgb = { "red", "green", "blue" };
+		String[] rgba = { "red", "green", "blue", "opacity" };
+		String[] hsb = { "hue", "saturation", "brightness" };
+		String[] hsba = { "hue", "saturation", "brightness", "opacity" };
+		String[][] names = { rgb, rgba, rgb, rgba, hsb, hsba, rgb, rgba, rgb,
+				rgba };
+		for (int i = 0; i < SPACES.length; i++) {
+			ColorEncoder encoder = ColorEncoder.forSpace(SPACES[i], 4);
+			assertEquals(SPACES[i], names[i].length, encoder.size());
+			assertArrayEquals(SPACES[i], names[i], encoder.componentNames());
+		}
+	}
+
+	/***
+	 * Checks that the components of integer valued colors are in [0, 255]
+	 * and that the components of decimal valued colors are not rounded
+	 */
+	@Test
+	public void componentsOfEachSpace() {
+		double[] comp = new double[4];
+		ColorEncoder.forSpace("rgba", 2).components(1.0, 0.5, 0.0, 0.25, comp);
+		assertArrayEquals(new double[]{ 255, 128, 0, 0.25 }, comp, 0.0);
+		ColorEncoder.forSpace("srgb", 2).components(0.123456, 1, 0, 0.25, comp);
+		assertArrayEquals(new double[]{ 0.123456, 1, 0 },
+				new double[]{ comp[0], comp[1], comp[2] }, 0.0);
+		ColorEncoder.forSpace("hsba", 2).components(1.0, 0.0, 0.0, 0.5, comp);
+		assertArrayEquals(new double[]{ 0, 1, 1, 0.5 }, comp, 0.0);
+	}
+
+}
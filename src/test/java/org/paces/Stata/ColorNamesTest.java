@@ -0,0 +1,145 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that the grid index of the named colors returns the same names and
+ * color differences as a scan of every named color.
+ */
+public class ColorNamesTest {
+
+	/***
+	 * Named colors compared by the scan in sorted order
+	 */
+	private static final List<String> NAMES = new ArrayList<>();
+
+	/***
+	 * CIELAB coordinates of the named colors
+	 */
+	private static final List<double[]> LAB = new ArrayList<>();
+
+	// Populates the named colors without opacity
+	static {
+		Map<String, Color> colors = Color.namedColors();
+		for (Map.Entry<String, Color> e : colors.entrySet()) {
+			if (e.getValue().getOpacity() == 1) NAMES.add(e.getKey());
+		}
+		Collections.sort(NAMES);
+		for (String name : NAMES) {
+			Color c = colors.get(name);
+			double[] lab = new double[3];
+			TerpSpace.LAB.encode(c.getRed(), c.getGreen(), c.getBlue(), lab);
+			LAB.add(lab);
+		}
+	}
+
+	/***
+	 * Method used to find the nearest named color by comparing every named
+	 * color
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 * @param distance An array where the color difference is stored
+	 * @return The name of the first nearest named color
+	 */
+	private static String scan(double red, double green, double blue,
+							   double[] distance) {
+		double[] c = new double[3];
+		TerpSpace.LAB.encode(red, green, blue, c);
+		double best = Double.POSITIVE_INFINITY;
+		int arg = 0;
+		for (int i = 0; i < NAMES.size(); i++) {
+			double[] lab = LAB.get(i);
+			double dl = lab[0] - c[0], da = lab[1] - c[1], db = lab[2] - c[2];
+			double dist = dl * dl + da * da + db * db;
+			if (dist < best) {
+				best = dist;
+				arg = i;
+			}
+		}
+		distance[0] = Math.sqrt(best);
+		return NAMES.get(arg);
+	}
+
+	/***
+	 * Method used to compare the index and the scan for a color
+	 * @param red The red channel value in [0, 1]
+	 * @param green The green channel value in [0, 1]
+	 * @param blue The blue channel value in [0, 1]
+	 */
+	private static void check(double red, double green, double blue) {
+		double[] expected = new double[1], actual = new double[1];
+		String msg = red + " " + green + " " + blue;
+		assertEquals(msg, scan(red, green, blue, expected),
+				ColorNames.nearest(red, green, blue, actual));
+		assertEquals(msg, expected[0], actual[0], 0.0);
+	}
+
+	/***
+	 * Checks that every named color is indexed
+	 */
+	@Test
+	public void indexHoldsEveryNamedColor() {
+		assertEquals(NAMES.size(), ColorNames.size());
+	}
+
+	/***
+	 * Checks random colors and the corners of the sRGB cube
+	 */
+	@Test
+	public void nearestMatchesScan() {
+		Random rng = new Random(20261016L);
+		for (int i = 0; i < 20000; i++) {
+			check(rng.nextDouble(), rng.nextDouble(), rng.nextDouble());
+		}
+		for (int i = 0; i < 8; i++) check(i & 1, i >> 1 & 1, i >> 2 & 1);
+	}
+
+	/***
+	 * Checks the 8-bit colors on a grid, which include colors halfway
+	 * between named colors
+	 */
+	@Test
+	public void nearestMatchesScanOnGrid() {
+		for (int r = 0; r < 256; r += 15) {
+			for (int g = 0; g < 256; g += 15) {
+				for (int b = 0; b < 256; b += 15) {
+					check(r / 255.0, g / 255.0, b / 255.0);
+				}
+			}
+		}
+	}
+
+	/***
+	 * Checks that the named colors are their own nearest colors and that
+	 * names with the same color resolve to the name that sorts first
+	 */
+	@Test
+	public void namedColorsAreExact() {
+		double[] distance = new double[1];
+		Map<String, Color> colors = Color.namedColors();
+		for (String name : NAMES) {
+			Color c = colors.get(name);
+			String nearest = ColorNames.nearest(c.getRed(), c.getGreen(),
+					c.getBlue(), distance);
+			assertEquals(name, 0.0, distance[0], 0.0);
+			assertEquals(name, c, colors.get(nearest));
+			assertTrue(name, nearest.compareTo(name) <= 0);
+		}
+		assertEquals("gray", ColorNames.nearest(128 / 255.0, 128 / 255.0,
+				128 / 255.0, distance));
+	}
+
+}
@@ -0,0 +1,160 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that the single pass parser returns the same numbers as the
+ * standard library parsers and the same colors as the Color factories.
+ */
+public class ColorParserTest {
+
+	/***
+	 * Method used to check that a string parses to the same double as
+	 * Double.parseDouble (including the sign of zero)
+	 * @param s The string
+	 */
+	private static void checkDouble(String s) {
+		assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)),
+				Double.doubleToLongBits(ColorParser.parseDouble(s, 0, s.length())));
+	}
+
+	/***
+	 * Checks randomized plain decimal values, which use the fast path
+	 */
+	@Test
+	public void fastDecimalPathMatchesParseDouble() {
+		Random rnd = new Random(20261016L);
+		StringBuilder sb = new StringBuilder();
+		for (int k = 0; k < 200000; k++) {
+			sb.setLength(0);
+			int sign = rnd.nextInt(4);
+			if (sign == 0) sb.append('-');
+			else if (sign == 1) sb.append('+');
+			int digits = 1 + rnd.nextInt(15);
+			int point = rnd.nextInt(digits + 1);
+			for (int d = 0; d < digits; d++) {
+				if (d == point) sb.append('.');
+				sb.append((char) ('0' + rnd.nextInt(10)));
+			}
+			checkDouble(sb.toString());
+		}
+	}
+
+	/***
+	 * Checks edge cases of the fast path and values that fall back to
+	 * Double.parseDouble
+	 */
+	@Test
+	public void edgeCasesMatchParseDouble() {
+		String[] cases = { "0", "-0", "+0", "0.", ".5", "-.5", "5.", "1",
+				"0.1", "0.3", "0.7", "255", "0.0000000000000000000001",
+				"0.00000000000000000000001", "999999999999999",
+				"9999999999999999", "12345678901234567890", "0.1234567890123456789",
+				"1e3", "1E-3", "-2.5e+2", "Infinity", "-Infinity", "NaN",
+				"1.7976931348623157E308", "4.9e-324", "0x1p3" };
+		for (String s : cases) checkDouble(s);
+	}
+
+	/***
+	 * Checks that strings that are not numbers are rejected
+	 */
+	@Test
+	public void invalidNumbersAreRejected() {
+		for (String s : new String[]{ "", "-", ".", "1.2.3", "12a", "a12" }) {
+			try {
+				ColorParser.parseDouble(s, 0, s.length());
+				fail("Parsed " + s);
+			} catch (NumberFormatException e) {
+				// Expected
+			}
+		}
+	}
+
+	/***
+	 * Checks integers against Integer.parseInt
+	 */
+	@Test
+	public void parseIntMatchesIntegerParseInt() {
+		Random rnd = new Random(7L);
+		for (int k = 0; k < 100000; k++) {
+			String s = Integer.toString(rnd.nextInt());
+			assertEquals(s, Integer.parseInt(s), ColorParser.parseInt(s, 0,
+					s.length()));
+		}
+		for (String s : new String[]{ "0", "+7", "-0", "255", "2147483647",
+				"-2147483648" }) {
+			assertEquals(s, Integer.parseInt(s), ColorParser.parseInt(s, 0,
+					s.length()));
+		}
+	}
+
+	/***
+	 * Checks colors with any mix of spaces, tabs, and commas between fields
+	 */
+	@Test
+	public void delimitedColorsMatchFactories() {
+		Color rgb = Color.rgb(5, 37, 249);
+		assertEquals(rgb, ColorParser.parse("5 37 249", "rgb"));
+		assertEquals(rgb, ColorParser.parse("5, 37, 249", "rgb"));
+		assertEquals(rgb, ColorParser.parse(" 5,37\t249 ", "rgb"));
+		assertEquals(Color.rgb(10, 20, 30, 0.5),
+				ColorParser.parse("10 20 30 0.5", "rgba"));
+		assertEquals(Color.color(0.2, 0.5, 0.9),
+				ColorParser.parse("0.2 0.5 0.9", "srgb"));
+		assertEquals(Color.hsb(270, 1, 1, 0.4),
+				ColorParser.parse("270.0, 1.0, 1.0, 0.4", "hsba"));
+	}
+
+	/***
+	 * Checks hexadecimal colors decoded directly against Color.web
+	 */
+	@Test
+	public void hexColorsMatchColorWeb() {
+		Random rnd = new Random(11L);
+		for (int k = 0; k < 10000; k++) {
+			String hex = String.format("%06x", rnd.nextInt(1 << 24));
+			assertEquals(hex, Color.web(hex), ColorParser.parse(hex, "web"));
+			assertEquals(hex, Color.web("#" + hex), ColorParser.parse("#" +
+					hex, "hex"));
+			assertEquals(hex, Color.web("0x" + hex), ColorParser.parse("0x" +
+					hex, "web"));
+		}
+		assertEquals(Color.web("#c5732f", 0.5),
+				ColorParser.parse("#c5732f 0.5", "web"));
+		assertEquals(Color.web("#c5732f80"), ColorParser.parse("#c5732f80", "weba"));
+		assertEquals(Color.web("steelblue"), ColorParser.parse("steelblue", "web"));
+		assertEquals(Color.web("rgb(10, 20, 30)"),
+				ColorParser.parse("rgb(10, 20, 30)", "web"));
+	}
+
+	/***
+	 * Checks lists of colors and numbers
+	 */
+	@Test
+	public void listsAreSplitOnDelimiters() {
+		Color[] colors = ColorParser.parseList("255 0 0;; 0 255 0 ;0,0,255",
+				';', "rgb");
+		assertArrayEquals(new Color[]{ Color.rgb(255, 0, 0), Color.rgb(0, 255, 0),
+				Color.rgb(0, 0, 255) }, colors);
+		assertArrayEquals(new double[]{ 0, 0.25, 1 },
+				ColorParser.parseNumbers("0, 0.25 1"), 0.0);
+	}
+
+	/***
+	 * Checks that colors with the wrong number of fields are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void extraFieldsAreRejected() {
+		ColorParser.parse("1 2 3 4", "rgb");
+	}
+
+} // End of Class declaration
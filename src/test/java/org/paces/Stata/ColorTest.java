@@ -0,0 +1,122 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that the Color class returns the same channels as
+ * javafx.scene.paint.Color (see JavaFXReference).
+ */
+public class ColorTest {
+
+	/***
+	 * Method used to create a color from channel values
+	 * @param c The red, green, blue, and opacity values
+	 * @return The color
+	 */
+	private static Color color(double[] c) {
+		return Color.color(c[0], c[1], c[2], c[3]);
+	}
+
+	/***
+	 * Method used to get the channel values of a color
+	 * @param c The color
+	 * @return The red, green, blue, and opacity values
+	 */
+	private static double[] channels(Color c) {
+		return new double[]{ c.getRed(), c.getGreen(), c.getBlue(),
+				c.getOpacity() };
+	}
+
+	/***
+	 * Checks linear interpolation between two colors
+	 */
+	@Test
+	public void interpolateMatchesJavaFX() {
+		for (String[] c : JavaFXReference.cases("interpolate")) {
+			Color start = color(JavaFXReference.channels(c[0]));
+			Color end = color(JavaFXReference.channels(c[1]));
+			Color terp = start.interpolate(end, Double.parseDouble(c[2]));
+			assertArrayEquals(String.join(" | ", c),
+					JavaFXReference.channels(c[3]), channels(terp), 0.0);
+		}
+	}
+
+	/***
+	 * Checks the color modifications
+	 */
+	@Test
+	public void modificationsMatchJavaFX() {
+		String[] ops = { "brighter", "darker", "saturate", "desaturate",
+				"invert", "grayscale" };
+		for (String op : ops) {
+			for (String[] c : JavaFXReference.cases(op)) {
+				Color col = color(JavaFXReference.channels(c[0]));
+				Color mod;
+				switch (op) {
+					case "brighter": mod = col.brighter(); break;
+					case "darker": mod = col.darker(); break;
+					case "saturate": mod = col.saturate(); break;
+					case "desaturate": mod = col.desaturate(); break;
+					case "invert": mod = col.invert(); break;
+					default: mod = col.grayscale(); break;
+				}
+				assertArrayEquals(op + " " + c[0], JavaFXReference.channels(c[1]),
+						channels(mod), 0.0);
+			}
+		}
+	}
+
+	/***
+	 * Checks the hue, saturation, and brightness of colors
+	 */
+	@Test
+	public void hsbGettersMatchJavaFX() {
+		for (String[] c : JavaFXReference.cases("hsbof")) {
+			Color col = color(JavaFXReference.channels(c[0]));
+			assertArrayEquals(c[0], JavaFXReference.values(c[1]),
+					new double[]{ col.getHue(), col.getSaturation(),
+							col.getBrightness() }, 0.0);
+		}
+	}
+
+	/***
+	 * Checks colors created from hue, saturation, and brightness values
+	 */
+	@Test
+	public void hsbFactoryMatchesJavaFX() {
+		for (String[] c : JavaFXReference.cases("hsb")) {
+			double[] v = JavaFXReference.values(c[0]);
+			assertArrayEquals(c[0], JavaFXReference.channels(c[1]),
+					channels(Color.hsb(v[0], v[1], v[2], v[3])), 0.0);
+		}
+	}
+
+	/***
+	 * Checks colors parsed from web color strings
+	 */
+	@Test
+	public void webMatchesJavaFX() {
+		for (String[] c : JavaFXReference.cases("web")) {
+			assertArrayEquals(c[0], JavaFXReference.channels(c[1]),
+					channels(Color.web(c[0])), 0.0);
+		}
+	}
+
+	/***
+	 * Checks that equal channels give equal colors
+	 */
+	@Test
+	public void equalChannelsAreEqual() {
+		Color a = Color.rgb(197, 115, 47);
+		Color b = Color.web("#c5732f");
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+	}
+
+} // End of Class declaration
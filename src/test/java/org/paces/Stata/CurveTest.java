@@ -0,0 +1,142 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that the Catmull-Rom splines pass through every anchor color and
+ * that the B-splines start and end on the first and last anchors of each
+ * curve.
+ */
+public class CurveTest {
+
+	/***
+	 * Anchor colors of the gradients (in single precision, as stored by the
+	 * engine)
+	 */
+	private static final double[][] ANCHORS = {
+		{ 0.77254903f, 0.4509804f, 0.18431373f, 1 },
+		{ 0.96862745f, 0.96862745f, 0.96862745f, 0.75f },
+		{ 0.2f, 0.6f, 0.3f, 0.5f },
+		{ 0.019607844f, 0.14509805f, 0.9764706f, 1 }
+	};
+
+	/***
+	 * Positions of the anchors
+	 */
+	private static final double[][] POSITIONS = {
+		{ 0, 1.0 / 3, 2.0 / 3, 1 },
+		{ 0, 0.2, 0.7, 1 }
+	};
+
+	/***
+	 * Color spaces used to interpolate the gradients
+	 */
+	private static final TerpSpace[] SPACES = { TerpSpace.SRGB,
+			TerpSpace.OKLAB, TerpSpace.LAB };
+
+	/***
+	 * Method used to get the largest difference between two colors
+	 * @param x The channel values of a color
+	 * @param y The channel values of another color
+	 * @return The largest absolute difference between the channels
+	 */
+	private static double maxDiff(double[] x, double[] y) {
+		double max = 0.0;
+		for (int c = 0; c < 4; c++) max = Math.max(max, Math.abs(x[c] - y[c]));
+		return max;
+	}
+
+	/***
+	 * Checks that the Catmull-Rom splines reproduce every anchor
+	 */
+	@Test
+	public void catmullRomPassesThroughAnchors() {
+		double[] out = new double[4];
+		for (TerpSpace space : SPACES) {
+			for (double[] pos : POSITIONS) {
+				TerpEngine engine = new TerpEngine(ANCHORS, pos, space,
+						Curve.CATMULLROM);
+				for (int k = 0; k < ANCHORS.length; k++) {
+					engine.interpolate(pos[k], out);
+					assertArrayEquals(space + " " + pos[k], ANCHORS[k], out,
+							1e-6);
+				}
+
+				// The curve does not follow the straight segments
+				TerpEngine linear = new TerpEngine(ANCHORS, pos, space);
+				double[] line = new double[4];
+				double t = pos[1] + (pos[2] - pos[1]) / 3;
+				engine.interpolate(t, out);
+				linear.interpolate(t, line);
+				assertTrue(space + " " + t, maxDiff(out, line) > 1e-3);
+			}
+		}
+	}
+
+	/***
+	 * Checks that the B-splines start and end on the first and last anchors
+	 * and only approach the intermediate anchors
+	 */
+	@Test
+	public void bSplineEndsOnAnchors() {
+		double[] out = new double[4];
+		int last = ANCHORS.length - 1;
+		for (TerpSpace space : SPACES) {
+			for (double[] pos : POSITIONS) {
+				TerpEngine engine = new TerpEngine(ANCHORS, pos, space,
+						Curve.BSPLINE);
+				engine.interpolate(0.0, out);
+				assertArrayEquals(space.toString(), ANCHORS[0], out, 0.0);
+				engine.interpolate(1.0, out);
+				assertArrayEquals(space.toString(), ANCHORS[last], out, 0.0);
+
+				// The curve approaches the ends continuously
+				engine.interpolate(1e-9, out);
+				assertArrayEquals(space.toString(), ANCHORS[0], out, 1e-6);
+				engine.interpolate(1 - 1e-9, out);
+				assertArrayEquals(space.toString(), ANCHORS[last], out, 1e-6);
+
+				// The intermediate anchors are control points
+				engine.interpolate(pos[1], out);
+				assertTrue(space.toString(), maxDiff(out, ANCHORS[1]) > 1e-3);
+			}
+		}
+	}
+
+	/***
+	 * Checks that hard stops split the gradient into curves that each start
+	 * and end on their anchors
+	 */
+	@Test
+	public void hardStopsSplitCurves() {
+		double[] pos = { 0, 0.5, 0.5, 1 };
+		double[] out = new double[4];
+		for (Curve curve : new Curve[]{ Curve.CATMULLROM, Curve.BSPLINE }) {
+			TerpEngine engine = new TerpEngine(ANCHORS, pos, TerpSpace.OKLAB,
+					curve);
+			engine.interpolate(0.5 - 1e-9, out);
+			assertArrayEquals(curve.toString(), ANCHORS[1], out, 1e-6);
+			engine.interpolate(0.5 + 1e-9, out);
+			assertArrayEquals(curve.toString(), ANCHORS[2], out, 1e-6);
+		}
+	}
+
+	/***
+	 * Checks the names accepted by the curve option
+	 */
+	@Test
+	public void curveNames() {
+		assertEquals(Curve.LINEAR, Curve.fromString(""));
+		assertEquals(Curve.CATMULLROM, Curve.fromString("Catmull-Rom"));
+		assertEquals(Curve.BSPLINE, Curve.fromString(" b-spline "));
+		assertEquals("bspline", Curve.BSPLINE.toString());
+	}
+
+}
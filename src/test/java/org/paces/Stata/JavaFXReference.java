@@ -0,0 +1,98 @@
+package org.paces.stata;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Reader for javafx-reference.tsv, the values returned by
+ * javafx.scene.paint.Color (OpenJFX 17.0.2) for a fixed set of colors,
+ * distances, and color strings.  The file is used by the parity tests so
+ * they do not depend on JavaFX.  Each line is the name of an operation
+ * followed by tab delimited fields of space delimited values.  Channels are
+ * written as single precision values (the precision of the channels of a
+ * JavaFX color) and other values as double precision values.
+ */
+final class JavaFXReference {
+
+	/***
+	 * Name of the resource with the reference values
+	 */
+	private static final String RESOURCE = "javafx-reference.tsv";
+
+	/***
+	 * Constructor method for JavaFXReference class (static methods only)
+	 */
+	private JavaFXReference() {
+	}
+
+	/***
+	 * Method used to read the reference values of an operation
+	 * @param op The name of the operation (e.g., interpolate or brighter)
+	 * @return The fields following the name of the operation on each line
+	 */
+	static List<String[]> cases(String op) {
+
+		// Fields of each line of the operation
+		List<String[]> cases = new ArrayList<>();
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				JavaFXReference.class.getResourceAsStream(RESOURCE),
+				StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith("#")) continue;
+				String[] fields = line.split("\t");
+				if (fields[0].equals(op)) {
+					String[] rest = new String[fields.length - 1];
+					System.arraycopy(fields, 1, rest, 0, rest.length);
+					cases.add(rest);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		// The operation must have reference values
+		if (cases.isEmpty()) {
+			throw new IllegalStateException("No reference values for " + op);
+		}
+		return cases;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to parse the single precision channels of a field
+	 * @param field Space delimited channel values
+	 * @return The channel values
+	 */
+	static double[] channels(String field) {
+		String[] parts = field.trim().split(" ");
+		double[] values = new double[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			values[i] = Float.parseFloat(parts[i]);
+		}
+		return values;
+	}
+
+	/***
+	 * Method used to parse the double precision values of a field
+	 * @param field Space delimited values
+	 * @return The values
+	 */
+	static double[] values(String field) {
+		String[] parts = field.trim().split(" ");
+		double[] values = new double[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			values[i] = Double.parseDouble(parts[i]);
+		}
+		return values;
+	}
+
+} // End of Class declaration
@@ -0,0 +1,157 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that the colors selected with the tree are the colors selected by a
+ * brute force farthest point scan with the same tie breaking.
+ */
+public class LabTreeTest {
+
+	/***
+	 * Method used to select colors by scanning every candidate for each
+	 * selected color
+	 * @param channels The red, green, blue, and opacity values of each color
+	 * @param k The number of colors to select
+	 * @param gaps An array of at least k elements for the difference of each
+	 *                selected color and the nearest color selected before it
+	 * @return The indices of the selected colors in the order selected
+	 */
+	private static int[] scan(double[] channels, int k, double[] gaps) {
+
+		// Coordinates of the colors
+		int n = channels.length / 4;
+		double[] lab = new double[3 * n];
+		double[] c = new double[3];
+		for (int i = 0; i < n; i++) {
+			TerpSpace.LAB.encode(channels[4 * i], channels[4 * i + 1],
+					channels[4 * i + 2], c);
+			System.arraycopy(c, 0, lab, 3 * i, 3);
+		}
+
+		// Starts with the starting color
+		double[] nearest = new double[n];
+		Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+		boolean[] taken = new boolean[n];
+		int[] selected = new int[k];
+		int next = 0;
+
+		// Loop over the selected colors
+		for (int s = 0; s < k; s++) {
+			selected[s] = next;
+			gaps[s] = Math.sqrt(nearest[next]);
+			taken[next] = true;
+
+			// Farthest unselected color (the lowest index for ties)
+			int arg = -1;
+			for (int i = 0; i < n; i++) {
+				if (taken[i]) continue;
+				double dl = lab[3 * i] - lab[3 * next];
+				double da = lab[3 * i + 1] - lab[3 * next + 1];
+				double db = lab[3 * i + 2] - lab[3 * next + 2];
+				double d = dl * dl + da * da + db * db;
+				if (d < nearest[i]) nearest[i] = d;
+				if (arg < 0 || nearest[i] > nearest[arg]) arg = i;
+			}
+			next = arg;
+		}
+
+		// Returns the indices of the selected colors
+		return selected;
+
+	} // End of Method declaration
+
+	/***
+	 * Method used to check the tree against the scan for every number of
+	 * selected colors up to a limit
+	 * @param channels The channel values of the palette
+	 * @param limit The largest number of colors to select
+	 */
+	private static void check(double[] channels, int limit) {
+		LabTree tree = new LabTree(channels);
+		int n = tree.size();
+		int k = Math.min(n, limit);
+		double[] expected = new double[k], actual = new double[k];
+		int[] scanned = scan(channels, k, expected);
+		assertArrayEquals("n = " + n, scanned, tree.select(k, actual));
+		assertArrayEquals("n = " + n, expected, actual, 0.0);
+
+		// Selecting fewer colors returns a prefix of the selection
+		int[] prefix = tree.select(Math.max(1, k / 2), null);
+		assertArrayEquals(Arrays.copyOf(scanned, prefix.length), prefix);
+	}
+
+	/***
+	 * Checks random palettes of several sizes
+	 */
+	@Test
+	public void randomPalettesMatchScan() {
+		Random rnd = new Random(20261016L);
+		for (int n : new int[]{ 1, 2, 7, 8, 9, 64, 500, 3000 }) {
+			double[] channels = new double[4 * n];
+			for (int i = 0; i < channels.length; i++) {
+				channels[i] = i % 4 == 3 ? 1.0 : rnd.nextDouble();
+			}
+			check(channels, n <= 500 ? n : 64);
+		}
+	}
+
+	/***
+	 * Checks a dense gradient whose 8-bit colors repeat
+	 */
+	@Test
+	public void quantizedGradientMatchesScan() {
+		PaletteSpec spec = PaletteSpec.builder().inSpace(ColorSpace.RGB)
+				.start("197 115 47").end("5 37 249").stops("247 247 247")
+				.points(1999).build();
+		double[] channels = spec.getChannels();
+		for (int i = 0; i < channels.length; i++) {
+			channels[i] = Math.round(channels[i] * 255) / 255.0;
+		}
+		check(channels, channels.length / 4);
+	}
+
+	/***
+	 * Checks that a palette with fewer distinct colors than the number of
+	 * selected colors never selects a color twice
+	 */
+	@Test
+	public void repeatedColorsAreSelectedOnce() {
+
+		// Ten colors cycling through three values
+		double[][] values = { { 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 } };
+		double[] channels = new double[40];
+		for (int i = 0; i < 10; i++) {
+			System.arraycopy(values[i % 3], 0, channels, 4 * i, 3);
+			channels[4 * i + 3] = 1.0;
+		}
+		LabTree tree = new LabTree(channels);
+
+		// The distinct colors followed by the lowest unselected indices
+		double[] gaps = new double[5];
+		int[] selected = tree.select(5, gaps);
+		assertEquals(0, selected[0]);
+		assertArrayEquals(new int[]{ 1, 2 },
+				new int[]{ Math.min(selected[1], selected[2]),
+						Math.max(selected[1], selected[2]) });
+		assertArrayEquals(new int[]{ 3, 4 }, Arrays.copyOfRange(selected, 3, 5));
+		assertEquals(0.0, gaps[4], 0.0);
+		check(channels, 10);
+
+		// Every color is selected exactly once
+		int[] all = tree.select(10, null);
+		Arrays.sort(all);
+		assertArrayEquals(new int[]{ 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, all);
+
+	} // End of Method declaration
+
+} // End of Class declaration
@@ -0,0 +1,139 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests the parsing, the canonical form used for cache keys, and the
+ * multipliers of the color modification chains.
+ */
+public class ModifierChainTest {
+
+	/***
+	 * Colors modified by the chains
+	 */
+	private static final double[][] COLORS = {
+		{ 0.77254903, 0.4509804, 0.18431373, 1 },
+		{ 0.019607844, 0.14509805, 0.9764706, 0.5 },
+		{ 0.2, 0.6, 0.3, 0.75 },
+		{ 0, 0, 0, 1 },
+		{ 1, 1, 1, 1 }
+	};
+
+	/***
+	 * Engine used to apply the modifications
+	 */
+	private static final TerpEngine ENGINE = new TerpEngine(
+			new double[]{ 0, 0, 0, 1 }, new double[]{ 1, 1, 1, 1 });
+
+	/***
+	 * Checks that parsed chains are written in canonical form, so chains
+	 * that differ only in spelling share cache keys
+	 */
+	@Test
+	public void parseIsCanonical() {
+		ModifierChain chain = ModifierChain.parse(
+				"Brighter, desaturated:0.5  inverse grayscale");
+		assertEquals("brighter:0.7 desaturated:0.5 invert grayscale",
+				chain.toString());
+		assertEquals(4, chain.size());
+		ModifierChain built = new ModifierChain.Builder()
+				.add(Modifier.BRIGHTER, 0.7).add(Modifier.DESATURATED, 0.5)
+				.invert().grayscale().build();
+		assertEquals(built, chain);
+		assertEquals(built.hashCode(), chain.hashCode());
+		assertEquals(ModifierChain.parse("darker invert"),
+				ModifierChain.of(Modifier.DARKER, true, false));
+	}
+
+	/***
+	 * Checks that chains without steps share the empty chain
+	 */
+	@Test
+	public void emptyChains() {
+		assertSame(ModifierChain.NONE, ModifierChain.parse(""));
+		assertSame(ModifierChain.NONE, ModifierChain.parse(" , "));
+		assertSame(ModifierChain.NONE,
+				ModifierChain.of(Modifier.NONE, false, false));
+		assertTrue(ModifierChain.NONE.isEmpty());
+
+		// Several modifications passed by brewterpolate are ignored
+		assertEquals(ModifierChain.parse("grayscale"), ModifierChain.of(
+				new boolean[]{ true, true, false, false, false, true }));
+		assertEquals(ModifierChain.parse("saturated"), ModifierChain.of(
+				new boolean[]{ false, false, true, false, false, false }));
+	}
+
+	/***
+	 * Checks that the default factors produce the same colors as the
+	 * modifications of the engine
+	 */
+	@Test
+	public void defaultFactorsMatchEngine() {
+		String[] ops = { "brighter", "darker", "saturated", "desaturated",
+				"invert", "grayscale" };
+		for (String op : ops) {
+			ModifierChain chain = ModifierChain.parse(op);
+			for (double[] c : COLORS) {
+				double[] expected = c.clone(), actual = c.clone();
+				switch (op) {
+					case "brighter": ENGINE.brighter(expected); break;
+					case "darker": ENGINE.darker(expected); break;
+					case "saturated": ENGINE.saturate(expected); break;
+					case "desaturated": ENGINE.desaturate(expected); break;
+					case "invert": ENGINE.invert(expected); break;
+					default: ENGINE.grayscale(expected); break;
+				}
+				chain.apply(ENGINE, actual);
+				assertArrayEquals(op, expected, actual, 0.0);
+			}
+		}
+	}
+
+	/***
+	 * Checks that the factors are resolved to the saturation and brightness
+	 * multipliers of deriveColor and that the steps are applied in order
+	 */
+	@Test
+	public void factorsMatchDeriveColor() {
+		ModifierChain chain = ModifierChain.parse(
+				"brighter:0.8 desaturated:0.5 invert darker:0.25 saturated:0.9");
+		for (double[] c : COLORS) {
+			double[] expected = c.clone(), actual = c.clone();
+			ENGINE.deriveColor(expected, 1.0, 1.0 / 0.8);
+			ENGINE.deriveColor(expected, 0.5, 1.0);
+			ENGINE.invert(expected);
+			ENGINE.deriveColor(expected, 1.0, 0.25);
+			ENGINE.deriveColor(expected, 1.0 / 0.9, 1.0);
+			chain.apply(ENGINE, actual);
+			assertArrayEquals(chain.toString(), expected, actual, 0.0);
+		}
+	}
+
+	/***
+	 * Checks that unrecognized steps and invalid factors are rejected
+	 */
+	@Test
+	public void invalidStepsAreRejected() {
+		String[] invalid = { "invert:0.5", "grayscale:1", "darker:1.5",
+				"darker:0", "brighter:-0.2", "darker:abc", "sparkle",
+				"none" };
+		for (String chain : invalid) {
+			try {
+				ModifierChain.parse(chain);
+				fail(chain);
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+}
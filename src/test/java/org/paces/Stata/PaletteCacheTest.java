@@ -0,0 +1,158 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests the least recently used order, the eviction of palettes by number
+ * of colors, and the counters of the palette cache.
+ */
+public class PaletteCacheTest {
+
+	/***
+	 * Method used to compile a palette
+	 * @param end The ending color
+	 * @param points The number of interpolated colors
+	 * @param retspace The returned color space
+	 * @return The compiled palette with points + 1 colors
+	 */
+	private static PaletteSpec spec(String end, int points,
+									ColorSpace retspace) {
+		return PaletteSpec.builder().inSpace(ColorSpace.RGB).retSpace(retspace)
+				.start("197 115 47").end(end).points(points).build();
+	}
+
+	/***
+	 * Method used to compile a palette formatted as rgb
+	 * @param end The ending color
+	 * @param points The number of interpolated colors
+	 * @return The compiled palette with points + 1 colors
+	 */
+	private static PaletteSpec spec(String end, int points) {
+		return spec(end, points, ColorSpace.RGB);
+	}
+
+	/***
+	 * Method used to check the counters of a cache
+	 * @param cache The cache
+	 * @param hits The expected number of hits
+	 * @param misses The expected number of misses
+	 * @param evictions The expected number of evictions
+	 * @param entries The expected number of palettes
+	 */
+	private static void counters(PaletteCache cache, long hits, long misses,
+								 long evictions, int entries) {
+		assertEquals("hits", hits, cache.getHits());
+		assertEquals("misses", misses, cache.getMisses());
+		assertEquals("evictions", evictions, cache.getEvictions());
+		assertEquals("entries", entries, cache.getEntries());
+	}
+
+	/***
+	 * Checks that the least recently used palettes are evicted first
+	 */
+	@Test
+	public void leastRecentlyUsedPalettesAreEvicted() {
+		PaletteCache cache = new PaletteCache(30);
+		PaletteSpec a = spec("5 37 249", 9), b = spec("0 0 0", 9),
+				c = spec("255 255 255", 9), d = spec("0 128 0", 9);
+
+		// Fills the cache with three palettes of ten colors
+		assertArrayEquals(a.channels(), cache.channels(a), 0.0);
+		assertArrayEquals(a.channels(), cache.channels(a), 0.0);
+		cache.channels(b);
+		cache.channels(c);
+		counters(cache, 1, 3, 0, 3);
+
+		// Uses the first palette, so the second is evicted by the fourth
+		cache.channels(a);
+		cache.channels(d);
+		counters(cache, 2, 4, 1, 3);
+		cache.channels(a);
+		cache.channels(c);
+		cache.channels(d);
+		counters(cache, 5, 4, 1, 3);
+		cache.channels(b);
+		counters(cache, 5, 5, 2, 3);
+
+	} // End of Method declaration
+
+	/***
+	 * Checks that palettes are evicted by their number of colors and that
+	 * palettes larger than the cache are not stored
+	 */
+	@Test
+	public void palettesAreEvictedByColors() {
+		PaletteCache cache = new PaletteCache(30);
+		PaletteSpec large = spec("5 37 249", 24), small = spec("0 0 0", 9),
+				tooLarge = spec("255 255 255", 30);
+
+		// The small palette does not fit with the large palette
+		cache.channels(large);
+		cache.channels(small);
+		counters(cache, 0, 2, 1, 1);
+		cache.channels(small);
+		counters(cache, 1, 2, 1, 1);
+
+		// Palettes with more colors than the capacity are never stored
+		assertArrayEquals(tooLarge.channels(), cache.channels(tooLarge), 0.0);
+		cache.channels(tooLarge);
+		counters(cache, 1, 4, 1, 1);
+
+	} // End of Method declaration
+
+	/***
+	 * Checks that reducing the capacity evicts the least recently used
+	 * palettes and that clearing the cache resets the counters
+	 */
+	@Test
+	public void shrinkingEvictsAndClearResets() {
+		PaletteCache cache = new PaletteCache(30);
+		PaletteSpec a = spec("5 37 249", 9), b = spec("0 0 0", 9),
+				c = spec("255 255 255", 9);
+		cache.channels(a);
+		cache.channels(b);
+		cache.channels(c);
+		cache.channels(a);
+
+		// Keeps the most recently used palette
+		cache.setCapacity(15);
+		assertEquals(15, cache.getCapacity());
+		counters(cache, 1, 3, 2, 1);
+		cache.channels(a);
+		counters(cache, 2, 3, 2, 1);
+
+		// Clears the palettes and the counters
+		cache.clear();
+		counters(cache, 0, 0, 0, 0);
+
+	} // End of Method declaration
+
+	/***
+	 * Checks that formatted palettes reuse the channel values of palettes
+	 * that differ only in the returned color space
+	 */
+	@Test
+	public void formattedPalettesReuseChannels() {
+		PaletteCache cache = new PaletteCache(30);
+		PaletteSpec rgb = spec("5 37 249", 9),
+				hex = spec("5 37 249", 9, ColorSpace.HEX);
+
+		// Misses both levels and then hits the formatted level
+		assertArrayEquals(rgb.colors(), cache.colors(rgb));
+		counters(cache, 0, 2, 0, 2);
+		assertArrayEquals(rgb.colors(), cache.colors(rgb));
+		counters(cache, 1, 2, 0, 2);
+
+		// Formats the cached channel values in another color space
+		assertArrayEquals(hex.colors(), cache.colors(hex));
+		counters(cache, 2, 3, 0, 3);
+
+	} // End of Method declaration
+
+} // End of Class declaration
@@ -0,0 +1,135 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests the CIEDE2000 color difference against the reference pairs of
+ * Sharma, Wu, and Dalal (2005), the WCAG contrast ratio against known
+ * values, and the tiled matrix against the individual pairs.
+ */
+public class PaletteQualityTest {
+
+	/***
+	 * L*, a*, and b* of the two colors of each pair in Table 1 of Sharma, Wu,
+	 * and Dalal (2005) followed by the CIEDE2000 color difference (rounded
+	 * to four decimal places)
+	 */
+	private static final double[][] SHARMA = {
+		{ 50.0000, 2.6772, -79.7751, 50.0000, 0.0000, -82.7485, 2.0425 },
+		{ 50.0000, 3.1571, -77.2803, 50.0000, 0.0000, -82.7485, 2.8615 },
+		{ 50.0000, 2.8361, -74.0200, 50.0000, 0.0000, -82.7485, 3.4412 },
+		{ 50.0000, -1.3802, -84.2814, 50.0000, 0.0000, -82.7485, 1.0000 },
+		{ 50.0000, -1.1848, -84.8006, 50.0000, 0.0000, -82.7485, 1.0000 },
+		{ 50.0000, -0.9009, -85.5211, 50.0000, 0.0000, -82.7485, 1.0000 },
+		{ 50.0000, 0.0000, 0.0000, 50.0000, -1.0000, 2.0000, 2.3669 },
+		{ 50.0000, -1.0000, 2.0000, 50.0000, 0.0000, 0.0000, 2.3669 },
+		{ 50.0000, 2.4900, -0.0010, 50.0000, -2.4900, 0.0009, 7.1792 },
+		{ 50.0000, 2.4900, -0.0010, 50.0000, -2.4900, 0.0010, 7.1792 },
+		{ 50.0000, 2.4900, -0.0010, 50.0000, -2.4900, 0.0011, 7.2195 },
+		{ 50.0000, 2.4900, -0.0010, 50.0000, -2.4900, 0.0012, 7.2195 },
+		{ 50.0000, -0.0010, 2.4900, 50.0000, 0.0009, -2.4900, 4.8045 },
+		{ 50.0000, -0.0010, 2.4900, 50.0000, 0.0010, -2.4900, 4.8045 },
+		{ 50.0000, -0.0010, 2.4900, 50.0000, 0.0011, -2.4900, 4.7461 },
+		{ 50.0000, 2.5000, 0.0000, 50.0000, 0.0000, -2.5000, 4.3065 },
+		{ 50.0000, 2.5000, 0.0000, 73.0000, 25.0000, -18.0000, 27.1492 },
+		{ 50.0000, 2.5000, 0.0000, 61.0000, -5.0000, 29.0000, 22.8977 },
+		{ 50.0000, 2.5000, 0.0000, 56.0000, -27.0000, -3.0000, 31.9030 },
+		{ 50.0000, 2.5000, 0.0000, 58.0000, 24.0000, 15.0000, 19.4535 },
+		{ 50.0000, 2.5000, 0.0000, 50.0000, 3.1736, 0.5854, 1.0000 },
+		{ 50.0000, 2.5000, 0.0000, 50.0000, 3.2972, 0.0000, 1.0000 },
+		{ 50.0000, 2.5000, 0.0000, 50.0000, 1.8634, 0.5757, 1.0000 },
+		{ 50.0000, 2.5000, 0.0000, 50.0000, 3.2592, 0.3350, 1.0000 },
+		{ 60.2574, -34.0099, 36.2677, 60.4626, -34.1751, 39.4387, 1.2644 },
+		{ 63.0109, -31.0961, -5.8663, 62.8187, -29.7946, -4.0864, 1.2630 },
+		{ 61.2901, 3.7196, -5.3901, 61.4292, 2.2480, -4.9620, 1.8731 },
+		{ 35.0831, -44.1164, 3.7933, 35.0232, -40.0716, 1.5901, 1.8645 },
+		{ 22.7233, 20.0904, -46.6940, 23.0331, 14.9730, -42.5619, 2.0373 },
+		{ 36.4612, 47.8580, 18.3852, 36.2715, 50.5065, 21.2231, 1.4146 },
+		{ 90.8027, -2.0831, 1.4410, 91.1528, -1.6435, 0.0447, 1.4441 },
+		{ 90.9257, -0.5406, -0.9208, 88.6381, -0.8985, -0.7239, 1.5381 },
+		{ 6.7747, -0.2908, -2.4247, 5.8714, -0.0985, -2.2286, 0.6377 },
+		{ 2.0776, 0.0795, -1.1350, 0.9033, -0.0636, -0.5514, 0.9082 }
+	};
+
+	/***
+	 * Checks the color difference of each reference pair in both orders
+	 */
+	@Test
+	public void deltaEMatchesSharmaPairs() {
+		for (int k = 0; k < SHARMA.length; k++) {
+			double[] p = SHARMA[k];
+			assertEquals("Pair " + (k + 1), p[6], PaletteQuality.deltaE(p[0],
+					p[1], p[2], p[3], p[4], p[5]), 5e-5);
+			assertEquals("Pair " + (k + 1) + " reversed", p[6],
+					PaletteQuality.deltaE(p[3], p[4], p[5], p[0], p[1], p[2]), 5e-5);
+		}
+	}
+
+	/***
+	 * Checks the contrast ratios of black, white, and gray
+	 */
+	@Test
+	public void contrastMatchesWcag() {
+		double white = PaletteQuality.luminance(1, 1, 1);
+		double black = PaletteQuality.luminance(0, 0, 0);
+		double gray = PaletteQuality.luminance(0x77 / 255.0, 0x77 / 255.0,
+				0x77 / 255.0);
+		assertEquals(21.0, PaletteQuality.contrast(white, black), 1e-12);
+		assertEquals(21.0, PaletteQuality.contrast(black, white), 1e-12);
+		assertEquals(1.0, PaletteQuality.contrast(gray, gray), 0.0);
+		assertEquals(4.478, PaletteQuality.contrast(white, gray), 5e-4);
+	}
+
+	/***
+	 * Checks that the tiled matrix, computed sequentially and in parallel,
+	 * matches the metric of each pair
+	 */
+	@Test
+	public void fullMatrixMatchesPairs() {
+
+		// Random palette that spans several tiles
+		Random rnd = new Random(20261016L);
+		int n = 150;
+		double[] channels = new double[4 * n];
+		for (int i = 0; i < channels.length; i++) {
+			channels[i] = i % 4 == 3 ? 1.0 : rnd.nextInt(256) / 255.0;
+		}
+		PaletteQuality q = new PaletteQuality(channels);
+
+		// Loop over the metrics
+		for (PaletteQuality.Metric m : PaletteQuality.Metric.values()) {
+			PaletteQuality.Result seq = q.full(m, -1);
+			PaletteQuality.Result par = q.full(m, 1);
+			assertArrayEquals(m.toString(), seq.getValues(), par.getValues(), 0.0);
+
+			// Each cell and the summary of the distinct pairs
+			double min = Double.POSITIVE_INFINITY, max = 0, sum = 0;
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					double v = q.pair(m, i, j);
+					assertEquals(v, seq.getValues()[i * n + j], 0.0);
+					if (j > i) {
+						min = Math.min(min, v);
+						max = Math.max(max, v);
+						sum += v;
+					}
+				}
+			}
+			assertEquals(n * (n - 1L) / 2, seq.getCount());
+			assertEquals(min, seq.getMin(), 0.0);
+			assertEquals(max, seq.getMax(), 0.0);
+			assertEquals(sum / seq.getCount(), seq.getMean(), 1e-9);
+			assertEquals(seq.getMean(), par.getMean(), 0.0);
+		}
+
+	} // End of Method declaration
+
+} // End of Class declaration
@@ -0,0 +1,140 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that specs compiled from the arguments passed by brewterpolate
+ * return the same palettes as ColorTerp.
+ */
+public class PaletteSpecTest {
+
+	/***
+	 * Checks the arguments with each of the name=value options
+	 */
+	@Test
+	public void parsedSpecMatchesColorTerp() {
+		String[][] cases = {
+			{ "rgb", "hex", "255 0 0", "0 0 255", "10", "brighter", "false", "false" },
+			{ "rgb", "srgba", "202 0 32", "5 113 176", "7", "", "false", "false",
+				"stops=247 247 247", "terpspace=oklab", "digits=4", "cache=false" },
+			{ "web", "hsb", "#c5732f", "navy", "5", "", "false", "false",
+				"modifiers=darker invert", "curve=catmullrom", "threshold=-1" },
+			{ "rgb", "rgba", "0 0 0", "255 255 255", "4", "", "false", "false",
+				"spacing=exact", "metrics=true", "names=true" },
+			{ "rgb", "rgb", "0 0 0", "255 255 255", "2", "", "false", "false",
+				"at=0 0.1 0.5 1" }
+		};
+		for (String[] args : cases) {
+			assertArrayEquals(String.join("|", args),
+					new ColorTerp(args, false).getPalette(),
+					PaletteSpec.parse(args).colors());
+		}
+	}
+
+	/***
+	 * Checks that the colors formatted by the constructor and the channel
+	 * values of getTChannels follow the spacing of the palette
+	 */
+	@Test
+	public void interpolatedColorsFollowSpacing() {
+		String[][] cases = {
+			{ "rgb", "rgba", "0 0 0", "255 255 255", "4", "", "false", "false",
+				"spacing=running" },
+			{ "rgb", "rgba", "0 0 0", "255 255 255", "4", "", "false", "false" },
+			{ "rgb", "rgba", "0 0 0", "255 255 255", "4", "", "false", "false",
+				"spacing=uniform", "modifiers=darker" },
+			{ "rgb", "rgb", "0 0 0", "255 255 255", "2", "", "false", "false",
+				"at=0 0.1 0.2 1" }
+		};
+		for (String[] args : cases) {
+			String[] palette = PaletteSpec.parse(args).colors();
+			assertArrayEquals(String.join("|", args),
+					Arrays.copyOfRange(palette, 1, palette.length),
+					new ColorTerp(args).getTColors());
+			assertArrayEquals(String.join("|", args),
+					PaletteSpec.parse(args).channels(),
+					new ColorTerp(args, false).getTChannels(), 0.0);
+		}
+	}
+
+	/***
+	 * Checks that the constructor rejects positions that do not match the
+	 * number of colors, as getPalette does
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void mismatchedPositionsAreRejected() {
+		new ColorTerp(new String[]{ "rgb", "rgb", "0 0 0", "255 255 255", "5",
+				"", "false", "false", "at=0 0.1 0.2 0.3 1" });
+	}
+
+	/***
+	 * Checks that modifying a palette returned from the session cache does
+	 * not modify the cached palette
+	 */
+	@Test
+	public void cachedPalettesAreCopied() {
+		String[] args = { "rgb", "rgba", "197 115 47", "5 37 249", "6", "",
+				"false", "false", "terpspace=oklab" };
+		String[] colors = new ColorTerp(args, false).getPalette();
+		double[] values = new ColorTerp(args, false).getPaletteChannels();
+		String first = colors[0];
+		double red = values[0];
+		colors[0] = null;
+		values[0] = -1.0;
+		assertEquals(first, new ColorTerp(args, false).getPalette()[0]);
+		assertEquals(red, new ColorTerp(args, false).getPaletteChannels()[0],
+				0.0);
+		assertEquals(red, PaletteSpec.parse(args).getChannels()[0], 0.0);
+	}
+
+	/***
+	 * Checks that the spec is compiled once and compiled again after one of
+	 * the setters changes the values
+	 */
+	@Test
+	public void specIsCompiledOnce() {
+		ColorTerp terp = new ColorTerp(new String[]{ "rgb", "hex", "0 0 0",
+				"255 255 255", "4", "", "false", "false", "spacing=uniform" },
+				false);
+		PaletteSpec spec = terp.spec();
+		assertSame(spec, terp.spec());
+		terp.setRetSpace("rgb");
+		assertNotSame(spec, terp.spec());
+		assertEquals("0 0 0", terp.spec().colors()[0]);
+	}
+
+	/***
+	 * Checks that unrecognized color spaces fall back to web colors for the
+	 * input and rgb for the returned colors
+	 */
+	@Test
+	public void unrecognizedSpacesFallBack() {
+		String[] colors = PaletteSpec.parse(new String[]{ "bar", "foo",
+				"#c5732f", "navy", "2", "", "false", "false" }).colors();
+		assertArrayEquals(new String[]{ "197 115 47", "131 77 74", "66 38 101",
+				"0 0 128" }, colors);
+		assertEquals(ColorSpace.RGB, ColorSpace.fromString("", ColorSpace.WEB));
+		assertEquals(ColorSpace.HSBA, ColorSpace.fromString(" HSBA ",
+				ColorSpace.RGB));
+	}
+
+	/***
+	 * Checks that unrecognized options are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void unrecognizedOptionsAreRejected() {
+		PaletteSpec.parse(new String[]{ "rgb", "rgb", "0 0 0", "1 1 1", "2", "",
+				"false", "false", "bogus=1" });
+	}
+
+} // End of Class declaration
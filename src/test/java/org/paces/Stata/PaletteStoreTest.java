@@ -0,0 +1,213 @@
+package org.paces.stata;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that palettes appended to a store, kept by compaction, and read
+ * after reopening the file are the same as the interpolated palettes.
+ */
+public class PaletteStoreTest {
+
+	/***
+	 * Directory for the store files
+	 */
+	@Rule
+	public TemporaryFolder dir = new TemporaryFolder();
+
+	/***
+	 * Method used to compile a palette
+	 * @param points The number of interpolated colors
+	 * @return The compiled palette
+	 */
+	private static PaletteSpec spec(int points) {
+		return PaletteSpec.builder().inSpace(ColorSpace.RGB)
+				.retSpace(ColorSpace.RGBA).start("197 115 47").end("5 37 249")
+				.stops("247 247 247").terpSpace(TerpSpace.OKLAB).points(points)
+				.build();
+	}
+
+	/***
+	 * Method used to collect the colors returned by a store
+	 * @param store The store
+	 * @param spec The compiled palette
+	 * @return The formatted colors
+	 */
+	private static String[] colors(PaletteStore store, PaletteSpec spec) {
+		List<String> colors = new ArrayList<>();
+		for (String c : store.colors(spec)) colors.add(c);
+		return colors.toArray(new String[0]);
+	}
+
+	/***
+	 * Checks palettes that are appended and then found in the file and
+	 * after the file is reopened
+	 */
+	@Test
+	public void appendedPalettesSurviveReopening() throws IOException {
+		Path file = this.dir.getRoot().toPath().resolve("palettes.store");
+		PaletteSpec a = spec(9), b = spec(250);
+
+		// Appends the palettes
+		PaletteStore store = new PaletteStore(file, PaletteStore.DEFAULT_CAPACITY);
+		assertArrayEquals(a.colors(), colors(store, a));
+		assertArrayEquals(b.channels(), store.channels(b), 0.0);
+		assertEquals(0, store.getHits());
+		assertEquals(2, store.getMisses());
+		assertEquals(2, store.getEntries());
+
+		// Finds the palettes in the mapped file
+		assertArrayEquals(a.colors(), colors(store, a));
+		assertArrayEquals(b.colors(), colors(store, b));
+		assertEquals(2, store.getHits());
+
+		// Finds the palettes after reopening the file
+		PaletteStore reopened = new PaletteStore(file,
+				PaletteStore.DEFAULT_CAPACITY);
+		assertEquals(2, reopened.getEntries());
+		assertEquals(store.getSize(), reopened.getSize());
+		assertArrayEquals(a.channels(), reopened.channels(a), 0.0);
+		assertArrayEquals(b.colors(), colors(reopened, b));
+		assertEquals(2, reopened.getHits());
+		assertEquals(0, reopened.getMisses());
+
+	} // End of Method declaration
+
+	/***
+	 * Checks that compaction keeps the file within its capacity and keeps
+	 * the most recent palettes
+	 */
+	@Test
+	public void compactionKeepsRecentPalettes() throws IOException {
+		Path file = this.dir.getRoot().toPath().resolve("small.store");
+		long capacity = 8192;
+		PaletteStore store = new PaletteStore(file, capacity);
+
+		// Adds more palettes than fit in the file
+		int n = 40;
+		for (int p = 20; p < 20 + n; p++) {
+			PaletteSpec s = spec(p);
+			assertArrayEquals(s.colors(), colors(store, s));
+			assertTrue(store.getSize() <= capacity);
+			assertTrue(Files.size(file) <= capacity);
+		}
+		assertEquals(n, store.getMisses());
+		assertTrue(store.getEntries() < n);
+
+		// The most recent palette is kept
+		PaletteSpec last = spec(20 + n - 1);
+		assertArrayEquals(last.colors(), colors(store, last));
+		assertEquals(1, store.getHits());
+
+		// The compacted file is indexed the same way after reopening
+		PaletteStore reopened = new PaletteStore(file, capacity);
+		assertEquals(store.getEntries(), reopened.getEntries());
+		assertEquals(store.getSize(), reopened.getSize());
+		assertArrayEquals(last.channels(), reopened.channels(last), 0.0);
+		assertEquals(1, reopened.getHits());
+
+	} // End of Method declaration
+
+	/***
+	 * Checks that a store shared with another session keeps returning the
+	 * interpolated palettes after it is filled past compaction
+	 */
+	@Test
+	public void sharedStoreSurvivesCompaction() throws IOException {
+		Path file = this.dir.getRoot().toPath().resolve("shared.store");
+		long capacity = 4096;
+		PaletteStore store = new PaletteStore(file, capacity);
+		PaletteStore other = new PaletteStore(file, capacity);
+
+		// The other session maps the file with the first palette
+		PaletteSpec first = spec(20);
+		assertArrayEquals(first.colors(), colors(other, first));
+
+		// Fills the store past several compactions
+		int n = 30;
+		for (int p = 21; p < 21 + n; p++) {
+			PaletteSpec s = spec(p);
+			assertArrayEquals(s.colors(), colors(store, s));
+			assertTrue(Files.size(file) <= capacity);
+		}
+		assertEquals(n, store.getMisses());
+
+		// The other session picks up the compacted file
+		PaletteSpec last = spec(20 + n);
+		assertArrayEquals(last.channels(), other.channels(last), 0.0);
+		assertEquals(1, other.getHits());
+		assertEquals(store.getEntries(), other.getEntries());
+
+	} // End of Method declaration
+
+	/***
+	 * Checks that palettes are returned without being stored when the file
+	 * cannot be compacted
+	 */
+	@Test
+	public void failedCompactionReturnsPalettes() throws IOException {
+		Path file = this.dir.getRoot().toPath().resolve("blocked.store");
+		long capacity = 4096;
+		PaletteStore store = new PaletteStore(file, capacity);
+
+		// The compacted file cannot be written
+		Files.createDirectories(file.resolveSibling("blocked.store.tmp")
+				.resolve("busy"));
+
+		// Fills the store past its capacity
+		int n = 30;
+		for (int p = 20; p < 20 + n; p++) {
+			PaletteSpec s = spec(p);
+			assertArrayEquals(s.colors(), colors(store, s));
+			assertArrayEquals(s.channels(), store.channels(s), 0.0);
+			assertTrue(Files.size(file) <= capacity);
+		}
+
+		// The palettes stored before the file filled up are still found
+		int entries = store.getEntries();
+		assertTrue(entries > 0 && entries < n);
+		PaletteSpec first = spec(20);
+		long hits = store.getHits();
+		assertArrayEquals(first.colors(), colors(store, first));
+		assertEquals(hits + 1, store.getHits());
+
+	} // End of Method declaration
+
+	/***
+	 * Checks that files that are not stores are rejected
+	 */
+	@Test
+	public void otherFilesAreRejected() throws IOException {
+		Path file = this.dir.getRoot().toPath().resolve("notes.txt");
+		Files.write(file, "Not a palette store, but long enough to have a header."
+				.getBytes(StandardCharsets.UTF_8));
+		try {
+			new PaletteStore(file, PaletteStore.DEFAULT_CAPACITY);
+			fail("Opened " + file);
+		} catch (IOException e) {
+			assertTrue(e.getMessage().endsWith("is not a palette store."));
+		}
+
+		// The file is not modified
+		assertEquals("Not a palette store, but long enough to have a header.",
+				new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+	} // End of Method declaration
+
+} // End of Class declaration
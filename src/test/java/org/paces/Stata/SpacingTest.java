@@ -0,0 +1,157 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests the placement of the colors of a palette with the exact, explicit,
+ * and running spacings.
+ */
+public class SpacingTest {
+
+	/***
+	 * Method used to compile a palette from orange to blue
+	 * @param points The number of colors after the starting color
+	 * @param spacing The spacing of the colors
+	 * @return The compiled palette with points + 1 colors
+	 */
+	private static PaletteSpec spec(int points, Spacing spacing) {
+		return PaletteSpec.builder().inSpace(ColorSpace.RGB)
+				.retSpace(ColorSpace.SRGBA).start("197 115 47")
+				.end("5 37 249").points(points).spacing(spacing).build();
+	}
+
+	/***
+	 * Method used to get the channel values of one color of a palette
+	 * @param channels The channel values of every color
+	 * @param k The index of the color
+	 * @return The red, green, blue, and opacity values of the color
+	 */
+	private static double[] color(double[] channels, int k) {
+		return Arrays.copyOfRange(channels, 4 * k, 4 * k + 4);
+	}
+
+	/***
+	 * Checks that the exact positions start at 0 and end at exactly 1
+	 */
+	@Test
+	public void exactPositionsEndOnAnchors() {
+		assertEquals(0.0, Spacing.exact(0, 1), 0.0);
+		for (int n = 2; n <= 1000; n++) {
+			assertEquals("n = " + n, 0.0, Spacing.exact(0, n), 0.0);
+			assertEquals("n = " + n, 1.0, Spacing.exact(n - 1, n), 0.0);
+			for (int k = 1; k < n; k++) {
+				assertTrue("n = " + n,
+						Spacing.exact(k, n) > Spacing.exact(k - 1, n));
+			}
+		}
+	}
+
+	/***
+	 * Checks that the first and last colors of the exact spacing are the
+	 * starting and ending colors
+	 */
+	@Test
+	public void exactPaletteEndsOnAnchors() {
+		for (int points : new int[]{ 1, 2, 7, 10, 99 }) {
+			PaletteSpec spec = spec(points, Spacing.EXACT);
+			assertFalse(spec.isAnchored());
+			double[] pos = spec.positions();
+			assertEquals(points + 1, pos.length);
+			assertEquals(0.0, pos[0], 0.0);
+			assertEquals(1.0, pos[points], 0.0);
+			double[] channels = spec.channels();
+			assertArrayEquals(ColorTerp.channels(spec.getStart()),
+					color(channels, 0), 0.0);
+			assertArrayEquals(ColorTerp.channels(spec.getEnd()),
+					color(channels, points), 0.0);
+		}
+	}
+
+	/***
+	 * Checks that explicit positions place the colors where they are given
+	 */
+	@Test
+	public void explicitPositionsAreUsed() {
+		double[] at = { 0, 0.1, 0.5, 1 };
+		PaletteSpec spec = PaletteSpec.builder().inSpace(ColorSpace.RGB)
+				.retSpace(ColorSpace.SRGBA).start("197 115 47")
+				.end("5 37 249").points(3).spacing(Spacing.RUNNING).at(at)
+				.build();
+		assertEquals(Spacing.EXPLICIT, spec.getSpacing());
+		assertArrayEquals(at, spec.positions(), 0.0);
+		double[] channels = spec.channels();
+		double[] out = new double[4];
+		TerpEngine engine = spec.engine();
+		for (int k = 0; k < at.length; k++) {
+			engine.interpolate(at[k], out);
+			assertArrayEquals("at " + at[k], out, color(channels, k), 0.0);
+		}
+		assertArrayEquals(ColorTerp.channels(spec.getEnd()),
+				color(channels, 3), 0.0);
+	}
+
+	/***
+	 * Checks that the running spacing returns the starting color followed by
+	 * the colors at the distances of earlier versions
+	 */
+	@Test
+	public void runningPaletteFollowsDistances() {
+		for (int points : new int[]{ 1, 3, 10 }) {
+			PaletteSpec spec = spec(points, Spacing.RUNNING);
+			assertTrue(spec.isAnchored());
+			double[] dists = spec.distances();
+			// ColorTerp interpolates one more color than the points argument
+			String[] args = { "rgb", "srgba", "197 115 47", "5 37 249",
+					String.valueOf(points - 1), "", "false", "false",
+					"spacing=running" };
+			assertArrayEquals(new ColorTerp(args, false).getDists(), dists,
+					0.0);
+			double sum = 0.0;
+			for (int i = 0; i < points && points > 1; i++) {
+				sum = sum + 1.0 / points;
+				assertEquals(sum, dists[i], 0.0);
+				assertEquals(dists[i], spec.distance(i), 0.0);
+			}
+			double[] channels = spec.channels();
+			assertArrayEquals(ColorTerp.channels(spec.getStart()),
+					color(channels, 0), 0.0);
+			double[] out = new double[4];
+			TerpEngine engine = spec.engine();
+			for (int i = 0; i < points; i++) {
+				engine.interpolate(dists[i], out);
+				assertArrayEquals(out, color(channels, i + 1), 0.0);
+			}
+		}
+	}
+
+	/***
+	 * Checks the names accepted by the spacing option
+	 */
+	@Test
+	public void spacingNames() {
+		assertEquals(Spacing.EXACT, Spacing.fromString(""));
+		assertEquals(Spacing.EXACT, Spacing.fromString(" Exact "));
+		assertEquals(Spacing.RUNNING, Spacing.fromString("running"));
+		assertEquals(Spacing.UNIFORM, Spacing.fromString("perceptual"));
+		assertEquals("uniform", Spacing.UNIFORM.toString());
+	}
+
+	/***
+	 * Checks that explicit positions are not a spacing option
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void explicitIsNotASpacingName() {
+		Spacing.fromString("explicit");
+	}
+
+}
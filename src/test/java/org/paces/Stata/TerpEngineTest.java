@@ -0,0 +1,93 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that the channels written by TerpEngine are identical to the
+ * channels of the colors returned by javafx.scene.paint.Color (see
+ * JavaFXReference).
+ */
+public class TerpEngineTest {
+
+	/***
+	 * Checks linear interpolation between two colors, including distances
+	 * outside of [0, 1]
+	 */
+	@Test
+	public void interpolateMatchesJavaFX() {
+		double[] out = new double[4];
+		for (String[] c : JavaFXReference.cases("interpolate")) {
+			TerpEngine engine = new TerpEngine(JavaFXReference.channels(c[0]),
+					JavaFXReference.channels(c[1]));
+			engine.interpolate(Double.parseDouble(c[2]), out);
+			assertArrayEquals(String.join(" | ", c),
+					JavaFXReference.channels(c[3]), out, 0.0);
+		}
+	}
+
+	/***
+	 * Checks the color modifications applied in place
+	 */
+	@Test
+	public void modificationsMatchJavaFX() {
+		TerpEngine engine = new TerpEngine(new double[]{ 0, 0, 0, 1 },
+				new double[]{ 1, 1, 1, 1 });
+		String[] ops = { "brighter", "darker", "saturate", "desaturate",
+				"invert", "grayscale" };
+		for (String op : ops) {
+			for (String[] c : JavaFXReference.cases(op)) {
+				double[] color = JavaFXReference.channels(c[0]);
+				switch (op) {
+					case "brighter": engine.brighter(color); break;
+					case "darker": engine.darker(color); break;
+					case "saturate": engine.saturate(color); break;
+					case "desaturate": engine.desaturate(color); break;
+					case "invert": engine.invert(color); break;
+					default: engine.grayscale(color); break;
+				}
+				assertArrayEquals(op + " " + c[0], JavaFXReference.channels(c[1]),
+						color, 0.0);
+			}
+		}
+	}
+
+	/***
+	 * Checks the conversion from RGB to HSB
+	 */
+	@Test
+	public void rgbToHsbMatchesJavaFX() {
+		double[] hsb = new double[3];
+		for (String[] c : JavaFXReference.cases("hsbof")) {
+			double[] color = JavaFXReference.channels(c[0]);
+			TerpEngine.rgbToHsb(color[0], color[1], color[2], hsb);
+			assertArrayEquals(c[0], JavaFXReference.values(c[1]), hsb, 0.0);
+		}
+	}
+
+	/***
+	 * Checks that a palette of evenly spaced colors written to one reused
+	 * buffer matches the colors interpolated one at a time
+	 */
+	@Test
+	public void reusedBufferMatchesSingleColors() {
+		double[] start = { 0.77254903, 0.4509804, 0.18431373, 1 };
+		double[] end = { 0.019607844, 0.14509805, 0.9764706, 0.5 };
+		TerpEngine engine = new TerpEngine(start, end);
+		double[] out = new double[4];
+		for (int i = 0; i <= 100; i++) {
+			double t = i / 100.0;
+			engine.interpolate(t, out);
+			double[] single = new double[4];
+			new TerpEngine(start, end).interpolate(t, single);
+			assertArrayEquals("t = " + t, single, out, 0.0);
+		}
+		assertEquals(0.5, out[3], 0.0);
+	}
+
+} // End of Class declaration
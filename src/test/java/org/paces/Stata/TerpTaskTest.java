@@ -0,0 +1,53 @@
+package org.paces.stata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/***
+ * @author Billy Buchanan
+ * @version 0.0.1-SNAPSHOT
+ *
+ * Tests that palettes interpolated in parallel are identical to the same
+ * palettes interpolated sequentially.
+ */
+public class TerpTaskTest {
+
+	/***
+	 * Number of points above the default parallel threshold
+	 */
+	private static final int POINTS = 200000;
+
+	/***
+	 * Method used to compile a large palette
+	 * @param spacing The placement of the colors
+	 * @param threshold The parallel threshold
+	 * @return The compiled palette
+	 */
+	private static PaletteSpec spec(Spacing spacing, int threshold) {
+		return PaletteSpec.builder().inSpace(ColorSpace.RGB)
+				.retSpace(ColorSpace.SRGBA).start("197 115 47")
+				.end("5 37 249").stops("247 247 247").terpSpace(TerpSpace.OKLAB)
+				.modifiers(ModifierChain.parse("darker:0.8 invert"))
+				.points(POINTS).spacing(spacing).threshold(threshold).build();
+	}
+
+	/***
+	 * Checks the channel values and formatted colors with the exact and
+	 * running spacings
+	 */
+	@Test
+	public void parallelMatchesSequential() {
+		assertTrue(POINTS > TerpTask.DEFAULT_THRESHOLD);
+		for (Spacing spacing : new Spacing[]{ Spacing.EXACT, Spacing.RUNNING }) {
+			PaletteSpec parallel = spec(spacing, TerpTask.DEFAULT_THRESHOLD);
+			PaletteSpec sequential = spec(spacing, -1);
+			assertArrayEquals(spacing.toString(), sequential.channels(),
+					parallel.channels(), 0.0);
+			assertArrayEquals(spacing.toString(), sequential.colors(),
+					parallel.colors());
+		}
+	}
+
+} // End of Class declaration